@@ -0,0 +1,57 @@
+package com.pharmaease.config;
+
+import com.pharmaease.service.CatalogImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports a catalogue file from the command line, then exits:
+ * {@code java -jar pharmaease.jar --pharmaease.import.file=catalog.csv --spring.main.web-application-type=none}.
+ * The exit code is 0 if every row was imported and 2 if some were rejected.
+ * Set {@code pharmaease.import.exit=false} to keep the application running afterwards.
+ */
+@Component
+@ConditionalOnProperty("pharmaease.import.file")
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private final CatalogImportService importService;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final boolean exit;
+
+    public CatalogImportRunner(CatalogImportService importService,
+                               ConfigurableApplicationContext context,
+                               @Value("${pharmaease.import.file}") String file,
+                               @Value("${pharmaease.import.exit:true}") boolean exit) {
+        this.importService = importService;
+        this.context = context;
+        this.file = Path.of(file);
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        CatalogImportService.ImportReport report;
+        try (InputStream in = Files.newInputStream(file)) {
+            report = importService.importCatalog(in, CatalogImportService.Format.of(file.getFileName().toString()));
+        }
+        report.errors().forEach(error -> System.err.println("❌ Line " + error.line() + ": " + error.message()));
+        if (report.errors().size() < report.failed()) {
+            System.err.println("❌ ... and " + (report.failed() - report.errors().size()) + " more");
+        }
+
+        if (exit) {
+            int code = report.failed() == 0 ? 0 : 2;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pharmaease.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with three: the primary ({@code spring.datasource.*}), a
+ * small pool on the primary reserved for checkout, and an optional read replica
+ * ({@code pharmaease.datasource.replica.url}). {@link RoutingDataSource} picks one per transaction.
+ * <p>
+ * Only the lazy proxy in front of the router is a candidate for injection; the pools and the router
+ * are reached by name. With virtual threads on, each pool is put behind a {@link BoundedDataSource}
+ * of its own size.
+ * <p>
+ * Hibernate gives its connection back at the end of every transaction instead of holding it until the
+ * session closes. With open-in-view the session lives as long as the request, so otherwise the first
+ * transaction of a request would pick the pool for all that follow: a sale after a read-only lookup
+ * would be written on the replica, and one after any other read would bypass the checkout pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pharmaease.datasource.routing.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceRoutingConfig {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean(defaultCandidate = false)
+    public HikariDataSource checkoutPool(DataSourceProperties properties,
+                                         @Value("${pharmaease.datasource.checkout.maximum-pool-size:2}") int size) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("checkout");
+        pool.setMaximumPoolSize(size);
+        pool.setMinimumIdle(size);
+        return pool;
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConditionalOnProperty("pharmaease.datasource.replica.url")
+    @ConfigurationProperties("pharmaease.datasource.replica.hikari")
+    public HikariDataSource replicaPool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica");
+        pool.setJdbcUrl(environment.getRequiredProperty("pharmaease.datasource.replica.url"));
+        pool.setUsername(environment.getProperty("pharmaease.datasource.replica.username", properties.determineUsername()));
+        pool.setPassword(environment.getProperty("pharmaease.datasource.replica.password", properties.determinePassword()));
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean(defaultCandidate = false)
+    public RoutingDataSource routingDataSource(
+            @Qualifier("primaryPool") HikariDataSource primaryPool,
+            @Qualifier("checkoutPool") HikariDataSource checkoutPool,
+            @Qualifier("replicaPool") ObjectProvider<HikariDataSource> replicaPool,
+            @Value("${pharmaease.datasource.checkout.transactions:OrderService.createOrder,OrderService.completeOrder,OrderService.cancelOrder}")
+            String[] checkoutTransactions,
+            @Value("${pharmaease.datasource.replica.max-lag-ms:5000}") long maxReplicaLagMillis,
+            @Value("${pharmaease.datasource.bounded:${spring.threads.virtual.enabled:false}}") boolean bounded) {
+        HikariDataSource replica = replicaPool.getIfAvailable();
+        if (!bounded) {
+            return new RoutingDataSource(primaryPool, checkoutPool, replica,
+                    List.of(checkoutTransactions), Duration.ofMillis(maxReplicaLagMillis));
+        }
+        return new RoutingDataSource(bound(primaryPool), bound(checkoutPool), replica != null ? bound(replica) : null,
+                List.of(checkoutTransactions), Duration.ofMillis(maxReplicaLagMillis));
+    }
+
+    private static BoundedDataSource bound(HikariDataSource pool) {
+        return new BoundedDataSource(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("routingDataSource") RoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty("pharmaease.datasource.replica.url")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaPool") HikariDataSource replicaPool,
+                                               @Qualifier("routingDataSource") RoutingDataSource routingDataSource,
+                                               @Value("${pharmaease.datasource.replica.lag-query:}") String lagQuery) {
+        return new ReplicaLagMonitor(replicaPool, routingDataSource, lagQuery);
+    }
+}
@@ -0,0 +1,46 @@
+package com.pharmaease.config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Measures how far the replica is behind the primary and tells the {@link RoutingDataSource}, which
+ * moves read-only transactions to the primary while the replica is too stale or cannot be reached.
+ */
+public class ReplicaLagMonitor {
+
+    // Seconds since the last replayed transaction, or 0 when everything received has been replayed
+    // (an idle primary would otherwise look like growing lag) or the server is not a standby at all
+    static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final JdbcTemplate replica;
+    private final RoutingDataSource routingDataSource;
+    private final String lagQuery;
+
+    /**
+     * @param lagQuery returns the replica's lag in seconds; blank for the PostgreSQL standby query
+     */
+    public ReplicaLagMonitor(DataSource replica, RoutingDataSource routingDataSource, String lagQuery) {
+        this.replica = new JdbcTemplate(replica);
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? POSTGRES_LAG_QUERY : lagQuery;
+    }
+
+    @Scheduled(fixedDelayString = "${pharmaease.datasource.replica.lag-check-ms:5000}")
+    public void check() {
+        Duration lag;
+        try {
+            Number seconds = replica.queryForObject(lagQuery, Number.class);
+            lag = seconds != null ? Duration.ofMillis(Math.round(seconds.doubleValue() * 1000)) : null;
+        } catch (DataAccessException e) {
+            lag = null;
+        }
+        routingDataSource.recordReplicaLag(lag);
+    }
+}
@@ -0,0 +1,91 @@
+package com.pharmaease.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks a connection pool per transaction. Read-only transactions go to the replica while it is fresh
+ * enough, checkout transactions to a small pool of their own on the primary so that reports can never
+ * take the connections a sale needs, and everything else (including work outside a transaction) to
+ * the primary.
+ * <p>
+ * Meant to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the pool is then picked at the first statement, once the transaction's read-only flag and name are
+ * known.
+ */
+public final class RoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, CHECKOUT, REPLICA
+    }
+
+    private final boolean hasReplica;
+    private final Set<String> checkoutTransactions;
+    private final Duration maxReplicaLag;
+    private volatile boolean replicaFresh = true;
+
+    /**
+     * @param checkout             pool for checkout transactions, or {@code null} to use the primary
+     * @param replica              read-only pool, or {@code null} to read from the primary
+     * @param checkoutTransactions transactions that use the checkout pool, as {@code Class.method}
+     * @param maxReplicaLag        how far the replica may be behind before reads go to the primary
+     */
+    public RoutingDataSource(DataSource primary, DataSource checkout, DataSource replica,
+                             Collection<String> checkoutTransactions, Duration maxReplicaLag) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.CHECKOUT, checkout != null ? checkout : primary);
+        targets.put(Route.REPLICA, replica != null ? replica : primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.hasReplica = replica != null;
+        this.checkoutTransactions = Set.copyOf(checkoutTransactions);
+        this.maxReplicaLag = maxReplicaLag;
+    }
+
+    public Route route() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return hasReplica && replicaFresh ? Route.REPLICA : Route.PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && checkoutTransactions.contains(shortName(name)) ? Route.CHECKOUT : Route.PRIMARY;
+    }
+
+    /**
+     * Records how far the replica is behind; {@code null} means it could not be checked. Reads move to
+     * the primary while the lag is above the limit and come back once it has caught up.
+     */
+    public void recordReplicaLag(Duration lag) {
+        boolean fresh = lag != null && lag.compareTo(maxReplicaLag) <= 0;
+        if (fresh != replicaFresh) {
+            if (fresh) {
+                System.out.println("✅ Replica caught up, read-only transactions use it again");
+            } else {
+                System.err.println("⚠️ Replica is " + (lag != null ? lag.toMillis() + " ms behind" : "unreachable") +
+                        ", read-only transactions use the primary");
+            }
+        }
+        replicaFresh = fresh;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route();
+    }
+
+    // Transaction names are the fully qualified method, e.g. com.pharmaease.service.OrderService.createOrder
+    private static String shortName(String transactionName) {
+        int method = transactionName.lastIndexOf('.');
+        int type = method > 0 ? transactionName.lastIndexOf('.', method - 1) : -1;
+        return transactionName.substring(type + 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.pharmaease.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on the background jobs (reservation sweeper, idempotency key purge, dashboard refresh).
+ * Kept out of the application class so test slices do not start them.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,171 @@
+package com.pharmaease.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned scripts in {@code db/migration} ({@code V<version>__<description>.sql}) that
+ * the database has not seen yet, in version order and each in its own transaction, and records them in
+ * {@code schema_history}. It runs before the entity manager factory, which then only validates the
+ * schema against the entities.
+ * <p>
+ * A database created by the old {@code ddl-auto=update} (tables present, no history yet) is recorded at
+ * V1 without running it. A script whose checksum changed after it was applied stops the startup.
+ * The scripts are written for PostgreSQL; on any other database nothing is done.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    // Held for the whole run, so of several instances starting together only one migrates
+    private static final long LOCK_KEY = 7_410_021L;
+
+    private final DataSource dataSource;
+
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor schemaMigratorBeforeEntityManager() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        try (Connection c = dataSource.getConnection()) {
+            if (!"PostgreSQL".equalsIgnoreCase(c.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+
+            List<Script> scripts = scripts();
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(true);
+            execute(c, "SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            try {
+                migrate(c, scripts);
+            } finally {
+                execute(c, "SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                c.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void migrate(Connection c, List<Script> scripts) throws SQLException {
+        execute(c, "CREATE TABLE IF NOT EXISTS schema_history (" +
+                "version INTEGER PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "checksum BIGINT NOT NULL, " +
+                "installed_on TIMESTAMP NOT NULL DEFAULT now())");
+
+        Map<Integer, Long> applied = applied(c);
+        if (applied.isEmpty() && !scripts.isEmpty() && scripts.get(0).version() == 1 && tableExists(c, "medicines")) {
+            record(c, scripts.get(0));
+            applied.put(1, scripts.get(0).checksum());
+            System.out.println("🗄️ Existing schema recorded as " + scripts.get(0).name());
+        }
+
+        for (Script script : scripts) {
+            Long checksum = applied.get(script.version());
+            if (checksum != null) {
+                if (checksum != script.checksum()) {
+                    throw new IllegalStateException("Migration " + script.name() + " was changed after it was applied");
+                }
+                continue;
+            }
+
+            c.setAutoCommit(false);
+            try {
+                execute(c, script.sql());
+                record(c, script);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw new IllegalStateException("Migration " + script.name() + " failed: " + e.getMessage(), e);
+            } finally {
+                c.setAutoCommit(true);
+            }
+            System.out.println("🗄️ Applied migration " + script.name());
+        }
+    }
+
+    private static List<Script> scripts() throws IOException {
+        List<Script> scripts = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:db/migration/V*__*.sql")) {
+            Matcher name = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!name.matches()) {
+                throw new IllegalStateException("Not a migration script name: " + resource.getFilename());
+            }
+            String sql = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            scripts.add(new Script(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '), sql, crc.getValue()));
+        }
+        scripts.sort(Comparator.comparingInt(Script::version));
+        return scripts;
+    }
+
+    private static Map<Integer, Long> applied(Connection c) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean tableExists(Connection c, String table) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void record(Connection c, Script script) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO schema_history (version, description, checksum) VALUES (?, ?, ?)")) {
+            ps.setInt(1, script.version());
+            ps.setString(2, script.description());
+            ps.setLong(3, script.checksum());
+            ps.executeUpdate();
+        }
+    }
+
+    private static void execute(Connection c, String sql) throws SQLException {
+        // The PostgreSQL driver runs a whole multi-statement script in one call
+        try (Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private record Script(int version, String description, String sql, long checksum) {
+
+        String name() {
+            return "V" + version + " (" + description + ")";
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.pharmaease.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -23,6 +24,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for simplicity (enable in production)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/login", "/register", "/css/**", "/js/**", "/images/**").permitAll()
+                        // Admin commands rewrite derived tables and inventory rows; imports overwrite the catalog
+                        .requestMatchers(HttpMethod.POST, "/api/dashboard/rollup/rebuild", "/api/inventory/rebuild",
+                                "/api/inventory/reconcile").hasRole("ADMIN")
+                        .requestMatchers("/api/import/**").hasRole("ADMIN")
+                        // Exports list every sale with its customer, which the pages only show after login
+                        .requestMatchers("/api/export/**").authenticated()
                         .requestMatchers("/api/**").permitAll() // For API endpoints
                         .anyRequest().authenticated()
                 )
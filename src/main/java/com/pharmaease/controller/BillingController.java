@@ -3,6 +3,7 @@ package com.pharmaease.controller;
 import com.pharmaease.model.*;
 import com.pharmaease.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -10,9 +11,11 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/billing")
@@ -24,11 +27,13 @@ public class BillingController {
     private final MedicineService medicineService;
     private final PharmacistService pharmacistService;
     private final BillingService billingService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
     public String billingPage(Model model) {
-        model.addAttribute("customers", customerService.getActiveCustomers());
-        model.addAttribute("medicines", medicineService.getActiveMedicines());
+        // Medicines and customers are looked up on demand through /billing/lookup
+        // One key per rendered form: a resubmit of the same form replays the sale instead of repeating it
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "billing";
     }
 
@@ -36,6 +41,7 @@ public class BillingController {
     public String createOrder(@RequestParam(required = false) String customerId,
                               @RequestParam(required = false) String paymentMethod,
                               @RequestParam(required = false, defaultValue = "0") BigDecimal discount,
+                              @RequestParam(required = false) String idempotencyKey,
                               @RequestParam Map<String, String> allParams,
                               Authentication authentication,
                               RedirectAttributes redirectAttributes) {
@@ -131,7 +137,7 @@ public class BillingController {
             order.setPaid(true);
             
             // Create order - will auto-generate invoice and update inventory
-            Orders createdOrder = orderService.createOrder(order);
+            Orders createdOrder = idempotencyService.createOrder(order, idempotencyKey);
             
             System.out.println("✅ Order created successfully: " + createdOrder.getOrderNumber());
             System.out.println("Order ID: " + createdOrder.getId());
@@ -214,8 +220,15 @@ public class BillingController {
     }
 
     @GetMapping("/invoices")
-    public String listInvoices(Model model) {
-        model.addAttribute("invoices", billingService.getAllInvoices());
+    public String listInvoices(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam(required = false) String cursor,
+                               Model model) {
+        CursorPage<Invoice> page = billingService.findInvoices(from, to, cursor, null);
+        model.addAttribute("invoices", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
         return "invoices";
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.pharmaease.controller;
+
+import com.pharmaease.repository.CustomerRepository;
+import com.pharmaease.service.BillingLookupService;
+import com.pharmaease.service.MedicineSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Typeahead lookups for the billing page. Kept out of /api so that customer details stay behind login.
+ */
+@RestController
+@RequestMapping("/billing/lookup")
+@RequiredArgsConstructor
+public class BillingLookupController {
+
+    private final BillingLookupService billingLookupService;
+
+    @GetMapping("/medicines")
+    public ResponseEntity<List<MedicineSearchIndex.Suggestion>> findMedicines(@RequestParam("q") String query,
+                                                                              @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(billingLookupService.findMedicines(query, limit));
+    }
+
+    @GetMapping("/medicines/{id}")
+    public ResponseEntity<BillingLookupService.SkuSnapshot> getSnapshot(@PathVariable Long id) {
+        BillingLookupService.SkuSnapshot snapshot = billingLookupService.getSnapshot(id);
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/customers")
+    public ResponseEntity<List<CustomerRepository.CustomerSummary>> findCustomers(@RequestParam(name = "q", defaultValue = "") String query,
+                                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                                  @RequestParam(defaultValue = "10") int size) {
+        Slice<CustomerRepository.CustomerSummary> customers = billingLookupService.findCustomers(query, page, size);
+        return ResponseEntity.ok()
+                .header("X-Has-Next", String.valueOf(customers.hasNext()))
+                .body(customers.getContent());
+    }
+}
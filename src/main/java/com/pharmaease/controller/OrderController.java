@@ -4,6 +4,7 @@ import com.pharmaease.model.Orders;
 import com.pharmaease.model.OrderItem;
 import com.pharmaease.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,39 +28,35 @@ public class OrderController {
 
     @GetMapping
     @Transactional(readOnly = true)
-    public String listOrders(@RequestParam(required = false) String status, Model model) {
+    public String listOrders(@RequestParam(required = false) String status,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             @RequestParam(required = false) Long customerId,
+                             @RequestParam(required = false) String cursor,
+                             Model model) {
         try {
-            System.out.println("🔄 Loading orders page - fetching fresh orders from database");
-            List<Orders> orders = orderService.getAllOrders();
-            System.out.println("📋 Orders page - Total orders fetched: " + orders.size());
-            
+            Orders.OrderStatus orderStatus = null;
             if (status != null && !status.isEmpty()) {
                 try {
-                    Orders.OrderStatus orderStatus = Orders.OrderStatus.valueOf(status.toUpperCase());
-                    orders = orders.stream()
-                            .filter(o -> o.getStatus() == orderStatus)
-                            .collect(java.util.stream.Collectors.toList());
-                    System.out.println("📋 Filtered by " + status + ": " + orders.size() + " orders");
+                    orderStatus = Orders.OrderStatus.valueOf(status.toUpperCase());
                 } catch (IllegalArgumentException e) {
                     // Keep all orders if invalid status
                 }
             }
-            
-            // Sort by most recent first
-            orders.sort((o1, o2) -> {
-                if (o1.getCreatedAt() == null) return 1;
-                if (o2.getCreatedAt() == null) return -1;
-                return o2.getCreatedAt().compareTo(o1.getCreatedAt());
-            });
-            
-            // Log order details
-            System.out.println("📋 Total orders to display: " + orders.size());
-            orders.forEach(o -> System.out.println("  - Order #" + o.getOrderNumber() + " | Status: " + o.getStatus() + " | Amount: ₹" + o.getTotalAmount() + " | Date: " + o.getCreatedAt()));
-            
-            model.addAttribute("orders", orders);
-            System.out.println("✅ Orders page loaded successfully");
+
+            // Filtered, ordered and paged by the database; only one page of orders is loaded
+            OrderService.OrderFilter filter = new OrderService.OrderFilter(orderStatus, from, to, customerId);
+            CursorPage<Orders> page = orderService.findOrders(filter, cursor, null);
+            System.out.println("📋 Orders page - " + page.items().size() + " orders" + (orderStatus != null ? " (" + orderStatus + ")" : ""));
+
+            model.addAttribute("orders", page.items());
+            model.addAttribute("nextCursor", page.nextCursor());
+            model.addAttribute("status", orderStatus != null ? orderStatus.name() : null);
+            model.addAttribute("from", from);
+            model.addAttribute("to", to);
+            model.addAttribute("customerId", customerId);
             return "orders";
-            
+
         } catch (Exception e) {
             e.printStackTrace();
             model.addAttribute("error", "Error loading orders: " + e.getMessage());
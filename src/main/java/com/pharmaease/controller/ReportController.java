@@ -2,8 +2,10 @@ package com.pharmaease.controller;
 
 import com.pharmaease.model.Pharmacist;
 import com.pharmaease.model.Report;
+import com.pharmaease.service.CursorPage;
 import com.pharmaease.service.InventoryService;
 import com.pharmaease.service.PharmacistService;
+import com.pharmaease.service.ReportJobService;
 import com.pharmaease.service.ReportService;
 import com.pharmaease.service.StockBatchService;
 import lombok.RequiredArgsConstructor;
@@ -22,13 +24,23 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
     private final PharmacistService pharmacistService;
     private final InventoryService inventoryService;
     private final StockBatchService batchService;
 
     @GetMapping
-    public String reportsPage(Model model) {
-        model.addAttribute("reports", reportService.getAllReports());
+    public String reportsPage(@RequestParam(required = false) Report.ReportType type,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              @RequestParam(required = false) String cursor,
+                              Model model) {
+        CursorPage<Report> page = reportService.findReports(type, from, to, cursor, null);
+        model.addAttribute("reports", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("type", type);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
         return "reports";
     }
 
@@ -49,10 +61,9 @@ public class ReportController {
             Pharmacist pharmacist = pharmacistService.getPharmacistByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
-            Report report = reportService.generateSalesReport(
-                    startDate, endDate, Report.ReportType.valueOf(reportType), pharmacist);
+            Report report = reportJobService.submit(Report.ReportType.valueOf(reportType), startDate, endDate, pharmacist);
 
-            redirectAttributes.addFlashAttribute("success", "Sales report generated successfully");
+            redirectAttributes.addFlashAttribute("success", "Sales report queued");
             return "redirect:/reports/view/" + report.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -68,9 +79,9 @@ public class ReportController {
             Pharmacist pharmacist = pharmacistService.getPharmacistByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
-            Report report = reportService.generateInventoryReport(pharmacist);
+            Report report = reportJobService.submit(Report.ReportType.INVENTORY, null, null, pharmacist);
 
-            redirectAttributes.addFlashAttribute("success", "Inventory report generated successfully");
+            redirectAttributes.addFlashAttribute("success", "Inventory report queued");
             return "redirect:/reports/view/" + report.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -86,9 +97,9 @@ public class ReportController {
             Pharmacist pharmacist = pharmacistService.getPharmacistByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
-            Report report = reportService.generateLowStockReport(pharmacist);
+            Report report = reportJobService.submit(Report.ReportType.LOW_STOCK, null, null, pharmacist);
 
-            redirectAttributes.addFlashAttribute("success", "Low stock report generated successfully");
+            redirectAttributes.addFlashAttribute("success", "Low stock report queued");
             return "redirect:/reports/view/" + report.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -105,9 +116,10 @@ public class ReportController {
             Pharmacist pharmacist = pharmacistService.getPharmacistByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
-            Report report = reportService.generateExpiringStockReport(daysAhead, pharmacist);
+            Report report = reportJobService.submit(Report.ReportType.EXPIRING_STOCK, null,
+                    LocalDate.now().plusDays(daysAhead), pharmacist);
 
-            redirectAttributes.addFlashAttribute("success", "Expiring stock report generated successfully");
+            redirectAttributes.addFlashAttribute("success", "Expiring stock report queued");
             return "redirect:/reports/view/" + report.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -120,7 +132,10 @@ public class ReportController {
         Report report = reportService.getReportById(id);
         model.addAttribute("report", report);
 
-        // Add additional data based on report type
+        // Add additional data based on report type, once the report is done
+        if (report.getStatus() != Report.Status.COMPLETED) {
+            return "report-details";
+        }
         if (report.getReportType() == Report.ReportType.LOW_STOCK) {
             model.addAttribute("lowStockItems", inventoryService.getLowStockItems());
         } else if (report.getReportType() == Report.ReportType.EXPIRING_STOCK) {
@@ -0,0 +1,30 @@
+package com.pharmaease.controller.api;
+
+import com.pharmaease.service.CatalogImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CatalogImportRestController {
+
+    private final CatalogImportService importService;
+
+    /**
+     * Imports the request body as it arrives, so the file is never held in memory or capped by the
+     * multipart limits, e.g. {@code curl --data-binary @catalog.csv -H 'Content-Type: text/csv' /api/import/catalog}.
+     * Send JSON Lines with {@code format=jsonl} or an {@code application/x-ndjson} content type.
+     */
+    @PostMapping("/catalog")
+    public ResponseEntity<CatalogImportService.ImportReport> importCatalog(@RequestParam(required = false) String format,
+                                                                           HttpServletRequest request) throws IOException {
+        String hint = format != null ? format : request.getContentType();
+        return ResponseEntity.ok(importService.importCatalog(request.getInputStream(), CatalogImportService.Format.of(hint)));
+    }
+}
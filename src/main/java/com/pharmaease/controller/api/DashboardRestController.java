@@ -1,10 +1,17 @@
     package com.pharmaease.controller.api;
 
+    import com.pharmaease.service.DashboardStreamService;
+    import com.pharmaease.service.ReferenceCache;
+    import com.pharmaease.service.ReferenceDataCache;
     import com.pharmaease.service.ReportService;
+    import com.pharmaease.service.SalesRollupService;
     import lombok.RequiredArgsConstructor;
+    import org.springframework.http.MediaType;
     import org.springframework.http.ResponseEntity;
     import org.springframework.web.bind.annotation.*;
+    import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+    import java.util.List;
     import java.util.Map;
 
     @RestController
@@ -14,9 +21,30 @@
     public class DashboardRestController {
 
         private final ReportService reportService;
+        private final SalesRollupService salesRollupService;
+        private final DashboardStreamService dashboardStreamService;
+        private final ReferenceDataCache referenceDataCache;
 
         @GetMapping("/statistics")
         public ResponseEntity<Map<String, Object>> getDashboardStatistics() {
             return ResponseEntity.ok(reportService.getDashboardStatistics());
         }
+
+        // Live stat changes for open dashboards (Server-Sent Events, event name "stats")
+        @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public SseEmitter stream() {
+            return dashboardStreamService.subscribe();
+        }
+
+        // Size and hit rate of each reference data cache
+        @GetMapping("/cache-stats")
+        public ResponseEntity<List<ReferenceCache.Stats>> getCacheStats() {
+            return ResponseEntity.ok(referenceDataCache.stats());
+        }
+
+        // Admin command: recompute sales_daily_rollup from the orders table
+        @PostMapping("/rollup/rebuild")
+        public ResponseEntity<Map<String, Object>> rebuildSalesRollup() {
+            return ResponseEntity.ok(Map.of("rows", salesRollupService.rebuild()));
+        }
     }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.pharmaease.controller.api;
+
+import com.pharmaease.service.CsvExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportRestController {
+
+    private static final int GZIP_BUFFER = 64 * 1024;
+
+    private final CsvExportService csvExportService;
+
+    // CSV downloads, written to the response as they are read; gzip=true sends a .csv.gz instead
+    @GetMapping("/order-lines")
+    public void exportOrderLines(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                 HttpServletResponse response) throws IOException {
+        try (OutputStream out = open(response, "order-lines-" + from + "-to-" + to, gzip)) {
+            csvExportService.exportOrderLines(from, to, out);
+        }
+    }
+
+    @GetMapping("/invoices")
+    public void exportInvoices(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               HttpServletResponse response) throws IOException {
+        try (OutputStream out = open(response, "invoices-" + from + "-to-" + to, gzip)) {
+            csvExportService.exportInvoices(from, to, out);
+        }
+    }
+
+    @GetMapping("/stock-valuation")
+    public void exportStockValuation(@RequestParam(defaultValue = "false") boolean gzip,
+                                     HttpServletResponse response) throws IOException {
+        try (OutputStream out = open(response, "stock-valuation-" + LocalDate.now(), gzip)) {
+            csvExportService.exportStockValuation(out);
+        }
+    }
+
+    private OutputStream open(HttpServletResponse response, String name, boolean gzip) throws IOException {
+        String file = name + (gzip ? ".csv.gz" : ".csv");
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file + "\"");
+        return gzip ? new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER) : response.getOutputStream();
+    }
+}
@@ -1,11 +1,20 @@
 package com.pharmaease.controller.api;
 
-import com.pharmaease.model.Inventory;
+import com.pharmaease.repository.InventoryView;
+import com.pharmaease.repository.StockLevel;
+import com.pharmaease.repository.StockMovementView;
+import com.pharmaease.service.CursorPage;
+import com.pharmaease.service.InventoryReconciler;
 import com.pharmaease.service.InventoryService;
+import com.pharmaease.service.StockConflictMetrics;
+import com.pharmaease.service.StockLedgerService;
+import com.pharmaease.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,24 +24,64 @@ import java.util.List;
 public class InventoryRestController {
 
     private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final StockConflictMetrics stockConflictMetrics;
+    private final StockLedgerService stockLedgerService;
+    private final InventoryReconciler inventoryReconciler;
 
     @GetMapping
-    public ResponseEntity<List<Inventory>> getAllInventory() {
-        return ResponseEntity.ok(inventoryService.getAllInventory());
+    public ResponseEntity<CursorPage<InventoryView>> getInventory(@RequestParam(required = false) Boolean lowStock,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(inventoryService.findInventory(lowStock, cursor, size).map(InventoryView::from));
     }
 
     @GetMapping("/low-stock")
-    public ResponseEntity<List<Inventory>> getLowStockItems() {
-        return ResponseEntity.ok(inventoryService.getLowStockItems());
+    public ResponseEntity<List<InventoryView>> getLowStockItems() {
+        return ResponseEntity.ok(inventoryService.getLowStockViews());
     }
 
     @GetMapping("/out-of-stock")
-    public ResponseEntity<List<Inventory>> getOutOfStockItems() {
-        return ResponseEntity.ok(inventoryService.getOutOfStockItems());
+    public ResponseEntity<List<InventoryView>> getOutOfStockItems() {
+        return ResponseEntity.ok(inventoryService.getOutOfStockViews());
     }
 
     @GetMapping("/count/low-stock")
     public ResponseEntity<Long> getLowStockCount() {
         return ResponseEntity.ok(inventoryService.getLowStockCount());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/reservations")
+    public ResponseEntity<List<StockReservationService.ReservedStock>> getReservedStock() {
+        return ResponseEntity.ok(stockReservationService.getReservedStock());
+    }
+
+    @GetMapping("/conflicts")
+    public ResponseEntity<StockConflictMetrics.Stats> getConflicts() {
+        return ResponseEntity.ok(stockConflictMetrics.stats());
+    }
+
+    @GetMapping("/{medicineId}/movements")
+    public ResponseEntity<List<StockMovementView>> getMovements(@PathVariable Long medicineId,
+                                                                @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(stockLedgerService.getMovements(medicineId, limit));
+    }
+
+    @GetMapping("/{medicineId}/stock-at")
+    public ResponseEntity<StockLevel> getStockAt(@PathVariable Long medicineId,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockLedgerService.getStockAt(medicineId, at));
+    }
+
+    // Admin command: correct inventory rows that have drifted from the stock ledger
+    @PostMapping("/rebuild")
+    public ResponseEntity<StockLedgerService.Rebuild> rebuildFromLedger() {
+        return ResponseEntity.ok(stockLedgerService.rebuild());
+    }
+
+    // Admin command: compare inventory with the batches, and with apply=true correct what drifted
+    @PostMapping("/reconcile")
+    public ResponseEntity<InventoryReconciler.Report> reconcile(@RequestParam(defaultValue = "false") boolean apply) {
+        return ResponseEntity.ok(inventoryReconciler.reconcile(apply));
+    }
+}
@@ -1,6 +1,9 @@
 package com.pharmaease.controller.api;
 
 import com.pharmaease.model.Medicine;
+import com.pharmaease.repository.MedicineView;
+import com.pharmaease.service.CursorPage;
+import com.pharmaease.service.MedicineSearchIndex;
 import com.pharmaease.service.MedicineService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,28 +20,39 @@ public class MedicineRestController {
     private final MedicineService medicineService;
 
     @GetMapping
-    public ResponseEntity<List<Medicine>> getAllMedicines() {
-        return ResponseEntity.ok(medicineService.getAllMedicines());
+    public ResponseEntity<CursorPage<MedicineView>> getMedicines(@RequestParam(required = false) Boolean active,
+                                                             @RequestParam(required = false) String category,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(medicineService.findMedicines(active, category, cursor, size).map(MedicineView::from));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Medicine> getMedicineById(@PathVariable Long id) {
-        return ResponseEntity.ok(medicineService.getMedicineById(id));
+    public ResponseEntity<MedicineView> getMedicineById(@PathVariable Long id) {
+        return ResponseEntity.ok(medicineService.getMedicineView(id));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Medicine>> searchMedicines(@RequestParam String keyword) {
-        return ResponseEntity.ok(medicineService.searchMedicines(keyword));
+    public ResponseEntity<List<MedicineView>> searchMedicines(@RequestParam String keyword) {
+        return ResponseEntity.ok(medicineService.searchMedicineViews(keyword));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MedicineSearchIndex.Suggestion>> suggestMedicines(@RequestParam("q") String query,
+                                                                                 @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(medicineService.suggestMedicines(query, Math.min(Math.max(limit, 1), 50)));
     }
 
     @PostMapping
-    public ResponseEntity<Medicine> createMedicine(@RequestBody Medicine medicine) {
-        return ResponseEntity.ok(medicineService.createMedicine(medicine));
+    public ResponseEntity<MedicineView> createMedicine(@RequestBody Medicine medicine) {
+        Medicine saved = medicineService.createMedicine(medicine);
+        return ResponseEntity.ok(medicineService.getMedicineView(saved.getId()));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Medicine> updateMedicine(@PathVariable Long id, @RequestBody Medicine medicine) {
-        return ResponseEntity.ok(medicineService.updateMedicine(id, medicine));
+    public ResponseEntity<MedicineView> updateMedicine(@PathVariable Long id, @RequestBody Medicine medicine) {
+        medicineService.updateMedicine(id, medicine);
+        return ResponseEntity.ok(medicineService.getMedicineView(id));
     }
 
     @DeleteMapping("/{id}")
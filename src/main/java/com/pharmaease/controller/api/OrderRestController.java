@@ -1,13 +1,21 @@
 package com.pharmaease.controller.api;
 
 import com.pharmaease.model.Orders;
+import com.pharmaease.repository.OrderView;
+import com.pharmaease.service.CursorPage;
+import com.pharmaease.service.IdempotencyKeyMismatchException;
+import com.pharmaease.service.IdempotencyService;
+import com.pharmaease.service.InsufficientStockException;
 import com.pharmaease.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -16,40 +24,66 @@ import java.util.List;
 public class OrderRestController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
-    public ResponseEntity<List<Orders>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<CursorPage<OrderView>> getOrders(
+            @RequestParam(required = false) Orders.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        OrderService.OrderFilter filter = new OrderService.OrderFilter(status, from, to, customerId);
+        return ResponseEntity.ok(orderService.findOrders(filter, cursor, size).map(OrderView::from));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Orders> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<OrderService.OrderDetail> getOrderById(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderDetail(id));
     }
 
     @GetMapping("/number/{orderNumber}")
-    public ResponseEntity<Orders> getOrderByNumber(@PathVariable String orderNumber) {
-        return ResponseEntity.ok(orderService.getOrderByNumber(orderNumber));
+    public ResponseEntity<OrderService.OrderDetail> getOrderByNumber(@PathVariable String orderNumber) {
+        return ResponseEntity.ok(orderService.getOrderDetailByNumber(orderNumber));
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Orders>> getOrdersByStatus(@PathVariable String status) {
+    public ResponseEntity<CursorPage<OrderView>> getOrdersByStatus(@PathVariable String status,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer size) {
         Orders.OrderStatus orderStatus = Orders.OrderStatus.valueOf(status.toUpperCase());
-        return ResponseEntity.ok(orderService.getOrdersByStatus(orderStatus));
+        OrderService.OrderFilter filter = new OrderService.OrderFilter(orderStatus, null, null, null);
+        return ResponseEntity.ok(orderService.findOrders(filter, cursor, size).map(OrderView::from));
     }
 
     @PostMapping
-    public ResponseEntity<Orders> createOrder(@RequestBody Orders order) {
-        return ResponseEntity.ok(orderService.createOrder(order));
+    public ResponseEntity<OrderService.OrderDetail> createOrder(@RequestBody Orders order,
+                                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Orders created = idempotencyService.createOrder(order, idempotencyKey);
+        return ResponseEntity.ok(orderService.getOrderDetailFromPrimary(created.getId()));
     }
 
     @PostMapping("/{id}/complete")
-    public ResponseEntity<Orders> completeOrder(@PathVariable Long id, @RequestParam BigDecimal amountPaid) {
-        return ResponseEntity.ok(orderService.completeOrder(id, amountPaid));
+    public ResponseEntity<OrderService.OrderDetail> completeOrder(@PathVariable Long id, @RequestParam BigDecimal amountPaid) {
+        orderService.completeOrder(id, amountPaid);
+        return ResponseEntity.ok(orderService.getOrderDetailFromPrimary(id));
     }
 
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<Orders> cancelOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.cancelOrder(id));
+    public ResponseEntity<OrderService.OrderDetail> cancelOrder(@PathVariable Long id) {
+        orderService.cancelOrder(id);
+        return ResponseEntity.ok(orderService.getOrderDetailFromPrimary(id));
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientStock(InsufficientStockException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(), "shortfalls", e.getShortfalls()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
     }
 }
\ No newline at end of file
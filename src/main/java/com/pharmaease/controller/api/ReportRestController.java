@@ -0,0 +1,43 @@
+package com.pharmaease.controller.api;
+
+import com.pharmaease.model.Report;
+import com.pharmaease.service.ReportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReportRestController {
+
+    private final ReportJobService reportJobService;
+
+    // Queues a report job (or joins the identical one already queued or running)
+    @PostMapping
+    public ResponseEntity<ReportJobService.JobStatus> submitReport(
+            @RequestParam Report.ReportType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        Report report = reportJobService.submit(type, startDate, endDate, null);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.getStatus(report.getId()));
+    }
+
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ReportJobService.JobStatus> getStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(reportJobService.getStatus(id));
+    }
+
+    // Progress and completion of one job (Server-Sent Events, event name "report")
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long id) {
+        return reportJobService.subscribe(id);
+    }
+}
@@ -1,6 +1,8 @@
 package com.pharmaease.controller.api;
 
 import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.BatchView;
+import com.pharmaease.service.CursorPage;
 import com.pharmaease.service.StockBatchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,33 +19,38 @@ public class StockBatchRestController {
     private final StockBatchService batchService;
 
     @GetMapping
-    public ResponseEntity<List<StockBatch>> getAllBatches() {
-        return ResponseEntity.ok(batchService.getAllBatches());
+    public ResponseEntity<CursorPage<BatchView>> getBatches(@RequestParam(required = false) Long medicineId,
+                                                             @RequestParam(required = false) Boolean active,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(batchService.findBatches(medicineId, active, cursor, size).map(BatchView::from));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<StockBatch> getBatchById(@PathVariable Long id) {
-        return ResponseEntity.ok(batchService.getBatchById(id));
+    public ResponseEntity<BatchView> getBatchById(@PathVariable Long id) {
+        return ResponseEntity.ok(batchService.getBatchView(id));
     }
 
     @GetMapping("/expiring")
-    public ResponseEntity<List<StockBatch>> getExpiringBatches(@RequestParam(defaultValue = "30") int daysAhead) {
-        return ResponseEntity.ok(batchService.getExpiringBatches(daysAhead));
+    public ResponseEntity<List<BatchView>> getExpiringBatches(@RequestParam(defaultValue = "30") int daysAhead) {
+        return ResponseEntity.ok(batchService.getExpiringBatchViews(daysAhead));
     }
 
     @GetMapping("/expired")
-    public ResponseEntity<List<StockBatch>> getExpiredBatches() {
-        return ResponseEntity.ok(batchService.getExpiredBatches());
+    public ResponseEntity<List<BatchView>> getExpiredBatches() {
+        return ResponseEntity.ok(batchService.getExpiredBatchViews());
     }
 
     @PostMapping
-    public ResponseEntity<StockBatch> createBatch(@RequestBody StockBatch batch) {
-        return ResponseEntity.ok(batchService.createBatch(batch));
+    public ResponseEntity<BatchView> createBatch(@RequestBody StockBatch batch) {
+        StockBatch saved = batchService.createBatch(batch);
+        return ResponseEntity.ok(batchService.getBatchView(saved.getId()));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<StockBatch> updateBatch(@PathVariable Long id, @RequestBody StockBatch batch) {
-        return ResponseEntity.ok(batchService.updateBatch(id, batch));
+    public ResponseEntity<BatchView> updateBatch(@PathVariable Long id, @RequestBody StockBatch batch) {
+        batchService.updateBatch(id, batch);
+        return ResponseEntity.ok(batchService.getBatchView(id));
     }
 
     @DeleteMapping("/{id}")
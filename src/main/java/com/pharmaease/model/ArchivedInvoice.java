@@ -0,0 +1,37 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Immutable
+@Table(name = "invoices_archive")
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(exclude = {"order"})
+public class ArchivedInvoice {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String invoiceNumber;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false, unique = true)
+    private ArchivedOrder order;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amountPaid;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal changeGiven;
+
+    private LocalDateTime generatedAt;
+}
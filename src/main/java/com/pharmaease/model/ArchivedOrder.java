@@ -0,0 +1,77 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A settled order moved out of {@code orders} once it passed the archive horizon. Same columns and
+ * ids as the hot row, so it is only ever written by the archive move and never changed after.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_created", columnList = "created_at, id")
+})
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(exclude = {"customer", "pharmacist", "orderItems", "invoice"})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String orderNumber;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pharmacist_id", nullable = false)
+    private Pharmacist pharmacist;
+
+    @OneToMany(mappedBy = "order")
+    @OrderBy("id")
+    private List<ArchivedOrderItem> orderItems = new ArrayList<>();
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal tax;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal discount;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Orders.OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Orders.PaymentMethod paymentMethod;
+
+    @Column(nullable = false)
+    private Boolean paid;
+
+    @OneToOne(mappedBy = "order", fetch = FetchType.LAZY)
+    private ArchivedInvoice invoice;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_name", columnList = "name"),
+        @Index(name = "idx_customers_phone", columnList = "phone")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,58 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(exclude = {"order"})
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false, unique = true)
+    private Orders order;
+
+    // SHA-256 of the request the key was first used with (see IdempotencyService); null for keys
+    // stored before it was recorded
+    @Column(length = 64)
+    private String requestHash;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    // The key is assigned by the client, so tell Spring Data to persist instead of merge (no select first)
+    @Transient
+    private boolean isNew = true;
+
+    public IdempotencyKey(String key, Orders order, String requestHash) {
+        this.key = key;
+        this.order = order;
+        this.requestHash = requestHash;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -10,7 +10,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory")
+@Table(name = "inventory", indexes = {
+        @Index(name = "idx_inventory_low_stock", columnList = "low_stock, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,4 +41,10 @@ public class Inventory {
 
     @UpdateTimestamp
     private LocalDateTime lastUpdated;
+
+    // The guarded updates in InventoryRepositoryImpl bump it too, so a read-modify-write that started
+    // before one of them fails instead of undoing it
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
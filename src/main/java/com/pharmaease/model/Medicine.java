@@ -14,7 +14,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "medicines")
+@Table(name = "medicines", indexes = {
+        @Index(name = "idx_medicines_created", columnList = "created_at, id"),
+        @Index(name = "idx_medicines_active_created", columnList = "active, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -7,9 +7,13 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order", columnList = "order_id"),
+        @Index(name = "idx_order_items_medicine", columnList = "medicine_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +21,8 @@ import java.math.BigDecimal;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,4 +45,16 @@ public class OrderItem {
 
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal totalPrice;
+
+    // Partition key of order_items on PostgreSQL: always the order's creation time, so every line sits
+    // in its order's month, including lines split off when a pending order is completed later
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void inheritOrderCreatedAt() {
+        if (order != null && order.getCreatedAt() != null) {
+            createdAt = order.getCreatedAt();
+        }
+    }
 }
\ No newline at end of file
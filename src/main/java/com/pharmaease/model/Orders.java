@@ -5,7 +5,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,18 +12,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at, id"),
+        @Index(name = "idx_orders_pharmacist", columnList = "pharmacist_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(exclude = {"customer", "pharmacist", "orderItems", "invoice"})
 public class Orders {
 
+    // Pooled sequence instead of IDENTITY so Hibernate can batch the inserts of a sale
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 50)
+    // Unique across all orders through order_numbers (V10); the partitioned table itself only enforces
+    // it together with created_at
+    @Column(nullable = false, length = 50)
     private String orderNumber;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -64,10 +72,22 @@ public class Orders {
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     private Invoice invoice;
 
-    @CreationTimestamp
+    // Partition key of orders on PostgreSQL; its items copy it (see OrderItem.createdAt), so it is set
+    // once before persisting rather than generated at insert time
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    // Set while a pending order holds stock in inventory.reservedQuantity; cleared when the hold is
+    // consumed, released or expired
+    private LocalDateTime reservedUntil;
+
+    @PrePersist
+    void defaultCreatedAt() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     public enum OrderStatus {
         PENDING, COMPLETED, CANCELLED
     }
@@ -11,7 +11,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+        @Index(name = "idx_reports_generated", columnList = "generated_at, id"),
+        @Index(name = "idx_reports_type_generated", columnList = "report_type, generated_at, id"),
+        @Index(name = "idx_reports_status_updated", columnList = "status, updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,9 +55,36 @@ public class Report {
     @Column(updatable = false)
     private LocalDateTime generatedAt;
 
+    // Reports are generated in the background by ReportJobService; these track the job
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.COMPLETED;
+
+    // Percent done
+    @Column
+    private Integer progress = 100;
+
+    // Type and period; a request identical to a queued or running one gets that job instead
+    @Column(length = 100)
+    private String requestKey;
+
+    @Column(length = 500)
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    // Moved forward with every progress step, so a job whose node died can be told from a slow one
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
     public enum ReportType {
         DAILY_SALES, WEEKLY_SALES, MONTHLY_SALES,
         INVENTORY, LOW_STOCK, EXPIRING_STOCK,
         CUSTOMER_SALES, SUPPLIER_PURCHASES
     }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales figures per day and payment method, kept up to date as orders complete or get cancelled so
+ * dashboards and sales reports read a handful of rows per day instead of every order.
+ */
+@Entity
+@Table(name = "sales_daily_rollup")
+@IdClass(SalesDailyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDailyRollup {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Orders.PaymentMethod paymentMethod;
+
+    @Column(nullable = false)
+    private Long completedOrders = 0L;
+
+    @Column(nullable = false)
+    private Long cancelledOrders = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal grossAmount = BigDecimal.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate salesDate;
+        private Orders.PaymentMethod paymentMethod;
+    }
+}
@@ -12,7 +12,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_batches")
+@Table(name = "stock_batches", indexes = {
+        @Index(name = "idx_stock_batches_created", columnList = "created_at, id"),
+        @Index(name = "idx_stock_batches_medicine_created", columnList = "medicine_id, created_at, id"),
+        @Index(name = "idx_stock_batches_medicine_expiry", columnList = "medicine_id, expiry_date"),
+        @Index(name = "idx_stock_batches_expiry", columnList = "expiry_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,4 +56,10 @@ public class StockBatch {
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
+
+    // Sales decrement batches over JDBC and bump it as well, so editing a batch can never overwrite a
+    // concurrent sale
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a medicine's stock. The ledger is append-only and written next to every inventory
+ * update, so an {@link Inventory} row is always the sum of its medicine's movements. Each movement
+ * records the change that was actually applied, after any floor at zero.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_medicine", columnList = "medicine_id, id")
+})
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(exclude = {"medicine"})
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medicine_id", nullable = false)
+    private Medicine medicine;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type movementType;
+
+    @Column(nullable = false)
+    private Integer totalChange;
+
+    @Column(nullable = false)
+    private Integer availableChange;
+
+    @Column(nullable = false)
+    private Integer reservedChange;
+
+    // Order number, batch number or the job that made the change
+    @Column(length = 100)
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        /** Stock the medicine had when the ledger was introduced */
+        OPENING,
+        /** A batch received, or stock added by an import */
+        RECEIPT,
+        /** Stock sold, straight from available or from the order's reservation */
+        SALE,
+        /** Stock held for a pending order */
+        RESERVE,
+        /** Held stock handed back, because the order was cancelled or its hold expired */
+        CANCEL,
+        /** A batch corrected or removed, or a manual correction */
+        ADJUSTMENT,
+        /** Expired batches written off */
+        EXPIRY
+    }
+}
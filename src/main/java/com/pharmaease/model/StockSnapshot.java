@@ -0,0 +1,49 @@
+package com.pharmaease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A medicine's stock as of a point in the {@link StockMovement} ledger, so stock at a past time or a
+ * rebuild of {@link Inventory} only has to add up the movements after it.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_medicine", columnList = "medicine_id, last_movement_id")
+})
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(exclude = {"medicine"})
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medicine_id", nullable = false)
+    private Medicine medicine;
+
+    // Sum of the medicine's movements up to and including this one
+    @Column(nullable = false)
+    private Long lastMovementId;
+
+    @Column(nullable = false)
+    private Integer totalQuantity;
+
+    @Column(nullable = false)
+    private Integer availableQuantity;
+
+    @Column(nullable = false)
+    private Integer reservedQuantity;
+
+    // Every movement it covers was created before this time
+    @Column(nullable = false)
+    private LocalDateTime asOf;
+}
@@ -0,0 +1,26 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockBatch;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat API shape of a stock batch, with its medicine reduced to id and name.
+ */
+public record BatchView(Long id, String batchNumber, Long medicineId, String medicineName, Integer quantity,
+                        Integer remainingQuantity, BigDecimal costPrice, LocalDate manufacturingDate,
+                        LocalDate expiryDate, Boolean active, LocalDateTime createdAt) {
+
+    // Select list of the constructor expression, for a query over "StockBatch b JOIN b.medicine m"
+    static final String SELECT = "SELECT new com.pharmaease.repository.BatchView(b.id, b.batchNumber, m.id, m.name, " +
+            "b.quantity, b.remainingQuantity, b.costPrice, b.manufacturingDate, b.expiryDate, b.active, b.createdAt) " +
+            "FROM StockBatch b JOIN b.medicine m ";
+
+    public static BatchView from(StockBatch b) {
+        return new BatchView(b.getId(), b.getBatchNumber(), b.getMedicine().getId(), b.getMedicine().getName(),
+                b.getQuantity(), b.getRemainingQuantity(), b.getCostPrice(), b.getManufacturingDate(),
+                b.getExpiryDate(), b.getActive(), b.getCreatedAt());
+    }
+}
@@ -1,7 +1,11 @@
 package com.pharmaease.repository;
 
 import com.pharmaease.model.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +17,17 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByNameContainingIgnoreCase(String name);
     Optional<Customer> findByPhone(String phone);
     Optional<Customer> findByEmail(String email);
+
+    // Prefix match only, so the name and phone pattern indexes (V9) can be used; a Slice skips the count query
+    @Query("SELECT c.id AS id, c.name AS name, c.phone AS phone FROM Customer c " +
+           "WHERE c.active = true AND (LOWER(c.name) LIKE :prefix OR c.phone LIKE :prefix) ORDER BY c.name, c.id")
+    Slice<CustomerSummary> findActiveByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    interface CustomerSummary {
+        Long getId();
+
+        String getName();
+
+        String getPhone();
+    }
 }
\ No newline at end of file
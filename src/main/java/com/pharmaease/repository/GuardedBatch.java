@@ -0,0 +1,36 @@
+package com.pharmaease.repository;
+
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the update counts of a guarded JDBC batch, in which each statement changes its one row when
+ * the guard holds and nothing when it fails.
+ */
+final class GuardedBatch {
+
+    private GuardedBatch() {
+    }
+
+    /**
+     * @param updated update counts, in the order of {@code keys}
+     * @return the keys whose statement changed nothing
+     * @throws IllegalStateException if a count is neither 0 nor 1, e.g. {@link Statement#SUCCESS_NO_INFO}
+     *                               from a driver that rewrites batches: a failed guard would pass for a
+     *                               success, so the surrounding transaction must not commit
+     */
+    static <K> Set<K> rejected(int[] updated, List<K> keys) {
+        Set<K> rejected = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                rejected.add(keys.get(i));
+            } else if (updated[i] != 1) {
+                throw new IllegalStateException("Guarded update of " + keys.get(i) + " reported " + updated[i] +
+                        " rows; the JDBC driver must report a row count per batched statement");
+            }
+        }
+        return rejected;
+    }
+}
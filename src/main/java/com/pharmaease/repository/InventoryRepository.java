@@ -2,15 +2,19 @@ package com.pharmaease.repository;
 
 import com.pharmaease.model.Inventory;
 import com.pharmaease.model.Medicine;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory>, InventoryRepositoryCustom {
     Optional<Inventory> findByMedicine(Medicine medicine);
     List<Inventory> findByLowStock(Boolean lowStock);
 
@@ -20,6 +24,53 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i FROM Inventory i WHERE i.availableQuantity = 0")
     List<Inventory> findOutOfStockItems();
 
+    @Query("SELECT i FROM Inventory i WHERE i.medicine.id IN :medicineIds")
+    List<Inventory> findByMedicineIds(@Param("medicineIds") Collection<Long> medicineIds);
+
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.medicine WHERE i.reservedQuantity > 0 ORDER BY i.reservedQuantity DESC")
+    List<Inventory> findReservedItems();
+
+    @Query("SELECT i.availableQuantity FROM Inventory i WHERE i.medicine.id = :medicineId")
+    Optional<Integer> findAvailableQuantity(@Param("medicineId") Long medicineId);
+
     @Query("SELECT COUNT(i) FROM Inventory i WHERE i.lowStock = true")
     Long countLowStockItems();
-}
\ No newline at end of file
+
+    @Query("SELECT i.medicine.id FROM Inventory i WHERE i.lowStock = true")
+    List<Long> findLowStockMedicineIds();
+
+    @Query("SELECT i.medicine.id FROM Inventory i WHERE i.lowStock = true AND i.medicine.id IN :medicineIds")
+    List<Long> findLowStockMedicineIdsIn(@Param("medicineIds") Collection<Long> medicineIds);
+
+    @Query(InventoryView.SELECT + "WHERE i.availableQuantity <= m.reorderLevel")
+    List<InventoryView> findLowStockViews();
+
+    @Query(InventoryView.SELECT + "WHERE i.availableQuantity = 0")
+    List<InventoryView> findOutOfStockViews();
+
+    @Query("SELECT i.medicine.id FROM Inventory i ORDER BY i.medicine.id")
+    List<Long> findAllMedicineIds();
+
+    @Query("SELECT i.medicine.id FROM Inventory i WHERE i.medicine.id > :afterMedicineId ORDER BY i.medicine.id")
+    List<Long> findMedicineIdsAfter(@Param("afterMedicineId") Long afterMedicineId, Limit limit);
+
+    @Query("SELECT i.medicine.id FROM Inventory i WHERE i.id = :id")
+    Optional<Long> findMedicineIdById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(i) AS items, " +
+           "COALESCE(SUM(CASE WHEN i.lowStock = true THEN 1 ELSE 0 END), 0) AS lowStock, " +
+           "COALESCE(SUM(CASE WHEN i.availableQuantity = 0 THEN 1 ELSE 0 END), 0) AS outOfStock, " +
+           "COALESCE(SUM(CASE WHEN i.availableQuantity <= i.medicine.reorderLevel THEN 1 ELSE 0 END), 0) AS belowReorderLevel " +
+           "FROM Inventory i WHERE i.medicine.id BETWEEN :fromMedicineId AND :toMedicineId")
+    StockCounts countBetween(@Param("fromMedicineId") Long fromMedicineId, @Param("toMedicineId") Long toMedicineId);
+
+    interface StockCounts {
+        Long getItems();
+
+        Long getLowStock();
+
+        Long getOutOfStock();
+
+        Long getBelowReorderLevel();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockMovement;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Guarded stock updates sent as one JDBC batch. Each row is only touched when it still holds enough
+ * stock for the change, and lowStock is recomputed in the same statement. Every method takes the
+ * quantities keyed by medicine id and returns the ids whose guard failed (nothing changed for them).
+ * <p>
+ * Each change that went through is also appended to the stock ledger ({@link StockMovement}) in the
+ * same batch style, tagged with {@code reference}, so the ledger and the inventory rows commit together.
+ */
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Deducts stock for a completed sale.
+     */
+    Set<Long> decrementAvailableQuantities(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Moves stock from available to reserved for a pending order.
+     */
+    Set<Long> reserveQuantities(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Turns a reservation into a deduction when its order completes; available stock is untouched.
+     */
+    Set<Long> consumeReservations(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Moves reserved stock back to available when its order is cancelled or the hold expires.
+     */
+    Set<Long> releaseReservations(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Takes written-off stock (e.g. expired batches) out of total and available, never below zero.
+     *
+     * @return ids of the medicines without an inventory row
+     */
+    Set<Long> writeOffQuantities(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Adds received stock to total and available (a negative quantity takes it back out, never below zero).
+     *
+     * @return ids of the medicines without an inventory row
+     */
+    Set<Long> restockQuantities(Map<Long, Integer> quantitiesByMedicine, StockMovement.Type type, String reference);
+
+    /**
+     * Creates the inventory rows of medicines that have none yet, already holding the given stock.
+     */
+    void insertStocked(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Records corrections already made to inventory entities (added to total and available).
+     */
+    void recordAdjustments(Map<Long, Integer> quantitiesByMedicine, String reference);
+
+    /**
+     * Reads the inventory rows of the medicines and locks them until the transaction ends.
+     */
+    Map<Long, StockLevel> lockLevels(Collection<Long> medicineIds);
+
+    /**
+     * Reads the inventory rows of the medicines with ids in the range, locking them if asked to.
+     */
+    Map<Long, StockLevel> findLevelsBetween(Long fromMedicineId, Long toMedicineId, boolean lock);
+
+    /**
+     * Reads the inventory rows of the medicines with ids in the range together with the stock left in
+     * their active batches, in one statement so both come from the same snapshot.
+     */
+    Map<Long, StockCheck> checkLevelsBetween(Long fromMedicineId, Long toMedicineId);
+
+    /**
+     * Sets the inventory rows to the given figures, e.g. as rebuilt from the ledger. Writes no movements.
+     */
+    void overwriteLevels(Collection<StockLevel> levels);
+}
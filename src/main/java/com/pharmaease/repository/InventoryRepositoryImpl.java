@@ -0,0 +1,248 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockMovement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class InventoryRepositoryImpl implements InventoryRepositoryCustom {
+
+    private static final String LOW_STOCK =
+            "(SELECT m.reorder_level FROM medicines m WHERE m.id = inventory.medicine_id)";
+
+    private static final String DECREMENT_SQL =
+            "UPDATE inventory SET available_quantity = available_quantity - ?, " +
+            "low_stock = (available_quantity - ? <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ? AND available_quantity >= ?";
+
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET available_quantity = available_quantity - ?, " +
+            "reserved_quantity = reserved_quantity + ?, " +
+            "low_stock = (available_quantity - ? <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ? AND available_quantity >= ?";
+
+    private static final String CONSUME_RESERVATION_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity - ?, " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ? AND reserved_quantity >= ?";
+
+    private static final String RELEASE_RESERVATION_SQL =
+            "UPDATE inventory SET available_quantity = available_quantity + ?, " +
+            "reserved_quantity = reserved_quantity - ?, " +
+            "low_stock = (available_quantity + ? <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ? AND reserved_quantity >= ?";
+
+    // Unguarded: stock already held by pending orders cannot be clawed back, so floor at zero
+    private static final String WRITE_OFF_SQL =
+            "UPDATE inventory SET total_quantity = GREATEST(total_quantity - ?, 0), " +
+            "available_quantity = GREATEST(available_quantity - ?, 0), " +
+            "low_stock = (GREATEST(available_quantity - ?, 0) <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ?";
+
+    private static final String RESTOCK_SQL =
+            "UPDATE inventory SET total_quantity = GREATEST(total_quantity + ?, 0), " +
+            "available_quantity = GREATEST(available_quantity + ?, 0), " +
+            "low_stock = (GREATEST(available_quantity + ?, 0) <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ?";
+
+    private static final String INSERT_STOCKED_SQL =
+            "INSERT INTO inventory (medicine_id, total_quantity, available_quantity, reserved_quantity, low_stock, last_updated, version) " +
+            "SELECT m.id, ?, ?, 0, (? <= m.reorder_level), ?, 0 FROM medicines m WHERE m.id = ?";
+
+    private static final String OVERWRITE_SQL =
+            "UPDATE inventory SET total_quantity = ?, available_quantity = ?, reserved_quantity = ?, " +
+            "low_stock = (? <= " + LOW_STOCK + "), " +
+            "last_updated = ?, version = version + 1 " +
+            "WHERE medicine_id = ?";
+
+    private static final String CHECK_LEVELS_SQL =
+            "SELECT i.medicine_id, i.total_quantity, i.available_quantity, i.reserved_quantity, COALESCE(b.remaining, 0) " +
+            "FROM inventory i LEFT JOIN (SELECT medicine_id, SUM(remaining_quantity) AS remaining FROM stock_batches " +
+            "WHERE active = true AND medicine_id BETWEEN ? AND ? GROUP BY medicine_id) b ON b.medicine_id = i.medicine_id " +
+            "WHERE i.medicine_id BETWEEN ? AND ? ORDER BY i.medicine_id";
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (medicine_id, movement_type, total_change, available_change, reserved_change, reference, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<Long> decrementAvailableQuantities(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        Set<Long> rejected = guardedBatch(DECREMENT_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, q, now, id, q});
+        record(StockMovement.Type.SALE, quantitiesByMedicine, rejected, reference, (id, q) -> new int[]{0, -q, 0});
+        return rejected;
+    }
+
+    @Override
+    public Set<Long> reserveQuantities(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        Set<Long> rejected = guardedBatch(RESERVE_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, q, q, now, id, q});
+        record(StockMovement.Type.RESERVE, quantitiesByMedicine, rejected, reference, (id, q) -> new int[]{0, -q, q});
+        return rejected;
+    }
+
+    @Override
+    public Set<Long> consumeReservations(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        Set<Long> rejected = guardedBatch(CONSUME_RESERVATION_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, now, id, q});
+        record(StockMovement.Type.SALE, quantitiesByMedicine, rejected, reference, (id, q) -> new int[]{0, 0, -q});
+        return rejected;
+    }
+
+    @Override
+    public Set<Long> releaseReservations(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        Set<Long> rejected = guardedBatch(RELEASE_RESERVATION_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, q, q, now, id, q});
+        record(StockMovement.Type.CANCEL, quantitiesByMedicine, rejected, reference, (id, q) -> new int[]{0, q, -q});
+        return rejected;
+    }
+
+    @Override
+    public Set<Long> writeOffQuantities(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        // The update floors at zero, so the ledger needs the figures it starts from
+        Map<Long, StockLevel> before = lockLevels(quantitiesByMedicine.keySet());
+        Set<Long> rejected = guardedBatch(WRITE_OFF_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, q, q, now, id});
+        record(StockMovement.Type.EXPIRY, quantitiesByMedicine, rejected, reference, (id, q) -> flooredChange(before.get(id), -q));
+        return rejected;
+    }
+
+    @Override
+    public Set<Long> restockQuantities(Map<Long, Integer> quantitiesByMedicine, StockMovement.Type type, String reference) {
+        // Only taking stock out can hit the floor at zero
+        boolean removes = quantitiesByMedicine.values().stream().anyMatch(q -> q < 0);
+        Map<Long, StockLevel> before = removes ? lockLevels(quantitiesByMedicine.keySet()) : Map.of();
+        Set<Long> rejected = guardedBatch(RESTOCK_SQL, quantitiesByMedicine, (q, now, id) -> new Object[]{q, q, q, now, id});
+        record(type, quantitiesByMedicine, rejected, reference,
+                (id, q) -> removes ? flooredChange(before.get(id), q) : new int[]{q, q, 0});
+        return rejected;
+    }
+
+    @Override
+    public void insertStocked(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        Map<Long, Integer> stocked = new HashMap<>();
+        quantitiesByMedicine.forEach((medicineId, quantity) -> stocked.put(medicineId, Math.max(quantity, 0)));
+        Set<Long> rejected = guardedBatch(INSERT_STOCKED_SQL, stocked, (q, now, id) -> new Object[]{q, q, q, now, id});
+        record(StockMovement.Type.RECEIPT, stocked, rejected, reference, (id, q) -> new int[]{q, q, 0});
+    }
+
+    @Override
+    public void recordAdjustments(Map<Long, Integer> quantitiesByMedicine, String reference) {
+        record(StockMovement.Type.ADJUSTMENT, quantitiesByMedicine, Set.of(), reference, (id, q) -> new int[]{q, q, 0});
+    }
+
+    @Override
+    public Map<Long, StockLevel> lockLevels(Collection<Long> medicineIds) {
+        if (medicineIds.isEmpty()) {
+            return Map.of();
+        }
+        String in = "(" + String.join(",", Collections.nCopies(medicineIds.size(), "?")) + ")";
+        return levels("WHERE medicine_id IN " + in, true, medicineIds.toArray());
+    }
+
+    @Override
+    public Map<Long, StockLevel> findLevelsBetween(Long fromMedicineId, Long toMedicineId, boolean lock) {
+        return levels("WHERE medicine_id BETWEEN ? AND ?", lock, fromMedicineId, toMedicineId);
+    }
+
+    @Override
+    public Map<Long, StockCheck> checkLevelsBetween(Long fromMedicineId, Long toMedicineId) {
+        Map<Long, StockCheck> checks = new HashMap<>();
+        jdbcTemplate.query(CHECK_LEVELS_SQL, rs -> {
+            long medicineId = rs.getLong(1);
+            checks.put(medicineId, new StockCheck(new StockLevel(medicineId, rs.getInt(2), rs.getInt(3), rs.getInt(4)), rs.getInt(5)));
+        }, fromMedicineId, toMedicineId, fromMedicineId, toMedicineId);
+        return checks;
+    }
+
+    @Override
+    public void overwriteLevels(Collection<StockLevel> levels) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(levels.size());
+        for (StockLevel level : levels) {
+            args.add(new Object[]{level.totalQuantity(), level.availableQuantity(), level.reservedQuantity(),
+                    level.availableQuantity(), now, level.medicineId()});
+        }
+        jdbcTemplate.batchUpdate(OVERWRITE_SQL, args);
+    }
+
+    private Map<Long, StockLevel> levels(String where, boolean lock, Object... args) {
+        // In medicine order, so two lockers of overlapping rows cannot deadlock
+        String sql = "SELECT medicine_id, total_quantity, available_quantity, reserved_quantity FROM inventory " +
+                where + " ORDER BY medicine_id" + (lock ? " FOR UPDATE" : "");
+        Map<Long, StockLevel> levels = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long medicineId = rs.getLong(1);
+            levels.put(medicineId, new StockLevel(medicineId, rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+        }, args);
+        return levels;
+    }
+
+    private void record(StockMovement.Type type, Map<Long, Integer> quantitiesByMedicine, Set<Long> rejected,
+                        String reference, Change change) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(quantitiesByMedicine.size());
+        quantitiesByMedicine.forEach((medicineId, quantity) -> {
+            if (rejected.contains(medicineId)) {
+                return;
+            }
+            int[] applied = change.of(medicineId, quantity);
+            if (applied[0] != 0 || applied[1] != 0 || applied[2] != 0) {
+                args.add(new Object[]{medicineId, type.name(), applied[0], applied[1], applied[2], reference, now});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, args);
+        }
+    }
+
+    // What adding the quantity to total and available, each floored at zero, actually changes
+    private static int[] flooredChange(StockLevel before, int quantity) {
+        if (before == null) {
+            return new int[]{0, 0, 0};
+        }
+        return new int[]{
+                Math.max(before.totalQuantity() + quantity, 0) - before.totalQuantity(),
+                Math.max(before.availableQuantity() + quantity, 0) - before.availableQuantity(),
+                0};
+    }
+
+    private Set<Long> guardedBatch(String sql, Map<Long, Integer> quantitiesByMedicine, Arguments arguments) {
+        if (quantitiesByMedicine.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Long> medicineIds = new ArrayList<>(quantitiesByMedicine.keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(medicineIds.size());
+        for (Long medicineId : medicineIds) {
+            args.add(arguments.of(quantitiesByMedicine.get(medicineId), now, medicineId));
+        }
+
+        // Runs on the connection of the surrounding JPA transaction, so a rollback undoes every line
+        return GuardedBatch.rejected(jdbcTemplate.batchUpdate(sql, args), medicineIds);
+    }
+
+    @FunctionalInterface
+    private interface Arguments {
+        Object[] of(int quantity, Timestamp now, Long medicineId);
+    }
+
+    // Change to total, available and reserved that a row's update made
+    @FunctionalInterface
+    private interface Change {
+        int[] of(Long medicineId, int quantity);
+    }
+}
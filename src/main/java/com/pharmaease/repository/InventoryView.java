@@ -0,0 +1,23 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.Inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat API shape of an inventory row, with its medicine reduced to id and name.
+ */
+public record InventoryView(Long id, Long medicineId, String medicineName, Integer totalQuantity,
+                            Integer availableQuantity, Integer reservedQuantity, Boolean lowStock,
+                            LocalDateTime lastUpdated) {
+
+    // Select list of the constructor expression, for a query over "Inventory i JOIN i.medicine m"
+    static final String SELECT = "SELECT new com.pharmaease.repository.InventoryView(i.id, m.id, m.name, " +
+            "i.totalQuantity, i.availableQuantity, i.reservedQuantity, i.lowStock, i.lastUpdated) " +
+            "FROM Inventory i JOIN i.medicine m ";
+
+    public static InventoryView from(Inventory i) {
+        return new InventoryView(i.getId(), i.getMedicine().getId(), i.getMedicine().getName(), i.getTotalQuantity(),
+                i.getAvailableQuantity(), i.getReservedQuantity(), i.getLowStock(), i.getLastUpdated());
+    }
+}
@@ -3,17 +3,20 @@ package com.pharmaease.repository;
 import com.pharmaease.model.Invoice;
 import com.pharmaease.model.Orders;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, JpaSpecificationExecutor<Invoice> {
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
     Optional<Invoice> findByOrder(Orders order);
     List<Invoice> findByGeneratedAtBetween(LocalDateTime start, LocalDateTime end);
@@ -23,4 +26,8 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     @Query("SELECT SUM(i.amountPaid) FROM Invoice i")
     BigDecimal sumAmountPaidAll();
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("DELETE FROM Invoice i WHERE i.order.id IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -3,22 +3,41 @@ package com.pharmaease.repository;
 import com.pharmaease.model.Medicine;
 import com.pharmaease.model.Supplier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MedicineRepository extends JpaRepository<Medicine, Long> {
+public interface MedicineRepository extends JpaRepository<Medicine, Long>, JpaSpecificationExecutor<Medicine>, MedicineRepositoryCustom {
     List<Medicine> findByActive(Boolean active);
     List<Medicine> findByNameContainingIgnoreCaseOrGenericNameContainingIgnoreCase(String name, String genericName);
     List<Medicine> findByCategory(String category);
     List<Medicine> findBySupplier(Supplier supplier);
     List<Medicine> findByManufacturer(String manufacturer);
 
+    // Just the searchable columns, without the eager supplier
+    @Query("SELECT m.id, m.name, m.genericName, m.manufacturer, m.strength, m.unitPrice, m.sellingPrice, " +
+           "m.requiresPrescription, m.active FROM Medicine m")
+    List<Object[]> findSearchFields();
+
+    // What a bulk import matches incoming rows on
+    @Query("SELECT m.id, m.name, m.strength FROM Medicine m")
+    List<Object[]> findCatalogKeys();
+
     @Query("SELECT DISTINCT m.category FROM Medicine m WHERE m.active = true ORDER BY m.category")
     List<String> findAllCategories();
 
     @Query("SELECT DISTINCT m.manufacturer FROM Medicine m WHERE m.active = true ORDER BY m.manufacturer")
     List<String> findAllManufacturers();
-}
\ No newline at end of file
+
+    @Query(MedicineView.SELECT + "WHERE m.id = :id")
+    Optional<MedicineView> findViewById(@Param("id") Long id);
+
+    @Query(MedicineView.SELECT + "WHERE m.id IN :ids")
+    List<MedicineView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,24 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.Medicine;
+
+import java.util.List;
+
+/**
+ * Catalogue writes sent as one JDBC batch, for bulk imports that would otherwise pay a round trip
+ * (and an entity flush) per row.
+ */
+public interface MedicineRepositoryCustom {
+
+    /**
+     * Inserts new medicines and sets their generated ids. A null reorder level, prescription flag or
+     * active flag gets the entity's default. Only the supplier's id is read.
+     */
+    void insertAll(List<Medicine> medicines);
+
+    /**
+     * Overwrites the catalogue fields of existing medicines, keyed by id. Null fields keep their
+     * current value; name and strength are never changed.
+     */
+    void updateCatalogFields(List<Medicine> medicines);
+}
@@ -0,0 +1,99 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.Medicine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class MedicineRepositoryImpl implements MedicineRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO medicines (name, generic_name, manufacturer, category, dosage_form, strength, description, " +
+            "unit_price, selling_price, reorder_level, requires_prescription, active, supplier_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE medicines SET generic_name = COALESCE(?, generic_name), manufacturer = COALESCE(?, manufacturer), " +
+            "category = COALESCE(?, category), dosage_form = COALESCE(?, dosage_form), " +
+            "description = COALESCE(?, description), unit_price = COALESCE(?, unit_price), " +
+            "selling_price = COALESCE(?, selling_price), reorder_level = COALESCE(?, reorder_level), " +
+            "requires_prescription = COALESCE(?, requires_prescription), active = COALESCE(?, active), " +
+            "supplier_id = COALESCE(?, supplier_id), updated_at = ? " +
+            "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Medicine> medicines) {
+        if (medicines.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Medicine defaults = new Medicine();
+        List<Object[]> args = new ArrayList<>(medicines.size());
+        for (Medicine m : medicines) {
+            args.add(new Object[]{m.getName(), m.getGenericName(), m.getManufacturer(), m.getCategory(),
+                    m.getDosageForm(), m.getStrength(), m.getDescription(), m.getUnitPrice(), m.getSellingPrice(),
+                    m.getReorderLevel() != null ? m.getReorderLevel() : defaults.getReorderLevel(),
+                    m.getRequiresPrescription() != null ? m.getRequiresPrescription() : defaults.getRequiresPrescription(),
+                    m.getActive() != null ? m.getActive() : defaults.getActive(),
+                    supplierId(m), now, now});
+        }
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}), rows(args), keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < medicines.size(); i++) {
+            // The key column comes back as "id" or "ID" depending on the driver
+            medicines.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    @Override
+    public void updateCatalogFields(List<Medicine> medicines) {
+        if (medicines.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(medicines.size());
+        for (Medicine m : medicines) {
+            args.add(new Object[]{m.getGenericName(), m.getManufacturer(), m.getCategory(), m.getDosageForm(),
+                    m.getDescription(), m.getUnitPrice(), m.getSellingPrice(), m.getReorderLevel(),
+                    m.getRequiresPrescription(), m.getActive(), supplierId(m), now, m.getId()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+    }
+
+    private static Long supplierId(Medicine medicine) {
+        return medicine.getSupplier() != null ? medicine.getSupplier().getId() : null;
+    }
+
+    private static BatchPreparedStatementSetter rows(List<Object[]> args) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                new ArgumentPreparedStatementSetter(args.get(i)).setValues(ps);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return args.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Supplier;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat API shape of a medicine: the supplier and stock level as plain columns instead of nested entities.
+ */
+public record MedicineView(Long id, String name, String genericName, String manufacturer, String category,
+                           String dosageForm, String strength, BigDecimal unitPrice, BigDecimal sellingPrice,
+                           Integer reorderLevel, Boolean requiresPrescription, Boolean active,
+                           Long supplierId, String supplierName, Integer availableQuantity) {
+
+    // Select list of the constructor expression, for a query over "Medicine m LEFT JOIN m.supplier s LEFT JOIN m.inventory i"
+    static final String SELECT = "SELECT new com.pharmaease.repository.MedicineView(m.id, m.name, m.genericName, " +
+            "m.manufacturer, m.category, m.dosageForm, m.strength, m.unitPrice, m.sellingPrice, m.reorderLevel, " +
+            "m.requiresPrescription, m.active, s.id, s.name, i.availableQuantity) " +
+            "FROM Medicine m LEFT JOIN m.supplier s LEFT JOIN m.inventory i ";
+
+    public static MedicineView from(Medicine m) {
+        Supplier supplier = m.getSupplier();
+        Inventory inventory = m.getInventory();
+        return new MedicineView(m.getId(), m.getName(), m.getGenericName(), m.getManufacturer(), m.getCategory(),
+                m.getDosageForm(), m.getStrength(), m.getUnitPrice(), m.getSellingPrice(), m.getReorderLevel(),
+                m.getRequiresPrescription(), m.getActive(),
+                supplier != null ? supplier.getId() : null, supplier != null ? supplier.getName() : null,
+                inventory != null ? inventory.getAvailableQuantity() : null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Orders past the archive horizon. The copy statements move whole chunks with one INSERT ... SELECT
+ * per table; the caller deletes the hot rows in the same transaction.
+ */
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, order_number, customer_id, pharmacist_id, subtotal, tax, discount, " +
+                   "total_amount, status, payment_method, paid, created_at, archived_at) " +
+                   "SELECT id, order_number, customer_id, pharmacist_id, subtotal, tax, discount, " +
+                   "total_amount, status, payment_method, paid, created_at, :archivedAt " +
+                   "FROM orders WHERE id IN (:orderIds)", nativeQuery = true)
+    int copyOrders(@Param("orderIds") Collection<Long> orderIds, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, order_id, medicine_id, batch_id, quantity, unit_price, " +
+                   "total_price, created_at) " +
+                   "SELECT id, order_id, medicine_id, batch_id, quantity, unit_price, total_price, created_at " +
+                   "FROM order_items WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int copyOrderItems(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO invoices_archive (id, invoice_number, order_id, amount_paid, change_given, generated_at) " +
+                   "SELECT id, invoice_number, order_id, amount_paid, change_given, generated_at " +
+                   "FROM invoices WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int copyInvoices(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT DISTINCT a FROM ArchivedOrder a " +
+           "LEFT JOIN FETCH a.customer " +
+           "LEFT JOIN FETCH a.pharmacist " +
+           "LEFT JOIN FETCH a.invoice " +
+           "LEFT JOIN FETCH a.orderItems ai " +
+           "LEFT JOIN FETCH ai.medicine " +
+           "LEFT JOIN FETCH ai.batch " +
+           "WHERE a.id = :id")
+    Optional<ArchivedOrder> findByIdWithRelations(@Param("id") Long id);
+
+    @Query(OrderView.SELECT_ARCHIVED + "WHERE a.id = :id")
+    Optional<OrderView> findViewById(@Param("id") Long id);
+
+    @Query(OrderView.SELECT_ARCHIVED + "WHERE a.orderNumber = :orderNumber")
+    Optional<OrderView> findViewByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    @Query("SELECT new com.pharmaease.repository.OrderLineView(ai.id, m.id, m.name, b.batchNumber, ai.quantity, " +
+           "ai.unitPrice, ai.totalPrice) FROM ArchivedOrderItem ai JOIN ai.medicine m LEFT JOIN ai.batch b " +
+           "WHERE ai.order.id = :orderId ORDER BY ai.id")
+    List<OrderLineView> findLineViewsByOrderId(@Param("orderId") Long orderId);
+
+    // Same figures as OrderRepository.streamSettledOrderFigures, for rebuilding the rollup over all history
+    @Query("SELECT a.createdAt, a.paymentMethod, a.status, a.subtotal, a.tax, a.discount, a.totalAmount " +
+           "FROM ArchivedOrder a")
+    Stream<Object[]> streamSettledOrderFigures();
+}
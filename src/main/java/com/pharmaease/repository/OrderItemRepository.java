@@ -4,11 +4,13 @@ import com.pharmaease.model.Medicine;
 import com.pharmaease.model.OrderItem;
 import com.pharmaease.model.Orders;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,4 +25,16 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
             "WHERE oi.order.createdAt BETWEEN :start AND :end AND oi.order.status = 'COMPLETED' " +
             "GROUP BY oi.medicine ORDER BY totalSold DESC")
     List<Object[]> findTopSellingMedicines(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-}
\ No newline at end of file
+
+    @Query("SELECT oi.medicine.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id = :orderId GROUP BY oi.medicine.id")
+    List<Object[]> sumQuantitiesByMedicine(@Param("orderId") Long orderId);
+
+    @Query("SELECT new com.pharmaease.repository.OrderLineView(oi.id, m.id, m.name, b.batchNumber, oi.quantity, " +
+           "oi.unitPrice, oi.totalPrice) FROM OrderItem oi JOIN oi.medicine m LEFT JOIN oi.batch b " +
+           "WHERE oi.order.id = :orderId ORDER BY oi.id")
+    List<OrderLineView> findLineViewsByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
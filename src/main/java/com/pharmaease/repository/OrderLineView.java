@@ -0,0 +1,10 @@
+package com.pharmaease.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of an order as returned by the API.
+ */
+public record OrderLineView(Long id, Long medicineId, String medicineName, String batchNumber, Integer quantity,
+                            BigDecimal unitPrice, BigDecimal totalPrice) {
+}
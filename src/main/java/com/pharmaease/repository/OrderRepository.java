@@ -3,18 +3,23 @@ package com.pharmaease.repository;
 import com.pharmaease.model.Customer;
 import com.pharmaease.model.Orders;
 import com.pharmaease.model.Pharmacist;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Orders, Long> {
+public interface OrderRepository extends JpaRepository<Orders, Long>, JpaSpecificationExecutor<Orders> {
     Optional<Orders> findByOrderNumber(String orderNumber);
     List<Orders> findByCustomer(Customer customer);
     List<Orders> findByPharmacist(Pharmacist pharmacist);
@@ -42,17 +47,6 @@ public interface OrderRepository extends JpaRepository<Orders, Long> {
     @Query("SELECT SUM(o.totalAmount) FROM Orders o WHERE o.status = 'COMPLETED'")
     Double sumCompletedTotalAmountAll();
     
-    // Eagerly fetch customer and pharmacist to avoid lazy loading issues
-    // Using EntityGraph for better performance and to avoid DISTINCT issues
-    // Note: orderItems are loaded via cascade, so we don't need to include them in EntityGraph
-    @EntityGraph(attributePaths = {"customer", "pharmacist", "invoice"})
-    @Query("SELECT DISTINCT o FROM Orders o ORDER BY o.createdAt DESC")
-    List<Orders> findAllWithRelations();
-    
-    @EntityGraph(attributePaths = {"customer", "pharmacist", "invoice"})
-    @Query("SELECT DISTINCT o FROM Orders o WHERE o.status = :status ORDER BY o.createdAt DESC")
-    List<Orders> findByStatusWithRelations(@Param("status") Orders.OrderStatus status);
-    
     @EntityGraph(attributePaths = {"customer", "pharmacist", "invoice"})
     @Query("SELECT DISTINCT o FROM Orders o WHERE o.createdAt BETWEEN :start AND :end ORDER BY o.createdAt DESC")
     List<Orders> findByCreatedAtBetweenWithRelations(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -65,8 +59,40 @@ public interface OrderRepository extends JpaRepository<Orders, Long> {
            "LEFT JOIN FETCH oi.medicine " +
            "WHERE o.id = :id")
     Optional<Orders> findByIdWithRelations(@Param("id") Long id);
-    
-    @EntityGraph(attributePaths = {"customer", "pharmacist", "invoice"})
-    @Query("SELECT o FROM Orders o WHERE o.orderNumber = :orderNumber")
-    Optional<Orders> findByOrderNumberWithRelations(@Param("orderNumber") String orderNumber);
-}
\ No newline at end of file
+
+    // Whoever clears reservedUntil owns the hold, so completion, cancellation and the expiry sweeper
+    // (on any node) can never both act on the same reservation
+    @Modifying
+    @Query("UPDATE Orders o SET o.reservedUntil = NULL WHERE o.id = :id AND o.reservedUntil IS NOT NULL")
+    int claimReservation(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Orders o SET o.reservedUntil = NULL WHERE o.id = :id AND o.reservedUntil <= :now")
+    int claimExpiredReservation(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT o.orderNumber FROM Orders o WHERE o.id = :id")
+    Optional<String> findOrderNumberById(@Param("id") Long id);
+
+    @Query("SELECT o.id, o.reservedUntil FROM Orders o WHERE o.reservedUntil IS NOT NULL")
+    List<Object[]> findOpenReservations();
+
+    // Scalar rows only: rebuilding the sales rollup must not drag in the eager associations of every order
+    @Query("SELECT o.createdAt, o.paymentMethod, o.status, o.subtotal, o.tax, o.discount, o.totalAmount " +
+           "FROM Orders o WHERE o.status <> 'PENDING'")
+    Stream<Object[]> streamSettledOrderFigures();
+
+    // Oldest first, so an interrupted archive run picks up where it stopped
+    @Query("SELECT o.id FROM Orders o WHERE o.status <> 'PENDING' AND o.createdAt < :cutoff ORDER BY o.createdAt, o.id")
+    List<Long> findSettledIdsBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // The cutoff lets PostgreSQL skip the partitions of newer months
+    @Modifying
+    @Query("DELETE FROM Orders o WHERE o.id IN :ids AND o.createdAt < :cutoff")
+    int deleteArchived(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query(OrderView.SELECT + "WHERE o.id = :id")
+    Optional<OrderView> findViewById(@Param("id") Long id);
+
+    @Query(OrderView.SELECT + "WHERE o.orderNumber = :orderNumber")
+    Optional<OrderView> findViewByOrderNumber(@Param("orderNumber") String orderNumber);
+}
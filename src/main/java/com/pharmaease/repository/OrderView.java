@@ -0,0 +1,41 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.Customer;
+import com.pharmaease.model.Invoice;
+import com.pharmaease.model.Orders;
+import com.pharmaease.model.Pharmacist;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat API shape of an order header: customer, pharmacist and invoice reduced to their id, name or number.
+ */
+public record OrderView(Long id, String orderNumber, Orders.OrderStatus status, Orders.PaymentMethod paymentMethod,
+                        Boolean paid, BigDecimal subtotal, BigDecimal tax, BigDecimal discount, BigDecimal totalAmount,
+                        Long customerId, String customerName, Long pharmacistId, String pharmacistName,
+                        String invoiceNumber, LocalDateTime createdAt) {
+
+    // Select list of the constructor expression, for a query over "Orders o" joined to its customer, pharmacist and invoice
+    static final String SELECT = "SELECT new com.pharmaease.repository.OrderView(o.id, o.orderNumber, o.status, " +
+            "o.paymentMethod, o.paid, o.subtotal, o.tax, o.discount, o.totalAmount, c.id, c.name, p.id, p.name, " +
+            "i.invoiceNumber, o.createdAt) " +
+            "FROM Orders o LEFT JOIN o.customer c JOIN o.pharmacist p LEFT JOIN o.invoice i ";
+
+    // The same for "ArchivedOrder a"
+    static final String SELECT_ARCHIVED = "SELECT new com.pharmaease.repository.OrderView(a.id, a.orderNumber, a.status, " +
+            "a.paymentMethod, a.paid, a.subtotal, a.tax, a.discount, a.totalAmount, c.id, c.name, p.id, p.name, " +
+            "i.invoiceNumber, a.createdAt) " +
+            "FROM ArchivedOrder a LEFT JOIN a.customer c JOIN a.pharmacist p LEFT JOIN a.invoice i ";
+
+    public static OrderView from(Orders o) {
+        Customer customer = o.getCustomer();
+        Pharmacist pharmacist = o.getPharmacist();
+        Invoice invoice = o.getInvoice();
+        return new OrderView(o.getId(), o.getOrderNumber(), o.getStatus(), o.getPaymentMethod(), o.getPaid(),
+                o.getSubtotal(), o.getTax(), o.getDiscount(), o.getTotalAmount(),
+                customer != null ? customer.getId() : null, customer != null ? customer.getName() : null,
+                pharmacist != null ? pharmacist.getId() : null, pharmacist != null ? pharmacist.getName() : null,
+                invoice != null ? invoice.getInvoiceNumber() : null, o.getCreatedAt());
+    }
+}
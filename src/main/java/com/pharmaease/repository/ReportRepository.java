@@ -2,16 +2,59 @@ package com.pharmaease.repository;
 
 import com.pharmaease.model.Pharmacist;
 import com.pharmaease.model.Report;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ReportRepository extends JpaRepository<Report, Long> {
+public interface ReportRepository extends JpaRepository<Report, Long>, JpaSpecificationExecutor<Report> {
     List<Report> findByReportType(Report.ReportType reportType);
     List<Report> findByGeneratedBy(Pharmacist pharmacist);
     List<Report> findByStartDateBetween(LocalDate start, LocalDate end);
     List<Report> findByReportTypeAndStartDateBetween(Report.ReportType reportType, LocalDate start, LocalDate end);
-}
\ No newline at end of file
+
+    Optional<Report> findFirstByRequestKeyAndStatusIn(String requestKey, Collection<Report.Status> statuses);
+
+    @Query("SELECT r.id FROM Report r WHERE r.status = com.pharmaease.model.Report.Status.QUEUED ORDER BY r.id")
+    List<Long> findQueuedIds(Limit limit);
+
+    // Whoever moves the job out of QUEUED runs it, so two nodes offered the same job never both do
+    @Modifying
+    @Query("UPDATE Report r SET r.status = com.pharmaease.model.Report.Status.RUNNING, r.startedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = com.pharmaease.model.Report.Status.QUEUED")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.progress = :progress, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = com.pharmaease.model.Report.Status.RUNNING")
+    int updateProgress(@Param("id") Long id, @Param("progress") int progress, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.status = com.pharmaease.model.Report.Status.COMPLETED, r.progress = 100, " +
+           "r.totalSales = :totalSales, r.totalOrders = :totalOrders, r.summary = :summary, r.completedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = com.pharmaease.model.Report.Status.RUNNING")
+    int complete(@Param("id") Long id, @Param("totalSales") BigDecimal totalSales, @Param("totalOrders") int totalOrders,
+                 @Param("summary") String summary, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.status = com.pharmaease.model.Report.Status.FAILED, r.error = :error, r.completedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = com.pharmaease.model.Report.Status.RUNNING")
+    int fail(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // Running jobs that stopped reporting progress: their node went down mid-job
+    @Modifying
+    @Query("UPDATE Report r SET r.status = com.pharmaease.model.Report.Status.QUEUED, r.progress = 0 " +
+           "WHERE r.status = com.pharmaease.model.Report.Status.RUNNING AND r.updatedAt < :staleBefore")
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -0,0 +1,32 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.SalesDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, SalesDailyRollup.Key>, SalesDailyRollupRepositoryCustom {
+
+    @Query("SELECT COALESCE(SUM(r.completedOrders), 0) AS completedOrders, COALESCE(SUM(r.grossAmount), 0) AS grossAmount " +
+           "FROM SalesDailyRollup r WHERE r.salesDate BETWEEN :start AND :end")
+    SalesTotals sumBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT COALESCE(SUM(r.completedOrders), 0) AS completedOrders, COALESCE(SUM(r.grossAmount), 0) AS grossAmount " +
+           "FROM SalesDailyRollup r")
+    SalesTotals sumAll();
+
+    @Query("SELECT r FROM SalesDailyRollup r WHERE r.salesDate BETWEEN :start AND :end ORDER BY r.salesDate, r.paymentMethod")
+    List<SalesDailyRollup> findBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    interface SalesTotals {
+        Long getCompletedOrders();
+
+        BigDecimal getGrossAmount();
+    }
+}
@@ -0,0 +1,19 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.SalesDailyRollup;
+
+import java.util.Collection;
+
+public interface SalesDailyRollupRepositoryCustom {
+
+    /**
+     * Adds the counts and amounts of {@code delta} to its day and payment method row, creating the
+     * row if needed, in a single upsert on the current transaction's connection.
+     */
+    void add(SalesDailyRollup delta);
+
+    /**
+     * Replaces the whole rollup with {@code rows}.
+     */
+    void replaceAll(Collection<SalesDailyRollup> rows);
+}
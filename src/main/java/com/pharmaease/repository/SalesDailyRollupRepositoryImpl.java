@@ -0,0 +1,80 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.SalesDailyRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SalesDailyRollupRepositoryImpl implements SalesDailyRollupRepositoryCustom {
+
+    private static final String COLUMNS =
+            "sales_date, payment_method, completed_orders, cancelled_orders, subtotal, tax, discount, gross_amount";
+
+    // ON CONFLICT is race-free when two tills open the same day's row at once
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO sales_daily_rollup (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (sales_date, payment_method) DO UPDATE SET " +
+            "completed_orders = sales_daily_rollup.completed_orders + EXCLUDED.completed_orders, " +
+            "cancelled_orders = sales_daily_rollup.cancelled_orders + EXCLUDED.cancelled_orders, " +
+            "subtotal = sales_daily_rollup.subtotal + EXCLUDED.subtotal, " +
+            "tax = sales_daily_rollup.tax + EXCLUDED.tax, " +
+            "discount = sales_daily_rollup.discount + EXCLUDED.discount, " +
+            "gross_amount = sales_daily_rollup.gross_amount + EXCLUDED.gross_amount";
+
+    private static final String MERGE_SQL =
+            "MERGE INTO sales_daily_rollup t " +
+            "USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR(20)), ?, ?, ?, ?, ?, ?)) s(" + COLUMNS + ") " +
+            "ON t.sales_date = s.sales_date AND t.payment_method = s.payment_method " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "completed_orders = t.completed_orders + s.completed_orders, " +
+            "cancelled_orders = t.cancelled_orders + s.cancelled_orders, " +
+            "subtotal = t.subtotal + s.subtotal, " +
+            "tax = t.tax + s.tax, " +
+            "discount = t.discount + s.discount, " +
+            "gross_amount = t.gross_amount + s.gross_amount " +
+            "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") VALUES (s.sales_date, s.payment_method, " +
+            "s.completed_orders, s.cancelled_orders, s.subtotal, s.tax, s.discount, s.gross_amount)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO sales_daily_rollup (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    @Override
+    public void add(SalesDailyRollup delta) {
+        jdbcTemplate.update(upsertSql(), arguments(delta));
+    }
+
+    @Override
+    public void replaceAll(Collection<SalesDailyRollup> rows) {
+        jdbcTemplate.update("DELETE FROM sales_daily_rollup");
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (SalesDailyRollup row : rows) {
+            args.add(arguments(row));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String database = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+            upsertSql = "PostgreSQL".equalsIgnoreCase(database) ? POSTGRES_UPSERT_SQL : MERGE_SQL;
+        }
+        return upsertSql;
+    }
+
+    private Object[] arguments(SalesDailyRollup row) {
+        return new Object[]{
+                Date.valueOf(row.getSalesDate()), row.getPaymentMethod().name(),
+                row.getCompletedOrders(), row.getCancelledOrders(),
+                row.getSubtotal(), row.getTax(), row.getDiscount(), row.getGrossAmount()
+        };
+    }
+}
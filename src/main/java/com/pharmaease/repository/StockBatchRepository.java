@@ -3,16 +3,18 @@ package com.pharmaease.repository;
 import com.pharmaease.model.Medicine;
 import com.pharmaease.model.StockBatch;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StockBatchRepository extends JpaRepository<StockBatch, Long> {
+public interface StockBatchRepository extends JpaRepository<StockBatch, Long>, JpaSpecificationExecutor<StockBatch>, StockBatchRepositoryCustom {
     Optional<StockBatch> findByBatchNumber(String batchNumber);
     List<StockBatch> findByMedicine(Medicine medicine);
     List<StockBatch> findByMedicineAndActive(Medicine medicine, Boolean active);
@@ -21,9 +23,48 @@ public interface StockBatchRepository extends JpaRepository<StockBatch, Long> {
     @Query("SELECT b FROM StockBatch b WHERE b.expiryDate BETWEEN :startDate AND :endDate AND b.active = true")
     List<StockBatch> findExpiringBatches(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT b FROM StockBatch b WHERE b.expiryDate < :date AND b.active = true")
+    // Expired stock the sweeper has not written off yet (written-off batches are no longer active)
+    @Query("SELECT b FROM StockBatch b JOIN FETCH b.medicine WHERE b.expiryDate < :date AND b.active = true ORDER BY b.expiryDate ASC")
     List<StockBatch> findExpiredBatches(@Param("date") LocalDate date);
 
+    @Query("SELECT b FROM StockBatch b JOIN FETCH b.medicine WHERE b.id IN :ids ORDER BY b.expiryDate ASC")
+    List<StockBatch> findWithMedicineByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.medicine.id, SUM(b.remainingQuantity) FROM StockBatch b WHERE b.id IN :ids GROUP BY b.medicine.id")
+    List<Object[]> sumRemainingByMedicine(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.medicine.id, SUM(b.remainingQuantity) FROM StockBatch b " +
+           "WHERE b.active = true AND b.medicine.id BETWEEN :fromMedicineId AND :toMedicineId GROUP BY b.medicine.id")
+    List<Object[]> sumActiveRemainingByMedicineBetween(@Param("fromMedicineId") Long fromMedicineId,
+                                                       @Param("toMedicineId") Long toMedicineId);
+
     @Query("SELECT b FROM StockBatch b WHERE b.medicine.id = :medicineId AND b.remainingQuantity > 0 AND b.active = true ORDER BY b.expiryDate ASC")
     List<StockBatch> findAvailableBatchesByMedicine(@Param("medicineId") Long medicineId);
-}
\ No newline at end of file
+
+    // Just the columns the notification counts need, not the batch entities
+    @Query("SELECT b.id, b.expiryDate FROM StockBatch b WHERE b.active = true")
+    List<Object[]> findActiveBatchExpiryDates();
+
+    @Query("SELECT COUNT(b) FROM StockBatch b WHERE b.expiryDate BETWEEN :startDate AND :endDate AND b.active = true")
+    long countExpiringBatches(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT COUNT(b) FROM StockBatch b WHERE b.expiryDate < :date AND b.active = true")
+    long countExpiredBatches(@Param("date") LocalDate date);
+
+    // Current state of the batches a bulk import is about to receive again
+    @Query("SELECT b.batchNumber, b.id, b.medicine.id, b.quantity, b.remainingQuantity, b.active " +
+           "FROM StockBatch b WHERE b.batchNumber IN :batchNumbers")
+    List<Object[]> findReceiptStateByBatchNumberIn(@Param("batchNumbers") Collection<String> batchNumbers);
+
+    @Query(BatchView.SELECT + "WHERE b.id = :id")
+    Optional<BatchView> findViewById(@Param("id") Long id);
+
+    @Query(BatchView.SELECT + "WHERE b.id IN :ids ORDER BY b.expiryDate ASC")
+    List<BatchView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(BatchView.SELECT + "WHERE b.expiryDate < :date AND b.active = true ORDER BY b.expiryDate ASC")
+    List<BatchView> findExpiredViews(@Param("date") LocalDate date);
+
+    @Query("SELECT b.medicine.id FROM StockBatch b WHERE b.id = :id")
+    Optional<Long> findMedicineIdById(@Param("id") Long id);
+}
@@ -0,0 +1,40 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockBatch;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface StockBatchRepositoryCustom {
+
+    /**
+     * Takes quantities out of several batches in one JDBC batch. A batch is only touched while it still
+     * holds enough stock and has not expired by {@code today}, and is deactivated once it reaches zero.
+     *
+     * @param quantitiesByBatch quantity to take, keyed by batch id
+     * @return ids of the batches whose guard failed (nothing was taken from them)
+     */
+    Set<Long> decrementRemainingQuantities(Map<Long, Integer> quantitiesByBatch, LocalDate today);
+
+    /**
+     * Deactivates the given batches in one JDBC batch, skipping any that are already inactive or have
+     * not expired before {@code date}.
+     *
+     * @return ids of the batches this call deactivated
+     */
+    Set<Long> deactivateExpired(Collection<Long> batchIds, LocalDate date);
+
+    /**
+     * Inserts received batches in one JDBC batch, with their remaining quantity, active flag and creation
+     * time as given. Only the medicine's id is read; ids are not read back.
+     */
+    void insertAll(List<StockBatch> batches);
+
+    /**
+     * Overwrites the receipt fields (quantities, cost, dates, active flag) of existing batches, keyed by id.
+     */
+    void updateReceipts(List<StockBatch> batches);
+}
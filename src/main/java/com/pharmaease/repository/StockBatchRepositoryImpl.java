@@ -0,0 +1,109 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockBatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class StockBatchRepositoryImpl implements StockBatchRepositoryCustom {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE stock_batches SET remaining_quantity = remaining_quantity - ?, " +
+            "active = (remaining_quantity - ? > 0), version = version + 1 " +
+            "WHERE id = ? AND remaining_quantity >= ? AND active = true AND expiry_date >= ?";
+
+    private static final String DEACTIVATE_EXPIRED_SQL =
+            "UPDATE stock_batches SET active = false, version = version + 1 WHERE id = ? AND active = true AND expiry_date < ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_batches (batch_number, medicine_id, quantity, remaining_quantity, cost_price, " +
+            "manufacturing_date, expiry_date, active, created_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_RECEIPT_SQL =
+            "UPDATE stock_batches SET quantity = ?, remaining_quantity = ?, cost_price = ?, manufacturing_date = ?, " +
+            "expiry_date = ?, active = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<Long> decrementRemainingQuantities(Map<Long, Integer> quantitiesByBatch, LocalDate today) {
+        if (quantitiesByBatch.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Long> batchIds = new ArrayList<>(quantitiesByBatch.keySet());
+        Date notExpiredBefore = Date.valueOf(today);
+        List<Object[]> args = new ArrayList<>(batchIds.size());
+        for (Long batchId : batchIds) {
+            int quantity = quantitiesByBatch.get(batchId);
+            args.add(new Object[]{quantity, quantity, batchId, quantity, notExpiredBefore});
+        }
+
+        return GuardedBatch.rejected(jdbcTemplate.batchUpdate(DECREMENT_SQL, args), batchIds);
+    }
+
+    @Override
+    public Set<Long> deactivateExpired(Collection<Long> batchIds, LocalDate date) {
+        if (batchIds.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Long> ids = new ArrayList<>(batchIds);
+        Date expiredBefore = Date.valueOf(date);
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long batchId : ids) {
+            args.add(new Object[]{batchId, expiredBefore});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(DEACTIVATE_EXPIRED_SQL, args);
+
+        Set<Long> deactivated = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) {
+                deactivated.add(ids.get(i));
+            }
+        }
+        return deactivated;
+    }
+
+    @Override
+    public void insertAll(List<StockBatch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(batches.size());
+        for (StockBatch b : batches) {
+            args.add(new Object[]{b.getBatchNumber(), b.getMedicine().getId(), b.getQuantity(), b.getRemainingQuantity(),
+                    b.getCostPrice(), Date.valueOf(b.getManufacturingDate()), Date.valueOf(b.getExpiryDate()),
+                    b.getActive(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @Override
+    public void updateReceipts(List<StockBatch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(batches.size());
+        for (StockBatch b : batches) {
+            args.add(new Object[]{b.getQuantity(), b.getRemainingQuantity(), b.getCostPrice(),
+                    Date.valueOf(b.getManufacturingDate()), Date.valueOf(b.getExpiryDate()), b.getActive(), b.getId()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_RECEIPT_SQL, args);
+    }
+}
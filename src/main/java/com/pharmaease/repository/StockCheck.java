@@ -0,0 +1,7 @@
+package com.pharmaease.repository;
+
+/**
+ * A medicine's inventory row next to what its active batches still hold.
+ */
+public record StockCheck(StockLevel level, int inBatches) {
+}
@@ -0,0 +1,11 @@
+package com.pharmaease.repository;
+
+/**
+ * A medicine's stock figures, as held by its inventory row or as summed up from the stock ledger.
+ */
+public record StockLevel(Long medicineId, int totalQuantity, int availableQuantity, int reservedQuantity) {
+
+    public StockLevel plus(int total, int available, int reserved) {
+        return new StockLevel(medicineId, totalQuantity + total, availableQuantity + available, reservedQuantity + reserved);
+    }
+}
@@ -0,0 +1,20 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads of the stock ledger. Movements are appended by the stock updates in {@link InventoryRepositoryCustom}.
+ */
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockMovementRepositoryCustom {
+
+    @Query(StockMovementView.SELECT + "WHERE s.medicine.id = :medicineId ORDER BY s.id DESC")
+    List<StockMovementView> findLatestViews(@Param("medicineId") Long medicineId, Limit limit);
+}
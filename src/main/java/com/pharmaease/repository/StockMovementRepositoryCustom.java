@@ -0,0 +1,29 @@
+package com.pharmaease.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stock figures summed up from the ledger, starting from each medicine's latest snapshot.
+ */
+public interface StockMovementRepositoryCustom {
+
+    /**
+     * Current stock of the medicines according to the ledger; medicines without movements are at zero.
+     */
+    Map<Long, StockLevel> replay(Collection<Long> medicineIds);
+
+    /**
+     * Stock of the medicine as it stood at the given time.
+     */
+    StockLevel levelAt(Long medicineId, LocalDateTime at);
+
+    /**
+     * Snapshots every medicine with movements since its last snapshot, covering the movements created
+     * before {@code settledBefore}.
+     *
+     * @return number of snapshots taken
+     */
+    int takeSnapshots(LocalDateTime settledBefore);
+}
@@ -0,0 +1,103 @@
+package com.pharmaease.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StockMovementRepositoryImpl implements StockMovementRepositoryCustom {
+
+    private static final String LATEST_SNAPSHOT =
+            "(SELECT MAX(l.last_movement_id) FROM stock_snapshots l WHERE l.medicine_id = %s.medicine_id)";
+
+    private static final String SNAPSHOT_COLUMNS =
+            "last_movement_id, total_quantity, available_quantity, reserved_quantity";
+
+    private static final String SUM_CHANGES =
+            "COALESCE(SUM(m.total_change), 0), COALESCE(SUM(m.available_change), 0), COALESCE(SUM(m.reserved_change), 0)";
+
+    private static final String SNAPSHOT_AT_SQL =
+            "SELECT " + SNAPSHOT_COLUMNS + " FROM stock_snapshots WHERE medicine_id = ? AND as_of <= ? " +
+            "ORDER BY last_movement_id DESC FETCH FIRST 1 ROWS ONLY";
+
+    private static final String CHANGES_AT_SQL =
+            "SELECT " + SUM_CHANGES + " FROM stock_movements m WHERE m.medicine_id = ? AND m.id > ? AND m.created_at <= ?";
+
+    private static final String SETTLED_MOVEMENT_SQL =
+            "SELECT MAX(id) FROM stock_movements WHERE created_at < ?";
+
+    // Latest snapshot plus everything after it, one row per medicine that moved; as_of is the newest
+    // movement covered, so the snapshot holds for any later point in time
+    private static final String TAKE_SNAPSHOTS_SQL =
+            "INSERT INTO stock_snapshots (medicine_id, " + SNAPSHOT_COLUMNS + ", as_of) " +
+            "SELECT m.medicine_id, MAX(m.id), " +
+            "COALESCE(MAX(s.total_quantity), 0) + SUM(m.total_change), " +
+            "COALESCE(MAX(s.available_quantity), 0) + SUM(m.available_change), " +
+            "COALESCE(MAX(s.reserved_quantity), 0) + SUM(m.reserved_change), " +
+            "MAX(m.created_at) " +
+            "FROM stock_movements m " +
+            "LEFT JOIN stock_snapshots s ON s.medicine_id = m.medicine_id AND s.last_movement_id = " + LATEST_SNAPSHOT.formatted("m") + " " +
+            "WHERE m.id <= ? AND m.id > COALESCE(s.last_movement_id, 0) " +
+            "GROUP BY m.medicine_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, StockLevel> replay(Collection<Long> medicineIds) {
+        Map<Long, StockLevel> levels = new HashMap<>();
+        if (medicineIds.isEmpty()) {
+            return levels;
+        }
+        for (Long medicineId : medicineIds) {
+            levels.put(medicineId, new StockLevel(medicineId, 0, 0, 0));
+        }
+        List<Object> ids = new ArrayList<>(medicineIds);
+        String in = "(" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+
+        jdbcTemplate.query("SELECT s.medicine_id, " + SNAPSHOT_COLUMNS + " FROM stock_snapshots s " +
+                        "WHERE s.medicine_id IN " + in + " AND s.last_movement_id = " + LATEST_SNAPSHOT.formatted("s"),
+                rs -> {
+                    long medicineId = rs.getLong(1);
+                    levels.put(medicineId, new StockLevel(medicineId, rs.getInt(3), rs.getInt(4), rs.getInt(5)));
+                }, ids.toArray());
+        jdbcTemplate.query("SELECT m.medicine_id, " + SUM_CHANGES + " FROM stock_movements m " +
+                        "WHERE m.medicine_id IN " + in + " AND m.id > COALESCE(" + LATEST_SNAPSHOT.formatted("m") + ", 0) " +
+                        "GROUP BY m.medicine_id",
+                rs -> {
+                    long medicineId = rs.getLong(1);
+                    levels.put(medicineId, levels.get(medicineId).plus(rs.getInt(2), rs.getInt(3), rs.getInt(4)));
+                }, ids.toArray());
+        return levels;
+    }
+
+    @Override
+    public StockLevel levelAt(Long medicineId, LocalDateTime at) {
+        Timestamp time = Timestamp.valueOf(at);
+        List<Object[]> snapshot = jdbcTemplate.query(SNAPSHOT_AT_SQL,
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)}, medicineId, time);
+        long after = 0;
+        StockLevel level = new StockLevel(medicineId, 0, 0, 0);
+        if (!snapshot.isEmpty()) {
+            Object[] row = snapshot.get(0);
+            after = (Long) row[0];
+            level = new StockLevel(medicineId, (Integer) row[1], (Integer) row[2], (Integer) row[3]);
+        }
+        StockLevel base = level;
+        return jdbcTemplate.queryForObject(CHANGES_AT_SQL,
+                (rs, i) -> base.plus(rs.getInt(1), rs.getInt(2), rs.getInt(3)), medicineId, after, time);
+    }
+
+    @Override
+    public int takeSnapshots(LocalDateTime settledBefore) {
+        Long upTo = jdbcTemplate.queryForObject(SETTLED_MOVEMENT_SQL, Long.class, Timestamp.valueOf(settledBefore));
+        return upTo == null ? 0 : jdbcTemplate.update(TAKE_SNAPSHOTS_SQL, upTo);
+    }
+}
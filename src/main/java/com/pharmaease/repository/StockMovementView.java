@@ -0,0 +1,18 @@
+package com.pharmaease.repository;
+
+import com.pharmaease.model.StockMovement;
+
+import java.time.LocalDateTime;
+
+/**
+ * API shape of a stock ledger entry.
+ */
+public record StockMovementView(Long id, Long medicineId, StockMovement.Type movementType, Integer totalChange,
+                                Integer availableChange, Integer reservedChange, String reference,
+                                LocalDateTime createdAt) {
+
+    // Select list of the constructor expression, for a query over "StockMovement s"
+    static final String SELECT = "SELECT new com.pharmaease.repository.StockMovementView(s.id, s.medicine.id, " +
+            "s.movementType, s.totalChange, s.availableChange, s.reservedChange, s.reference, s.createdAt) " +
+            "FROM StockMovement s ";
+}
@@ -0,0 +1,8 @@
+package com.pharmaease.repository;
+
+/**
+ * An idempotency key as stored: the order it created and the hash of the request that created it
+ * ({@code null} for keys stored before hashes were recorded).
+ */
+public record StoredKey(Long orderId, String requestHash) {
+}
@@ -2,6 +2,7 @@ package com.pharmaease.repository;
 
 import com.pharmaease.model.Supplier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,7 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     List<Supplier> findByActive(Boolean active);
     List<Supplier> findByNameContainingIgnoreCase(String name);
     List<Supplier> findByCity(String city);
+
+    @Query("SELECT s.id, s.name FROM Supplier s")
+    List<Object[]> findIdsAndNames();
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.StockBatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * First-expiry-first-out picking of stock batches, served from memory.
+ * <p>
+ * Each medicine's available batches are loaded once and kept in a set ordered by expiry date, so a
+ * sale walks only the batches it actually consumes. Batches past their expiry date are dropped from
+ * the front of the set before each pick, so one that expires while cached is not sold while it waits
+ * for {@link ExpiredBatchSweeper}. Picks update the in-memory quantities straight
+ * away. If the sale's transaction rolls back, or a batch is written through {@link StockBatchService},
+ * that medicine is evicted and reloaded on its next sale. The database write stays guarded (see
+ * {@code StockBatchRepositoryCustom}), so a stale view on another node shows up as a rejected batch,
+ * never as a negative quantity.
+ * <p>
+ * Batches are loaded outside any lock: no thread, virtual or not, waits on a monitor for a query. A
+ * load that an eviction overtook serves its own sale but is not cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchAllocator {
+
+    private static final Comparator<Slot> FEFO = Comparator
+            .comparing(Slot::expiryDate)
+            .thenComparing(Slot::batchId);
+
+    private final StockBatchRepository batchRepository;
+    private final Map<Long, TreeSet<Slot>> batchesByMedicine = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public List<Allocation> allocate(Long medicineId, int quantity) {
+        return allocate(medicineId, quantity, LocalDate.now());
+    }
+
+    /**
+     * Picks {@code quantity} units of a medicine from its earliest-expiring batches that have not
+     * expired by {@code today}. If the batches cannot cover it all, the last allocation has a null
+     * batch id for the uncovered rest.
+     */
+    public List<Allocation> allocate(Long medicineId, int quantity, LocalDate today) {
+        TreeSet<Slot> batches = batches(medicineId);
+        List<Allocation> allocations = new ArrayList<>();
+
+        synchronized (batches) {
+            // Batches that expired since they were loaded sort first; they are never sold again
+            while (!batches.isEmpty() && batches.first().expiryDate.isBefore(today)) {
+                batches.pollFirst();
+            }
+
+            int remaining = quantity;
+            Iterator<Slot> it = batches.iterator();
+            while (remaining > 0 && it.hasNext()) {
+                Slot slot = it.next();
+                int taken = Math.min(slot.remaining, remaining);
+                slot.remaining -= taken;
+                remaining -= taken;
+                allocations.add(new Allocation(slot.batchId, taken, slot.remaining == 0));
+                if (slot.remaining == 0) {
+                    it.remove();
+                }
+            }
+            if (remaining > 0) {
+                allocations.add(new Allocation(null, remaining));
+            }
+        }
+
+        evictOnRollback(medicineId);
+        return allocations;
+    }
+
+    /**
+     * Drops the cached batches of a medicine once the current transaction commits (or right away
+     * outside a transaction), so the next sale reloads them from the database.
+     */
+    public void evictAfterCommit(Long medicineId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(medicineId);
+                }
+            });
+        } else {
+            evict(medicineId);
+        }
+    }
+
+    public void evict(Long medicineId) {
+        // Counted first, so a load running now sees it before it could cache what it read
+        evictions.incrementAndGet();
+        batchesByMedicine.remove(medicineId);
+    }
+
+    private void evictOnRollback(Long medicineId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    evict(medicineId);
+                }
+            }
+        });
+    }
+
+    private TreeSet<Slot> batches(Long medicineId) {
+        TreeSet<Slot> cached = batchesByMedicine.get(medicineId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = evictions.get();
+        TreeSet<Slot> loaded = load(medicineId);
+        TreeSet<Slot> batches = batchesByMedicine.compute(medicineId, (id, current) ->
+                current != null ? current : evictions.get() == seen ? loaded : null);
+        return batches != null ? batches : loaded;
+    }
+
+    private TreeSet<Slot> load(Long medicineId) {
+        TreeSet<Slot> batches = new TreeSet<>(FEFO);
+        for (StockBatch batch : batchRepository.findAvailableBatchesByMedicine(medicineId)) {
+            batches.add(new Slot(batch.getId(), batch.getExpiryDate(), batch.getRemainingQuantity()));
+        }
+        return batches;
+    }
+
+    /**
+     * @param exhausted true if this pick empties the batch, which the guarded decrement then deactivates
+     */
+    public record Allocation(Long batchId, int quantity, boolean exhausted) {
+
+        public Allocation(Long batchId, int quantity) {
+            this(batchId, quantity, false);
+        }
+    }
+
+    private static final class Slot {
+        private final Long batchId;
+        private final LocalDate expiryDate;
+        private int remaining;
+
+        private Slot(Long batchId, LocalDate expiryDate, int remaining) {
+            this.batchId = batchId;
+            this.expiryDate = expiryDate;
+            this.remaining = remaining;
+        }
+
+        private Long batchId() {
+            return batchId;
+        }
+
+        private LocalDate expiryDate() {
+            return expiryDate;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.StockBatchRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of the active stock batches, bucketed by expiry day.
+ * <p>
+ * Counting or listing the batches that expire in a window only walks the day buckets of that window,
+ * so the 30-day alert costs at most 31 map lookups however many batches there are. The index is
+ * loaded at startup and kept current from committed {@link StockBatchEvent}s; a slow full resync
+ * corrects for writes made by other nodes.
+ * <p>
+ * Loads query outside the index's lock, so reads and events never wait on the database. Events that
+ * arrive during a load are replayed onto the loaded index; each carries the batch's full state, so
+ * replaying one the query already saw changes nothing.
+ */
+@Service
+public class BatchExpiryIndex {
+
+    private final StockBatchRepository batchRepository;
+
+    private final Map<Long, LocalDate> dayByBatch = new HashMap<>();
+    private final TreeMap<LocalDate, Set<Long>> batchesByDay = new TreeMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private List<StockBatchEvent> arrivedDuringLoad;
+    private volatile boolean loaded;
+
+    public BatchExpiryIndex(StockBatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
+    }
+
+    /**
+     * Number of active batches expiring between the two dates, both inclusive.
+     */
+    public int countBetween(LocalDate startDate, LocalDate endDate) {
+        ensureLoaded();
+        synchronized (this) {
+            int count = 0;
+            for (Set<Long> batchIds : window(startDate, endDate).values()) {
+                count += batchIds.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Number of active batches that expired before {@code date}.
+     */
+    public int countExpiredBefore(LocalDate date) {
+        ensureLoaded();
+        synchronized (this) {
+            int count = 0;
+            for (Set<Long> batchIds : batchesByDay.headMap(date, false).values()) {
+                count += batchIds.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Ids of the active batches expiring between the two dates, both inclusive, earliest first.
+     */
+    public List<Long> idsBetween(LocalDate startDate, LocalDate endDate) {
+        ensureLoaded();
+        synchronized (this) {
+            return flatten(window(startDate, endDate));
+        }
+    }
+
+    /**
+     * Ids of the active batches that expired before {@code date}, earliest first.
+     */
+    public List<Long> idsExpiredBefore(LocalDate date) {
+        ensureLoaded();
+        synchronized (this) {
+            return flatten(batchesByDay.headMap(date, false));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onBatchChanged(StockBatchEvent event) {
+        if (arrivedDuringLoad != null) {
+            arrivedDuringLoad.add(event);
+        }
+        if (loaded) {
+            apply(event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pharmaease.expiry.resync-ms:600000}", initialDelayString = "${pharmaease.expiry.resync-ms:600000}")
+    public void load() {
+        loadLock.lock();
+        try {
+            reload();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    int size() {
+        ensureLoaded();
+        synchronized (this) {
+            return dayByBatch.size();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                reload();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Only ever run by the holder of loadLock
+    private void reload() {
+        synchronized (this) {
+            arrivedDuringLoad = new ArrayList<>();
+        }
+        List<Object[]> rows;
+        try {
+            rows = batchRepository.findActiveBatchExpiryDates();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                arrivedDuringLoad = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            dayByBatch.clear();
+            batchesByDay.clear();
+            for (Object[] row : rows) {
+                if (row[1] != null) {
+                    add((Long) row[0], (LocalDate) row[1]);
+                }
+            }
+            arrivedDuringLoad.forEach(this::apply);
+            arrivedDuringLoad = null;
+            loaded = true;
+        }
+    }
+
+    private void apply(StockBatchEvent event) {
+        remove(event.batchId());
+        if (event.active() && event.expiryDate() != null) {
+            add(event.batchId(), event.expiryDate());
+        }
+    }
+
+    private NavigableMap<LocalDate, Set<Long>> window(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return new TreeMap<>();
+        }
+        return batchesByDay.subMap(startDate, true, endDate, true);
+    }
+
+    private void add(Long batchId, LocalDate expiryDate) {
+        dayByBatch.put(batchId, expiryDate);
+        batchesByDay.computeIfAbsent(expiryDate, day -> new LinkedHashSet<>()).add(batchId);
+    }
+
+    private void remove(Long batchId) {
+        LocalDate previous = dayByBatch.remove(batchId);
+        if (previous == null) {
+            return;
+        }
+        Set<Long> batchIds = batchesByDay.get(previous);
+        batchIds.remove(batchId);
+        if (batchIds.isEmpty()) {
+            batchesByDay.remove(previous);
+        }
+    }
+
+    private List<Long> flatten(Map<LocalDate, Set<Long>> days) {
+        List<Long> batchIds = new ArrayList<>();
+        days.values().forEach(batchIds::addAll);
+        return batchIds;
+    }
+}
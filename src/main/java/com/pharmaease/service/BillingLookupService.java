@@ -0,0 +1,96 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.CustomerRepository;
+import com.pharmaease.repository.InventoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-demand lookups behind the billing page, which no longer renders the whole catalogue and customer
+ * list up front.
+ * <p>
+ * Medicines come from the {@link MedicineSearchIndex}; customers from a paged prefix query. Once a
+ * medicine is picked, its price comes from the index and its available stock from a small cache with
+ * a short TTL. The stock figure only guides the cashier: checkout still guards every deduction.
+ */
+@Service
+public class BillingLookupService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_CACHED_STOCK = 1_000;
+
+    private final MedicineSearchIndex searchIndex;
+    private final CustomerRepository customerRepository;
+    private final InventoryRepository inventoryRepository;
+    private final long stockTtlMillis;
+
+    // Access-ordered, so the least recently looked-up SKU is dropped first
+    private final Map<Long, CachedStock> stockCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedStock> eldest) {
+                    return size() > MAX_CACHED_STOCK;
+                }
+            });
+
+    public BillingLookupService(MedicineSearchIndex searchIndex,
+                                CustomerRepository customerRepository,
+                                InventoryRepository inventoryRepository,
+                                @Value("${pharmaease.billing.stock-ttl-ms:5000}") long stockTtlMillis) {
+        this.searchIndex = searchIndex;
+        this.customerRepository = customerRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockTtlMillis = stockTtlMillis;
+    }
+
+    public List<MedicineSearchIndex.Suggestion> findMedicines(String query, int limit) {
+        return searchIndex.suggest(query, clamp(limit));
+    }
+
+    public Slice<CustomerRepository.CustomerSummary> findCustomers(String query, int page, int size) {
+        String prefix = query == null ? "" : query.trim().toLowerCase().replace("%", "").replace("_", "");
+        return customerRepository.findActiveByPrefix(prefix + "%", PageRequest.of(Math.max(page, 0), clamp(size)));
+    }
+
+    /**
+     * Price and available stock of one medicine, or {@code null} if it is not in the catalogue.
+     */
+    public SkuSnapshot getSnapshot(Long medicineId) {
+        MedicineSearchIndex.Suggestion medicine = searchIndex.find(medicineId);
+        if (medicine == null) {
+            return null;
+        }
+        return new SkuSnapshot(medicine.id(), medicine.name(), medicine.strength(), medicine.unitPrice(),
+                medicine.sellingPrice(), medicine.requiresPrescription(), availableQuantity(medicineId));
+    }
+
+    private int availableQuantity(Long medicineId) {
+        long now = System.currentTimeMillis();
+        CachedStock cached = stockCache.get(medicineId);
+        if (cached != null && now - cached.loadedAt() < stockTtlMillis) {
+            return cached.quantity();
+        }
+        int quantity = inventoryRepository.findAvailableQuantity(medicineId).orElse(0);
+        stockCache.put(medicineId, new CachedStock(quantity, now));
+        return quantity;
+    }
+
+    private int clamp(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    public record SkuSnapshot(Long medicineId, String name, String strength, BigDecimal unitPrice,
+                              BigDecimal sellingPrice, boolean requiresPrescription, int availableQuantity) {
+    }
+
+    private record CachedStock(int quantity, long loadedAt) {
+    }
+}
@@ -4,9 +4,11 @@ import com.pharmaease.model.Invoice;
 import com.pharmaease.model.Orders;
 import com.pharmaease.repository.InvoiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -32,8 +34,15 @@ public class BillingService {
                 .orElseThrow(() -> new RuntimeException("Invoice not found for order"));
     }
 
-    public List<Invoice> getAllInvoices() {
-        return invoiceRepository.findAll();
+    /**
+     * One page of invoices, newest first, optionally limited to the days they were generated on.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Invoice> findInvoices(LocalDate from, LocalDate to, String cursor, Integer size) {
+        Specification<Invoice> spec = Specification.allOf(
+                ListFilters.fetching("order.customer", "order.pharmacist"),
+                ListFilters.within("generatedAt", from, to));
+        return CursorPage.scroll(invoiceRepository, spec, "generatedAt", cursor, size);
     }
 
     public List<Invoice> getInvoicesBetweenDates(LocalDateTime start, LocalDateTime end) {
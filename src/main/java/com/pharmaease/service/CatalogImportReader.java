@@ -0,0 +1,202 @@
+package com.pharmaease.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an import file one record at a time, so only the current record is ever held in memory.
+ * <p>
+ * CSV files start with a header row and may quote cells ({@code "a, b"}, {@code ""} for a quote,
+ * line breaks inside quotes). JSON Lines files hold one object per line. Either way a record comes
+ * back as its cells keyed by normalised column name: lower case, letters and digits only, so
+ * {@code unit_price}, {@code Unit Price} and {@code unitPrice} are the same column.
+ */
+final class CatalogImportReader implements Closeable {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private final BufferedReader reader;
+    private final CatalogImportService.Format format;
+    private List<String> header;
+    private long lineNumber;
+
+    CatalogImportReader(InputStream in, CatalogImportService.Format format) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        this.format = format;
+    }
+
+    /**
+     * The next record, or {@code null} at the end of the file. A record that cannot be read comes back
+     * with an error instead of cells.
+     */
+    Row next() throws IOException {
+        return format == CatalogImportService.Format.JSONL ? nextJson() : nextCsv();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static String column(String name) {
+        StringBuilder column = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                column.append(Character.toLowerCase(c));
+            }
+        }
+        return column.toString();
+    }
+
+    private Row nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        JsonNode node;
+        try {
+            node = JSON.readTree(line);
+        } catch (JsonProcessingException e) {
+            return Row.failed(lineNumber, "Not valid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return Row.failed(lineNumber, "Expected a JSON object");
+        }
+
+        Map<String, String> cells = new HashMap<>();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                continue;
+            }
+            cells.put(column(field.getKey()), value.isNumber() ? value.decimalValue().toPlainString() : value.asText());
+        }
+        return new Row(lineNumber, cells, null);
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            Record names = readRecord();
+            if (names == null) {
+                return null;
+            }
+            if (names.error() != null) {
+                throw new IOException("Line " + names.line() + ": " + names.error());
+            }
+            header = new ArrayList<>(names.cells().size());
+            for (String name : names.cells()) {
+                header.add(column(name.replace("\uFEFF", "")));
+            }
+        }
+
+        Record record = readRecord();
+        if (record == null) {
+            return null;
+        }
+        if (record.error() != null) {
+            return Row.failed(record.line(), record.error());
+        }
+
+        Map<String, String> cells = new HashMap<>();
+        for (int i = 0; i < record.cells().size() && i < header.size(); i++) {
+            cells.put(header.get(i), record.cells().get(i));
+        }
+        return new Row(record.line(), cells, null);
+    }
+
+    private Record readRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        long firstLine = lineNumber;
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // A quoted cell runs on to the next line
+                line = reader.readLine();
+                if (line == null) {
+                    return new Record(firstLine, null, "Unterminated quote");
+                }
+                lineNumber++;
+                cell.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return new Record(firstLine, cells, null);
+    }
+
+    private record Record(long line, List<String> cells, String error) {
+    }
+
+    /**
+     * One record of the file, starting at {@code line} (1-based).
+     */
+    record Row(long line, Map<String, String> cells, String error) {
+
+        static Row failed(long line, String error) {
+            return new Row(line, Map.of(), error);
+        }
+
+        /**
+         * The trimmed cell, or {@code null} if it is missing or blank.
+         */
+        String get(String column) {
+            String value = cells.get(column);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            return value.trim();
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.model.StockMovement;
+import com.pharmaease.model.Supplier;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import com.pharmaease.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Bulk catalogue and stock import from CSV or JSON Lines.
+ * <p>
+ * Each row names a medicine (matched on name and strength, ignoring case) and optionally one stock
+ * batch (matched on batch number). Unknown medicines and batches are created, known ones updated,
+ * with blank cells keeping the current value. The supplier is looked up by name.
+ * <p>
+ * The file is streamed and written in chunks of {@code pharmaease.import.batch-size} rows, each in its
+ * own transaction: one JDBC batch per table and one inventory update per medicine. A bad row is
+ * reported with its line number and skipped; if a chunk fails in the database, its rows are retried
+ * one by one so only the offending ones are lost. The search and expiry indexes are reloaded once the
+ * whole file is in.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final String CATALOG_IMPORT = "catalog import";
+
+    private final MedicineRepository medicineRepository;
+    private final SupplierRepository supplierRepository;
+    private final StockBatchRepository batchRepository;
+    private final InventoryRepository inventoryRepository;
+    private final MedicineSearchIndex searchIndex;
+    private final BatchExpiryIndex expiryIndex;
+    private final BatchAllocator batchAllocator;
+    private final ReferenceDataCache referenceCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public CatalogImportService(MedicineRepository medicineRepository,
+                                SupplierRepository supplierRepository,
+                                StockBatchRepository batchRepository,
+                                InventoryRepository inventoryRepository,
+                                MedicineSearchIndex searchIndex,
+                                BatchExpiryIndex expiryIndex,
+                                BatchAllocator batchAllocator,
+                                ReferenceDataCache referenceCache,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${pharmaease.import.batch-size:1000}") int batchSize,
+                                @Value("${pharmaease.import.max-errors:1000}") int maxErrors) {
+        this.medicineRepository = medicineRepository;
+        this.supplierRepository = supplierRepository;
+        this.batchRepository = batchRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.searchIndex = searchIndex;
+        this.expiryIndex = expiryIndex;
+        this.batchAllocator = batchAllocator;
+        this.referenceCache = referenceCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportReport importCatalog(InputStream in, Format format) throws IOException {
+        long started = System.currentTimeMillis();
+
+        // Both lookups stay in memory for the whole import, so matching a row never costs a query
+        Map<String, Long> supplierIds = new HashMap<>();
+        for (Object[] row : supplierRepository.findIdsAndNames()) {
+            supplierIds.putIfAbsent(key((String) row[1]), (Long) row[0]);
+        }
+        Map<String, Long> medicineIds = new HashMap<>();
+        for (Object[] row : medicineRepository.findCatalogKeys()) {
+            medicineIds.putIfAbsent(medicineKey((String) row[1], (String) row[2]), (Long) row[0]);
+        }
+
+        Tally tally = new Tally();
+        List<Line> chunk = new ArrayList<>(batchSize);
+        try (CatalogImportReader reader = new CatalogImportReader(in, format)) {
+            CatalogImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                tally.rows++;
+                try {
+                    chunk.add(parse(row, supplierIds));
+                } catch (IllegalArgumentException e) {
+                    tally.fail(row.line(), e.getMessage());
+                }
+                if (chunk.size() == batchSize) {
+                    write(chunk, medicineIds, tally);
+                    chunk.clear();
+                }
+            }
+        }
+        write(chunk, medicineIds, tally);
+
+        if (tally.medicinesCreated + tally.medicinesUpdated + tally.batchesCreated + tally.batchesUpdated > 0) {
+            referenceCache.pickLists().invalidate(ReferenceDataCache.CATEGORIES);
+            referenceCache.pickLists().invalidate(ReferenceDataCache.MANUFACTURERS);
+            searchIndex.load();
+            expiryIndex.load();
+            eventPublisher.publishEvent(DashboardEvent.stockChanged());
+        }
+
+        ImportReport report = tally.report(System.currentTimeMillis() - started);
+        System.out.println("📦 Imported " + report.imported() + " of " + report.rows() + " row(s) in " + report.millis() +
+                " ms (" + report.failed() + " failed)");
+        return report;
+    }
+
+    private void write(List<Line> lines, Map<String, Long> medicineIds, Tally tally) {
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Chunk chunk;
+        try {
+            chunk = transactionTemplate.execute(status -> writeChunk(lines, medicineIds));
+        } catch (RuntimeException e) {
+            if (lines.size() == 1) {
+                tally.fail(lines.get(0).number(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            } else {
+                for (Line line : lines) {
+                    write(List.of(line), medicineIds, tally);
+                }
+            }
+            return;
+        }
+
+        // Only once committed: a rolled-back chunk must leave no trace in the lookups
+        medicineIds.putAll(chunk.createdIds());
+        chunk.updatedIds().forEach(referenceCache.medicines()::invalidate);
+        chunk.stockedIds().forEach(batchAllocator::evict);
+        tally.add(chunk);
+    }
+
+    private Chunk writeChunk(List<Line> lines, Map<String, Long> medicineIds) {
+        List<String> batchNumbers = lines.stream()
+                .map(Line::batch)
+                .filter(Objects::nonNull)
+                .map(StockBatch::getBatchNumber)
+                .distinct()
+                .toList();
+        Map<String, Object[]> receipts = new HashMap<>();
+        if (!batchNumbers.isEmpty()) {
+            for (Object[] receipt : batchRepository.findReceiptStateByBatchNumberIn(batchNumbers)) {
+                receipts.put((String) receipt[0], receipt);
+            }
+        }
+
+        // Rows repeating a medicine or batch within the chunk are folded together, later cells winning
+        Map<String, Medicine> created = new LinkedHashMap<>();
+        Map<Long, Medicine> updated = new LinkedHashMap<>();
+        Map<String, Line> received = new LinkedHashMap<>();
+        List<RowError> rejected = new ArrayList<>();
+        for (Line line : lines) {
+            Long medicineId = medicineIds.get(line.medicineKey());
+            Object[] receipt = line.batch() != null ? receipts.get(line.batch().getBatchNumber()) : null;
+            if (medicineId == null && !created.containsKey(line.medicineKey()) && line.medicine().getUnitPrice() == null) {
+                rejected.add(new RowError(line.number(), "unitPrice is required for a new medicine"));
+                continue;
+            }
+            if (receipt != null && !receipt[2].equals(medicineId)) {
+                rejected.add(new RowError(line.number(), "Batch " + line.batch().getBatchNumber() + " belongs to another medicine"));
+                continue;
+            }
+
+            if (medicineId == null) {
+                created.put(line.medicineKey(), overlay(created.get(line.medicineKey()), line.medicine()));
+            } else if (line.catalogFields()) {
+                Medicine medicine = overlay(updated.get(medicineId), line.medicine());
+                medicine.setId(medicineId);
+                updated.put(medicineId, medicine);
+            }
+            if (line.batch() != null) {
+                received.put(line.batch().getBatchNumber(), line);
+            }
+        }
+
+        List<Medicine> newMedicines = new ArrayList<>(created.values());
+        medicineRepository.insertAll(newMedicines);
+        medicineRepository.updateCatalogFields(new ArrayList<>(updated.values()));
+        Map<String, Long> createdIds = new HashMap<>();
+        created.forEach((key, medicine) -> createdIds.put(key, medicine.getId()));
+
+        List<StockBatch> newBatches = new ArrayList<>();
+        List<StockBatch> changedBatches = new ArrayList<>();
+        Map<Long, Integer> stockByMedicine = new HashMap<>();
+        for (Line line : received.values()) {
+            Long medicineId = medicineIds.containsKey(line.medicineKey())
+                    ? medicineIds.get(line.medicineKey())
+                    : createdIds.get(line.medicineKey());
+            StockBatch batch = receipt(line.batch(), medicineId);
+            Object[] receipt = receipts.get(batch.getBatchNumber());
+            int stockedBefore = 0;
+            if (receipt == null) {
+                batch.setRemainingQuantity(batch.getQuantity());
+                batch.setActive(batch.getQuantity() > 0);
+                newBatches.add(batch);
+            } else {
+                // A corrected quantity moves the remaining stock by the same amount, as in StockBatchService
+                int quantity = (Integer) receipt[3];
+                int remaining = (Integer) receipt[4];
+                boolean active = (Boolean) receipt[5];
+                batch.setId((Long) receipt[1]);
+                batch.setRemainingQuantity(Math.max(remaining + batch.getQuantity() - quantity, 0));
+                batch.setActive(active && batch.getRemainingQuantity() > 0);
+                changedBatches.add(batch);
+                stockedBefore = active ? remaining : 0;
+            }
+            int stockedAfter = batch.getActive() ? batch.getRemainingQuantity() : 0;
+            stockByMedicine.merge(medicineId, stockedAfter - stockedBefore, Integer::sum);
+        }
+        batchRepository.insertAll(newBatches);
+        batchRepository.updateReceipts(changedBatches);
+
+        // One inventory write per medicine, however many of its batches the chunk carried
+        Map<Long, Integer> newInventory = new HashMap<>();
+        for (Medicine medicine : newMedicines) {
+            newInventory.put(medicine.getId(), stockByMedicine.getOrDefault(medicine.getId(), 0));
+        }
+        Map<Long, Integer> restocked = new HashMap<>();
+        stockByMedicine.forEach((medicineId, quantity) -> {
+            if (!newInventory.containsKey(medicineId) && quantity != 0) {
+                restocked.put(medicineId, quantity);
+            }
+        });
+        for (Long medicineId : inventoryRepository.restockQuantities(restocked, StockMovement.Type.RECEIPT, CATALOG_IMPORT)) {
+            newInventory.put(medicineId, restocked.get(medicineId));
+        }
+        inventoryRepository.insertStocked(newInventory, CATALOG_IMPORT);
+
+        return new Chunk(lines.size() - rejected.size(), createdIds, updated.keySet(), stockByMedicine.keySet(),
+                newBatches.size(), changedBatches.size(), rejected);
+    }
+
+    private Line parse(CatalogImportReader.Row row, Map<String, Long> supplierIds) {
+        if (row.error() != null) {
+            throw new IllegalArgumentException(row.error());
+        }
+
+        Medicine medicine = new Medicine();
+        medicine.setName(text(row, "name", 150));
+        if (medicine.getName() == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        medicine.setStrength(text(row, "strength", 50));
+        medicine.setGenericName(text(row, "genericName", 100));
+        medicine.setManufacturer(text(row, "manufacturer", 100));
+        medicine.setCategory(text(row, "category", 50));
+        medicine.setDosageForm(text(row, "dosageForm", 50));
+        medicine.setDescription(text(row, "description", Integer.MAX_VALUE));
+        medicine.setUnitPrice(price(row, "unitPrice"));
+        medicine.setSellingPrice(price(row, "sellingPrice"));
+        medicine.setReorderLevel(number(row, "reorderLevel"));
+        medicine.setRequiresPrescription(flag(row, "requiresPrescription"));
+        medicine.setActive(flag(row, "active"));
+
+        String supplierName = text(row, "supplier", 100);
+        if (supplierName != null) {
+            Long supplierId = supplierIds.get(key(supplierName));
+            if (supplierId == null) {
+                throw new IllegalArgumentException("Unknown supplier: " + supplierName);
+            }
+            Supplier supplier = new Supplier();
+            supplier.setId(supplierId);
+            medicine.setSupplier(supplier);
+        }
+
+        StockBatch batch = null;
+        String batchNumber = text(row, "batchNumber", 50);
+        if (batchNumber != null) {
+            batch = new StockBatch();
+            batch.setBatchNumber(batchNumber);
+            batch.setQuantity(required(number(row, "quantity"), "quantity"));
+            batch.setCostPrice(required(price(row, "costPrice"), "costPrice"));
+            batch.setManufacturingDate(required(date(row, "manufacturingDate"), "manufacturingDate"));
+            batch.setExpiryDate(required(date(row, "expiryDate"), "expiryDate"));
+            if (!batch.getExpiryDate().isAfter(batch.getManufacturingDate())) {
+                throw new IllegalArgumentException("expiryDate must be after manufacturingDate");
+            }
+        } else if (number(row, "quantity") != null) {
+            throw new IllegalArgumentException("batchNumber is required for stock");
+        }
+
+        boolean catalogFields = Stream.of(medicine.getGenericName(), medicine.getManufacturer(), medicine.getCategory(),
+                        medicine.getDosageForm(), medicine.getDescription(), medicine.getUnitPrice(),
+                        medicine.getSellingPrice(), medicine.getReorderLevel(), medicine.getRequiresPrescription(),
+                        medicine.getActive(), medicine.getSupplier())
+                .anyMatch(Objects::nonNull);
+        return new Line(row.line(), medicineKey(medicine.getName(), medicine.getStrength()), medicine, catalogFields, batch);
+    }
+
+    /**
+     * The cells of {@code changes} laid over {@code base}; null fields are left unset.
+     */
+    private static Medicine overlay(Medicine base, Medicine changes) {
+        Medicine m = new Medicine();
+        m.setName(changes.getName());
+        m.setStrength(changes.getStrength());
+        m.setGenericName(latest(base == null ? null : base.getGenericName(), changes.getGenericName()));
+        m.setManufacturer(latest(base == null ? null : base.getManufacturer(), changes.getManufacturer()));
+        m.setCategory(latest(base == null ? null : base.getCategory(), changes.getCategory()));
+        m.setDosageForm(latest(base == null ? null : base.getDosageForm(), changes.getDosageForm()));
+        m.setDescription(latest(base == null ? null : base.getDescription(), changes.getDescription()));
+        m.setUnitPrice(latest(base == null ? null : base.getUnitPrice(), changes.getUnitPrice()));
+        m.setSellingPrice(latest(base == null ? null : base.getSellingPrice(), changes.getSellingPrice()));
+        m.setReorderLevel(latest(base == null ? null : base.getReorderLevel(), changes.getReorderLevel()));
+        m.setRequiresPrescription(latest(base == null ? null : base.getRequiresPrescription(), changes.getRequiresPrescription()));
+        m.setActive(latest(base == null ? null : base.getActive(), changes.getActive()));
+        m.setSupplier(latest(base == null ? null : base.getSupplier(), changes.getSupplier()));
+        return m;
+    }
+
+    private static <T> T latest(T current, T incoming) {
+        return incoming != null ? incoming : current;
+    }
+
+    private static StockBatch receipt(StockBatch row, Long medicineId) {
+        Medicine medicine = new Medicine();
+        medicine.setId(medicineId);
+        StockBatch batch = new StockBatch();
+        batch.setBatchNumber(row.getBatchNumber());
+        batch.setMedicine(medicine);
+        batch.setQuantity(row.getQuantity());
+        batch.setCostPrice(row.getCostPrice());
+        batch.setManufacturingDate(row.getManufacturingDate());
+        batch.setExpiryDate(row.getExpiryDate());
+        return batch;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String medicineKey(String name, String strength) {
+        return key(name) + "|" + (strength != null ? key(strength) : "");
+    }
+
+    private static String text(CatalogImportReader.Row row, String field, int maxLength) {
+        String value = row.get(CatalogImportReader.column(field));
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal price(CatalogImportReader.Row row, String field) {
+        String value = text(row, field, 32);
+        if (value == null) {
+            return null;
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException(field + " must not be negative");
+        }
+        return price;
+    }
+
+    private static Integer number(CatalogImportReader.Row row, String field) {
+        String value = text(row, field, 32);
+        if (value == null) {
+            return null;
+        }
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+        if (number < 0) {
+            throw new IllegalArgumentException(field + " must not be negative");
+        }
+        return number;
+    }
+
+    private static Boolean flag(CatalogImportReader.Row row, String field) {
+        String value = text(row, field, 32);
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1" -> true;
+            case "false", "no", "n", "0" -> false;
+            default -> throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        };
+    }
+
+    private static LocalDate date(CatalogImportReader.Row row, String field) {
+        String value = text(row, field, 32);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value + " (expected yyyy-MM-dd)");
+        }
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required with a batchNumber");
+        }
+        return value;
+    }
+
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * JSON Lines for a file name, format name or content type mentioning json, CSV otherwise.
+         */
+        public static Format of(String hint) {
+            return hint != null && hint.toLowerCase(Locale.ROOT).contains("json") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * @param errors the first {@code pharmaease.import.max-errors} failed rows; {@code failed} counts them all
+     */
+    public record ImportReport(long rows, long imported, long failed, long medicinesCreated, long medicinesUpdated,
+                               long batchesCreated, long batchesUpdated, long millis, List<RowError> errors) {
+    }
+
+    public record RowError(long line, String message) {
+    }
+
+    private record Line(long number, String medicineKey, Medicine medicine, boolean catalogFields, StockBatch batch) {
+    }
+
+    private record Chunk(int imported, Map<String, Long> createdIds, Set<Long> updatedIds, Set<Long> stockedIds,
+                         int batchesCreated, int batchesUpdated, List<RowError> rejected) {
+    }
+
+    private final class Tally {
+        private long rows;
+        private long imported;
+        private long failed;
+        private long medicinesCreated;
+        private long medicinesUpdated;
+        private long batchesCreated;
+        private long batchesUpdated;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        private void add(Chunk chunk) {
+            imported += chunk.imported();
+            medicinesCreated += chunk.createdIds().size();
+            medicinesUpdated += chunk.updatedIds().size();
+            batchesCreated += chunk.batchesCreated();
+            batchesUpdated += chunk.batchesUpdated();
+            chunk.rejected().forEach(error -> fail(error.line(), error.message()));
+        }
+
+        private ImportReport report(long millis) {
+            // Rows are reported in file order, whichever chunk or retry they failed in
+            errors.sort((a, b) -> Long.compare(a.line(), b.line()));
+            return new ImportReport(rows, imported, failed, medicinesCreated, medicinesUpdated,
+                    batchesCreated, batchesUpdated, millis, errors);
+        }
+    }
+}
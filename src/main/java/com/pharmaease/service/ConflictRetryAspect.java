@@ -0,0 +1,76 @@
+package com.pharmaease.service;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods on optimistic lock conflicts, up to
+ * {@code pharmaease.retry.max-attempts} times with exponential backoff and jitter, so writers that
+ * collided do not collide again in lockstep. Every conflict is counted in {@link StockConflictMetrics}.
+ * <p>
+ * Ordered before the transaction interceptor, so each attempt runs in a transaction of its own and
+ * reads the rows afresh.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    private final StockConflictMetrics metrics;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public ConflictRetryAspect(StockConflictMetrics metrics,
+                               @Value("${pharmaease.retry.max-attempts:4}") int maxAttempts,
+                               @Value("${pharmaease.retry.backoff-ms:20}") long backoffMillis) {
+        this.metrics = metrics;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Around("@annotation(com.pharmaease.service.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint call) throws Throwable {
+        // Inside a caller's transaction the conflict has already doomed it; only the caller can start over
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return call.proceed();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            metrics.recordAttempt();
+            try {
+                return call.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                boolean exhausted = attempt >= maxAttempts;
+                Object[] args = call.getArgs();
+                RetryOnConflict retryOnConflict = ((MethodSignature) call.getSignature()).getMethod().getAnnotation(RetryOnConflict.class);
+                metrics.recordConflict(e, exhausted, retryOnConflict.subject(), args.length > 0 ? args[0] : null);
+                if (exhausted) {
+                    System.err.println("❌ " + call.getSignature().toShortString() + " still conflicting after " + attempt + " attempts");
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoff(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Half of the doubling delay is fixed and half random
+    private long backoff(int attempt) {
+        long delay = backoffMillis << Math.min(attempt - 1, 10);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
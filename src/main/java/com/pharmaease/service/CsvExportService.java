@@ -0,0 +1,205 @@
+package com.pharmaease.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * CSV exports for accounting: order lines, invoices and the valuation of stock on hand.
+ * <p>
+ * Rows go from a forward-only JDBC cursor straight to the output, one at a time: the driver holds one
+ * fetch of {@code pharmaease.export.fetch-size} rows and no entities are loaded, so memory stays flat
+ * however long the export. Each export runs in one read-only transaction (PostgreSQL only streams
+ * with a cursor inside a transaction, and read-only work goes to the replica when there is one).
+ * Archived orders and invoices are included, before the hot ones.
+ */
+@Service
+public class CsvExportService {
+
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private static final String ORDER_LINES_SQL =
+            "SELECT o.order_number, o.created_at, o.status, o.payment_method, c.name, p.name, " +
+            "m.name, m.strength, b.batch_number, oi.quantity, oi.unit_price, oi.total_price " +
+            "FROM %s o JOIN %s oi ON oi.order_id = o.id " +
+            "JOIN pharmacists p ON p.id = o.pharmacist_id " +
+            "JOIN medicines m ON m.id = oi.medicine_id " +
+            "LEFT JOIN customers c ON c.id = o.customer_id " +
+            "LEFT JOIN stock_batches b ON b.id = oi.batch_id " +
+            // Items carry their order's timestamp, which lets PostgreSQL skip their other partitions too
+            "WHERE o.created_at >= ? AND o.created_at < ? AND oi.created_at >= ? AND oi.created_at < ? " +
+            "ORDER BY o.created_at, o.id, oi.id";
+
+    private static final String INVOICES_SQL =
+            "SELECT i.invoice_number, i.generated_at, o.order_number, o.status, o.payment_method, c.name, " +
+            "o.subtotal, o.tax, o.discount, o.total_amount, i.amount_paid, i.change_given " +
+            "FROM %s i JOIN %s o ON o.id = i.order_id " +
+            "LEFT JOIN customers c ON c.id = o.customer_id " +
+            "WHERE i.generated_at >= ? AND i.generated_at < ? " +
+            "ORDER BY i.generated_at, i.id";
+
+    private static final String STOCK_VALUATION_SQL =
+            "SELECT m.name, m.strength, b.batch_number, b.expiry_date, b.remaining_quantity, " +
+            "b.cost_price, b.remaining_quantity * b.cost_price, m.unit_price, b.remaining_quantity * m.unit_price " +
+            "FROM stock_batches b JOIN medicines m ON m.id = b.medicine_id " +
+            "WHERE b.active = TRUE AND b.remaining_quantity > 0 " +
+            "ORDER BY b.medicine_id, b.expiry_date, b.id";
+
+    private static final List<String> ORDER_LINES_HEADER = List.of("order_number", "created_at", "status",
+            "payment_method", "customer", "pharmacist", "medicine", "strength", "batch_number", "quantity",
+            "unit_price", "total_price");
+    private static final List<String> INVOICES_HEADER = List.of("invoice_number", "generated_at", "order_number",
+            "status", "payment_method", "customer", "subtotal", "tax", "discount", "total_amount", "amount_paid",
+            "change_given");
+    private static final List<String> STOCK_VALUATION_HEADER = List.of("medicine", "strength", "batch_number",
+            "expiry_date", "remaining_quantity", "cost_price", "cost_value", "unit_price", "retail_value");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CsvExportService(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${pharmaease.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes one row per order line of the orders created from {@code from} to {@code to} (inclusive).
+     *
+     * @return number of rows written
+     */
+    public long exportOrderLines(LocalDate from, LocalDate to, OutputStream out) {
+        Object[] range = {start(from), end(to), start(from), end(to)};
+        return export("order line", out, ORDER_LINES_HEADER,
+                new Statement(String.format(ORDER_LINES_SQL, "orders_archive", "order_items_archive"), range),
+                new Statement(String.format(ORDER_LINES_SQL, "orders", "order_items"), range));
+    }
+
+    /**
+     * Writes one row per invoice generated from {@code from} to {@code to} (inclusive).
+     *
+     * @return number of rows written
+     */
+    public long exportInvoices(LocalDate from, LocalDate to, OutputStream out) {
+        Object[] range = {start(from), end(to)};
+        return export("invoice", out, INVOICES_HEADER,
+                new Statement(String.format(INVOICES_SQL, "invoices_archive", "orders_archive"), range),
+                new Statement(String.format(INVOICES_SQL, "invoices", "orders"), range));
+    }
+
+    /**
+     * Writes one row per active batch with stock left, valued at cost and at the medicine's price.
+     *
+     * @return number of rows written
+     */
+    public long exportStockValuation(OutputStream out) {
+        return export("batch", out, STOCK_VALUATION_HEADER, new Statement(STOCK_VALUATION_SQL, new Object[0]));
+    }
+
+    private long export(String what, OutputStream out, List<String> header, Statement... statements) {
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER);
+        long[] rows = {0};
+        try {
+            writeRow(writer, header.toArray());
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (Statement statement : statements) {
+                    jdbcTemplate.query(statement.sql(), rs -> {
+                        writeRow(writer, rs, header.size());
+                        rows[0]++;
+                    }, statement.args());
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("📤 Exported " + rows[0] + " " + what + "(s) in " + (System.currentTimeMillis() - started) + " ms");
+        return rows[0];
+    }
+
+    private static void writeRow(Writer writer, ResultSet rs, int columns) throws SQLException {
+        Object[] values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+        try {
+            writeRow(writer, values);
+        } catch (IOException e) {
+            // The client went away; ends the query and the transaction
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCell(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCell(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal number) {
+            writer.write(number.toPlainString());
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+            return;
+        }
+        String text = switch (value) {
+            case Timestamp timestamp -> timestamp.toLocalDateTime().toString();
+            case Date date -> date.toLocalDate().toString();
+            default -> value.toString();
+        };
+        // Spreadsheets run cells starting with these as formulas; names and references are never formulas
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    private static Timestamp start(LocalDate from) {
+        return Timestamp.valueOf(from.atStartOfDay());
+    }
+
+    private static Timestamp end(LocalDate to) {
+        return Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+    }
+
+    private record Statement(String sql, Object[] args) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.pharmaease.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * One page of a list endpoint, newest first.
+ * <p>
+ * Pages are read by keyset ({@code WHERE (createdAt, id) < (:lastCreatedAt, :lastId)}) instead of by
+ * offset, so a deep page costs the same index range scan as the first one. {@code nextCursor} is an
+ * opaque token for the last row of the page; pass it back as {@code cursor} to get the next page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasNext) {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 200;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(items.stream().<R>map(mapper).toList(), nextCursor, hasNext);
+    }
+
+    /**
+     * Reads one page of {@code spec}, ordered by {@code timeProperty} then id, both descending.
+     * Pass a {@code null} time property for tables that only have an id to order by.
+     */
+    public static <T> CursorPage<T> scroll(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                           String timeProperty, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_SIZE : Math.min(Math.max(size, 1), MAX_SIZE);
+        Window<T> window = repository.findBy(spec, query -> query
+                .sortBy(newestFirst(timeProperty))
+                .limit(limit)
+                .scroll(position(cursor, timeProperty)));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = encode(last.getKeys(), timeProperty);
+        }
+        return new CursorPage<>(window.getContent(), nextCursor, nextCursor != null);
+    }
+
+    private static Sort newestFirst(String timeProperty) {
+        Sort byId = Sort.by(Sort.Direction.DESC, "id");
+        return timeProperty == null ? byId : Sort.by(Sort.Direction.DESC, timeProperty).and(byId);
+    }
+
+    private static String encode(Map<String, ?> keys, String timeProperty) {
+        String token = (timeProperty == null ? "" : keys.get(timeProperty) + ",") + keys.get("id");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScrollPosition position(String cursor, String timeProperty) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (timeProperty == null) {
+                keys.put("id", Long.valueOf(token));
+            } else {
+                int comma = token.lastIndexOf(',');
+                keys.put(timeProperty, LocalDateTime.parse(token.substring(0, comma)));
+                keys.put("id", Long.valueOf(token.substring(comma + 1)));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.pharmaease.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published by the order and stock services when something the dashboard shows has changed.
+ * {@link DashboardStreamService} and {@link NotificationCountService} pick it up once the publishing
+ * transaction commits.
+ * <p>
+ * {@code medicineIds} names the medicines whose stock levels the write may have moved; {@code null}
+ * means the publisher cannot tell (e.g. a bulk import), so any of them may have.
+ */
+public record DashboardEvent(Type type, LocalDate day, BigDecimal amount, Set<Long> medicineIds) {
+
+    public enum Type {
+        SALE_COMPLETED, ORDER_CANCELLED, STOCK_CHANGED
+    }
+
+    public static DashboardEvent saleCompleted(LocalDate day, BigDecimal amount) {
+        return saleCompleted(day, amount, Set.of());
+    }
+
+    public static DashboardEvent saleCompleted(LocalDate day, BigDecimal amount, Collection<Long> medicineIds) {
+        return new DashboardEvent(Type.SALE_COMPLETED, day, amount != null ? amount : BigDecimal.ZERO, Set.copyOf(medicineIds));
+    }
+
+    public static DashboardEvent orderCancelled(Collection<Long> medicineIds) {
+        return new DashboardEvent(Type.ORDER_CANCELLED, null, BigDecimal.ZERO, Set.copyOf(medicineIds));
+    }
+
+    public static DashboardEvent stockChanged(Collection<Long> medicineIds) {
+        return new DashboardEvent(Type.STOCK_CHANGED, null, BigDecimal.ZERO, Set.copyOf(medicineIds));
+    }
+
+    /**
+     * Stock changed for medicines the publisher does not name.
+     */
+    public static DashboardEvent stockChanged() {
+        return new DashboardEvent(Type.STOCK_CHANGED, null, BigDecimal.ZERO, null);
+    }
+}
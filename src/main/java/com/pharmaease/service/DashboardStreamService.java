@@ -0,0 +1,275 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.InventoryRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes dashboard statistics to every open dashboard over Server-Sent Events.
+ * <p>
+ * One shared snapshot is loaded from {@link ReportService#getDashboardStatistics()} and then moved
+ * forward by {@link DashboardEvent}s after their transaction commits: sales are applied in memory,
+ * and stock changes only mark the low-stock and expiring counts dirty so they are re-counted at most
+ * once per refresh interval. Database load therefore depends on the event rate, not on how many dashboards are open.
+ * A periodic resync picks up changes made on other nodes.
+ * <p>
+ * The lock on the snapshot is never held across a query: counts and resyncs are loaded first and
+ * swapped in afterwards, so the events published on checkout threads never wait for the database. A
+ * resync that sales overtook while it was loading is dropped and tried again on the next refresh.
+ * <p>
+ * Each client is sent only the stats that changed. A client that is still busy receiving gets its
+ * next changes merged into one pending update (latest value wins), so a slow dashboard costs one
+ * map and one parked virtual thread, never a growing queue.
+ */
+@Service
+public class DashboardStreamService implements DisposableBean {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ReportService reportService;
+    private final InventoryRepository inventoryRepository;
+    private final BatchExpiryIndex expiryIndex;
+    private final long resyncMillis;
+    private final Set<Client> clients = new CopyOnWriteArraySet<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Map<String, Object> snapshot;
+    private LocalDate snapshotDay;
+    private long snapshotLoadedAt;
+    private long eventCount;
+    private volatile boolean lowStockDirty;
+
+    public DashboardStreamService(ReportService reportService,
+                                  InventoryRepository inventoryRepository,
+                                  BatchExpiryIndex expiryIndex,
+                                  @Value("${pharmaease.dashboard.resync-ms:60000}") long resyncMillis) {
+        this.reportService = reportService;
+        this.inventoryRepository = inventoryRepository;
+        this.expiryIndex = expiryIndex;
+        this.resyncMillis = resyncMillis;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Client client = new Client(emitter);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        clients.add(client);
+
+        // A new dashboard starts from the full snapshot, then only receives changes
+        client.offer(currentSnapshot(), "SNAPSHOT");
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDashboardEvent(DashboardEvent event) {
+        Map<String, Object> changes;
+        synchronized (this) {
+            eventCount++;
+            if (snapshot == null) {
+                // Nobody has subscribed yet; the first subscriber loads a fresh snapshot
+                return;
+            }
+            changes = apply(event);
+        }
+        // Sales, reservations and batch edits can all flip an item in or out of low stock or expiry
+        lowStockDirty = true;
+        // Order events go out even without stat changes so order lists can offer a refresh
+        broadcast(changes, event.type().name(), event.type() != DashboardEvent.Type.STOCK_CHANGED);
+    }
+
+    @Scheduled(fixedDelayString = "${pharmaease.dashboard.refresh-ms:2000}")
+    public void refresh() {
+        if (clients.isEmpty()) {
+            return;
+        }
+
+        boolean resync;
+        long seen;
+        synchronized (this) {
+            if (snapshot == null) {
+                return;
+            }
+            resync = !LocalDate.now().equals(snapshotDay) || System.currentTimeMillis() - snapshotLoadedAt >= resyncMillis;
+            seen = eventCount;
+        }
+
+        Map<String, Object> changes;
+        if (resync) {
+            Map<String, Object> loaded = new HashMap<>(reportService.getDashboardStatistics());
+            synchronized (this) {
+                if (eventCount != seen) {
+                    // Events the loaded stats may or may not include; keep the applied ones and retry
+                    return;
+                }
+                Map<String, Object> previous = snapshot;
+                install(loaded, System.currentTimeMillis());
+                changes = diff(previous, snapshot);
+                lowStockDirty = false;
+            }
+        } else if (lowStockDirty) {
+            lowStockDirty = false;
+            Long lowStock = inventoryRepository.countLowStockItems();
+            LocalDate today = LocalDate.now();
+            long expiring = expiryIndex.countBetween(today, today.plusDays(30));
+            synchronized (this) {
+                changes = new LinkedHashMap<>(put("lowStockCount", lowStock != null ? lowStock : 0L));
+                changes.putAll(put("expiringBatchesCount", expiring));
+            }
+        } else {
+            changes = Map.of();
+        }
+        broadcast(changes, "REFRESH", false);
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    Map<String, Object> currentSnapshot() {
+        long seen;
+        synchronized (this) {
+            if (snapshot != null && LocalDate.now().equals(snapshotDay)) {
+                return new LinkedHashMap<>(snapshot);
+            }
+            seen = eventCount;
+        }
+
+        Map<String, Object> loaded = new HashMap<>(reportService.getDashboardStatistics());
+        synchronized (this) {
+            if (snapshot == null || !LocalDate.now().equals(snapshotDay)) {
+                // Sales committed while it was loading may be missing; the next refresh resyncs then
+                install(loaded, eventCount == seen ? System.currentTimeMillis() : 0);
+            }
+            return new LinkedHashMap<>(snapshot);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        clients.forEach(c -> c.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void install(Map<String, Object> loaded, long loadedAt) {
+        snapshot = loaded;
+        snapshotDay = LocalDate.now();
+        snapshotLoadedAt = loadedAt;
+    }
+
+    private Map<String, Object> apply(DashboardEvent event) {
+        if (event.type() != DashboardEvent.Type.SALE_COMPLETED) {
+            return Map.of();
+        }
+
+        // Mirrors the date ranges of ReportService.getDashboardStatistics
+        double amount = event.amount().doubleValue();
+        LocalDate day = event.day() != null ? event.day() : snapshotDay;
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.putAll(add("totalSales", amount));
+        if (!day.isBefore(snapshotDay.minusDays(7)) && !day.isAfter(snapshotDay)) {
+            changes.putAll(add("weekSales", amount));
+        }
+        if (!day.isBefore(snapshotDay.withDayOfMonth(1)) && !day.isAfter(snapshotDay)) {
+            changes.putAll(add("monthSales", amount));
+        }
+        if (day.equals(snapshotDay)) {
+            changes.putAll(add("todaySales", amount));
+            changes.putAll(put("todayOrders", ((Number) snapshot.getOrDefault("todayOrders", 0L)).longValue() + 1));
+        }
+        return changes;
+    }
+
+    private Map<String, Object> add(String key, double amount) {
+        return put(key, ((Number) snapshot.getOrDefault(key, 0.0)).doubleValue() + amount);
+    }
+
+    private Map<String, Object> put(String key, Object value) {
+        Object previous = snapshot.put(key, value);
+        return Objects.equals(previous, value) ? Map.of() : Map.of(key, value);
+    }
+
+    private Map<String, Object> diff(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        after.forEach((key, value) -> {
+            if (!Objects.equals(before.get(key), value)) {
+                changes.put(key, value);
+            }
+        });
+        return changes;
+    }
+
+    private void broadcast(Map<String, Object> changes, String reason, boolean always) {
+        if (changes.isEmpty() && !always) {
+            return;
+        }
+        for (Client client : clients) {
+            client.offer(changes, reason);
+        }
+    }
+
+    private final class Client {
+        private final SseEmitter emitter;
+        private Map<String, Object> pending = new LinkedHashMap<>();
+        private boolean sending;
+
+        private Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Map<String, Object> changes, String reason) {
+            synchronized (this) {
+                pending.putAll(changes);
+                pending.put("reason", reason);
+                if (sending) {
+                    // The running sender will pick the merged changes up
+                    return;
+                }
+                sending = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Map<String, Object> next;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        sending = false;
+                        return;
+                    }
+                    next = pending;
+                    pending = new LinkedHashMap<>();
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("stats").data(next));
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away
+                    clients.remove(this);
+                    synchronized (this) {
+                        pending.clear();
+                        sending = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
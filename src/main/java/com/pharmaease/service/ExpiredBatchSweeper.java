@@ -0,0 +1,109 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes off expired stock once a day. The candidates come straight from the {@link BatchExpiryIndex},
+ * so nothing is scanned; each chunk deactivates its batches in one JDBC batch and takes their remaining
+ * quantity out of inventory with one update per medicine.
+ * <p>
+ * Written-off batches keep their remaining quantity as a record of what was lost, but are no longer
+ * active, so they drop out of the expired stock lists and counts.
+ */
+@Service
+public class ExpiredBatchSweeper {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final StockBatchRepository batchRepository;
+    private final InventoryRepository inventoryRepository;
+    private final BatchExpiryIndex expiryIndex;
+    private final BatchAllocator batchAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ExpiredBatchSweeper(StockBatchRepository batchRepository,
+                               InventoryRepository inventoryRepository,
+                               BatchExpiryIndex expiryIndex,
+                               BatchAllocator batchAllocator,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager) {
+        this.batchRepository = batchRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.expiryIndex = expiryIndex;
+        this.batchAllocator = batchAllocator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        // Catch up on anything that expired while the app was down
+        sweep(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${pharmaease.expiry.sweep-cron:0 5 0 * * *}")
+    public void sweepExpired() {
+        sweep(LocalDate.now());
+    }
+
+    /**
+     * Deactivates every active batch that expired before {@code today}.
+     *
+     * @return number of batches written off
+     */
+    public int sweep(LocalDate today) {
+        List<Long> due = expiryIndex.idsExpiredBefore(today);
+        int writtenOff = 0;
+        for (int from = 0; from < due.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = due.subList(from, Math.min(from + CHUNK_SIZE, due.size()));
+            try {
+                Integer count = transactionTemplate.execute(status -> writeOff(chunk, today));
+                writtenOff += count != null ? count : 0;
+            } catch (RuntimeException e) {
+                // The batches stay in the index, so the next sweep tries them again
+                System.err.println("❌ Could not write off expired batches: " + e.getMessage());
+            }
+        }
+        if (writtenOff > 0) {
+            System.out.println("🗑️ Wrote off " + writtenOff + " expired batch(es)");
+        }
+        return writtenOff;
+    }
+
+    private int writeOff(List<Long> batchIds, LocalDate today) {
+        // Deactivating first locks the rows, so sales can no longer take from them
+        Set<Long> deactivated = batchRepository.deactivateExpired(batchIds, today);
+        if (deactivated.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : batchRepository.sumRemainingByMedicine(deactivated)) {
+            int quantity = ((Number) row[1]).intValue();
+            if (quantity > 0) {
+                quantities.put((Long) row[0], quantity);
+            }
+        }
+        inventoryRepository.writeOffQuantities(quantities, "expiry sweep " + today);
+
+        quantities.keySet().forEach(batchAllocator::evictAfterCommit);
+        deactivated.forEach(batchId -> eventPublisher.publishEvent(StockBatchEvent.inactive(batchId)));
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(quantities.keySet()));
+        return deactivated.size();
+    }
+}
@@ -0,0 +1,17 @@
+package com.pharmaease.service;
+
+import java.io.Serial;
+
+/**
+ * Thrown when an idempotency key comes back with a different request than the one it was first used
+ * with. Replaying the first order would silently drop the new cart, so the request is refused instead.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency key " + key + " was already used for a different order");
+    }
+}
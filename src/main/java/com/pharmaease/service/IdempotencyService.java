@@ -0,0 +1,170 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.OrderItem;
+import com.pharmaease.model.Orders;
+import com.pharmaease.repository.IdempotencyKeyRepository;
+import com.pharmaease.repository.StoredKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes checkout safe to retry. A client sends the same key with every attempt of one sale; the first
+ * attempt creates the order and later ones get that order back without touching inventory. The key is
+ * stored with a hash of the request, and a later request with the same key but a different cart is
+ * refused with {@link IdempotencyKeyMismatchException}.
+ * <p>
+ * Keys are looked up in a bounded LRU cache first, then in the idempotency_keys table. Duplicates
+ * arriving while the first attempt is still running wait for its result instead of starting a second
+ * sale. Across nodes the table's primary key is the last line of defence (see
+ * {@link OrderService#createOrder(Orders, String, String)}).
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final long retentionHours;
+    private final Map<String, StoredKey> replayCache;
+    private final Map<String, CompletableFuture<StoredKey>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(OrderService orderService,
+                              IdempotencyKeyRepository idempotencyKeyRepository,
+                              @Value("${pharmaease.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${pharmaease.idempotency.retention-hours:48}") long retentionHours) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.retentionHours = retentionHours;
+        this.replayCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredKey> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public Orders createOrder(Orders order, String key) {
+        if (key == null || key.isBlank()) {
+            return orderService.createOrder(order);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = requestHash(order);
+
+        StoredKey cached = replayCache.get(key);
+        if (cached != null) {
+            return replay(key, cached, requestHash);
+        }
+
+        // Coalesce concurrent duplicates: only the first request for a key does the work
+        CompletableFuture<StoredKey> mine = new CompletableFuture<>();
+        CompletableFuture<StoredKey> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return replay(key, await(running), requestHash);
+        }
+
+        try {
+            StoredKey stored = idempotencyKeyRepository.findStoredKey(key).orElse(null);
+            Orders created = null;
+            if (stored == null) {
+                try {
+                    created = orderService.createOrder(order, key, requestHash);
+                    stored = new StoredKey(created.getId(), requestHash);
+                } catch (DataIntegrityViolationException e) {
+                    // Another node committed the same key first; our sale was rolled back, so theirs is the answer
+                    stored = idempotencyKeyRepository.findStoredKey(key).orElseThrow(() -> e);
+                }
+            }
+            replayCache.put(key, stored);
+            mine.complete(stored);
+            return created != null ? created : replay(key, stored, requestHash);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Orders replay(String key, StoredKey stored, String requestHash) {
+        if (stored.requestHash() != null && !stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+        System.out.println("🔁 Replaying order " + stored.orderId() + " for idempotency key " + key);
+        return orderService.getOrderById(stored.orderId());
+    }
+
+    /**
+     * SHA-256 over what the client asked for: customer, pharmacist, status, payment, discount and the
+     * lines (medicine, quantity, unit price) in medicine order. Amounts compare by value, so "10" and
+     * "10.00" are the same request.
+     */
+    static String requestHash(Orders order) {
+        StringBuilder request = new StringBuilder()
+                .append(order.getCustomer() != null ? order.getCustomer().getId() : null).append('|')
+                .append(order.getPharmacist() != null ? order.getPharmacist().getId() : null).append('|')
+                .append(order.getStatus()).append('|')
+                .append(order.getPaymentMethod()).append('|')
+                .append(amount(order.getDiscount()));
+        List<String> lines = new ArrayList<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                lines.add((item.getMedicine() != null ? item.getMedicine().getId() : null) + "x" + item.getQuantity() +
+                        "@" + amount(item.getUnitPrice()));
+            }
+        }
+        lines.sort(Comparator.naturalOrder());
+        lines.forEach(line -> request.append('|').append(line));
+
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(request.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String amount(BigDecimal amount) {
+        return amount != null ? amount.stripTrailingZeros().toPlainString() : "0";
+    }
+
+    private StoredKey await(CompletableFuture<StoredKey> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // The first attempt failed (e.g. insufficient stock): its duplicates fail the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "${pharmaease.idempotency.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int removed = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        System.out.println("🧹 Purged " + removed + " idempotency keys older than " + retentionHours + "h");
+    }
+}
@@ -0,0 +1,34 @@
+package com.pharmaease.service;
+
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Thrown when checkout cannot deduct stock for one or more lines. Carries a shortfall per medicine so
+ * the till can show every problem at once instead of failing line by line.
+ */
+@Getter
+public class InsufficientStockException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Declared as a List, but always the serializable copy made by the constructor
+    @SuppressWarnings("serial")
+    private final List<Shortfall> shortfalls;
+
+    public InsufficientStockException(List<Shortfall> shortfalls) {
+        super(shortfalls.stream()
+                .map(s -> "Insufficient stock for " + s.medicineName() +
+                        ". Available: " + s.available() + ", Requested: " + s.requested())
+                .collect(Collectors.joining("; ")));
+        this.shortfalls = List.copyOf(shortfalls);
+    }
+
+    public record Shortfall(Long medicineId, String medicineName, int requested, int available) implements Serializable {
+    }
+}
@@ -0,0 +1,187 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.StockMovement;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import com.pharmaease.repository.StockCheck;
+import com.pharmaease.repository.StockLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Checks every inventory row against its batches: available plus reserved stock should be exactly what
+ * the medicine's active batches still hold. Medicines are paged by id and each page is checked on a
+ * fork-join pool with one grouped aggregate over the batches of its id range, so the whole catalogue
+ * takes a couple of queries per thousand medicines. When only reporting, the rows and the aggregate are
+ * read in the same statement.
+ * <p>
+ * When asked to correct, each page locks its inventory rows first and moves available stock to match,
+ * through the ledger as an adjustment. Reserved stock is left alone; it belongs to open orders.
+ */
+@Service
+public class InventoryReconciler {
+
+    private static final int MAX_REPORTED = 100;
+    private static final String REFERENCE = "reconciliation";
+
+    private final InventoryRepository inventoryRepository;
+    private final StockBatchRepository batchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean autoCorrect;
+
+    public InventoryReconciler(InventoryRepository inventoryRepository,
+                               StockBatchRepository batchRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${pharmaease.reconciliation.chunk-size:1000}") int chunkSize,
+                               @Value("${pharmaease.reconciliation.parallelism:0}") int parallelism,
+                               @Value("${pharmaease.reconciliation.auto-correct:false}") boolean autoCorrect,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.inventoryRepository = inventoryRepository;
+        this.batchRepository = batchRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        // Each page holds a connection: by default leave half the primary pool to requests
+        this.parallelism = parallelism > 0 ? parallelism
+                : Math.max(1, Math.min(poolSize / 2, Runtime.getRuntime().availableProcessors()));
+        this.autoCorrect = autoCorrect;
+    }
+
+    @Scheduled(cron = "${pharmaease.reconciliation.cron:0 0 4 * * *}")
+    public void reconcileNightly() {
+        reconcile(autoCorrect);
+    }
+
+    /**
+     * Compares every medicine's inventory with its batches.
+     *
+     * @param correct whether to bring drifted rows back in line with the batches, or only report them
+     */
+    public Report reconcile(boolean correct) {
+        long started = System.currentTimeMillis();
+        int medicines = 0;
+        List<Future<List<Drift>>> chunks = new ArrayList<>();
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            Long after = 0L;
+            while (true) {
+                List<Long> medicineIds = inventoryRepository.findMedicineIdsAfter(after, Limit.of(chunkSize));
+                if (medicineIds.isEmpty()) {
+                    break;
+                }
+                Long from = medicineIds.get(0);
+                Long to = medicineIds.get(medicineIds.size() - 1);
+                chunks.add(pool.submit(() -> transactionTemplate.execute(status -> reconcileChunk(from, to, correct))));
+                medicines += medicineIds.size();
+                after = to;
+            }
+        }
+
+        List<Drift> drifts = new ArrayList<>();
+        int failed = 0;
+        for (Future<List<Drift>> chunk : chunks) {
+            try {
+                List<Drift> found = chunk.get();
+                if (found != null) {
+                    drifts.addAll(found);
+                }
+            } catch (ExecutionException e) {
+                // A failed page changed nothing; the next run checks it again
+                System.err.println("❌ Could not reconcile inventory: " + e.getCause().getMessage());
+                failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Inventory reconciliation interrupted", e);
+            }
+        }
+
+        long unitsOff = drifts.stream().mapToLong(drift -> Math.abs(drift.difference())).sum();
+        long corrected = drifts.stream().filter(Drift::corrected).count();
+        drifts.sort(Comparator.comparingInt((Drift drift) -> Math.abs(drift.difference())).reversed());
+        long elapsed = System.currentTimeMillis() - started;
+
+        if (drifts.isEmpty()) {
+            System.out.println("✅ Inventory of " + medicines + " medicine(s) matches the batches (" + elapsed + " ms)");
+        } else {
+            System.err.println("⚠️ Inventory of " + drifts.size() + " of " + medicines + " medicine(s) is " + unitsOff +
+                    " unit(s) off from the batches, " + corrected + " corrected (" + elapsed + " ms)");
+        }
+        return new Report(medicines, drifts.size(), corrected, unitsOff, failed, elapsed,
+                List.copyOf(drifts.subList(0, Math.min(MAX_REPORTED, drifts.size()))));
+    }
+
+    private List<Drift> reconcileChunk(Long fromMedicineId, Long toMedicineId, boolean correct) {
+        Map<Long, StockCheck> checks = correct
+                ? lockAndCheck(fromMedicineId, toMedicineId)
+                // One statement sees one snapshot, so a sale committing half way cannot show up as drift
+                : inventoryRepository.checkLevelsBetween(fromMedicineId, toMedicineId);
+
+        List<Drift> drifts = new ArrayList<>();
+        Map<Long, Integer> corrections = new HashMap<>();
+        checks.forEach((medicineId, check) -> {
+            StockLevel level = check.level();
+            int inBatches = check.inBatches();
+            int difference = level.availableQuantity() + level.reservedQuantity() - inBatches;
+            if (difference == 0) {
+                return;
+            }
+            int change = Math.max(inBatches - level.reservedQuantity(), 0) - level.availableQuantity();
+            if (correct && change != 0) {
+                corrections.put(medicineId, change);
+            }
+            drifts.add(new Drift(medicineId, level.availableQuantity(), level.reservedQuantity(), inBatches,
+                    difference, correct && change != 0));
+        });
+
+        if (!corrections.isEmpty()) {
+            inventoryRepository.restockQuantities(corrections, StockMovement.Type.ADJUSTMENT, REFERENCE);
+            eventPublisher.publishEvent(DashboardEvent.stockChanged(corrections.keySet()));
+        }
+        return drifts;
+    }
+
+    private Map<Long, StockCheck> lockAndCheck(Long fromMedicineId, Long toMedicineId) {
+        // The rows are locked before the batches are summed: sales take the inventory row before
+        // touching batches, so none can be half way through any of these medicines
+        Map<Long, StockLevel> levels = inventoryRepository.findLevelsBetween(fromMedicineId, toMedicineId, true);
+        Map<Long, Integer> batchStock = new HashMap<>();
+        for (Object[] row : batchRepository.sumActiveRemainingByMedicineBetween(fromMedicineId, toMedicineId)) {
+            batchStock.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        Map<Long, StockCheck> checks = new HashMap<>();
+        levels.forEach((medicineId, level) -> checks.put(medicineId, new StockCheck(level, batchStock.getOrDefault(medicineId, 0))));
+        return checks;
+    }
+
+    /**
+     * @param difference how much more stock the inventory row claims than the batches hold
+     * @param corrected  whether available stock was moved to match the batches
+     */
+    public record Drift(Long medicineId, int availableQuantity, int reservedQuantity, int batchQuantity,
+                        int difference, boolean corrected) {
+    }
+
+    /**
+     * @param drifts the largest drifts, at most 100
+     */
+    public record Report(int medicines, int drifted, long corrected, long unitsOff, int failedChunks,
+                         long elapsedMillis, List<Drift> drifts) {
+    }
+}
@@ -3,11 +3,16 @@ package com.pharmaease.service;
 import com.pharmaease.model.Inventory;
 import com.pharmaease.model.Medicine;
 import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.InventoryView;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +20,7 @@ import java.util.List;
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Inventory getInventoryByMedicine(Medicine medicine) {
         return inventoryRepository.findByMedicine(medicine)
@@ -25,6 +31,17 @@ public class InventoryService {
         return inventoryRepository.findAll();
     }
 
+    /**
+     * One page of inventory rows. They carry no creation time, so the keyset is the id alone.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Inventory> findInventory(Boolean lowStock, String cursor, Integer size) {
+        Specification<Inventory> spec = Specification.allOf(
+                ListFilters.fetching("medicine.supplier"),
+                ListFilters.equal("lowStock", lowStock));
+        return CursorPage.scroll(inventoryRepository, spec, null, cursor, size);
+    }
+
     public List<Inventory> getLowStockItems() {
         return inventoryRepository.findLowStockItems();
     }
@@ -33,15 +50,28 @@ public class InventoryService {
         return inventoryRepository.findOutOfStockItems();
     }
 
+    @Transactional(readOnly = true)
+    public List<InventoryView> getLowStockViews() {
+        return inventoryRepository.findLowStockViews();
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryView> getOutOfStockViews() {
+        return inventoryRepository.findOutOfStockViews();
+    }
+
     public Long getLowStockCount() {
         return inventoryRepository.countLowStockItems();
     }
 
+    @RetryOnConflict
     public void updateInventoryQuantity(Medicine medicine, int quantityChange) {
         Inventory inventory = getInventoryByMedicine(medicine);
         inventory.setAvailableQuantity(inventory.getAvailableQuantity() + quantityChange);
         inventory.setTotalQuantity(inventory.getTotalQuantity() + quantityChange);
         inventory.setLowStock(inventory.getAvailableQuantity() <= medicine.getReorderLevel());
         inventoryRepository.save(inventory);
+        inventoryRepository.recordAdjustments(Map.of(medicine.getId(), quantityChange), "manual adjustment");
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(medicine.getId())));
     }
 }
\ No newline at end of file
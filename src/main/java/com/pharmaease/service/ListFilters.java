@@ -0,0 +1,75 @@
+package com.pharmaease.service;
+
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Building blocks for the optional filters of the {@link CursorPage} list endpoints.
+ */
+final class ListFilters {
+
+    private ListFilters() {
+    }
+
+    /**
+     * Matches everything when {@code value} is {@code null}.
+     */
+    static <T> Specification<T> equal(String property, Object value) {
+        return (root, query, cb) -> value == null ? null : cb.equal(root.get(property), value);
+    }
+
+    static <T> Specification<T> equalId(String association, Long id) {
+        return (root, query, cb) -> id == null ? null : cb.equal(root.get(association).get("id"), id);
+    }
+
+    /**
+     * Timestamps within the given days, both inclusive; either end may be open.
+     */
+    static <T> Specification<T> within(String property, LocalDate from, LocalDate to) {
+        return (root, query, cb) -> {
+            if (from == null && to == null) {
+                return null;
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get(property), from.atStartOfDay());
+            }
+            if (from == null) {
+                return cb.lessThan(root.get(property), to.plusDays(1).atStartOfDay());
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get(property), from.atStartOfDay()),
+                    cb.lessThan(root.get(property), to.plusDays(1).atStartOfDay()));
+        };
+    }
+
+    /**
+     * Join-fetches the given to-one paths (e.g. {@code "order.customer"}) so rendering a page does not
+     * load them one row at a time.
+     */
+    static <T> Specification<T> fetching(String... paths) {
+        return (root, query, cb) -> {
+            if (Long.class.equals(query.getResultType())) {
+                return null;
+            }
+            for (String path : paths) {
+                FetchParent<?, ?> parent = root;
+                for (String attribute : path.split("\\.")) {
+                    parent = fetch(parent, attribute);
+                }
+            }
+            return null;
+        };
+    }
+
+    private static FetchParent<?, ?> fetch(FetchParent<?, ?> parent, String attribute) {
+        for (Fetch<?, ?> existing : parent.getFetches()) {
+            if (existing.getAttribute().getName().equals(attribute)) {
+                return existing;
+            }
+        }
+        return parent.fetch(attribute, JoinType.LEFT);
+    }
+}
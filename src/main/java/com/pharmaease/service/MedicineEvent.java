@@ -0,0 +1,18 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+
+/**
+ * A committed change to a medicine's catalogue entry: the saved medicine, or {@code null} once it is
+ * deleted. Published by {@link MedicineService} and consumed after commit by {@link MedicineSearchIndex}.
+ */
+public record MedicineEvent(Long medicineId, Medicine medicine) {
+
+    public static MedicineEvent saved(Medicine medicine) {
+        return new MedicineEvent(medicine.getId(), medicine);
+    }
+
+    public static MedicineEvent deleted(Long medicineId) {
+        return new MedicineEvent(medicineId, null);
+    }
+}
@@ -0,0 +1,414 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.repository.MedicineRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In-memory trigram index over medicine name, generic name, manufacturer and strength.
+ * <p>
+ * Every word is indexed by its trigrams, padded at the front so that one- and two-letter prefixes are
+ * grams too. A query word of three or more letters matches anywhere inside a word, like the old
+ * {@code LIKE '%kw%'}; shorter ones match the start of a word. All query words must match. Candidates
+ * come from intersecting sorted posting lists and are then checked against the text, so there are no
+ * false hits. Matches are ranked by where they hit: name before generic name before the rest, and a
+ * prefix before a word start before the middle of a word.
+ * <p>
+ * Postings hold dense int document numbers rather than ids, which keeps a 100k catalogue to a few
+ * megabytes. The index is loaded at startup and kept current from committed {@link MedicineEvent}s; a
+ * slow full rebuild picks up writes made by other nodes.
+ */
+@Service
+public class MedicineSearchIndex {
+
+    private static final int[] FIELD_WEIGHTS = {4, 3, 1, 1};
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingInt(Ranked::score).reversed()
+            .thenComparingInt(r -> r.entry().name().length())
+            .thenComparing(r -> r.entry().name(), String.CASE_INSENSITIVE_ORDER);
+
+    private final MedicineRepository medicineRepository;
+
+    private List<Entry> documents = new ArrayList<>();
+    private Map<Long, Integer> documentByMedicine = new HashMap<>();
+    private Map<String, Postings> postings = new HashMap<>();
+    private volatile boolean loaded;
+
+    public MedicineSearchIndex(MedicineRepository medicineRepository) {
+        this.medicineRepository = medicineRepository;
+    }
+
+    /**
+     * Best matches among active medicines, as compact rows for typeahead.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Entry entry : rank(query, limit, true)) {
+            suggestions.add(entry.toSuggestion());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Ids of all medicines matching the query, active or not, best match first.
+     */
+    public List<Long> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ids of the best {@code limit} medicines matching the query, active or not, best match first.
+     */
+    public List<Long> search(String query, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (Entry entry : rank(query, limit, false)) {
+            ids.add(entry.id());
+        }
+        return ids;
+    }
+
+    /**
+     * The indexed row of one medicine, or {@code null} if there is none.
+     */
+    public Suggestion find(Long medicineId) {
+        ensureLoaded();
+        synchronized (this) {
+            Integer document = documentByMedicine.get(medicineId);
+            return document != null ? documents.get(document).toSuggestion() : null;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onMedicineChanged(MedicineEvent event) {
+        if (!loaded) {
+            return;
+        }
+        if (event.medicine() == null) {
+            remove(event.medicineId());
+        } else {
+            put(Entry.of(event.medicine()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pharmaease.search.resync-ms:600000}", initialDelayString = "${pharmaease.search.resync-ms:600000}")
+    public void load() {
+        List<Object[]> rows = medicineRepository.findSearchFields();
+        synchronized (this) {
+            documents = new ArrayList<>(rows.size());
+            documentByMedicine = new HashMap<>(rows.size() * 2);
+            postings = new HashMap<>();
+            for (Object[] row : rows) {
+                put(Entry.of(row));
+            }
+            loaded = true;
+        }
+        System.out.println("🔎 Search index holds " + rows.size() + " medicine(s), " + postings.size() + " trigrams");
+    }
+
+    int size() {
+        ensureLoaded();
+        synchronized (this) {
+            return documentByMedicine.size();
+        }
+    }
+
+    private List<Entry> rank(String query, int limit, boolean activeOnly) {
+        ensureLoaded();
+        synchronized (this) {
+            return ranked(query, limit, activeOnly);
+        }
+    }
+
+    private List<Entry> ranked(String query, int limit, boolean activeOnly) {
+        List<String> words = words(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int[] candidates = null;
+        for (String word : words) {
+            candidates = intersect(queryGrams(word), candidates);
+            if (candidates.length == 0) {
+                return List.of();
+            }
+        }
+
+        // Worst of the kept matches on top, so the queue never grows past the limit
+        PriorityQueue<Ranked> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (int document : candidates) {
+            Entry entry = documents.get(document);
+            if (entry == null || (activeOnly && !entry.active())) {
+                continue;
+            }
+            int score = entry.score(words);
+            if (score == 0) {
+                continue;
+            }
+            best.add(new Ranked(entry, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        List<Entry> entries = new ArrayList<>(ranked.size());
+        ranked.forEach(r -> entries.add(r.entry()));
+        return entries;
+    }
+
+    private int[] intersect(Set<String> grams, int[] within) {
+        List<Postings> lists = new ArrayList<>();
+        if (within != null) {
+            lists.add(Postings.of(within));
+        }
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        // Walk the shortest list and probe the others
+        Postings shortest = lists.get(0);
+        int[] result = new int[shortest.size];
+        int size = 0;
+        outer:
+        for (int k = 0; k < shortest.size; k++) {
+            int document = shortest.documents[k];
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(document)) {
+                    continue outer;
+                }
+            }
+            result[size++] = document;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Called before taking the lock: load() queries outside it
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private void put(Entry entry) {
+        Integer document = documentByMedicine.get(entry.id());
+        if (document == null) {
+            document = documents.size();
+            documents.add(entry);
+            documentByMedicine.put(entry.id(), document);
+        } else {
+            unindex(document, documents.get(document));
+            documents.set(document, entry);
+        }
+        for (String gram : entry.indexGrams()) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(document);
+        }
+    }
+
+    private void remove(Long medicineId) {
+        Integer document = documentByMedicine.remove(medicineId);
+        if (document != null) {
+            unindex(document, documents.get(document));
+            // The slot stays empty until the next rebuild
+            documents.set(document, null);
+        }
+    }
+
+    private void unindex(int document, Entry entry) {
+        for (String gram : entry.indexGrams()) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(document) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> queryGrams(String word) {
+        // Three letters or more match anywhere in a word; shorter ones only at its start
+        return grams(word.length() >= 3 ? word : "  " + word);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * A compact catalogue row for typeahead; no supplier, stock or audit columns.
+     */
+    public record Suggestion(Long id, String name, String genericName, String strength, String manufacturer,
+                             BigDecimal unitPrice, BigDecimal sellingPrice, boolean requiresPrescription) {
+    }
+
+    private record Entry(Long id, String name, String genericName, String manufacturer, String strength,
+                         BigDecimal unitPrice, BigDecimal sellingPrice, boolean requiresPrescription,
+                         boolean active, String[] lowerFields) {
+
+        static Entry of(Medicine m) {
+            return create(m.getId(), m.getName(), m.getGenericName(), m.getManufacturer(), m.getStrength(),
+                    m.getUnitPrice(), m.getSellingPrice(), Boolean.TRUE.equals(m.getRequiresPrescription()),
+                    !Boolean.FALSE.equals(m.getActive()));
+        }
+
+        static Entry of(Object[] row) {
+            return create((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                    (BigDecimal) row[5], (BigDecimal) row[6], Boolean.TRUE.equals(row[7]), !Boolean.FALSE.equals(row[8]));
+        }
+
+        private static Entry create(Long id, String name, String genericName, String manufacturer, String strength,
+                                    BigDecimal unitPrice, BigDecimal sellingPrice, boolean requiresPrescription,
+                                    boolean active) {
+            String[] lower = new String[FIELD_WEIGHTS.length];
+            String[] fields = {name, genericName, manufacturer, strength};
+            for (int i = 0; i < fields.length; i++) {
+                lower[i] = fields[i] != null ? fields[i].toLowerCase(Locale.ROOT) : null;
+            }
+            return new Entry(id, name != null ? name : "", genericName, manufacturer, strength,
+                    unitPrice, sellingPrice, requiresPrescription, active, lower);
+        }
+
+        Set<String> indexGrams() {
+            Set<String> grams = new LinkedHashSet<>();
+            for (String field : lowerFields) {
+                for (String word : words(field)) {
+                    grams.addAll(grams("  " + word));
+                }
+            }
+            return grams;
+        }
+
+        /**
+         * Sum over the query words of the best field hit; 0 if any word does not match.
+         */
+        int score(List<String> words) {
+            int total = 0;
+            for (String word : words) {
+                int best = 0;
+                for (int i = 0; i < lowerFields.length; i++) {
+                    best = Math.max(best, FIELD_WEIGHTS[i] * hit(lowerFields[i], word));
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int hit(String text, String word) {
+            if (text == null) {
+                return 0;
+            }
+            if (text.startsWith(word)) {
+                return 3;
+            }
+            for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+                if (!Character.isLetterOrDigit(text.charAt(at - 1))) {
+                    return 2;
+                }
+            }
+            return word.length() >= 3 && text.contains(word) ? 1 : 0;
+        }
+
+        Suggestion toSuggestion() {
+            return new Suggestion(id, name, genericName, strength, manufacturer, unitPrice, sellingPrice,
+                    requiresPrescription);
+        }
+    }
+
+    private record Ranked(Entry entry, int score) {
+    }
+
+    /**
+     * Sorted, growable int list of document numbers.
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            // New documents get the highest number, so this is almost always an append
+            if (size > 0 && documents[size - 1] >= document) {
+                int at = Arrays.binarySearch(documents, 0, size, document);
+                if (at >= 0) {
+                    return;
+                }
+                insert(-at - 1, document);
+                return;
+            }
+            insert(size, document);
+        }
+
+        boolean remove(int document) {
+            int at = Arrays.binarySearch(documents, 0, size, document);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(documents, at + 1, documents, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        static Postings of(int[] sorted) {
+            Postings postings = new Postings();
+            postings.documents = sorted;
+            postings.size = sorted.length;
+            return postings;
+        }
+
+        boolean contains(int document) {
+            return Arrays.binarySearch(documents, 0, size, document) >= 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void insert(int at, int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            System.arraycopy(documents, at, documents, at + 1, size - at);
+            documents[at] = document;
+            size++;
+        }
+    }
+}
@@ -4,19 +4,34 @@ import com.pharmaease.model.Inventory;
 import com.pharmaease.model.Medicine;
 import com.pharmaease.repository.InventoryRepository;
 import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.MedicineView;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class MedicineService {
 
+    /** Most rows a keyword search returns, best matches first. */
+    static final int SEARCH_LIMIT = 200;
+
     private final MedicineRepository medicineRepository;
     private final InventoryRepository inventoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MedicineSearchIndex searchIndex;
+    private final ReferenceDataCache referenceCache;
 
     public Medicine createMedicine(Medicine medicine) {
         Medicine saved = medicineRepository.save(medicine);
@@ -29,12 +44,17 @@ public class MedicineService {
         inventory.setReservedQuantity(0);
         inventory.setLowStock(true);
         inventoryRepository.save(inventory);
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(saved.getId())));
+        eventPublisher.publishEvent(MedicineEvent.saved(saved));
+        invalidatePickLists();
 
         return saved;
     }
 
     public Medicine updateMedicine(Long id, Medicine medicine) {
-        Medicine existing = getMedicineById(id);
+        // Never the cached instance: that one is shared by every reader
+        Medicine existing = medicineRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Medicine not found"));
         existing.setName(medicine.getName());
         existing.setGenericName(medicine.getGenericName());
         existing.setManufacturer(medicine.getManufacturer());
@@ -48,28 +68,75 @@ public class MedicineService {
         existing.setRequiresPrescription(medicine.getRequiresPrescription());
         existing.setActive(medicine.getActive());
         existing.setSupplier(medicine.getSupplier());
-        return medicineRepository.save(existing);
+        Medicine saved = medicineRepository.save(existing);
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(id)));
+        eventPublisher.publishEvent(MedicineEvent.saved(saved));
+        referenceCache.medicines().invalidateAfterCommit(id);
+        invalidatePickLists();
+        return saved;
     }
 
     public void deleteMedicine(Long id) {
         medicineRepository.deleteById(id);
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(id)));
+        eventPublisher.publishEvent(MedicineEvent.deleted(id));
+        referenceCache.medicines().invalidateAfterCommit(id);
+        invalidatePickLists();
     }
 
+    /**
+     * Served from the reference cache. The result is shared and detached: read it, reference it from
+     * new rows, but do not change it or walk its lazy collections.
+     */
     public Medicine getMedicineById(Long id) {
-        return medicineRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Medicine not found"));
+        Medicine medicine = referenceCache.medicines().get(id, key -> medicineRepository.findById(key).orElse(null));
+        if (medicine == null) {
+            throw new RuntimeException("Medicine not found");
+        }
+        return medicine;
     }
 
     public List<Medicine> getAllMedicines() {
         return medicineRepository.findAll();
     }
 
+    /**
+     * One page of the catalogue, most recently added first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Medicine> findMedicines(Boolean active, String category, String cursor, Integer size) {
+        Specification<Medicine> spec = Specification.allOf(
+                ListFilters.fetching("supplier", "inventory"),
+                ListFilters.equal("active", active),
+                ListFilters.equal("category", category == null || category.isBlank() ? null : category));
+        return CursorPage.scroll(medicineRepository, spec, "createdAt", cursor, size);
+    }
+
     public List<Medicine> getActiveMedicines() {
         return medicineRepository.findByActive(true);
     }
 
     public List<Medicine> searchMedicines(String keyword) {
-        return medicineRepository.findByNameContainingIgnoreCaseOrGenericNameContainingIgnoreCase(keyword, keyword);
+        // Best ranked ids from the in-memory index, then one fetch for just those rows. The cap keeps
+        // the IN list well under the driver's bind-parameter limit however broad the keyword is.
+        List<Long> ids = searchIndex.search(keyword, SEARCH_LIMIT);
+        return ids.isEmpty() ? List.of() : inRankOrder(ids, medicineRepository.findAllById(ids), Medicine::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MedicineView> searchMedicineViews(String keyword) {
+        List<Long> ids = searchIndex.search(keyword, SEARCH_LIMIT);
+        return ids.isEmpty() ? List.of() : inRankOrder(ids, medicineRepository.findViewsByIdIn(ids), MedicineView::id);
+    }
+
+    @Transactional(readOnly = true)
+    public MedicineView getMedicineView(Long id) {
+        return medicineRepository.findViewById(id)
+                .orElseThrow(() -> new RuntimeException("Medicine not found"));
+    }
+
+    public List<MedicineSearchIndex.Suggestion> suggestMedicines(String query, int limit) {
+        return searchIndex.suggest(query, limit);
     }
 
     public List<Medicine> getMedicinesByCategory(String category) {
@@ -77,10 +144,30 @@ public class MedicineService {
     }
 
     public List<String> getAllCategories() {
-        return medicineRepository.findAllCategories();
+        return referenceCache.pickLists().get(ReferenceDataCache.CATEGORIES,
+                key -> Collections.unmodifiableList(medicineRepository.findAllCategories()));
     }
 
     public List<String> getAllManufacturers() {
-        return medicineRepository.findAllManufacturers();
+        return referenceCache.pickLists().get(ReferenceDataCache.MANUFACTURERS,
+                key -> Collections.unmodifiableList(medicineRepository.findAllManufacturers()));
+    }
+
+    private void invalidatePickLists() {
+        referenceCache.pickLists().invalidateAfterCommit(ReferenceDataCache.CATEGORIES);
+        referenceCache.pickLists().invalidateAfterCommit(ReferenceDataCache.MANUFACTURERS);
+    }
+
+    private static <T> List<T> inRankOrder(List<Long> rankedIds, Iterable<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(idOf.apply(row), row));
+        List<T> ranked = new ArrayList<>(rankedIds.size());
+        for (Long id : rankedIds) {
+            T row = byId.get(id);
+            if (row != null) {
+                ranked.add(row);
+            }
+        }
+        return ranked;
     }
-}
\ No newline at end of file
+}
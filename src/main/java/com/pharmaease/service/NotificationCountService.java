@@ -0,0 +1,152 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.InventoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the counts behind the notification badge (low stock, batches expiring within 30 days and
+ * expired batches not yet written off) in memory, so rendering a page costs no queries.
+ * <p>
+ * Expiring and expired batches are counted from the {@link BatchExpiryIndex}, which applies each
+ * committed {@link StockBatchEvent} as it arrives. Low stock is kept as the set of low medicines: stock
+ * events name the medicines they touched, and only those inventory rows are re-read, at most once per
+ * refresh interval. The whole set is only re-read by the slow periodic resync, which corrects for
+ * writes made by other nodes, or after an event that could not name its medicines.
+ * <p>
+ * Queries run outside the monitor, under a separate lock that keeps a resync and a refresh from
+ * crossing, so reading the counts never waits on the database.
+ */
+@Service
+public class NotificationCountService {
+
+    static final int EXPIRING_WINDOW_DAYS = 30;
+
+    // More touched medicines than this are re-read with a resync rather than one long IN list
+    private static final int MAX_TOUCHED = 500;
+
+    private final InventoryRepository inventoryRepository;
+    private final BatchExpiryIndex expiryIndex;
+
+    private final Set<Long> lowStock = new HashSet<>();
+    private final Set<Long> touched = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile boolean resyncDue;
+
+    public NotificationCountService(InventoryRepository inventoryRepository,
+                                    BatchExpiryIndex expiryIndex) {
+        this.inventoryRepository = inventoryRepository;
+        this.expiryIndex = expiryIndex;
+    }
+
+    public long getNotificationCount() {
+        Counts counts = getCounts();
+        return counts.lowStock() + counts.expiring() + counts.expired();
+    }
+
+    public Counts getCounts() {
+        if (!loaded) {
+            syncLock.lock();
+            try {
+                if (!loaded) {
+                    resync();
+                }
+            } finally {
+                syncLock.unlock();
+            }
+        }
+        return counts(LocalDate.now());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(DashboardEvent event) {
+        if (event.medicineIds() == null) {
+            resyncDue = true;
+        } else {
+            touched.addAll(event.medicineIds());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pharmaease.notifications.refresh-ms:2000}")
+    public void refresh() {
+        if (!loaded || (!resyncDue && touched.isEmpty())) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (resyncDue || touched.size() > MAX_TOUCHED) {
+                resync();
+                return;
+            }
+            List<Long> medicineIds = new ArrayList<>(touched);
+            touched.removeAll(medicineIds);
+            List<Long> low;
+            try {
+                low = inventoryRepository.findLowStockMedicineIdsIn(medicineIds);
+            } catch (RuntimeException e) {
+                touched.addAll(medicineIds);
+                throw e;
+            }
+            synchronized (this) {
+                medicineIds.forEach(lowStock::remove);
+                lowStock.addAll(low);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pharmaease.notifications.resync-ms:600000}", initialDelayString = "${pharmaease.notifications.resync-ms:600000}")
+    public void load() {
+        syncLock.lock();
+        try {
+            resync();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * The counts as seen on {@code today}; only the batch counts move with the date.
+     */
+    Counts counts(LocalDate today) {
+        long expiring = expiryIndex.countBetween(today, today.plusDays(EXPIRING_WINDOW_DAYS));
+        long expired = expiryIndex.countExpiredBefore(today);
+        synchronized (this) {
+            return new Counts(lowStock.size(), expiring, expired);
+        }
+    }
+
+    // Only ever run by the holder of syncLock. Touches recorded before the query are covered by it;
+    // later ones stay queued for the next refresh.
+    private void resync() {
+        resyncDue = false;
+        touched.clear();
+        List<Long> low;
+        try {
+            low = inventoryRepository.findLowStockMedicineIds();
+        } catch (RuntimeException e) {
+            resyncDue = true;
+            throw e;
+        }
+        synchronized (this) {
+            lowStock.clear();
+            lowStock.addAll(low);
+            loaded = true;
+        }
+    }
+
+    public record Counts(long lowStock, long expiring, long expired) {
+    }
+}
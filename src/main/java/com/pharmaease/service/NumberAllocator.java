@@ -0,0 +1,102 @@
+package com.pharmaease.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out order and invoice numbers such as {@code ORD-20261017-000123}.
+ * <p>
+ * Numbers come from blocks reserved through a database sequence (hi/lo): each {@code nextval}
+ * returns a "hi" value that no other app node will ever get, and the node then hands out
+ * {@code hi * blockSize ... hi * blockSize + blockSize - 1} from memory with a single atomic increment.
+ * {@code nextval} neither locks nor needs its own transaction, so a reservation made in the middle of
+ * a checkout does not take a second pooled connection. The date is only a readable prefix;
+ * uniqueness comes from the counter, so numbers never repeat, even across midnight. The sequences
+ * come from the migrations (V11).
+ */
+@Service
+public class NumberAllocator {
+
+    public static final String ORDER = "ORD";
+    public static final String INVOICE = "INV";
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            ORDER, "order_number_hi_seq",
+            INVOICE, "invoice_number_hi_seq"
+    );
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+    private final long blockSize;
+    private final Map<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+
+    public NumberAllocator(JdbcTemplate jdbcTemplate,
+                           EntityManagerFactory entityManagerFactory,
+                           @Value("${pharmaease.numbers.block-size:100}") long blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.blockSize = blockSize;
+    }
+
+    public String nextOrderNumber() {
+        return format(ORDER, next(ORDER));
+    }
+
+    public String nextInvoiceNumber() {
+        return format(INVOICE, next(INVOICE));
+    }
+
+    long next(String name) {
+        AtomicReference<Block> current = blocks.computeIfAbsent(name, k -> new AtomicReference<>(EXHAUSTED));
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+
+            // Block used up: reserve a fresh one and take its first number. If another thread installed
+            // a block in the meantime, ours is dropped; that only leaves a gap, never a duplicate.
+            Block fresh = reserve(name);
+            long mine = fresh.next.getAndIncrement();
+            current.compareAndSet(block, fresh);
+            return mine;
+        }
+    }
+
+    private Block reserve(String name) {
+        String nextValue = dialect.getSequenceSupport().getSequenceNextValString(SEQUENCES.get(name));
+        Long hi = jdbcTemplate.queryForObject(nextValue, Long.class);
+        if (hi == null) {
+            throw new RuntimeException("Could not reserve " + name + " numbers");
+        }
+        return new Block(hi * blockSize, hi * blockSize + blockSize);
+    }
+
+    private String format(String prefix, long value) {
+        return prefix + "-" + LocalDate.now().format(DAY) + "-" + String.format("%06d", value);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.IdempotencyKeyRepository;
+import com.pharmaease.repository.InvoiceRepository;
+import com.pharmaease.repository.OrderArchiveRepository;
+import com.pharmaease.repository.OrderItemRepository;
+import com.pharmaease.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves settled (completed or cancelled) orders older than the archive horizon, with their items and
+ * invoice, into the archive tables once a night, so the hot tables only hold the recent window.
+ * <p>
+ * Each chunk is copied with one INSERT ... SELECT per table and deleted from the hot tables in the
+ * same transaction, so an order is always in exactly one place. Sales figures are unaffected: the
+ * daily rollup keeps the history, and {@link OrderService} looks an order up in the archive when it
+ * is no longer hot. Idempotency keys of archived orders are dropped; they expire long before.
+ */
+@Service
+public class OrderArchiver {
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonDays;
+    private final int batchSize;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         OrderItemRepository orderItemRepository,
+                         InvoiceRepository invoiceRepository,
+                         IdempotencyKeyRepository idempotencyKeyRepository,
+                         OrderArchiveRepository archiveRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${pharmaease.archive.horizon-days:365}") int horizonDays,
+                         @Value("${pharmaease.archive.batch-size:1000}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizonDays = horizonDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${pharmaease.archive.cron:0 30 1 * * *}")
+    public void archiveNightly() {
+        archive(LocalDate.now().minusDays(horizonDays).atStartOfDay());
+    }
+
+    /**
+     * Archives every settled order created before {@code cutoff}.
+     *
+     * @return number of orders moved
+     */
+    public int archive(LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> moveChunk(cutoff));
+            } catch (RuntimeException e) {
+                // Nothing of the failed chunk was moved, so the next run starts with it again
+                System.err.println("❌ Could not archive orders: " + e.getMessage());
+                break;
+            }
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+        if (archived > 0) {
+            System.out.println("📦 Archived " + archived + " order(s) created before " + cutoff.toLocalDate());
+        }
+        return archived;
+    }
+
+    private int moveChunk(LocalDateTime cutoff) {
+        List<Long> orderIds = orderRepository.findSettledIdsBefore(cutoff, Limit.of(batchSize));
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        archiveRepository.copyOrders(orderIds, LocalDateTime.now());
+        archiveRepository.copyOrderItems(orderIds);
+        archiveRepository.copyInvoices(orderIds);
+
+        idempotencyKeyRepository.deleteByOrderIds(orderIds);
+        invoiceRepository.deleteByOrderIds(orderIds);
+        orderItemRepository.deleteByOrderIds(orderIds);
+        int deleted = orderRepository.deleteArchived(orderIds, cutoff);
+        if (deleted != orderIds.size()) {
+            // Another node archived part of this chunk first: roll back rather than keep a duplicate
+            throw new RuntimeException("Orders changed while being archived, expected " + orderIds.size() + " but removed " + deleted);
+        }
+        return deleted;
+    }
+}
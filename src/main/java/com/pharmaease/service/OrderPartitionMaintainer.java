@@ -0,0 +1,53 @@
+package com.pharmaease.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of orders and order items (see {@code db/migration/V4}) created a few
+ * months ahead, so new rows never land in the default partition. PostgreSQL only.
+ */
+@Service
+public class OrderPartitionMaintainer {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("orders", "order_items");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public OrderPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                    @Value("${pharmaease.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${pharmaease.partitions.cron:0 15 0 * * *}")
+    public void ensurePartitions() {
+        String database = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(database)) {
+            return;
+        }
+
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                Integer created = jdbcTemplate.queryForObject(
+                        "SELECT pharmaease_ensure_month_partitions(?, CURRENT_DATE, " +
+                                "(CURRENT_DATE + make_interval(months => ?))::date)",
+                        Integer.class, table, monthsAhead);
+                if (created != null && created > 0) {
+                    System.out.println("🗂️ Created " + created + " monthly partition(s) of " + table);
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Could not create partitions of " + table + ": " + e.getMessage());
+            }
+        }
+    }
+}
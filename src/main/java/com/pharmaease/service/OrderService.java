@@ -2,50 +2,68 @@ package com.pharmaease.service;
 
 import com.pharmaease.model.*;
 import com.pharmaease.repository.*;
-import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int MAX_BATCH_ALLOCATION_ATTEMPTS = 2;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final OrderArchiveRepository archiveRepository;
     private final InventoryRepository inventoryRepository;
     private final StockBatchRepository batchRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final EntityManager entityManager;
+    private final NumberAllocator numberAllocator;
+    private final BatchAllocator batchAllocator;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final StockReservationService stockReservationService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Orders createOrder(Orders order) {
-        // Generate order number if not already set
-        if (order.getOrderNumber() == null || order.getOrderNumber().isEmpty()) {
-            order.setOrderNumber(generateOrderNumber());
-        }
+        return createOrder(order, null, null);
+    }
+
+    /**
+     * Creates the order and, when a key is given, records it with the hash of the request in the same
+     * transaction. The key is the primary key of idempotency_keys, so a duplicate that slipped past
+     * {@link IdempotencyService} (e.g. on another node) fails at commit and its stock changes roll back
+     * with it.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Orders createOrder(Orders order, String idempotencyKey, String requestHash) {
+        // Always a fresh number, whatever the client sent; order_numbers would reject a repeated one at insert
+        order.setOrderNumber(generateOrderNumber());
 
         // Validate order items exist
         if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
             throw new RuntimeException("Order must have at least one item");
         }
 
-        // Validate stock availability
         for (OrderItem item : order.getOrderItems()) {
             if (item.getMedicine() == null) {
                 throw new RuntimeException("Order item must have a medicine");
             }
-            // Only validate stock if order is being completed (not for pending orders)
-            if (order.getStatus() == Orders.OrderStatus.COMPLETED) {
-                validateStockAvailability(item.getMedicine(), item.getQuantity());
-            }
         }
 
         // Calculate totals
@@ -66,137 +84,142 @@ public class OrderService {
             order.setPaid(order.getStatus() == Orders.OrderStatus.COMPLETED);
         }
         
-        // Ensure createdAt is set (should be automatic with @CreationTimestamp, but ensure it's set)
-        if (order.getCreatedAt() == null) {
-            order.setCreatedAt(LocalDateTime.now());
-        }
-
-        // Save order first - FLUSH to ensure it's immediately available
-        Orders savedOrder = orderRepository.saveAndFlush(order);
-        System.out.println("✅ Order saved - ID: " + savedOrder.getId() + 
-                         " | Status: " + savedOrder.getStatus() + 
-                         " | CreatedAt: " + savedOrder.getCreatedAt() + 
-                         " | Total: ₹" + savedOrder.getTotalAmount());
-        System.out.println("✅ Order saved to database - ID: " + savedOrder.getId() + ", Status: " + savedOrder.getStatus());
+        // Stamped here, whatever the client sent, so the items wired below copy the order's final time
+        order.setCreatedAt(LocalDateTime.now());
 
-        // Save order items with proper relationships
+        // Wire items to the order; they are persisted through the cascade on Orders.orderItems
         for (OrderItem item : order.getOrderItems()) {
-            item.setOrder(savedOrder);
+            item.setOrder(order);
             // ALWAYS recalculate totalPrice to ensure correctness (unitPrice × quantity)
-            BigDecimal calculatedTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-            item.setTotalPrice(calculatedTotal);
-            System.out.println("✅ OrderItem: " + (item.getMedicine() != null ? item.getMedicine().getName() : "Unknown") + 
-                             " | Qty: " + item.getQuantity() + 
-                             " | UnitPrice: ₹" + item.getUnitPrice() + 
-                             " | TotalPrice: ₹" + calculatedTotal);
-            orderItemRepository.saveAndFlush(item);
+            item.setTotalPrice(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
         }
-        System.out.println("✅ Order items saved: " + order.getOrderItems().size());
-
-        // Update inventory (deduct stock) - only if order is completed
-        if (savedOrder.getStatus() == Orders.OrderStatus.COMPLETED) {
-            System.out.println("✅ Order is COMPLETED - updating inventory and generating invoice");
-            try {
-                updateInventoryForOrder(savedOrder);
-            } catch (Exception e) {
-                // Log but don't fail the order if inventory update fails
-                System.err.println("Warning: Inventory update failed: " + e.getMessage());
-            }
-            
-            // Generate invoice for completed orders
-            try {
-                generateInvoice(savedOrder, savedOrder.getTotalAmount());
-            } catch (Exception e) {
-                // Log but don't fail the order if invoice generation fails
-                System.err.println("Warning: Invoice generation failed: " + e.getMessage());
-                // Try to generate invoice again with order total
-                try {
-                    generateInvoice(savedOrder, savedOrder.getTotalAmount());
-                } catch (Exception e2) {
-                    System.err.println("Error: Failed to generate invoice after retry: " + e2.getMessage());
-                }
-            }
+
+        // Completed sales deduct stock and get their invoice in the same unit of work; pending
+        // orders hold their stock until they are completed, cancelled or the hold expires.
+        // All reads happen before the order is persisted so no query triggers an early auto-flush.
+        if (order.getStatus() == Orders.OrderStatus.COMPLETED) {
+            updateInventoryForOrder(order);
+            attachInvoice(order, order.getTotalAmount());
+            salesRollupService.recordCompleted(order);
+            eventPublisher.publishEvent(DashboardEvent.saleCompleted(order.getCreatedAt().toLocalDate(), order.getTotalAmount(),
+                    quantitiesByMedicine(order).keySet()));
+        } else if (order.getStatus() == Orders.OrderStatus.PENDING) {
+            reserveInventoryForOrder(order);
+            eventPublisher.publishEvent(DashboardEvent.stockChanged(quantitiesByMedicine(order).keySet()));
         }
 
-        // Force flush to ensure order is persisted immediately
-        entityManager.flush();
-        
-        // Refresh to get latest state including invoice
-        entityManager.refresh(savedOrder);
-        
-        // Ensure orderItems are loaded
-        if (savedOrder.getOrderItems() != null) {
-            savedOrder.getOrderItems().size(); // Force initialization
+        // Single persist: order, items and invoice are inserted (and inventory/batch rows updated)
+        // as JDBC batches when the transaction commits
+        Orders savedOrder = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKey, savedOrder, requestHash));
         }
-        
-        // Return the saved and flushed order
-        System.out.println("✅ Final order status: " + savedOrder.getStatus() + ", Total: ₹" + savedOrder.getTotalAmount() + ", Created: " + savedOrder.getCreatedAt());
-        System.out.println("✅ Order ID: " + savedOrder.getId());
-        System.out.println("✅ Order has invoice: " + (savedOrder.getInvoice() != null ? savedOrder.getInvoice().getInvoiceNumber() : "null"));
-        System.out.println("✅ Order has " + (savedOrder.getOrderItems() != null ? savedOrder.getOrderItems().size() : 0) + " items");
+
+        System.out.println("✅ Order saved - Number: " + savedOrder.getOrderNumber() +
+                         " | Status: " + savedOrder.getStatus() +
+                         " | Items: " + savedOrder.getOrderItems().size() +
+                         " | Total: ₹" + savedOrder.getTotalAmount());
 
         return savedOrder;
     }
 
+    @Transactional
     public Orders completeOrder(Long orderId, BigDecimal amountPaid) {
         Orders order = getOrderById(orderId);
 
         if (order.getStatus() == Orders.OrderStatus.COMPLETED) {
             throw new RuntimeException("Order is already completed");
         }
+        if (order.getStatus() == Orders.OrderStatus.CANCELLED) {
+            throw new RuntimeException("Cannot complete cancelled order");
+        }
+
+        // Takes the stock from the order's reservation, or from available stock if it has none left
+        updateInventoryForOrder(order);
 
         order.setStatus(Orders.OrderStatus.COMPLETED);
         order.setPaid(true);
-        Orders completed = orderRepository.save(order);
 
         // Generate invoice
-        generateInvoice(completed, amountPaid);
+        attachInvoice(order, amountPaid);
+        salesRollupService.recordCompleted(order);
+        eventPublisher.publishEvent(DashboardEvent.saleCompleted(order.getCreatedAt().toLocalDate(), order.getTotalAmount(),
+                quantitiesByMedicine(order).keySet()));
 
-        return completed;
+        return orderRepository.save(order);
     }
 
+    @Transactional
     public Orders cancelOrder(Long orderId) {
         Orders order = getOrderById(orderId);
 
         if (order.getStatus() == Orders.OrderStatus.COMPLETED) {
             throw new RuntimeException("Cannot cancel completed order");
         }
+        if (order.getStatus() == Orders.OrderStatus.CANCELLED) {
+            throw new RuntimeException("Order is already cancelled");
+        }
 
-        order.setStatus(Orders.OrderStatus.CANCELLED);
-        Orders cancelled = orderRepository.save(order);
-
-        // Restore inventory
-        restoreInventoryForCancelledOrder(cancelled);
+        // Only a pending order's reservation ever left available stock, so that is all there is to give back
+        stockReservationService.release(order);
 
-        return cancelled;
+        order.setStatus(Orders.OrderStatus.CANCELLED);
+        salesRollupService.recordCancelled(order);
+        eventPublisher.publishEvent(DashboardEvent.orderCancelled(quantitiesByMedicine(order).keySet()));
+        return orderRepository.save(order);
     }
 
+    /**
+     * The order with its relations, from the archive if it is past the archive horizon. An archived
+     * order comes back detached and settled, so completing or cancelling it is refused as usual.
+     */
     public Orders getOrderById(Long id) {
         return orderRepository.findByIdWithRelations(id)
+                .or(() -> archiveRepository.findByIdWithRelations(id).map(this::restore))
                 .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
-    public Orders getOrderByNumber(String orderNumber) {
-        return orderRepository.findByOrderNumberWithRelations(orderNumber)
+    /**
+     * Header and lines of one order as flat rows: two queries whatever the number of lines (two more
+     * for an archived order).
+     */
+    @Transactional(readOnly = true)
+    public OrderDetail getOrderDetail(Long id) {
+        return orderRepository.findViewById(id)
+                .map(order -> new OrderDetail(order, orderItemRepository.findLineViewsByOrderId(id)))
+                .or(() -> archiveRepository.findViewById(id).map(this::archivedDetail))
                 .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
-    @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public List<Orders> getAllOrders() {
-        // Customer and pharmacist are now EAGER, so they'll be loaded automatically
-        try {
-            List<Orders> orders = orderRepository.findAllWithRelations();
-            System.out.println("✅ Fetched " + orders.size() + " orders with relationships");
-            return orders;
-        } catch (Exception e) {
-            System.err.println("❌ Error fetching orders: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    /**
+     * {@link #getOrderDetail(Long)} for the response to a write: a read-write transaction stays on the
+     * primary, so the order just created, completed or cancelled is seen as committed rather than as
+     * the replica last saw it.
+     */
+    @Transactional
+    public OrderDetail getOrderDetailFromPrimary(Long id) {
+        return getOrderDetail(id);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderDetail getOrderDetailByNumber(String orderNumber) {
+        return orderRepository.findViewByOrderNumber(orderNumber)
+                .map(order -> new OrderDetail(order, orderItemRepository.findLineViewsByOrderId(order.id())))
+                .or(() -> archiveRepository.findViewByOrderNumber(orderNumber).map(this::archivedDetail))
+                .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
-    public List<Orders> getOrdersByStatus(Orders.OrderStatus status) {
-        return orderRepository.findByStatusWithRelations(status);
+    /**
+     * One page of orders, newest first, with the filters applied in the query.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Orders> findOrders(OrderFilter filter, String cursor, Integer size) {
+        Specification<Orders> spec = Specification.allOf(
+                ListFilters.fetching("customer", "pharmacist", "invoice"),
+                ListFilters.equal("status", filter.status()),
+                ListFilters.equalId("customer", filter.customerId()),
+                ListFilters.within("createdAt", filter.from(), filter.to()));
+        return CursorPage.scroll(orderRepository, spec, "createdAt", cursor, size);
     }
 
     public List<Orders> getRecentOrders(int days) {
@@ -208,19 +231,55 @@ public class OrderService {
         return orderRepository.findByCreatedAtBetweenWithRelations(start, end);
     }
 
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return "ORD-" + timestamp;
+    private OrderDetail archivedDetail(OrderView order) {
+        return new OrderDetail(order, archiveRepository.findLineViewsByOrderId(order.id()));
     }
 
-    private void validateStockAvailability(Medicine medicine, int quantity) {
-        Inventory inventory = inventoryRepository.findByMedicine(medicine)
-                .orElseThrow(() -> new RuntimeException("Inventory not found"));
+    // Same shape as a hot order loaded with findByIdWithRelations, for the pages and receipts that show it
+    private Orders restore(ArchivedOrder archived) {
+        Orders order = new Orders();
+        order.setId(archived.getId());
+        order.setOrderNumber(archived.getOrderNumber());
+        order.setCustomer(archived.getCustomer());
+        order.setPharmacist(archived.getPharmacist());
+        order.setSubtotal(archived.getSubtotal());
+        order.setTax(archived.getTax());
+        order.setDiscount(archived.getDiscount());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setStatus(archived.getStatus());
+        order.setPaymentMethod(archived.getPaymentMethod());
+        order.setPaid(archived.getPaid());
+        order.setCreatedAt(archived.getCreatedAt());
+
+        for (ArchivedOrderItem archivedItem : archived.getOrderItems()) {
+            OrderItem item = new OrderItem();
+            item.setId(archivedItem.getId());
+            item.setOrder(order);
+            item.setMedicine(archivedItem.getMedicine());
+            item.setBatch(archivedItem.getBatch());
+            item.setQuantity(archivedItem.getQuantity());
+            item.setUnitPrice(archivedItem.getUnitPrice());
+            item.setTotalPrice(archivedItem.getTotalPrice());
+            item.setCreatedAt(archivedItem.getCreatedAt());
+            order.getOrderItems().add(item);
+        }
 
-        if (inventory.getAvailableQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock for " + medicine.getName() +
-                    ". Available: " + inventory.getAvailableQuantity() + ", Requested: " + quantity);
+        ArchivedInvoice archivedInvoice = archived.getInvoice();
+        if (archivedInvoice != null) {
+            Invoice invoice = new Invoice();
+            invoice.setId(archivedInvoice.getId());
+            invoice.setInvoiceNumber(archivedInvoice.getInvoiceNumber());
+            invoice.setOrder(order);
+            invoice.setAmountPaid(archivedInvoice.getAmountPaid());
+            invoice.setChangeGiven(archivedInvoice.getChangeGiven());
+            invoice.setGeneratedAt(archivedInvoice.getGeneratedAt());
+            order.setInvoice(invoice);
         }
+        return order;
+    }
+
+    private String generateOrderNumber() {
+        return numberAllocator.nextOrderNumber();
     }
 
     private void calculateOrderTotals(Orders order) {
@@ -243,79 +302,143 @@ public class OrderService {
     }
 
     private void updateInventoryForOrder(Orders order) {
-        for (OrderItem item : order.getOrderItems()) {
-            Inventory inventory = inventoryRepository.findByMedicine(item.getMedicine())
-                    .orElseThrow(() -> new RuntimeException("Inventory not found"));
-
-            // Deduct from available quantity
-            inventory.setAvailableQuantity(inventory.getAvailableQuantity() - item.getQuantity());
-            inventory.setLowStock(inventory.getAvailableQuantity() <= item.getMedicine().getReorderLevel());
-            inventoryRepository.save(inventory);
-
-            // Update batch quantities (FIFO) - wrapped in try-catch to not fail order
-            try {
-                updateBatchQuantities(item.getMedicine(), item.getQuantity());
-            } catch (Exception e) {
-                // Continue even if batch update fails
-                System.err.println("Warning: Batch update failed for medicine " + item.getMedicine().getId() + ": " + e.getMessage());
+        if (!stockReservationService.consume(order)) {
+            Map<Long, Integer> requested = quantitiesByMedicine(order);
+
+            // Guarded decrement: a row is only changed if it still has enough stock, so two tills
+            // selling the same medicine can never both pass a stale check and oversell it
+            Set<Long> rejected = inventoryRepository.decrementAvailableQuantities(requested, order.getOrderNumber());
+            if (!rejected.isEmpty()) {
+                throw new InsufficientStockException(shortfalls(order, requested, rejected));
             }
         }
+
+        allocateBatches(order);
     }
 
-    private void updateBatchQuantities(Medicine medicine, int quantity) {
-        try {
-            List<StockBatch> batches = batchRepository.findAvailableBatchesByMedicine(medicine.getId());
-            
-            if (batches == null || batches.isEmpty()) {
-                // No batches available - order can still proceed, just skip batch update
-                return;
-            }
+    private void reserveInventoryForOrder(Orders order) {
+        Map<Long, Integer> requested = quantitiesByMedicine(order);
+        Set<Long> rejected = stockReservationService.reserve(order, requested);
+        if (!rejected.isEmpty()) {
+            throw new InsufficientStockException(shortfalls(order, requested, rejected));
+        }
+    }
 
-            int remaining = quantity;
-            for (StockBatch batch : batches) {
-                if (remaining <= 0) break;
-
-                if (batch.getRemainingQuantity() >= remaining) {
-                    batch.setRemainingQuantity(batch.getRemainingQuantity() - remaining);
-                    remaining = 0;
-                } else {
-                    remaining -= batch.getRemainingQuantity();
-                    batch.setRemainingQuantity(0);
-                    batch.setActive(false);
-                }
-                batchRepository.save(batch);
+    private List<InsufficientStockException.Shortfall> shortfalls(Orders order, Map<Long, Integer> requested, Set<Long> rejected) {
+        Map<Long, Integer> available = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findByMedicineIds(rejected)) {
+            available.put(inventory.getMedicine().getId(), inventory.getAvailableQuantity());
+        }
+
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            names.putIfAbsent(item.getMedicine().getId(), item.getMedicine().getName());
+        }
+
+        List<InsufficientStockException.Shortfall> shortfalls = new ArrayList<>();
+        names.forEach((medicineId, name) -> {
+            if (rejected.contains(medicineId)) {
+                shortfalls.add(new InsufficientStockException.Shortfall(
+                        medicineId, name, requested.get(medicineId), available.getOrDefault(medicineId, 0)));
             }
-        } catch (Exception e) {
-            // If batch update fails, log but don't fail the order
-            // Orders can still be created without batch tracking
-            System.err.println("Warning: Failed to update batch quantities: " + e.getMessage());
+        });
+        return shortfalls;
+    }
+
+    private Map<Long, Integer> quantitiesByMedicine(Orders order) {
+        // Sum per medicine so two lines of the same product are deducted together
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            requested.merge(item.getMedicine().getId(), item.getQuantity(), Integer::sum);
         }
+        return requested;
     }
 
-    private void restoreInventoryForCancelledOrder(Orders order) {
+    private void allocateBatches(Orders order) {
+        // Pick batches FEFO and split each line so every OrderItem records the batch it came from;
+        // batches past their expiry date are skipped, in the pick and again by the guarded decrement
+        LocalDate today = LocalDate.now();
+        List<OrderItem> allocated = new ArrayList<>();
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        Set<Long> exhausted = new HashSet<>();
         for (OrderItem item : order.getOrderItems()) {
-            Inventory inventory = inventoryRepository.findByMedicine(item.getMedicine())
-                    .orElseThrow(() -> new RuntimeException("Inventory not found"));
+            pickBatches(item, today, allocated, pending, exhausted);
+        }
 
-            inventory.setAvailableQuantity(inventory.getAvailableQuantity() + item.getQuantity());
-            inventory.setLowStock(inventory.getAvailableQuantity() <= item.getMedicine().getReorderLevel());
-            inventoryRepository.save(inventory);
+        for (int attempt = 1; ; attempt++) {
+            // All batch updates of the sale go out as one guarded JDBC batch
+            Set<Long> rejected = batchRepository.decrementRemainingQuantities(pending, today);
+            if (rejected.isEmpty()) {
+                break;
+            }
+            if (attempt >= MAX_BATCH_ALLOCATION_ATTEMPTS) {
+                throw new RuntimeException("Stock batches changed during checkout of order " + order.getOrderNumber() + ", please retry");
+            }
+
+            // The cached view was stale (another node sold from these batches): reload and re-pick only those lines
+            List<OrderItem> stale = allocated.stream()
+                    .filter(item -> item.getBatch() != null && rejected.contains(item.getBatch().getId()))
+                    .collect(Collectors.toList());
+            allocated.removeIf(item -> item.getBatch() != null && rejected.contains(item.getBatch().getId()));
+            stale.forEach(item -> batchAllocator.evict(item.getMedicine().getId()));
+            exhausted.removeAll(rejected);
+            pending = new LinkedHashMap<>();
+            for (OrderItem item : stale) {
+                pickBatches(item, today, allocated, pending, exhausted);
+            }
         }
+
+        // Sold-out batches were deactivated by the decrement; tell the expiry counts once this commits
+        exhausted.forEach(batchId -> eventPublisher.publishEvent(StockBatchEvent.inactive(batchId)));
+
+        // Refill in place: a loaded order's item collection is orphan-removal managed and must not be replaced
+        order.getOrderItems().clear();
+        order.getOrderItems().addAll(allocated);
     }
 
-    private void generateInvoice(Orders order) {
-        generateInvoice(order, order.getTotalAmount());
+    private void pickBatches(OrderItem item, LocalDate today, List<OrderItem> allocated, Map<Long, Integer> pending,
+                             Set<Long> exhausted) {
+        for (BatchAllocator.Allocation allocation : batchAllocator.allocate(item.getMedicine().getId(), item.getQuantity(), today)) {
+            allocated.add(splitItem(item, allocation));
+            if (allocation.batchId() != null) {
+                pending.merge(allocation.batchId(), allocation.quantity(), Integer::sum);
+                if (allocation.exhausted()) {
+                    exhausted.add(allocation.batchId());
+                }
+            } else {
+                System.err.println("Warning: Batches of " + item.getMedicine().getName() +
+                        " do not cover " + allocation.quantity() + " unit(s) of order " + item.getOrder().getOrderNumber());
+            }
+        }
+    }
+
+    private OrderItem splitItem(OrderItem item, BatchAllocator.Allocation allocation) {
+        // A line served by a single batch keeps its own row
+        if (allocation.quantity() == item.getQuantity()) {
+            item.setBatch(allocation.batchId() != null ? batchRepository.getReferenceById(allocation.batchId()) : null);
+            return item;
+        }
+
+        OrderItem split = new OrderItem();
+        split.setOrder(item.getOrder());
+        split.setCreatedAt(item.getOrder().getCreatedAt());
+        split.setMedicine(item.getMedicine());
+        split.setQuantity(allocation.quantity());
+        split.setUnitPrice(item.getUnitPrice());
+        split.setTotalPrice(item.getUnitPrice().multiply(BigDecimal.valueOf(allocation.quantity())));
+        if (allocation.batchId() != null) {
+            split.setBatch(batchRepository.getReferenceById(allocation.batchId()));
+        }
+        return split;
     }
 
-    private void generateInvoice(Orders order, BigDecimal amountPaid) {
+    private void attachInvoice(Orders order, BigDecimal amountPaid) {
         // Check if invoice already exists for this order
-        Optional<Invoice> existingInvoice = invoiceRepository.findByOrder(order);
-        if (existingInvoice.isPresent()) {
-            // Invoice already exists, don't create duplicate
+        if (order.getInvoice() != null) {
             System.out.println("ℹ️ Invoice already exists for order: " + order.getOrderNumber());
             return;
         }
-        
+
         Invoice invoice = new Invoice();
         invoice.setInvoiceNumber(generateInvoiceNumber());
         invoice.setOrder(order);
@@ -326,18 +449,20 @@ public class OrderService {
         BigDecimal change = paid.subtract(total);
         invoice.setChangeGiven(change.max(BigDecimal.ZERO));
 
-        // Save invoice and flush to ensure it's persisted
-        Invoice savedInvoice = invoiceRepository.saveAndFlush(invoice);
-        
-        // Set the invoice on the order to maintain bidirectional relationship
-        order.setInvoice(savedInvoice);
-        orderRepository.saveAndFlush(order);
-        
-        System.out.println("✅ Invoice generated: " + savedInvoice.getInvoiceNumber() + " for order: " + order.getOrderNumber());
+        // Persisted through the cascade on Orders.invoice together with the order
+        order.setInvoice(invoice);
     }
 
     private String generateInvoiceNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return "INV-" + timestamp;
+        return numberAllocator.nextInvoiceNumber();
+    }
+
+    /**
+     * Optional filters of the order list; {@code null} fields match everything.
+     */
+    public record OrderFilter(Orders.OrderStatus status, LocalDate from, LocalDate to, Long customerId) {
+    }
+
+    public record OrderDetail(OrderView order, List<OrderLineView> lines) {
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@ public class PharmacistService {
 
     private final PharmacistRepository pharmacistRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ReferenceDataCache referenceCache;
 
     public Pharmacist register(Pharmacist pharmacist) {
         if (pharmacistRepository.existsByEmail(pharmacist.getEmail())) {
@@ -41,6 +42,7 @@ public class PharmacistService {
 
     public Pharmacist updatePharmacist(Long id, Pharmacist pharmacist) {
         Pharmacist existing = getPharmacistById(id);
+        referenceCache.pharmacists().invalidateAfterCommit(existing.getEmail());
         existing.setName(pharmacist.getName());
         existing.setPhone(pharmacist.getPhone());
         existing.setLicenseNumber(pharmacist.getLicenseNumber());
@@ -50,6 +52,8 @@ public class PharmacistService {
     }
 
     public void deletePharmacist(Long id) {
+        pharmacistRepository.findById(id)
+                .ifPresent(existing -> referenceCache.pharmacists().invalidateAfterCommit(existing.getEmail()));
         pharmacistRepository.deleteById(id);
     }
 
@@ -58,8 +62,13 @@ public class PharmacistService {
                 .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
     }
 
+    /**
+     * Resolves the signed-in pharmacist from the reference cache. The result is shared, so do not
+     * change it; {@link #updatePharmacist} loads its own copy.
+     */
     public Optional<Pharmacist> getPharmacistByEmail(String email) {
-        return pharmacistRepository.findByEmail(email);
+        return Optional.ofNullable(referenceCache.pharmacists()
+                .get(email, key -> pharmacistRepository.findByEmail(key).orElse(null)));
     }
 
     public List<Pharmacist> getAllPharmacists() {
@@ -0,0 +1,116 @@
+package com.pharmaease.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded least-recently-used map of rows that are read far more often than they are written,
+ * with hit and miss counters.
+ * <p>
+ * Writers invalidate after their transaction commits. Every invalidation bumps a generation, and a
+ * load that started before it is not stored, so a reader racing a writer can never put the old row
+ * back once the new one is committed.
+ */
+public class ReferenceCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final Map<K, V> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ReferenceCache(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > ReferenceCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached value, or whatever {@code loader} returns for a miss. A {@code null} result is
+     * returned but not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        // Loaded outside the lock, so one slow query does not hold up every other lookup
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidateAfterCommit(K key) {
+        afterCommit(() -> invalidate(key));
+    }
+
+    public void invalidateAfterCommit(Predicate<V> condition) {
+        afterCommit(() -> invalidate(condition));
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidate(Predicate<V> condition) {
+        generation++;
+        entries.values().removeIf(condition);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        long lookups = hits + misses;
+        return new Stats(name, entries.size(), maxSize, hits, misses, evictions,
+                lookups == 0 ? 0.0 : (double) hits / lookups);
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    public record Stats(String name, int size, int maxSize, long hits, long misses, long evictions, double hitRate) {
+    }
+}
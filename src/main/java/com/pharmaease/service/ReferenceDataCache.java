@@ -0,0 +1,58 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Pharmacist;
+import com.pharmaease.model.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * The in-process cache tier for reference data: medicines and suppliers by id, pharmacists by login
+ * email, and the category and manufacturer pick lists.
+ * <p>
+ * Only read paths go through it. The owning services invalidate exactly the entries their write
+ * methods touch, and load the rows they modify from the database, so a cached instance is never
+ * changed in place.
+ */
+@Service
+public class ReferenceDataCache {
+
+    static final String CATEGORIES = "categories";
+    static final String MANUFACTURERS = "manufacturers";
+
+    private final ReferenceCache<Long, Medicine> medicines;
+    private final ReferenceCache<Long, Supplier> suppliers;
+    private final ReferenceCache<String, Pharmacist> pharmacists;
+    private final ReferenceCache<String, List<String>> pickLists;
+
+    public ReferenceDataCache(@Value("${pharmaease.cache.medicines.max-size:5000}") int maxMedicines,
+                              @Value("${pharmaease.cache.suppliers.max-size:500}") int maxSuppliers,
+                              @Value("${pharmaease.cache.pharmacists.max-size:200}") int maxPharmacists) {
+        this.medicines = new ReferenceCache<>("medicines", maxMedicines);
+        this.suppliers = new ReferenceCache<>("suppliers", maxSuppliers);
+        this.pharmacists = new ReferenceCache<>("pharmacists", maxPharmacists);
+        this.pickLists = new ReferenceCache<>("pickLists", 2);
+    }
+
+    public ReferenceCache<Long, Medicine> medicines() {
+        return medicines;
+    }
+
+    public ReferenceCache<Long, Supplier> suppliers() {
+        return suppliers;
+    }
+
+    public ReferenceCache<String, Pharmacist> pharmacists() {
+        return pharmacists;
+    }
+
+    public ReferenceCache<String, List<String>> pickLists() {
+        return pickLists;
+    }
+
+    public List<ReferenceCache.Stats> stats() {
+        return List.of(medicines.stats(), suppliers.stats(), pharmacists.stats(), pickLists.stats());
+    }
+}
@@ -0,0 +1,254 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Pharmacist;
+import com.pharmaease.model.Report;
+import com.pharmaease.repository.ReportRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates reports in the background instead of inside the request that asks for them.
+ * <p>
+ * The reports table is the queue: a request saves a QUEUED {@link Report} and hands its id to a small
+ * worker pool, and the worker that moves the row to RUNNING computes it in chunks
+ * ({@link ReportService#compute}), writing progress after each one. Because every step is on the row,
+ * a restart loses nothing: the recovery sweep re-offers queued jobs, including ones the pool had no
+ * room for, and puts running jobs whose progress has gone stale back in the queue. A request
+ * identical to a queued or running one (same type and period) gets that job.
+ * <p>
+ * Clients poll {@link #getStatus} or subscribe to Server-Sent Events ("report"). A subscription is
+ * closed after a minute; the browser's EventSource then reconnects and gets the current state, which
+ * also covers jobs that finish on another node.
+ */
+@Service
+public class ReportJobService implements DisposableBean {
+
+    private static final long EMITTER_TIMEOUT_MS = 60 * 1000L;
+    private static final List<Report.Status> ACTIVE = List.of(Report.Status.QUEUED, Report.Status.RUNNING);
+
+    private final ReportRepository reportRepository;
+    private final ReportService reportService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final long staleMillis;
+    private final ReentrantLock submitLock = new ReentrantLock();
+    private final Set<Long> offered = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<SseEmitter>> watchers = new ConcurrentHashMap<>();
+
+    public ReportJobService(ReportRepository reportRepository,
+                            ReportService reportService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${pharmaease.reports.workers:2}") int workers,
+                            @Value("${pharmaease.reports.queue-capacity:100}") int queueCapacity,
+                            @Value("${pharmaease.reports.stale-ms:300000}") long staleMillis) {
+        this.reportRepository = reportRepository;
+        this.reportService = reportService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("report-", 1).daemon().factory());
+        this.queueCapacity = queueCapacity;
+        this.staleMillis = staleMillis;
+    }
+
+    public record JobStatus(Long id, Report.ReportType reportType, Report.Status status, int progress,
+                            String summary, String error) {
+
+        public boolean finished() {
+            return status == Report.Status.COMPLETED || status == Report.Status.FAILED;
+        }
+    }
+
+    /**
+     * Queues a report, or returns the queued or running job for the same request. Inventory and low
+     * stock reports are of the current stock, so their period is today; expiring stock reports cover
+     * today to {@code endDate}.
+     */
+    public Report submit(Report.ReportType reportType, LocalDate startDate, LocalDate endDate, Pharmacist pharmacist) {
+        if (reportType == Report.ReportType.INVENTORY || reportType == Report.ReportType.LOW_STOCK) {
+            startDate = LocalDate.now();
+            endDate = startDate;
+        } else if (reportType == Report.ReportType.EXPIRING_STOCK) {
+            startDate = LocalDate.now();
+        }
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RuntimeException("Invalid report period");
+        }
+        String requestKey = reportType + ":" + startDate + ":" + endDate;
+
+        Report job;
+        submitLock.lock();
+        try {
+            Optional<Report> active = reportRepository.findFirstByRequestKeyAndStatusIn(requestKey, ACTIVE);
+            if (active.isPresent()) {
+                return active.get();
+            }
+
+            Report report = new Report();
+            report.setReportType(reportType);
+            report.setStartDate(startDate);
+            report.setEndDate(endDate);
+            report.setGeneratedBy(pharmacist);
+            report.setStatus(Report.Status.QUEUED);
+            report.setProgress(0);
+            report.setRequestKey(requestKey);
+            report.setUpdatedAt(LocalDateTime.now());
+            try {
+                job = reportRepository.save(report);
+            } catch (DataIntegrityViolationException e) {
+                // Another node queued the same request first
+                return reportRepository.findFirstByRequestKeyAndStatusIn(requestKey, ACTIVE).orElseThrow(() -> e);
+            }
+        } finally {
+            submitLock.unlock();
+        }
+
+        System.out.println("🕒 Queued report " + job.getId() + " (" + requestKey + ")");
+        offer(job.getId());
+        return job;
+    }
+
+    public JobStatus getStatus(Long id) {
+        Report report = reportRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Report not found"));
+        return new JobStatus(report.getId(), report.getReportType(), report.getStatus(),
+                report.getProgress() != null ? report.getProgress() : 0, report.getSummary(), report.getError());
+    }
+
+    public SseEmitter subscribe(Long id) {
+        JobStatus status = getStatus(id);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Set<SseEmitter> emitters = watchers.computeIfAbsent(id, k -> new CopyOnWriteArraySet<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> unwatch(id, emitter));
+        emitter.onTimeout(() -> unwatch(id, emitter));
+        emitter.onError(e -> unwatch(id, emitter));
+
+        send(id, emitter, status);
+        return emitter;
+    }
+
+    /**
+     * Puts running jobs that stopped reporting progress back in the queue and offers every queued job
+     * to the workers. Runs at startup, so jobs survive a restart.
+     */
+    @Scheduled(fixedDelayString = "${pharmaease.reports.recover-ms:30000}")
+    public void recover() {
+        Integer requeued = transactionTemplate.execute(status ->
+                reportRepository.requeueStale(LocalDateTime.now().minusNanos(staleMillis * 1_000_000)));
+        if (requeued != null && requeued > 0) {
+            System.err.println("⚠️ Re-queued " + requeued + " report job(s) that stopped making progress");
+        }
+        reportRepository.findQueuedIds(Limit.of(queueCapacity)).forEach(this::offer);
+    }
+
+    @Override
+    public void destroy() {
+        // Interrupted jobs stay RUNNING and are re-queued once stale
+        workers.shutdownNow();
+        watchers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private void offer(Long id) {
+        if (!offered.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    run(id);
+                } finally {
+                    offered.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Still queued in the table; the recovery sweep offers it again
+            offered.remove(id);
+        }
+    }
+
+    private void run(Long id) {
+        Integer claimed = transactionTemplate.execute(status -> reportRepository.claim(id, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            // Already taken by another node, or no longer queued
+            return;
+        }
+        publish(id);
+
+        long started = System.currentTimeMillis();
+        try {
+            Report report = reportRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Report not found"));
+            int[] reported = {0};
+            ReportService.Result result = reportService.compute(report, percent -> {
+                if (percent > reported[0]) {
+                    reported[0] = percent;
+                    transactionTemplate.executeWithoutResult(status -> reportRepository.updateProgress(id, percent, LocalDateTime.now()));
+                    publish(id);
+                }
+            });
+            transactionTemplate.executeWithoutResult(status -> reportRepository.complete(id, result.totalSales(),
+                    result.totalOrders(), result.summary(), LocalDateTime.now()));
+            System.out.println("📊 Report " + id + " (" + report.getReportType() + ") ready in " +
+                    (System.currentTimeMillis() - started) + " ms");
+        } catch (RuntimeException e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            transactionTemplate.executeWithoutResult(status -> reportRepository.fail(id,
+                    message.length() > 500 ? message.substring(0, 500) : message, LocalDateTime.now()));
+            System.err.println("❌ Report " + id + " failed: " + message);
+        }
+        publish(id);
+    }
+
+    private void publish(Long id) {
+        Set<SseEmitter> emitters = watchers.get(id);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        JobStatus status = getStatus(id);
+        for (SseEmitter emitter : emitters) {
+            send(id, emitter, status);
+        }
+    }
+
+    private void send(Long id, SseEmitter emitter, JobStatus status) {
+        try {
+            emitter.send(SseEmitter.event().name("report").data(status));
+            if (status.finished()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            unwatch(id, emitter);
+        }
+    }
+
+    private void unwatch(Long id, SseEmitter emitter) {
+        watchers.computeIfPresent(id, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
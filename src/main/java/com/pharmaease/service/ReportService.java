@@ -3,113 +3,111 @@ package com.pharmaease.service;
 import com.pharmaease.model.*;
 import com.pharmaease.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.IntConsumer;
 
 @Service
 @RequiredArgsConstructor
 public class ReportService {
 
     private final ReportRepository reportRepository;
-    private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
     private final InventoryRepository inventoryRepository;
-    private final StockBatchRepository batchRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final jakarta.persistence.EntityManager entityManager;
-
-    public Report generateSalesReport(LocalDate startDate, LocalDate endDate, Report.ReportType reportType, Pharmacist pharmacist) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(LocalTime.MAX);
-
-        List<Orders> orders = orderRepository.findByCreatedAtBetweenWithRelations(start, end);
-
-        BigDecimal totalSales = orders.stream()
-                .filter(o -> o.getStatus() == Orders.OrderStatus.COMPLETED)
-                .map(Orders::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int totalOrders = (int) orders.stream()
-                .filter(o -> o.getStatus() == Orders.OrderStatus.COMPLETED)
-                .count();
-
-        Report report = new Report();
-        report.setReportType(reportType);
-        report.setStartDate(startDate);
-        report.setEndDate(endDate);
-        report.setTotalSales(totalSales);
-        report.setTotalOrders(totalOrders);
-        report.setGeneratedBy(pharmacist);
-        // Use rupee symbol in the human-readable summary text
-        report.setSummary(String.format("Sales report from %s to %s. Total orders: %d, Total sales: ₹%.2f",
-                startDate, endDate, totalOrders, totalSales));
-
-        return reportRepository.save(report);
-    }
-
-    public Report generateInventoryReport(Pharmacist pharmacist) {
-        List<Inventory> inventoryList = inventoryRepository.findAll();
-
-        long lowStockCount = inventoryList.stream()
-                .filter(Inventory::getLowStock)
-                .count();
+    private final SalesDailyRollupRepository rollupRepository;
+    private final BatchExpiryIndex expiryIndex;
 
-        long outOfStockCount = inventoryList.stream()
-                .filter(i -> i.getAvailableQuantity() == 0)
-                .count();
+    // Sales reports sum the rollup a month at a time, stock reports count inventory a chunk of medicines at a time
+    private static final int SALES_CHUNK_DAYS = 31;
+    private static final int STOCK_CHUNK_SIZE = 1000;
 
-        Report report = new Report();
-        report.setReportType(Report.ReportType.INVENTORY);
-        report.setStartDate(LocalDate.now());
-        report.setEndDate(LocalDate.now());
-        report.setGeneratedBy(pharmacist);
-        report.setSummary(String.format("Inventory report. Total items: %d, Low stock: %d, Out of stock: %d",
-                inventoryList.size(), lowStockCount, outOfStockCount));
-
-        return reportRepository.save(report);
+    /**
+     * What a report job stores on its {@link Report} once it is done.
+     */
+    public record Result(BigDecimal totalSales, int totalOrders, String summary) {
     }
 
-    public Report generateLowStockReport(Pharmacist pharmacist) {
-        List<Inventory> lowStockItems = inventoryRepository.findLowStockItems();
-
-        Report report = new Report();
-        report.setReportType(Report.ReportType.LOW_STOCK);
-        report.setStartDate(LocalDate.now());
-        report.setEndDate(LocalDate.now());
-        report.setGeneratedBy(pharmacist);
-        report.setSummary(String.format("Low stock report. %d items need reordering", lowStockItems.size()));
-
-        return reportRepository.save(report);
+    /**
+     * Computes a queued report from its type and period, reporting percent done to {@code progress}
+     * after each chunk. Run by {@link ReportJobService}.
+     */
+    public Result compute(Report report, IntConsumer progress) {
+        return switch (report.getReportType()) {
+            case INVENTORY -> {
+                InventoryTally tally = countInventory(progress);
+                yield new Result(BigDecimal.ZERO, 0, String.format("Inventory report. Total items: %d, Low stock: %d, Out of stock: %d",
+                        tally.items, tally.lowStock, tally.outOfStock));
+            }
+            case LOW_STOCK -> new Result(BigDecimal.ZERO, 0, String.format("Low stock report. %d items need reordering",
+                    countInventory(progress).belowReorderLevel));
+            case EXPIRING_STOCK -> new Result(BigDecimal.ZERO, 0, String.format("Expiring stock report. %d batches expiring within %d days",
+                    expiryIndex.countBetween(report.getStartDate(), report.getEndDate()),
+                    ChronoUnit.DAYS.between(report.getStartDate(), report.getEndDate())));
+            default -> sales(report.getStartDate(), report.getEndDate(), progress);
+        };
     }
 
-    public Report generateExpiringStockReport(int daysAhead, Pharmacist pharmacist) {
-        LocalDate today = LocalDate.now();
-        LocalDate futureDate = today.plusDays(daysAhead);
-
-        List<StockBatch> expiringBatches = batchRepository.findExpiringBatches(today, futureDate);
+    private Result sales(LocalDate startDate, LocalDate endDate, IntConsumer progress) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        BigDecimal totalSales = BigDecimal.ZERO;
+        long totalOrders = 0;
+        // One aggregate over the day rows of each chunk instead of loading its orders
+        for (LocalDate from = startDate; !from.isAfter(endDate); ) {
+            LocalDate to = from.plusDays(SALES_CHUNK_DAYS - 1);
+            if (to.isAfter(endDate)) {
+                to = endDate;
+            }
+            SalesDailyRollupRepository.SalesTotals totals = rollupRepository.sumBetween(from, to);
+            totalSales = totalSales.add(totals.getGrossAmount());
+            totalOrders += totals.getCompletedOrders();
+            from = to.plusDays(1);
+            progress.accept((int) (100 * ChronoUnit.DAYS.between(startDate, from) / days));
+        }
 
-        Report report = new Report();
-        report.setReportType(Report.ReportType.EXPIRING_STOCK);
-        report.setStartDate(today);
-        report.setEndDate(futureDate);
-        report.setGeneratedBy(pharmacist);
-        report.setSummary(String.format("Expiring stock report. %d batches expiring within %d days",
-                expiringBatches.size(), daysAhead));
+        // Use rupee symbol in the human-readable summary text
+        return new Result(totalSales, (int) totalOrders, String.format("Sales report from %s to %s. Total orders: %d, Total sales: ₹%.2f",
+                startDate, endDate, totalOrders, totalSales));
+    }
 
-        return reportRepository.save(report);
+    private InventoryTally countInventory(IntConsumer progress) {
+        long expected = inventoryRepository.count();
+        InventoryTally tally = new InventoryTally();
+        Long after = 0L;
+        while (true) {
+            List<Long> medicineIds = inventoryRepository.findMedicineIdsAfter(after, Limit.of(STOCK_CHUNK_SIZE));
+            if (medicineIds.isEmpty()) {
+                return tally;
+            }
+            after = medicineIds.get(medicineIds.size() - 1);
+            InventoryRepository.StockCounts counts = inventoryRepository.countBetween(medicineIds.get(0), after);
+            tally.items += counts.getItems();
+            tally.lowStock += counts.getLowStock();
+            tally.outOfStock += counts.getOutOfStock();
+            tally.belowReorderLevel += counts.getBelowReorderLevel();
+            // Medicines added meanwhile can take the count past what was expected
+            progress.accept((int) Math.min(99, 100 * tally.items / Math.max(expected, 1)));
+        }
     }
 
-    public List<Report> getAllReports() {
-        return reportRepository.findAll();
+    /**
+     * One page of generated reports, newest first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Report> findReports(Report.ReportType reportType, LocalDate from, LocalDate to,
+                                          String cursor, Integer size) {
+        Specification<Report> spec = Specification.allOf(
+                ListFilters.fetching("generatedBy"),
+                ListFilters.equal("reportType", reportType),
+                ListFilters.within("generatedAt", from, to));
+        return CursorPage.scroll(reportRepository, spec, "generatedAt", cursor, size);
     }
 
     public Report getReportById(Long id) {
@@ -122,92 +120,27 @@ public class ReportService {
 
         Map<String, Object> stats = new HashMap<>();
 
-        // Define common date ranges
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        LocalDateTime todayEnd = LocalDate.now().atTime(LocalTime.MAX);
-        LocalDateTime weekStart = LocalDate.now().minusDays(7).atStartOfDay();
-        LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-
-        // Query directly from database
-        List<Orders> completedOrders = (List<Orders>) entityManager.createQuery(
-                "SELECT o FROM Orders o WHERE o.status = 'COMPLETED' ORDER BY o.createdAt DESC",
-                Orders.class).getResultList();
-
-        System.out.println("📊 Dashboard Query - COMPLETED orders: " + completedOrders.size());
-
-        // Log all completed orders for debugging
-        if (!completedOrders.isEmpty()) {
-            System.out.println("📊 COMPLETED Orders Details:");
-            completedOrders.forEach(o -> {
-                System.out.println("  - ID: " + o.getId() + 
-                                 " | Order#: " + o.getOrderNumber() + 
-                                 " | Status: " + o.getStatus() + 
-                                 " | Amount: ₹" + o.getTotalAmount() + 
-                                 " | Created: " + o.getCreatedAt());
-            });
-        }
-
-        // Calculate today's sales and orders by filtering in memory
-        List<Orders> todayCompleted = completedOrders.stream()
-                .filter(o -> {
-                    LocalDateTime created = o.getCreatedAt();
-                    return created != null && 
-                           !created.isBefore(todayStart) && 
-                           !created.isAfter(todayEnd);
-                })
-                .collect(Collectors.toList());
-        
-        double todaySales = todayCompleted.stream()
-                .mapToDouble(o -> o.getTotalAmount() != null ? o.getTotalAmount().doubleValue() : 0.0)
-                .sum();
+        // Sales figures come from the daily rollup: a few rows per day, however many orders there are
+        LocalDate today = LocalDate.now();
+        SalesDailyRollupRepository.SalesTotals todayTotals = rollupRepository.sumBetween(today, today);
+        double todaySales = toDouble(todayTotals.getGrossAmount());
         stats.put("todaySales", todaySales);
-        stats.put("todayOrders", (long) todayCompleted.size());
-        
-        System.out.println("📊 Today - Orders: " + todayCompleted.size() + ", Sales: ₹" + todaySales);
-
-        // Week sales
-        List<Orders> weekCompleted = completedOrders.stream()
-                .filter(o -> {
-                    LocalDateTime created = o.getCreatedAt();
-                    return created != null && 
-                           !created.isBefore(weekStart) && 
-                           !created.isAfter(todayEnd);
-                })
-                .collect(Collectors.toList());
-        double weekSales = weekCompleted.stream()
-                .mapToDouble(o -> o.getTotalAmount() != null ? o.getTotalAmount().doubleValue() : 0.0)
-                .sum();
-        stats.put("weekSales", weekSales);
-
-        // Month sales
-        List<Orders> monthCompleted = completedOrders.stream()
-                .filter(o -> {
-                    LocalDateTime created = o.getCreatedAt();
-                    return created != null && 
-                           !created.isBefore(monthStart) && 
-                           !created.isAfter(todayEnd);
-                })
-                .collect(Collectors.toList());
-        double monthSales = monthCompleted.stream()
-                .mapToDouble(o -> o.getTotalAmount() != null ? o.getTotalAmount().doubleValue() : 0.0)
-                .sum();
-        stats.put("monthSales", monthSales);
-
-        // Total sales
-        double totalSales = completedOrders.stream()
-                .mapToDouble(o -> o.getTotalAmount() != null ? o.getTotalAmount().doubleValue() : 0.0)
-                .sum();
+        stats.put("todayOrders", todayTotals.getCompletedOrders());
+
+        stats.put("weekSales", toDouble(rollupRepository.sumBetween(today.minusDays(7), today).getGrossAmount()));
+        stats.put("monthSales", toDouble(rollupRepository.sumBetween(today.withDayOfMonth(1), today).getGrossAmount()));
+
+        double totalSales = toDouble(rollupRepository.sumAll().getGrossAmount());
         stats.put("totalSales", totalSales);
-        
-        System.out.println("📊 Final Stats - Total Sales: ₹" + totalSales + ", Today Orders: " + todayCompleted.size() + ", Today Sales: ₹" + todaySales);
+
+        System.out.println("📊 Final Stats - Total Sales: ₹" + totalSales + ", Today Orders: " + todayTotals.getCompletedOrders() + ", Today Sales: ₹" + todaySales);
 
         // Low stock count
         Long lowStockCount = inventoryRepository.countLowStockItems();
         stats.put("lowStockCount", lowStockCount != null ? lowStockCount : 0L);
 
-        // Expiring soon (30 days) - skip this query to avoid terminal noise and improve performance
-        // Only calculate if really needed, otherwise set to 0
-        stats.put("expiringBatchesCount", 0);
+        // Expiring soon (30 days), counted from the in-memory expiry index
+        stats.put("expiringBatchesCount", (long) expiryIndex.countBetween(today, today.plusDays(30)));
 
         return stats;
     }
@@ -215,4 +148,11 @@ public class ReportService {
     private double toDouble(BigDecimal value) {
         return value != null ? value.doubleValue() : 0.0;
     }
+
+    private static final class InventoryTally {
+        private long items;
+        private long lowStock;
+        private long outOfStock;
+        private long belowReorderLevel;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.pharmaease.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method again, in a new transaction, when it fails because a versioned row it read was
+ * changed before it wrote it back. See {@link ConflictRetryAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * What the first argument is, so conflicts can be counted against its medicine.
+     */
+    Subject subject() default Subject.MEDICINE;
+
+    enum Subject {
+        /** A {@link com.pharmaease.model.Medicine} */
+        MEDICINE,
+        /** The id of a {@link com.pharmaease.model.StockBatch} */
+        BATCH
+    }
+}
@@ -0,0 +1,107 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Orders;
+import com.pharmaease.model.SalesDailyRollup;
+import com.pharmaease.repository.OrderArchiveRepository;
+import com.pharmaease.repository.OrderRepository;
+import com.pharmaease.repository.SalesDailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Maintains {@code sales_daily_rollup}. Order completion and cancellation call in here from their own
+ * transaction, so the rollup commits or rolls back together with the order. Orders are counted on
+ * the day they were created, the same day the order lists and reports file them under.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final SalesDailyRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository archiveRepository;
+
+    public void recordCompleted(Orders order) {
+        rollupRepository.add(completed(order.getCreatedAt(), order.getPaymentMethod(),
+                order.getSubtotal(), order.getTax(), order.getDiscount(), order.getTotalAmount()));
+    }
+
+    public void recordCancelled(Orders order) {
+        rollupRepository.add(cancelled(order.getCreatedAt(), order.getPaymentMethod()));
+    }
+
+    /**
+     * Recomputes the whole rollup from the orders table and its archive, e.g. after a restore or a
+     * manual data fix.
+     */
+    @Transactional
+    public int rebuild() {
+        Map<SalesDailyRollup.Key, SalesDailyRollup> rows = new LinkedHashMap<>();
+        try (Stream<Object[]> figures = Stream.concat(orderRepository.streamSettledOrderFigures(),
+                archiveRepository.streamSettledOrderFigures())) {
+            figures.forEach(f -> {
+                SalesDailyRollup delta = f[2] == Orders.OrderStatus.COMPLETED
+                        ? completed((LocalDateTime) f[0], (Orders.PaymentMethod) f[1],
+                                (BigDecimal) f[3], (BigDecimal) f[4], (BigDecimal) f[5], (BigDecimal) f[6])
+                        : cancelled((LocalDateTime) f[0], (Orders.PaymentMethod) f[1]);
+                rows.merge(new SalesDailyRollup.Key(delta.getSalesDate(), delta.getPaymentMethod()), delta, this::sum);
+            });
+        }
+
+        rollupRepository.replaceAll(rows.values());
+        System.out.println("✅ Rebuilt sales rollup: " + rows.size() + " day/payment method rows");
+        return rows.size();
+    }
+
+    // First start on an existing database: fill the rollup once so the dashboard is not empty
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0 && (orderRepository.count() > 0 || archiveRepository.count() > 0)) {
+            rebuild();
+        }
+    }
+
+    private SalesDailyRollup completed(LocalDateTime createdAt, Orders.PaymentMethod paymentMethod,
+                                       BigDecimal subtotal, BigDecimal tax, BigDecimal discount, BigDecimal total) {
+        return new SalesDailyRollup(day(createdAt), method(paymentMethod), 1L, 0L,
+                orZero(subtotal), orZero(tax), orZero(discount), orZero(total));
+    }
+
+    private SalesDailyRollup cancelled(LocalDateTime createdAt, Orders.PaymentMethod paymentMethod) {
+        return new SalesDailyRollup(day(createdAt), method(paymentMethod), 0L, 1L,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private SalesDailyRollup sum(SalesDailyRollup a, SalesDailyRollup b) {
+        return new SalesDailyRollup(a.getSalesDate(), a.getPaymentMethod(),
+                a.getCompletedOrders() + b.getCompletedOrders(),
+                a.getCancelledOrders() + b.getCancelledOrders(),
+                a.getSubtotal().add(b.getSubtotal()),
+                a.getTax().add(b.getTax()),
+                a.getDiscount().add(b.getDiscount()),
+                a.getGrossAmount().add(b.getGrossAmount()));
+    }
+
+    private LocalDate day(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.toLocalDate() : LocalDate.now();
+    }
+
+    private Orders.PaymentMethod method(Orders.PaymentMethod paymentMethod) {
+        return paymentMethod != null ? paymentMethod : Orders.PaymentMethod.CASH;
+    }
+
+    private BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pharmaease.service;
+
+import java.time.LocalDate;
+
+/**
+ * The state a stock batch is left in by a committed write: active with the given expiry date, or
+ * no longer active (deactivated, sold out, written off or deleted). Published by {@link StockBatchService},
+ * {@link OrderService} and {@link ExpiredBatchSweeper} and consumed after commit by {@link BatchExpiryIndex},
+ * which {@link NotificationCountService} counts from.
+ */
+public record StockBatchEvent(Long batchId, LocalDate expiryDate, boolean active) {
+
+    public static StockBatchEvent active(Long batchId, LocalDate expiryDate) {
+        return new StockBatchEvent(batchId, expiryDate, true);
+    }
+
+    public static StockBatchEvent inactive(Long batchId) {
+        return new StockBatchEvent(batchId, null, false);
+    }
+}
@@ -1,16 +1,21 @@
 package com.pharmaease.service;
 
-import com.pharmaease.model.Inventory;
 import com.pharmaease.model.Medicine;
 import com.pharmaease.model.StockBatch;
+import com.pharmaease.model.StockMovement;
+import com.pharmaease.repository.BatchView;
 import com.pharmaease.repository.InventoryRepository;
 import com.pharmaease.repository.StockBatchRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -19,19 +24,27 @@ public class StockBatchService {
 
     private final StockBatchRepository batchRepository;
     private final InventoryRepository inventoryRepository;
+    private final BatchAllocator batchAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchExpiryIndex expiryIndex;
 
     public StockBatch createBatch(StockBatch batch) {
         batch.setRemainingQuantity(batch.getQuantity());
         StockBatch saved = batchRepository.save(batch);
 
         // Update inventory
-        updateInventoryAfterBatchCreation(saved);
+        adjustInventory(saved, StockMovement.Type.RECEIPT, stockedQuantity(saved));
+        batchAllocator.evictAfterCommit(saved.getMedicine().getId());
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(saved.getMedicine().getId())));
+        eventPublisher.publishEvent(batchEvent(saved));
 
         return saved;
     }
 
+    @RetryOnConflict(subject = RetryOnConflict.Subject.BATCH)
     public StockBatch updateBatch(Long id, StockBatch batch) {
         StockBatch existing = getBatchById(id);
+        int stockedBefore = stockedQuantity(existing);
         int quantityDifference = batch.getQuantity() - existing.getQuantity();
 
         existing.setBatchNumber(batch.getBatchNumber());
@@ -45,17 +58,24 @@ public class StockBatchService {
         StockBatch updated = batchRepository.save(existing);
 
         // Update inventory
-        updateInventoryAfterBatchUpdate(updated, quantityDifference);
+        adjustInventory(updated, StockMovement.Type.ADJUSTMENT, stockedQuantity(updated) - stockedBefore);
+        batchAllocator.evictAfterCommit(updated.getMedicine().getId());
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(updated.getMedicine().getId())));
+        eventPublisher.publishEvent(batchEvent(updated));
 
         return updated;
     }
 
+    @RetryOnConflict(subject = RetryOnConflict.Subject.BATCH)
     public void deleteBatch(Long id) {
         StockBatch batch = getBatchById(id);
         batchRepository.deleteById(id);
 
         // Update inventory
-        updateInventoryAfterBatchDeletion(batch);
+        adjustInventory(batch, StockMovement.Type.ADJUSTMENT, -stockedQuantity(batch));
+        batchAllocator.evictAfterCommit(batch.getMedicine().getId());
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(Set.of(batch.getMedicine().getId())));
+        eventPublisher.publishEvent(StockBatchEvent.inactive(id));
     }
 
     public StockBatch getBatchById(Long id) {
@@ -67,50 +87,71 @@ public class StockBatchService {
         return batchRepository.findAll();
     }
 
+    /**
+     * One page of batches, most recently received first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<StockBatch> findBatches(Long medicineId, Boolean active, String cursor, Integer size) {
+        Specification<StockBatch> spec = Specification.allOf(
+                ListFilters.fetching("medicine.supplier", "medicine.inventory"),
+                ListFilters.equalId("medicine", medicineId),
+                ListFilters.equal("active", active));
+        return CursorPage.scroll(batchRepository, spec, "createdAt", cursor, size);
+    }
+
     public List<StockBatch> getBatchesByMedicine(Medicine medicine) {
         return batchRepository.findByMedicineAndActive(medicine, true);
     }
 
     public List<StockBatch> getExpiringBatches(int daysAhead) {
         LocalDate today = LocalDate.now();
-        LocalDate futureDate = today.plusDays(daysAhead);
-        return batchRepository.findExpiringBatches(today, futureDate);
+        List<Long> batchIds = expiryIndex.idsBetween(today, today.plusDays(daysAhead));
+        return batchIds.isEmpty() ? List.of() : batchRepository.findWithMedicineByIdIn(batchIds);
+    }
+
+    public int countExpiringBatches(int daysAhead) {
+        LocalDate today = LocalDate.now();
+        return expiryIndex.countBetween(today, today.plusDays(daysAhead));
     }
 
     public List<StockBatch> getExpiredBatches() {
         return batchRepository.findExpiredBatches(LocalDate.now());
     }
 
-    private void updateInventoryAfterBatchCreation(StockBatch batch) {
-        Inventory inventory = inventoryRepository.findByMedicine(batch.getMedicine())
-                .orElseThrow(() -> new RuntimeException("Inventory not found"));
-
-        inventory.setTotalQuantity(inventory.getTotalQuantity() + batch.getQuantity());
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity() + batch.getQuantity());
-        inventory.setLowStock(inventory.getAvailableQuantity() <= batch.getMedicine().getReorderLevel());
-
-        inventoryRepository.save(inventory);
+    @Transactional(readOnly = true)
+    public BatchView getBatchView(Long id) {
+        return batchRepository.findViewById(id)
+                .orElseThrow(() -> new RuntimeException("Batch not found"));
     }
 
-    private void updateInventoryAfterBatchUpdate(StockBatch batch, int quantityDifference) {
-        Inventory inventory = inventoryRepository.findByMedicine(batch.getMedicine())
-                .orElseThrow(() -> new RuntimeException("Inventory not found"));
-
-        inventory.setTotalQuantity(inventory.getTotalQuantity() + quantityDifference);
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity() + quantityDifference);
-        inventory.setLowStock(inventory.getAvailableQuantity() <= batch.getMedicine().getReorderLevel());
+    @Transactional(readOnly = true)
+    public List<BatchView> getExpiringBatchViews(int daysAhead) {
+        LocalDate today = LocalDate.now();
+        List<Long> batchIds = expiryIndex.idsBetween(today, today.plusDays(daysAhead));
+        return batchIds.isEmpty() ? List.of() : batchRepository.findViewsByIdIn(batchIds);
+    }
 
-        inventoryRepository.save(inventory);
+    @Transactional(readOnly = true)
+    public List<BatchView> getExpiredBatchViews() {
+        return batchRepository.findExpiredViews(LocalDate.now());
     }
 
-    private void updateInventoryAfterBatchDeletion(StockBatch batch) {
-        Inventory inventory = inventoryRepository.findByMedicine(batch.getMedicine())
-                .orElseThrow(() -> new RuntimeException("Inventory not found"));
+    // Inventory only counts stock in active batches; sold-out and written-off batches hold none
+    private int stockedQuantity(StockBatch batch) {
+        return Boolean.TRUE.equals(batch.getActive()) ? batch.getRemainingQuantity() : 0;
+    }
 
-        inventory.setTotalQuantity(inventory.getTotalQuantity() - batch.getRemainingQuantity());
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity() - batch.getRemainingQuantity());
-        inventory.setLowStock(inventory.getAvailableQuantity() <= batch.getMedicine().getReorderLevel());
+    private StockBatchEvent batchEvent(StockBatch batch) {
+        return Boolean.TRUE.equals(batch.getActive())
+                ? StockBatchEvent.active(batch.getId(), batch.getExpiryDate())
+                : StockBatchEvent.inactive(batch.getId());
+    }
 
-        inventoryRepository.save(inventory);
+    // One atomic delta instead of read-modify-write, so it never races a sale on the same inventory row
+    private void adjustInventory(StockBatch batch, StockMovement.Type type, int quantityDifference) {
+        Map<Long, Integer> change = Map.of(batch.getMedicine().getId(), quantityDifference);
+        if (!inventoryRepository.restockQuantities(change, type, "batch " + batch.getBatchNumber()).isEmpty()) {
+            throw new RuntimeException("Inventory not found");
+        }
     }
-}
\ No newline at end of file
+}
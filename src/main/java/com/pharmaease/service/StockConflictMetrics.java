@@ -0,0 +1,122 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts optimistic lock conflicts on stock rows, in total and per medicine, so the medicines whose
+ * stock is written from many places at once stand out.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockConflictMetrics {
+
+    private static final int HOTTEST = 20;
+
+    private final InventoryRepository inventoryRepository;
+    private final StockBatchRepository batchRepository;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final Map<Long, MedicineCounter> byMedicine = new ConcurrentHashMap<>();
+
+    void recordAttempt() {
+        attempts.incrementAndGet();
+    }
+
+    void recordConflict(OptimisticLockingFailureException e, boolean gaveUp, RetryOnConflict.Subject subject, Object firstArgument) {
+        conflicts.incrementAndGet();
+        if (gaveUp) {
+            exhausted.incrementAndGet();
+        }
+        Long medicineId = medicineOf(e, subject, firstArgument);
+        if (medicineId != null) {
+            byMedicine.computeIfAbsent(medicineId, id -> new MedicineCounter()).record(gaveUp);
+        }
+    }
+
+    public Stats stats() {
+        long attempted = attempts.get();
+        long conflicted = conflicts.get();
+        List<MedicineConflicts> hottest = new ArrayList<>();
+        byMedicine.forEach((medicineId, counter) -> hottest.add(counter.snapshot(medicineId, conflicted)));
+        hottest.sort(Comparator.comparingLong(MedicineConflicts::conflicts).reversed());
+        return new Stats(attempted, conflicted, exhausted.get(),
+                attempted == 0 ? 0.0 : (double) conflicted / attempted,
+                hottest.subList(0, Math.min(HOTTEST, hottest.size())));
+    }
+
+    // Conflicts are rare enough to look the medicine up. The exception names the conflicting row unless
+    // Hibernate batched the update; then the method's subject says which medicine it was working on.
+    private Long medicineOf(OptimisticLockingFailureException e, RetryOnConflict.Subject subject, Object firstArgument) {
+        try {
+            if (e instanceof ObjectOptimisticLockingFailureException conflict && conflict.getIdentifier() instanceof Long id) {
+                if (Inventory.class.getName().equals(conflict.getPersistentClassName())) {
+                    return inventoryRepository.findMedicineIdById(id).orElse(null);
+                }
+                if (StockBatch.class.getName().equals(conflict.getPersistentClassName())) {
+                    return batchRepository.findMedicineIdById(id).orElse(null);
+                }
+            }
+            if (subject == RetryOnConflict.Subject.MEDICINE && firstArgument instanceof Medicine medicine) {
+                return medicine.getId();
+            }
+            if (subject == RetryOnConflict.Subject.BATCH && firstArgument instanceof Long batchId) {
+                return batchRepository.findMedicineIdById(batchId).orElse(null);
+            }
+        } catch (RuntimeException lookupFailed) {
+            System.err.println("Warning: Could not resolve the medicine of a stock conflict: " + lookupFailed.getMessage());
+        }
+        return null;
+    }
+
+    private static final class MedicineCounter {
+
+        private long conflicts;
+        private long exhausted;
+        private LocalDateTime lastConflictAt;
+
+        synchronized void record(boolean gaveUp) {
+            conflicts++;
+            if (gaveUp) {
+                exhausted++;
+            }
+            lastConflictAt = LocalDateTime.now();
+        }
+
+        synchronized MedicineConflicts snapshot(Long medicineId, long allConflicts) {
+            return new MedicineConflicts(medicineId, conflicts, exhausted,
+                    allConflicts == 0 ? 0.0 : (double) conflicts / allConflicts, lastConflictAt);
+        }
+    }
+
+    /**
+     * @param conflictRate share of attempts that hit a conflict
+     */
+    public record Stats(long attempts, long conflicts, long exhausted, double conflictRate,
+                        List<MedicineConflicts> hottestMedicines) {
+    }
+
+    /**
+     * @param share share of all conflicts that were on this medicine's stock
+     */
+    public record MedicineConflicts(Long medicineId, long conflicts, long exhausted, double share,
+                                    LocalDateTime lastConflictAt) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.StockLevel;
+import com.pharmaease.repository.StockMovementRepository;
+import com.pharmaease.repository.StockMovementView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The stock ledger behind {@link com.pharmaease.model.Inventory}: movement history, stock at a past
+ * time, nightly snapshots, and rebuilding the inventory rows when they have drifted from the ledger.
+ * <p>
+ * A rebuild splits the medicines into chunks and replays them on a pool of
+ * {@code pharmaease.ledger.rebuild-threads} workers, each chunk in its own transaction. Each worker
+ * holds a database connection, so by default there are half as many as the primary pool has
+ * connections (and no more than one per core), leaving the rest to requests.
+ */
+@Service
+public class StockLedgerService {
+
+    private static final int MAX_MOVEMENTS = 500;
+
+    private final StockMovementRepository movementRepository;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildThreads;
+    private final int chunkSize;
+    private final long snapshotSettleMillis;
+
+    public StockLedgerService(StockMovementRepository movementRepository,
+                              InventoryRepository inventoryRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${pharmaease.ledger.rebuild-threads:0}") int rebuildThreads,
+                              @Value("${pharmaease.ledger.rebuild-chunk-size:500}") int chunkSize,
+                              @Value("${pharmaease.ledger.snapshot-settle-ms:60000}") long snapshotSettleMillis,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.movementRepository = movementRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads
+                : Math.max(1, Math.min(poolSize / 2, Runtime.getRuntime().availableProcessors()));
+        this.chunkSize = chunkSize;
+        this.snapshotSettleMillis = snapshotSettleMillis;
+    }
+
+    /**
+     * The medicine's most recent movements, newest first.
+     */
+    public List<StockMovementView> getMovements(Long medicineId, int limit) {
+        return movementRepository.findLatestViews(medicineId, Limit.of(Math.min(Math.max(limit, 1), MAX_MOVEMENTS)));
+    }
+
+    /**
+     * The medicine's stock as it stood at {@code at}: its last snapshot before then plus the movements since.
+     */
+    public StockLevel getStockAt(Long medicineId, LocalDateTime at) {
+        return movementRepository.levelAt(medicineId, at);
+    }
+
+    // Movements still being written when it runs are left to the next snapshot
+    @Scheduled(cron = "${pharmaease.ledger.snapshot-cron:0 0 2 * * *}")
+    public int takeSnapshots() {
+        Integer taken = transactionTemplate.execute(status ->
+                movementRepository.takeSnapshots(LocalDateTime.now().minus(snapshotSettleMillis, ChronoUnit.MILLIS)));
+        if (taken != null && taken > 0) {
+            System.out.println("📸 Took " + taken + " stock snapshot(s)");
+        }
+        return taken != null ? taken : 0;
+    }
+
+    /**
+     * Replays the ledger of every medicine and corrects the inventory rows that do not match it.
+     */
+    public Rebuild rebuild() {
+        long started = System.currentTimeMillis();
+        List<Long> medicineIds = inventoryRepository.findAllMedicineIds();
+
+        List<Future<Integer>> chunks = new ArrayList<>();
+        try (ExecutorService workers = Executors.newFixedThreadPool(rebuildThreads)) {
+            for (int from = 0; from < medicineIds.size(); from += chunkSize) {
+                List<Long> chunk = medicineIds.subList(from, Math.min(from + chunkSize, medicineIds.size()));
+                chunks.add(workers.submit(() -> transactionTemplate.execute(status -> rebuildChunk(chunk))));
+            }
+        }
+
+        int corrected = 0;
+        int failed = 0;
+        for (Future<Integer> chunk : chunks) {
+            try {
+                Integer count = chunk.get();
+                corrected += count != null ? count : 0;
+            } catch (ExecutionException e) {
+                // The chunk rolled back as a whole; running the rebuild again retries it
+                System.err.println("❌ Could not rebuild inventory from the ledger: " + e.getCause().getMessage());
+                failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Inventory rebuild interrupted", e);
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        System.out.println("🔁 Rebuilt inventory of " + medicineIds.size() + " medicine(s) from the ledger in " + elapsed +
+                " ms: " + corrected + " corrected" + (failed > 0 ? ", " + failed + " chunk(s) failed" : ""));
+        return new Rebuild(medicineIds.size(), corrected, failed, elapsed);
+    }
+
+    private int rebuildChunk(List<Long> medicineIds) {
+        // Locked first, so no sale can add a movement between reading the ledger and writing the row
+        Map<Long, StockLevel> current = inventoryRepository.lockLevels(medicineIds);
+        Map<Long, StockLevel> replayed = movementRepository.replay(current.keySet());
+
+        List<StockLevel> drifted = new ArrayList<>();
+        current.forEach((medicineId, level) -> {
+            StockLevel expected = replayed.get(medicineId);
+            if (!level.equals(expected)) {
+                System.err.println("⚠️ Inventory of medicine " + medicineId + " drifted from its ledger: " + level + ", expected " + expected);
+                drifted.add(expected);
+            }
+        });
+        inventoryRepository.overwriteLevels(drifted);
+        return drifted.size();
+    }
+
+    public record Rebuild(int medicines, int corrected, int failedChunks, long elapsedMillis) {
+    }
+}
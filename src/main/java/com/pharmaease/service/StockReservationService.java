@@ -0,0 +1,213 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Orders;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.OrderItemRepository;
+import com.pharmaease.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for pending orders. Reserving moves quantity from available to reserved on the
+ * inventory row; the hold is then either consumed when the order completes, released when it is
+ * cancelled, or released by the sweeper once its TTL passes.
+ * <p>
+ * {@code orders.reserved_until} marks an open hold, and clearing it is the claim: completion,
+ * cancellation and expiry all go through {@link OrderRepository#claimReservation}, so only one of
+ * them ever moves the stock. Deadlines are tracked in a {@link TimingWheel}, so a sweep only looks at
+ * the holds that are due, however many are open.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int WHEEL_SLOTS = 720;
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long ttlMinutes;
+    private final long tickMillis;
+    private final TimingWheel<Long> wheel;
+
+    public StockReservationService(InventoryRepository inventoryRepository,
+                                   OrderRepository orderRepository,
+                                   OrderItemRepository orderItemRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${pharmaease.reservations.ttl-minutes:30}") long ttlMinutes,
+                                   @Value("${pharmaease.reservations.tick-ms:5000}") long tickMillis) {
+        this.inventoryRepository = inventoryRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.ttlMinutes = ttlMinutes;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SLOTS, System.currentTimeMillis());
+    }
+
+    /**
+     * Reserves stock for a new pending order and starts its TTL. Must run in the transaction that
+     * persists the order; the hold is put on the wheel once that commits.
+     *
+     * @return ids of the medicines without enough available stock (nothing was reserved for them)
+     */
+    public Set<Long> reserve(Orders order, Map<Long, Integer> quantitiesByMedicine) {
+        Set<Long> rejected = inventoryRepository.reserveQuantities(quantitiesByMedicine, order.getOrderNumber());
+        if (!rejected.isEmpty()) {
+            return rejected;
+        }
+
+        LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(ttlMinutes);
+        order.setReservedUntil(reservedUntil);
+        afterCommit(() -> track(order.getId(), reservedUntil));
+        return rejected;
+    }
+
+    /**
+     * Turns the order's hold into a deduction.
+     *
+     * @return false if the order holds nothing (never reserved, or already expired), in which case
+     * the caller has to deduct available stock itself
+     */
+    public boolean consume(Orders order) {
+        return settle(order, quantities -> inventoryRepository.consumeReservations(quantities, order.getOrderNumber()));
+    }
+
+    /**
+     * Gives the order's held stock back to available.
+     *
+     * @return false if the order held nothing
+     */
+    public boolean release(Orders order) {
+        return settle(order, quantities -> inventoryRepository.releaseReservations(quantities, order.getOrderNumber()));
+    }
+
+    @Scheduled(fixedDelayString = "${pharmaease.reservations.tick-ms:5000}")
+    public void sweepExpired() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        int released = 0;
+        for (Long orderId : due) {
+            try {
+                Boolean expired = transactionTemplate.execute(status -> expire(orderId));
+                if (Boolean.TRUE.equals(expired)) {
+                    released++;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("❌ Could not release reservation of order " + orderId + ": " + e.getMessage());
+                wheel.schedule(orderId, System.currentTimeMillis() + tickMillis);
+            }
+        }
+        if (released > 0) {
+            System.out.println("⏰ Released " + released + " expired reservation(s), " + wheel.size() + " still open");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOpenReservations() {
+        // Holds that expired while the app was down are due straight away
+        List<Object[]> open = orderRepository.findOpenReservations();
+        for (Object[] row : open) {
+            track((Long) row[0], (LocalDateTime) row[1]);
+        }
+        System.out.println("✅ Tracking " + open.size() + " open stock reservation(s)");
+    }
+
+    public List<ReservedStock> getReservedStock() {
+        return inventoryRepository.findReservedItems().stream()
+                .map(this::toReservedStock)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Holds this node is waiting on: reserved, and not yet completed, cancelled or expired.
+     */
+    public int getOpenReservationCount() {
+        return wheel.size();
+    }
+
+    private boolean expire(Long orderId) {
+        if (orderRepository.claimExpiredReservation(orderId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        String reference = orderRepository.findOrderNumberById(orderId).orElse(null);
+        Set<Long> medicineIds = apply(orderId, quantities -> inventoryRepository.releaseReservations(quantities, reference));
+        eventPublisher.publishEvent(DashboardEvent.stockChanged(medicineIds));
+        return true;
+    }
+
+    private boolean settle(Orders order, Function<Map<Long, Integer>, Set<Long>> change) {
+        if (order.getId() == null || order.getReservedUntil() == null) {
+            return false;
+        }
+        // Claim first: if the sweeper (or another node) got there before us there is nothing left to settle
+        Long orderId = order.getId();
+        boolean claimed = orderRepository.claimReservation(orderId) > 0;
+        order.setReservedUntil(null);
+        if (claimed) {
+            apply(orderId, change);
+        }
+        // Either way the hold no longer needs to expire, nor to be counted as open
+        afterCommit(() -> wheel.cancel(orderId));
+        return claimed;
+    }
+
+    // Returns the medicines whose stock was changed
+    private Set<Long> apply(Long orderId, Function<Map<Long, Integer>, Set<Long>> change) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantitiesByMedicine(orderId)) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        Set<Long> rejected = change.apply(quantities);
+        if (!rejected.isEmpty()) {
+            throw new RuntimeException("Reserved stock of order " + orderId + " is out of step for medicines " + rejected);
+        }
+        return quantities.keySet();
+    }
+
+    private void track(Long orderId, LocalDateTime reservedUntil) {
+        wheel.schedule(orderId, Timestamp.valueOf(reservedUntil).getTime());
+    }
+
+    // The wheel only follows committed holds, so a rolled back reservation or settlement leaves it as it was
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private ReservedStock toReservedStock(Inventory inventory) {
+        return new ReservedStock(inventory.getMedicine().getId(), inventory.getMedicine().getName(),
+                inventory.getReservedQuantity(), inventory.getAvailableQuantity());
+    }
+
+    public record ReservedStock(Long medicineId, String medicineName, int reservedQuantity, int availableQuantity) {
+    }
+}
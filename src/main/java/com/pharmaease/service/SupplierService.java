@@ -14,13 +14,15 @@ import java.util.List;
 public class SupplierService {
 
     private final SupplierRepository supplierRepository;
+    private final ReferenceDataCache referenceCache;
 
     public Supplier createSupplier(Supplier supplier) {
         return supplierRepository.save(supplier);
     }
 
     public Supplier updateSupplier(Long id, Supplier supplier) {
-        Supplier existing = getSupplierById(id);
+        Supplier existing = supplierRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Supplier not found"));
         existing.setName(supplier.getName());
         existing.setEmail(supplier.getEmail());
         existing.setPhone(supplier.getPhone());
@@ -28,16 +30,25 @@ public class SupplierService {
         existing.setCity(supplier.getCity());
         existing.setCountry(supplier.getCountry());
         existing.setActive(supplier.getActive());
-        return supplierRepository.save(existing);
+        Supplier saved = supplierRepository.save(existing);
+        invalidate(id);
+        return saved;
     }
 
     public void deleteSupplier(Long id) {
         supplierRepository.deleteById(id);
+        invalidate(id);
     }
 
+    /**
+     * Served from the reference cache; the result is shared, so do not change it.
+     */
     public Supplier getSupplierById(Long id) {
-        return supplierRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Supplier not found"));
+        Supplier supplier = referenceCache.suppliers().get(id, key -> supplierRepository.findById(key).orElse(null));
+        if (supplier == null) {
+            throw new RuntimeException("Supplier not found");
+        }
+        return supplier;
     }
 
     public List<Supplier> getAllSuppliers() {
@@ -51,4 +62,11 @@ public class SupplierService {
     public List<Supplier> searchSuppliers(String name) {
         return supplierRepository.findByNameContainingIgnoreCase(name);
     }
-}
\ No newline at end of file
+
+    private void invalidate(Long supplierId) {
+        referenceCache.suppliers().invalidateAfterCommit(supplierId);
+        // Cached medicines carry their supplier along
+        referenceCache.medicines().invalidateAfterCommit(
+                medicine -> medicine.getSupplier() != null && supplierId.equals(medicine.getSupplier().getId()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.pharmaease.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel: deadlines are dropped into one of a fixed number of slots by their tick, and
+ * each advance only visits the slots of the ticks that passed. Scheduling is O(1) and an advance
+ * costs the entries in the visited slots, not the total number of pending deadlines. Entries more
+ * than one revolution ahead simply stay in their slot until their tick comes round.
+ * <p>
+ * Each value is on the wheel at most once: scheduling it again moves it, and a cancelled value is
+ * taken off at once, so {@link #size()} is the number of deadlines still pending.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    private final Map<T, Long> tickByValue = new HashMap<>();
+    private long currentTick;
+
+    TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    synchronized void schedule(T value, long deadlineMillis) {
+        // Round up so nothing fires early; anything already due fires on the next advance
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        cancel(value);
+        slots.get(slot(tick)).add(new Entry<>(value, tick));
+        tickByValue.put(value, tick);
+    }
+
+    /**
+     * Takes the value off the wheel; it will not be returned by an advance.
+     *
+     * @return false if it was not on the wheel
+     */
+    synchronized boolean cancel(T value) {
+        Long tick = tickByValue.remove(value);
+        if (tick == null) {
+            return false;
+        }
+        // Only the entries of one slot are visited
+        slots.get(slot(tick)).removeIf(entry -> entry.value.equals(value));
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns everything whose deadline has passed.
+     */
+    synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        if (targetTick <= currentTick) {
+            return expired;
+        }
+
+        // After a long pause one full revolution is enough to see every slot
+        long first = Math.max(currentTick + 1, targetTick - slots.size() + 1);
+        for (long tick = first; tick <= targetTick; tick++) {
+            Iterator<Entry<T>> it = slots.get(slot(tick)).iterator();
+            while (it.hasNext()) {
+                Entry<T> entry = it.next();
+                if (entry.tick <= targetTick) {
+                    expired.add(entry.value);
+                    it.remove();
+                    tickByValue.remove(entry.value);
+                }
+            }
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+
+    synchronized int size() {
+        return tickByValue.size();
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private record Entry<T>(T value, long tick) {
+    }
+}
@@ -0,0 +1,85 @@
+-- What the partitioned orders table of V4 can no longer enforce on its own, enforced with triggers.
+--
+-- Order numbers: V4 could only make order_number unique together with created_at. Every order number
+-- is now claimed in order_numbers, whose primary key is global, as the order is inserted. Numbers of
+-- archived orders stay claimed, so none is ever handed out twice.
+--
+-- References to orders: orders(id) alone is no longer unique, so V4 dropped the foreign keys from
+-- invoices and idempotency_keys. Constraint triggers checked at commit take their place: a new or
+-- changed invoice or key must point at an order, and an order may only be deleted together with its
+-- invoice and keys (as OrderArchiver does). Both checks are index lookups: orders by the leading id of
+-- its primary key, invoices and keys by their unique order_id.
+
+-- order_numbers
+
+CREATE TABLE order_numbers (
+    order_number VARCHAR(50) NOT NULL,
+    CONSTRAINT pk_order_numbers PRIMARY KEY (order_number)
+);
+
+-- UNION ALL: a number already used twice fails here rather than being merged away
+INSERT INTO order_numbers (order_number)
+SELECT order_number FROM orders
+UNION ALL
+SELECT order_number FROM orders_archive;
+
+CREATE OR REPLACE FUNCTION pharmaease_claim_order_number()
+    RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF NEW.order_number = OLD.order_number THEN
+            RETURN NEW;
+        END IF;
+        DELETE FROM order_numbers WHERE order_number = OLD.order_number;
+    END IF;
+    INSERT INTO order_numbers (order_number) VALUES (NEW.order_number);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_orders_claim_number
+    BEFORE INSERT OR UPDATE OF order_number ON orders
+    FOR EACH ROW EXECUTE FUNCTION pharmaease_claim_order_number();
+
+-- invoices and idempotency_keys -> orders
+
+CREATE OR REPLACE FUNCTION pharmaease_check_order_exists()
+    RETURNS TRIGGER AS
+$$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM orders WHERE id = NEW.order_id) THEN
+        RAISE EXCEPTION '% references missing order %', TG_TABLE_NAME, NEW.order_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION pharmaease_check_order_unreferenced()
+    RETURNS TRIGGER AS
+$$
+BEGIN
+    IF EXISTS (SELECT 1 FROM invoices WHERE order_id = OLD.id)
+            OR EXISTS (SELECT 1 FROM idempotency_keys WHERE order_id = OLD.id) THEN
+        RAISE EXCEPTION 'order % is still referenced by an invoice or idempotency key', OLD.id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER trg_invoices_order_exists
+    AFTER INSERT OR UPDATE OF order_id ON invoices
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION pharmaease_check_order_exists();
+
+CREATE CONSTRAINT TRIGGER trg_idempotency_keys_order_exists
+    AFTER INSERT OR UPDATE OF order_id ON idempotency_keys
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION pharmaease_check_order_exists();
+
+CREATE CONSTRAINT TRIGGER trg_orders_unreferenced
+    AFTER DELETE ON orders
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION pharmaease_check_order_unreferenced();
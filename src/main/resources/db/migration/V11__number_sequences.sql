@@ -0,0 +1,6 @@
+-- Hi values of the order and invoice number blocks handed out by NumberAllocator. Until now the
+-- application created them itself at startup, which needed CREATE rights for its database user.
+-- IF NOT EXISTS keeps the values of databases where it already did.
+
+CREATE SEQUENCE IF NOT EXISTS order_number_hi_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS invoice_number_hi_seq START WITH 1 INCREMENT BY 1;
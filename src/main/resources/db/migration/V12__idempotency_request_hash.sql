@@ -0,0 +1,5 @@
+-- The hash of the request each idempotency key was first used with, so a replay with a different cart
+-- is refused instead of answered with the first order (IdempotencyService). Keys stored before this
+-- have none and replay as before until they expire.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
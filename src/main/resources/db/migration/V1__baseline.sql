@@ -0,0 +1,141 @@
+-- The schema as ddl-auto=update created it for the original entities, before any of the later changes.
+-- Databases created that way already have exactly this and are recorded at this version without
+-- running it (see SchemaMigrator), so everything added since goes into the later versions.
+
+CREATE TABLE suppliers (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100),
+    phone VARCHAR(20),
+    address TEXT,
+    city VARCHAR(50),
+    country VARCHAR(50),
+    active BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE customers (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100),
+    phone VARCHAR(20),
+    address TEXT,
+    id_number VARCHAR(20),
+    active BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE pharmacists (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(20),
+    license_number VARCHAR(50) UNIQUE,
+    role VARCHAR(50),
+    active BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE medicines (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(150) NOT NULL,
+    generic_name VARCHAR(100),
+    manufacturer VARCHAR(100),
+    category VARCHAR(50),
+    dosage_form VARCHAR(50),
+    strength VARCHAR(50),
+    description TEXT,
+    unit_price NUMERIC(10, 2) NOT NULL,
+    selling_price NUMERIC(10, 2),
+    reorder_level INTEGER NOT NULL,
+    requires_prescription BOOLEAN NOT NULL,
+    active BOOLEAN NOT NULL,
+    supplier_id BIGINT,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT fk_medicines_supplier FOREIGN KEY (supplier_id) REFERENCES suppliers
+);
+
+CREATE TABLE inventory (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    medicine_id BIGINT NOT NULL UNIQUE,
+    total_quantity INTEGER NOT NULL,
+    available_quantity INTEGER NOT NULL,
+    reserved_quantity INTEGER NOT NULL,
+    low_stock BOOLEAN NOT NULL,
+    last_updated TIMESTAMP(6),
+    CONSTRAINT fk_inventory_medicine FOREIGN KEY (medicine_id) REFERENCES medicines
+);
+
+CREATE TABLE stock_batches (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    batch_number VARCHAR(50) NOT NULL UNIQUE,
+    medicine_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    remaining_quantity INTEGER NOT NULL,
+    cost_price NUMERIC(10, 2) NOT NULL,
+    manufacturing_date DATE NOT NULL,
+    expiry_date DATE NOT NULL,
+    active BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_stock_batches_medicine FOREIGN KEY (medicine_id) REFERENCES medicines
+);
+
+CREATE TABLE orders (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_number VARCHAR(50) NOT NULL UNIQUE,
+    customer_id BIGINT,
+    pharmacist_id BIGINT NOT NULL,
+    subtotal NUMERIC(10, 2) NOT NULL,
+    tax NUMERIC(10, 2),
+    discount NUMERIC(10, 2),
+    total_amount NUMERIC(10, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'COMPLETED', 'CANCELLED')),
+    payment_method VARCHAR(20) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'MOBILE_MONEY', 'INSURANCE')),
+    paid BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_orders_customer FOREIGN KEY (customer_id) REFERENCES customers,
+    CONSTRAINT fk_orders_pharmacist FOREIGN KEY (pharmacist_id) REFERENCES pharmacists
+);
+
+CREATE TABLE order_items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    medicine_id BIGINT NOT NULL,
+    batch_id BIGINT,
+    quantity INTEGER NOT NULL,
+    unit_price NUMERIC(10, 2) NOT NULL,
+    total_price NUMERIC(10, 2) NOT NULL,
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders,
+    CONSTRAINT fk_order_items_medicine FOREIGN KEY (medicine_id) REFERENCES medicines,
+    CONSTRAINT fk_order_items_batch FOREIGN KEY (batch_id) REFERENCES stock_batches
+);
+
+CREATE TABLE invoices (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    invoice_number VARCHAR(50) NOT NULL UNIQUE,
+    order_id BIGINT NOT NULL UNIQUE,
+    amount_paid NUMERIC(10, 2) NOT NULL,
+    change_given NUMERIC(10, 2) NOT NULL,
+    generated_at TIMESTAMP(6),
+    CONSTRAINT fk_invoices_order FOREIGN KEY (order_id) REFERENCES orders
+);
+
+CREATE TABLE reports (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    report_type VARCHAR(50) NOT NULL CHECK (report_type IN ('DAILY_SALES', 'WEEKLY_SALES', 'MONTHLY_SALES', 'INVENTORY',
+        'LOW_STOCK', 'EXPIRING_STOCK', 'CUSTOMER_SALES', 'SUPPLIER_PURCHASES')),
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    total_sales NUMERIC(10, 2),
+    total_profit NUMERIC(10, 2),
+    total_orders INTEGER,
+    summary TEXT,
+    generated_by BIGINT,
+    generated_at TIMESTAMP(6),
+    CONSTRAINT fk_reports_generated_by FOREIGN KEY (generated_by) REFERENCES pharmacists
+);
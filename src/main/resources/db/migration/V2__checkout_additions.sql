@@ -0,0 +1,40 @@
+-- What checkout gained while the schema was still kept by ddl-auto=update: pooled id sequences,
+-- the reservation deadline of pending orders, idempotency keys and the daily sales rollup.
+-- IF NOT EXISTS throughout, for databases where ddl-auto=update already added some of it.
+
+-- Orders, order items and invoices take their ids from pooled sequences (50 per round trip) instead
+-- of IDENTITY columns; each sequence starts past the ids already used
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE order_items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE invoices ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS invoices_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('orders_seq', GREATEST((SELECT last_value FROM orders_seq), (SELECT COALESCE(MAX(id), 0) FROM orders) + 50));
+SELECT setval('order_items_seq', GREATEST((SELECT last_value FROM order_items_seq), (SELECT COALESCE(MAX(id), 0) FROM order_items) + 50));
+SELECT setval('invoices_seq', GREATEST((SELECT last_value FROM invoices_seq), (SELECT COALESCE(MAX(id), 0) FROM invoices) + 50));
+
+-- Stock held for a pending order until then (StockReservationService)
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS reserved_until TIMESTAMP(6);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(100) NOT NULL PRIMARY KEY,
+    order_id BIGINT NOT NULL UNIQUE,
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_idempotency_keys_order FOREIGN KEY (order_id) REFERENCES orders
+);
+
+-- Filled from the orders by SalesRollupService on the first start that finds it empty
+CREATE TABLE IF NOT EXISTS sales_daily_rollup (
+    sales_date DATE NOT NULL,
+    payment_method VARCHAR(20) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'MOBILE_MONEY', 'INSURANCE')),
+    completed_orders BIGINT NOT NULL,
+    cancelled_orders BIGINT NOT NULL,
+    subtotal NUMERIC(14, 2) NOT NULL,
+    tax NUMERIC(14, 2) NOT NULL,
+    discount NUMERIC(14, 2) NOT NULL,
+    gross_amount NUMERIC(14, 2) NOT NULL,
+    PRIMARY KEY (sales_date, payment_method)
+);
@@ -0,0 +1,25 @@
+-- One index per access path of the repository queries. IF NOT EXISTS because databases baselined from
+-- ddl-auto=update already have the ones declared on the entities before this version.
+-- Orders and order items get theirs with the partitioned tables in V4.
+
+CREATE INDEX IF NOT EXISTS idx_medicines_created ON medicines (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_medicines_active_created ON medicines (active, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_low_stock ON inventory (low_stock, id);
+
+-- Keyset pages, the FEFO pick per medicine, and the expiry windows
+CREATE INDEX IF NOT EXISTS idx_stock_batches_created ON stock_batches (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_stock_batches_medicine_created ON stock_batches (medicine_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_stock_batches_medicine_expiry ON stock_batches (medicine_id, expiry_date);
+CREATE INDEX IF NOT EXISTS idx_stock_batches_expiry ON stock_batches (expiry_date);
+
+CREATE INDEX IF NOT EXISTS idx_invoices_generated ON invoices (generated_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_customers_name ON customers (name);
+CREATE INDEX IF NOT EXISTS idx_customers_phone ON customers (phone);
+
+CREATE INDEX IF NOT EXISTS idx_reports_generated ON reports (generated_at, id);
+CREATE INDEX IF NOT EXISTS idx_reports_type_generated ON reports (report_type, generated_at, id);
+
+-- The purge of expired keys
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
@@ -0,0 +1,90 @@
+-- Orders and their items partitioned by month of created_at, so date-range reads (order pages,
+-- reports, rollup rebuilds) only touch the months they ask for and old months can be detached or
+-- archived whole.
+--
+-- PostgreSQL requires the partition key in every unique constraint of a partitioned table:
+--   * the primary keys become (id, created_at); ids still come from their sequences,
+--   * order_number is only unique together with created_at; every number comes from NumberAllocator,
+--     which never repeats one (OrderService ignores numbers sent by clients),
+--   * nothing can reference orders by id alone, so the foreign keys from order_items, invoices and
+--     idempotency_keys are dropped; OrderService writes all of them with their order.
+
+-- Creates the missing monthly partitions of a table from first_month through last_month.
+-- Called again every day by OrderPartitionMaintainer to stay ahead of the clock.
+CREATE OR REPLACE FUNCTION pharmaease_ensure_month_partitions(parent TEXT, first_month DATE, last_month DATE)
+    RETURNS INTEGER AS
+$$
+DECLARE
+    month_start DATE := date_trunc('month', first_month)::date;
+    part_name   TEXT;
+    created     INTEGER := 0;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        part_name := parent || '_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(part_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           part_name, parent, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- orders
+
+UPDATE orders SET created_at = now() WHERE created_at IS NULL;
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+
+CREATE TABLE orders (LIKE orders_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE orders ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE orders ADD CONSTRAINT pk_orders PRIMARY KEY (id, created_at);
+ALTER TABLE orders ADD CONSTRAINT uk_orders_order_number UNIQUE (order_number, created_at);
+ALTER TABLE orders ADD CONSTRAINT fk_orders_customer_id FOREIGN KEY (customer_id) REFERENCES customers;
+ALTER TABLE orders ADD CONSTRAINT fk_orders_pharmacist_id FOREIGN KEY (pharmacist_id) REFERENCES pharmacists;
+
+-- Catches anything outside the monthly ranges; kept empty by creating months well ahead
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+SELECT pharmaease_ensure_month_partitions('orders',
+        COALESCE((SELECT MIN(created_at) FROM orders_unpartitioned)::date, CURRENT_DATE),
+        (CURRENT_DATE + INTERVAL '3 months')::date);
+
+INSERT INTO orders SELECT * FROM orders_unpartitioned;
+
+-- order_items, with the creation time of their order as partition key
+
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+UPDATE order_items i SET created_at = o.created_at
+FROM orders_unpartitioned o
+WHERE o.id = i.order_id AND i.created_at IS NULL;
+ALTER TABLE order_items RENAME TO order_items_unpartitioned;
+
+CREATE TABLE order_items (LIKE order_items_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE order_items ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE order_items ADD CONSTRAINT pk_order_items PRIMARY KEY (id, created_at);
+ALTER TABLE order_items ADD CONSTRAINT fk_order_items_medicine_id FOREIGN KEY (medicine_id) REFERENCES medicines;
+ALTER TABLE order_items ADD CONSTRAINT fk_order_items_batch_id FOREIGN KEY (batch_id) REFERENCES stock_batches;
+
+CREATE TABLE order_items_default PARTITION OF order_items DEFAULT;
+SELECT pharmaease_ensure_month_partitions('order_items',
+        COALESCE((SELECT MIN(created_at) FROM order_items_unpartitioned)::date, CURRENT_DATE),
+        (CURRENT_DATE + INTERVAL '3 months')::date);
+
+INSERT INTO order_items SELECT * FROM order_items_unpartitioned;
+
+-- CASCADE takes the foreign keys that pointed at the old orders table with it
+DROP TABLE order_items_unpartitioned;
+DROP TABLE orders_unpartitioned CASCADE;
+
+-- Declared on the parents, so every partition (including future ones) gets them
+
+CREATE INDEX idx_orders_created ON orders (created_at, id);
+CREATE INDEX idx_orders_status_created ON orders (status, created_at, id);
+CREATE INDEX idx_orders_customer_created ON orders (customer_id, created_at, id);
+CREATE INDEX idx_orders_pharmacist ON orders (pharmacist_id);
+
+CREATE INDEX idx_order_items_order ON order_items (order_id);
+CREATE INDEX idx_order_items_medicine ON order_items (medicine_id);
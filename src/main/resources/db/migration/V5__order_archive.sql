@@ -0,0 +1,55 @@
+-- Settled orders past the archive horizon, moved here with their items and invoice by OrderArchiver.
+-- Same columns and ids as the hot tables. Plain tables: the archive is append-only and mostly read by
+-- id, so it needs no partitions and only the two indexes at the end.
+
+CREATE TABLE orders_archive (
+    id BIGINT NOT NULL,
+    order_number VARCHAR(50) NOT NULL,
+    customer_id BIGINT,
+    pharmacist_id BIGINT NOT NULL,
+    subtotal NUMERIC(10, 2) NOT NULL,
+    tax NUMERIC(10, 2),
+    discount NUMERIC(10, 2),
+    total_amount NUMERIC(10, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'COMPLETED', 'CANCELLED')),
+    payment_method VARCHAR(20) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'MOBILE_MONEY', 'INSURANCE')),
+    paid BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_orders_archive PRIMARY KEY (id),
+    CONSTRAINT uk_orders_archive_order_number UNIQUE (order_number),
+    CONSTRAINT fk_orders_archive_customer FOREIGN KEY (customer_id) REFERENCES customers,
+    CONSTRAINT fk_orders_archive_pharmacist FOREIGN KEY (pharmacist_id) REFERENCES pharmacists
+);
+
+CREATE TABLE order_items_archive (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    medicine_id BIGINT NOT NULL,
+    batch_id BIGINT,
+    quantity INTEGER NOT NULL,
+    unit_price NUMERIC(10, 2) NOT NULL,
+    total_price NUMERIC(10, 2) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_order_items_archive PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_archive_order FOREIGN KEY (order_id) REFERENCES orders_archive,
+    CONSTRAINT fk_order_items_archive_medicine FOREIGN KEY (medicine_id) REFERENCES medicines,
+    CONSTRAINT fk_order_items_archive_batch FOREIGN KEY (batch_id) REFERENCES stock_batches
+);
+
+CREATE TABLE invoices_archive (
+    id BIGINT NOT NULL,
+    invoice_number VARCHAR(50) NOT NULL,
+    order_id BIGINT NOT NULL,
+    amount_paid NUMERIC(10, 2) NOT NULL,
+    change_given NUMERIC(10, 2) NOT NULL,
+    generated_at TIMESTAMP(6),
+    CONSTRAINT pk_invoices_archive PRIMARY KEY (id),
+    CONSTRAINT uk_invoices_archive_invoice_number UNIQUE (invoice_number),
+    CONSTRAINT uk_invoices_archive_order UNIQUE (order_id),
+    CONSTRAINT fk_invoices_archive_order FOREIGN KEY (order_id) REFERENCES orders_archive
+);
+
+-- Date ranges over the archive, and the lines of one archived order
+CREATE INDEX idx_orders_archive_created ON orders_archive (created_at, id);
+CREATE INDEX idx_order_items_archive_order ON order_items_archive (order_id);
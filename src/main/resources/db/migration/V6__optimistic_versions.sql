@@ -0,0 +1,5 @@
+-- Optimistic lock columns of Inventory and StockBatch. Every writer bumps them: Hibernate on entity
+-- updates, and the guarded JDBC updates of sales, reservations and write-offs.
+
+ALTER TABLE inventory ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE stock_batches ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
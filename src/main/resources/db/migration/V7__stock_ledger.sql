@@ -0,0 +1,34 @@
+-- Append-only ledger of stock changes, with Inventory as its running sum, and periodic per-medicine
+-- snapshots of that sum (see StockLedgerService).
+
+CREATE TABLE stock_movements (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    medicine_id BIGINT NOT NULL,
+    movement_type VARCHAR(20) NOT NULL
+        CHECK (movement_type IN ('OPENING', 'RECEIPT', 'SALE', 'RESERVE', 'CANCEL', 'ADJUSTMENT', 'EXPIRY')),
+    total_change INTEGER NOT NULL,
+    available_change INTEGER NOT NULL,
+    reserved_change INTEGER NOT NULL,
+    reference VARCHAR(100),
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_stock_movements_medicine FOREIGN KEY (medicine_id) REFERENCES medicines
+);
+
+CREATE TABLE stock_snapshots (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    medicine_id BIGINT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    total_quantity INTEGER NOT NULL,
+    available_quantity INTEGER NOT NULL,
+    reserved_quantity INTEGER NOT NULL,
+    as_of TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_stock_snapshots_medicine FOREIGN KEY (medicine_id) REFERENCES medicines
+);
+
+CREATE INDEX idx_stock_movements_medicine ON stock_movements (medicine_id, id);
+CREATE INDEX idx_stock_snapshots_medicine ON stock_snapshots (medicine_id, last_movement_id);
+
+-- The stock on hand today opens the ledger
+INSERT INTO stock_movements (medicine_id, movement_type, total_change, available_change, reserved_change, reference, created_at)
+SELECT medicine_id, 'OPENING', total_quantity, available_quantity, reserved_quantity, 'opening balance', CURRENT_TIMESTAMP
+FROM inventory;
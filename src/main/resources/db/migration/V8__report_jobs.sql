@@ -0,0 +1,16 @@
+-- Reports become background jobs (see ReportJobService). Existing reports were generated in the
+-- request that asked for them, so they are complete.
+
+ALTER TABLE reports ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED'
+    CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED'));
+ALTER TABLE reports ADD COLUMN progress INTEGER DEFAULT 100;
+ALTER TABLE reports ADD COLUMN request_key VARCHAR(100);
+ALTER TABLE reports ADD COLUMN error VARCHAR(500);
+ALTER TABLE reports ADD COLUMN started_at TIMESTAMP(6);
+ALTER TABLE reports ADD COLUMN updated_at TIMESTAMP(6);
+ALTER TABLE reports ADD COLUMN completed_at TIMESTAMP(6);
+
+CREATE INDEX idx_reports_status_updated ON reports (status, updated_at);
+
+-- At most one active job per request, across nodes
+CREATE UNIQUE INDEX uq_reports_active_request ON reports (request_key) WHERE status IN ('QUEUED', 'RUNNING');
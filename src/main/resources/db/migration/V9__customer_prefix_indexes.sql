@@ -0,0 +1,6 @@
+-- The customer picker matches LOWER(name) and phone by prefix (CustomerRepository.findActiveByPrefix).
+-- The plain btree indexes of V3 cannot serve LIKE outside the C collation, so each column gets one
+-- built for pattern matching; the OR of the two becomes a BitmapOr of these.
+
+CREATE INDEX IF NOT EXISTS idx_customers_name_prefix ON customers (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_customers_phone_prefix ON customers (phone text_pattern_ops);
@@ -0,0 +1,263 @@
+package com.pharmaease;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Pharmacist;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.service.StockBatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load benchmark of the two request execution modes: the default Tomcat worker pool against virtual
+ * threads ({@code spring.threads.virtual.enabled}). Each mode boots the whole application, seeds a
+ * catalogue and runs the same traffic against it: a fixed number of clients, each sending one request
+ * after another, one in five a checkout of one to three lines and the rest dashboard reads. Every
+ * client draws from its own seeded random, so two runs send the same requests. Prints throughput and
+ * latency percentiles per mode and request type.
+ * <p>
+ * Not part of the test suite (the name does not end in Test). Run it with
+ * {@code mvn test -Dtest=CheckoutLoadBenchmark}. By default it runs on in-memory H2; pass
+ * {@code -Dpharmaease.benchmark.url=jdbc:postgresql://...} (with {@code .username} and {@code .password})
+ * to run against a migrated PostgreSQL database, whose pool size then matters as it does in production.
+ * {@code -Dpharmaease.benchmark.clients}, {@code .warmup-seconds} and {@code .seconds} size the run.
+ */
+class CheckoutLoadBenchmark {
+
+    private static final int MEDICINES = 50;
+    private static final int CHECKOUT_EVERY = 5;
+
+    private final int clients = Integer.getInteger("pharmaease.benchmark.clients", 400);
+    private final int warmupSeconds = Integer.getInteger("pharmaease.benchmark.warmup-seconds", 5);
+    private final int seconds = Integer.getInteger("pharmaease.benchmark.seconds", 20);
+
+    @Test
+    void compareExecutionModes() throws Exception {
+        List<String> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            Run run = run(virtualThreads);
+            results.add(run.row("checkout", run.checkouts));
+            results.add(run.row("dashboard", run.dashboards));
+            assertThat(run.checkouts.count()).isPositive();
+        }
+
+        System.out.println();
+        System.out.println("📊 " + clients + " clients, " + seconds + " s measured after " + warmupSeconds + " s warm-up");
+        System.out.printf("%-9s %-10s %10s %9s %9s %9s %9s %7s%n", "mode", "request", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private Run run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PharmaEaseApplication.class)
+                .run(arguments(mode, virtualThreads))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Catalogue catalogue = seed(context);
+
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            PrintStream console = System.out;
+            // The order service logs every sale; keep that out of the report
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                load(http, port, catalogue, warmupSeconds, null);
+                Run run = new Run(mode);
+                load(http, port, catalogue, seconds, run);
+                return run;
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    // Passed as command-line arguments so that they win over application.properties
+    private String[] arguments(String mode, boolean virtualThreads) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("spring.jpa.properties.hibernate.use_sql_comments", false);
+        String url = System.getProperty("pharmaease.benchmark.url");
+        if (url != null) {
+            properties.put("spring.datasource.url", url);
+            properties.put("spring.datasource.username", System.getProperty("pharmaease.benchmark.username", "postgres"));
+            properties.put("spring.datasource.password", System.getProperty("pharmaease.benchmark.password", "postgres"));
+            properties.put("spring.jpa.hibernate.ddl-auto", "validate");
+        } else {
+            properties.put("spring.datasource.url", "jdbc:h2:mem:benchmark_" + mode + ";DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        }
+        return properties.entrySet().stream().map(p -> "--" + p.getKey() + "=" + p.getValue()).toArray(String[]::new);
+    }
+
+    private Catalogue seed(ConfigurableApplicationContext context) {
+        Pharmacist p = new Pharmacist();
+        p.setName("Benchmark");
+        p.setEmail("benchmark-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("x");
+        Pharmacist pharmacist = context.getBean(PharmacistRepository.class).save(p);
+
+        List<Long> medicineIds = new ArrayList<>();
+        for (int i = 0; i < MEDICINES; i++) {
+            Medicine m = new Medicine();
+            m.setName("Benchmark medicine " + i + " " + System.nanoTime());
+            m.setUnitPrice(BigDecimal.TEN);
+            Medicine medicine = context.getBean(MedicineRepository.class).save(m);
+
+            Inventory inventory = new Inventory();
+            inventory.setMedicine(medicine);
+            context.getBean(InventoryRepository.class).save(inventory);
+
+            StockBatch batch = new StockBatch();
+            batch.setMedicine(medicine);
+            batch.setBatchNumber("BENCH-" + System.nanoTime());
+            batch.setQuantity(1_000_000);
+            batch.setCostPrice(BigDecimal.ONE);
+            batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+            batch.setExpiryDate(LocalDate.now().plusYears(2));
+            context.getBean(StockBatchService.class).createBatch(batch);
+            medicineIds.add(medicine.getId());
+        }
+        return new Catalogue(pharmacist.getId(), medicineIds);
+    }
+
+    private void load(HttpClient http, int port, Catalogue catalogue, int durationSeconds, Run run) throws Exception {
+        long until = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                Random random = new Random(client);
+                running.add(clientThreads.submit(() -> {
+                    for (int n = 0; System.nanoTime() < until; n++) {
+                        boolean checkout = n % CHECKOUT_EVERY == client % CHECKOUT_EVERY;
+                        HttpRequest request = checkout ? checkout(port, catalogue, random) : dashboard(port);
+                        long started = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (run != null) {
+                            (checkout ? run.checkouts : run.dashboards).record(System.nanoTime() - started, ok);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        }
+    }
+
+    private HttpRequest checkout(int port, Catalogue catalogue, Random random) {
+        StringBuilder items = new StringBuilder();
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            long medicineId = catalogue.medicineIds().get(random.nextInt(catalogue.medicineIds().size()));
+            items.append(i > 0 ? "," : "")
+                    .append("{\"medicine\":{\"id\":").append(medicineId).append("},\"quantity\":1,\"unitPrice\":10}");
+        }
+        String body = "{\"pharmacist\":{\"id\":" + catalogue.pharmacistId() + "},\"status\":\"COMPLETED\",\"orderItems\":[" + items + "]}";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest dashboard(int port) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/dashboard/statistics")).GET().build();
+    }
+
+    private record Catalogue(Long pharmacistId, List<Long> medicineIds) {
+    }
+
+    private final class Run {
+
+        private final String mode;
+        private final Latencies checkouts = new Latencies();
+        private final Latencies dashboards = new Latencies();
+
+        private Run(String mode) {
+            this.mode = mode;
+        }
+
+        private String row(String request, Latencies latencies) {
+            long[] sorted = latencies.sorted();
+            return String.format("%-9s %-10s %10d %9.1f %9.1f %9.1f %9.1f %7d", mode, request, sorted.length,
+                    (double) sorted.length / seconds, millis(sorted, 0.50), millis(sorted, 0.99),
+                    millis(sorted, 1.0), latencies.errors);
+        }
+
+        private double millis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+
+    private static final class Latencies {
+
+        private long[] nanos = new long[1 << 16];
+        private int count;
+        private long errors;
+
+        synchronized void record(long elapsed, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsed;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
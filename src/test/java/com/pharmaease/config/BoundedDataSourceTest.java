@@ -0,0 +1,54 @@
+package com.pharmaease.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Callers beyond the pool size queue for a free connection instead of reaching the pool, and give up
+ * after the timeout.
+ */
+class BoundedDataSourceTest {
+
+    @Test
+    void queuesCallersBeyondThePoolSize() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:bounded;DB_CLOSE_DELAY=-1");
+        BoundedDataSource bounded = new BoundedDataSource(h2, 2, 200);
+
+        Connection first = bounded.getConnection();
+        Connection second = bounded.getConnection();
+        assertThatThrownBy(bounded::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        try (var virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+                try (Connection third = bounded.getConnection()) {
+                    return third.isValid(1);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, virtualThreads);
+            Thread.sleep(50);
+            assertThat(waiting).isNotDone();
+            assertThat(bounded.getWaitingCount()).isEqualTo(1);
+
+            // Closing twice hands back one permit, not two
+            first.close();
+            first.close();
+            assertThat(waiting.get(1, TimeUnit.SECONDS)).isTrue();
+        }
+
+        Connection third = bounded.getConnection();
+        assertThatThrownBy(bounded::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        second.close();
+        third.close();
+    }
+}
@@ -0,0 +1,210 @@
+package com.pharmaease.config;
+
+import com.pharmaease.model.Customer;
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Pharmacist;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.CustomerRepository;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.service.StockBatchService;
+import com.jayway.jsonpath.JsonPath;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A sale through the billing form, with open-in-view on as in production: the reads before the sale
+ * (customer, pharmacist, idempotency key) must not pin their connection for the rest of the request,
+ * so the sale itself is written on the checkout pool of the primary, and nothing on the replica. The
+ * API's answer to a write is read back from the primary too, as the replica may not have it yet.
+ * <p>
+ * Primary and replica are two in-memory H2 databases; the replica starts as a copy of the primary.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout_primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.open-in-view=true",
+        "pharmaease.datasource.replica.url=jdbc:h2:mem:checkout_replica;DB_CLOSE_DELAY=-1",
+        "pharmaease.datasource.replica.lag-query=SELECT 0"
+})
+@AutoConfigureMockMvc
+class CheckoutRoutingTest {
+
+    private static final Map<String, AtomicInteger> CONNECTIONS_TAKEN = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    @Qualifier("primaryPool")
+    private HikariDataSource primaryPool;
+    @Autowired
+    @Qualifier("replicaPool")
+    private HikariDataSource replicaPool;
+
+    @TestConfiguration
+    static class CountConnections {
+
+        @Bean
+        static BeanPostProcessor connectionCounter() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof HikariDataSource pool) {
+                        pool.setMetricsTrackerFactory((poolName, stats) -> new IMetricsTracker() {
+                            @Override
+                            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                                CONNECTIONS_TAKEN.computeIfAbsent(poolName, k -> new AtomicInteger()).incrementAndGet();
+                            }
+                        });
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Test
+    void saleIsWrittenOnTheCheckoutPoolAfterReadsInTheSameRequest() throws Exception {
+        Pharmacist p = new Pharmacist();
+        p.setName("Till");
+        p.setEmail("till@pharmaease.test");
+        p.setPassword("x");
+        pharmacistRepository.save(p);
+
+        Customer c = new Customer();
+        c.setName("Routing Customer");
+        Customer customer = customerRepository.save(c);
+
+        Medicine m = new Medicine();
+        m.setName("Ibuprofen");
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventoryRepository.save(inventory);
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("ROUTE-1");
+        batch.setQuantity(20);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(LocalDate.now().plusYears(1));
+        stockBatchService.createBatch(batch);
+
+        JdbcTemplate primary = new JdbcTemplate(primaryPool);
+        JdbcTemplate replica = copyPrimaryToReplica();
+
+        CONNECTIONS_TAKEN.clear();
+        sell(customer.getId().toString(), "routing-sale-1", medicine.getId());
+        sell("", "routing-sale-2", medicine.getId());
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM orders", Integer.class)).isEqualTo(2);
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class)).isEqualTo(2);
+        assertThat(primary.queryForObject("SELECT available_quantity FROM inventory WHERE medicine_id = ?",
+                Integer.class, medicine.getId())).isEqualTo(14);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM orders", Integer.class)).isZero();
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class)).isZero();
+        assertThat(CONNECTIONS_TAKEN.get("checkout")).isNotNull();
+    }
+
+    @Test
+    void apiResponsesToWritesAreReadFromThePrimary() throws Exception {
+        Pharmacist p = new Pharmacist();
+        p.setName("Api Till");
+        p.setEmail("api-till@pharmaease.test");
+        p.setPassword("x");
+        Pharmacist pharmacist = pharmacistRepository.save(p);
+
+        Medicine m = new Medicine();
+        m.setName("Cetirizine");
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventoryRepository.save(inventory);
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("ROUTE-API-1");
+        batch.setQuantity(20);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(LocalDate.now().plusYears(1));
+        stockBatchService.createBatch(batch);
+
+        // The replica never sees the order: reading it back there would find nothing, or the old status
+        copyPrimaryToReplica();
+
+        String body = "{\"pharmacist\":{\"id\":" + pharmacist.getId() + "},\"status\":\"PENDING\",\"orderItems\":[" +
+                "{\"medicine\":{\"id\":" + medicine.getId() + "},\"quantity\":2,\"unitPrice\":10}]}";
+        String created = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.order.status").value("PENDING"))
+                .andExpect(jsonPath("$.lines.length()").value(1))
+                .andReturn().getResponse().getContentAsString();
+        Number orderId = JsonPath.read(created, "$.order.id");
+
+        mockMvc.perform(post("/api/orders/" + orderId + "/complete").param("amountPaid", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.order.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.order.invoiceNumber").isNotEmpty());
+    }
+
+    // The replica starts as a copy of the primary
+    private JdbcTemplate copyPrimaryToReplica() {
+        JdbcTemplate replica = new JdbcTemplate(replicaPool);
+        replica.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primaryPool).queryForList("SCRIPT", String.class).forEach(replica::execute);
+        return replica;
+    }
+
+    private void sell(String customerId, String idempotencyKey, Long medicineId) throws Exception {
+        mockMvc.perform(post("/billing/create-order")
+                        .with(user("till@pharmaease.test"))
+                        .param("customerId", customerId)
+                        .param("paymentMethod", "CASH")
+                        .param("idempotencyKey", idempotencyKey)
+                        .param("orderItems[0].medicine.id", medicineId.toString())
+                        .param("orderItems[0].quantity", "3")
+                        .param("orderItems[0].unitPrice", "10"))
+                .andExpect(redirectedUrlPattern("/billing/invoice/*"));
+    }
+}
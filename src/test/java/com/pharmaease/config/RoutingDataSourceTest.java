@@ -0,0 +1,129 @@
+package com.pharmaease.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read-only transactions read from the replica until it falls too far behind, checkout transactions
+ * run on their own pool, and everything else on the primary.
+ * <p>
+ * Runs on two in-memory H2 databases. To run it against two local PostgreSQL instances instead, pass
+ * {@code -Dpharmaease.test.primary-url=...} and {@code -Dpharmaease.test.replica-url=...} (plus
+ * {@code -Dpharmaease.test.username} and {@code -Dpharmaease.test.password}).
+ */
+class RoutingDataSourceTest {
+
+    private static HikariDataSource primary;
+    private static HikariDataSource checkout;
+    private static HikariDataSource replica;
+    private static RoutingDataSource routing;
+    private static ReplicaLagMonitor lagMonitor;
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+
+    @BeforeAll
+    static void startPools() {
+        String primaryUrl = System.getProperty("pharmaease.test.primary-url", "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1");
+        String replicaUrl = System.getProperty("pharmaease.test.replica-url", "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1");
+        primary = pool("primary", primaryUrl, 3);
+        checkout = pool("checkout", primaryUrl, 1);
+        replica = pool("replica", replicaUrl, 3);
+
+        for (HikariDataSource database : List.of(primary, replica)) {
+            JdbcTemplate jdbc = new JdbcTemplate(database);
+            jdbc.execute("DROP TABLE IF EXISTS routing_marker");
+            jdbc.execute("CREATE TABLE routing_marker (source VARCHAR(20))");
+            jdbc.update("INSERT INTO routing_marker VALUES (?)", database.getPoolName());
+        }
+        JdbcTemplate onReplica = new JdbcTemplate(replica);
+        onReplica.execute("DROP TABLE IF EXISTS routing_lag");
+        onReplica.execute("CREATE TABLE routing_lag (seconds INTEGER)");
+        onReplica.update("INSERT INTO routing_lag VALUES (0)");
+
+        routing = new RoutingDataSource(primary, checkout, replica,
+                List.of("OrderService.createOrder"), Duration.ofSeconds(5));
+        lagMonitor = new ReplicaLagMonitor(replica, routing, "SELECT seconds FROM routing_lag");
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterAll
+    static void closePools() {
+        primary.close();
+        checkout.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    void replicaCaughtUp() {
+        new JdbcTemplate(replica).update("UPDATE routing_lag SET seconds = 0");
+        lagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromTheReplica() {
+        assertThat(inTransaction(true, null)).isEqualTo("replica");
+        assertThat(inTransaction(false, null)).isEqualTo("primary");
+        // Outside a transaction (schema work, open-in-view lazy loads) it is always the primary
+        assertThat(jdbcTemplate.queryForObject("SELECT source FROM routing_marker", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void checkoutRunsOnItsOwnPool() {
+        TransactionTemplate sale = new TransactionTemplate(transactionManager);
+        sale.setName("com.pharmaease.service.OrderService.createOrder");
+        sale.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE routing_marker SET source = source");
+            assertThat(routing.route()).isEqualTo(RoutingDataSource.Route.CHECKOUT);
+            assertThat(checkout.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+            assertThat(primary.getHikariPoolMXBean().getActiveConnections()).isZero();
+        });
+
+        assertThat(inTransaction(false, "com.pharmaease.service.ReportService.generateSalesReport")).isEqualTo("primary");
+    }
+
+    @Test
+    void staleOrUnreachableReplicaFallsBackToThePrimary() {
+        new JdbcTemplate(replica).update("UPDATE routing_lag SET seconds = 30");
+        lagMonitor.check();
+        assertThat(inTransaction(true, null)).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("UPDATE routing_lag SET seconds = 2");
+        lagMonitor.check();
+        assertThat(inTransaction(true, null)).isEqualTo("replica");
+
+        routing.recordReplicaLag(null);
+        assertThat(inTransaction(true, null)).isEqualTo("primary");
+    }
+
+    private static String inTransaction(boolean readOnly, String name) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.setName(name);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT source FROM routing_marker", String.class));
+    }
+
+    private static HikariDataSource pool(String name, String url, int size) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("pharmaease.test.username", "sa"));
+        config.setPassword(System.getProperty("pharmaease.test.password", ""));
+        config.setMaximumPoolSize(size);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,82 @@
+package com.pharmaease.config;
+
+import com.pharmaease.controller.api.DashboardRestController;
+import com.pharmaease.service.DashboardStreamService;
+import com.pharmaease.service.NotificationCountService;
+import com.pharmaease.service.ReferenceDataCache;
+import com.pharmaease.service.ReportService;
+import com.pharmaease.service.SalesRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admin commands under {@code /api} are for signed-in admins only and exports for signed-in users; the
+ * rest of the API stays open.
+ */
+@WebMvcTest(DashboardRestController.class)
+@Import(SecurityConfig.class)
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private ReportService reportService;
+    @MockitoBean
+    private SalesRollupService salesRollupService;
+    @MockitoBean
+    private DashboardStreamService dashboardStreamService;
+    @MockitoBean
+    private ReferenceDataCache referenceDataCache;
+    // For NotificationControllerAdvice
+    @MockitoBean
+    private NotificationCountService notificationCountService;
+
+    @Test
+    void onlyAdminsCanRebuildTheRollup() throws Exception {
+        mockMvc.perform(post("/api/dashboard/rollup/rebuild"))
+                .andExpect(redirectedUrlPattern("**/login"));
+        mockMvc.perform(post("/api/dashboard/rollup/rebuild").with(user("till@pharmaease.test").roles("PHARMACIST")))
+                .andExpect(status().isForbidden());
+        verify(salesRollupService, never()).rebuild();
+
+        mockMvc.perform(post("/api/dashboard/rollup/rebuild").with(user("admin@pharmaease.test").roles("ADMIN")))
+                .andExpect(status().isOk());
+        verify(salesRollupService).rebuild();
+    }
+
+    @Test
+    void onlyAdminsCanImportTheCatalog() throws Exception {
+        mockMvc.perform(post("/api/import/catalog"))
+                .andExpect(redirectedUrlPattern("**/login"));
+        mockMvc.perform(post("/api/import/catalog").with(user("till@pharmaease.test").roles("PHARMACIST")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void exportsNeedASignedInUser() throws Exception {
+        mockMvc.perform(get("/api/export/order-lines").param("from", "2026-01-01").param("to", "2026-01-31"))
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+
+    @Test
+    void readsStayOpen() throws Exception {
+        when(reportService.getDashboardStatistics()).thenReturn(Map.of());
+        mockMvc.perform(get("/api/dashboard/statistics"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,47 @@
+package com.pharmaease.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A guarded decrement must know, row by row, whether its guard held; a driver that only reports
+ * "succeeded, count unknown" cannot be trusted with stock.
+ */
+class InventoryRepositoryImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final InventoryRepositoryImpl repository = new InventoryRepositoryImpl(jdbcTemplate);
+
+    @Test
+    void rowsTheGuardRejectedAreReported() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+
+        assertThat(repository.decrementAvailableQuantities(quantities(), "ORD-1")).containsExactly(2L);
+    }
+
+    @Test
+    void unknownRowCountsAreNotTakenAsSuccess() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, Statement.SUCCESS_NO_INFO});
+
+        assertThatThrownBy(() -> repository.decrementAvailableQuantities(quantities(), "ORD-1"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 5);
+        return quantities;
+    }
+}
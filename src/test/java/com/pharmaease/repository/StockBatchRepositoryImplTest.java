@@ -0,0 +1,28 @@
+package com.pharmaease.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockBatchRepositoryImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockBatchRepositoryImpl repository = new StockBatchRepositoryImpl(jdbcTemplate);
+
+    @Test
+    void unknownRowCountsAreNotTakenAsSuccess() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{Statement.SUCCESS_NO_INFO});
+
+        assertThatThrownBy(() -> repository.decrementRemainingQuantities(Map.of(10L, 2), LocalDate.now()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every API read runs a fixed number of statements however many rows it returns, and the views are
+ * complete once the service returns: nothing is left to load lazily while the response is written.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({MedicineService.class, MedicineSearchIndex.class, ReferenceDataCache.class, StockBatchService.class,
+        BatchExpiryIndex.class, BatchAllocator.class, InventoryService.class, OrderService.class, NumberAllocator.class,
+        StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ApiReadModelTest {
+
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private BatchExpiryIndex expiryIndex;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SupplierRepository supplierRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Medicine> medicines = new ArrayList<>();
+    private final List<StockBatch> batches = new ArrayList<>();
+    private final List<Orders> orders = new ArrayList<>();
+
+    @Test
+    void statementsPerReadDoNotGrowWithRows() {
+        searchIndex.load();
+        expiryIndex.load();
+        Pharmacist pharmacist = pharmacist();
+
+        seed(3, pharmacist);
+        Map<String, Long> few = measureReads();
+        seed(6, pharmacist);
+        Map<String, Long> many = measureReads();
+
+        System.out.println("📊 Statements per API read: " + few);
+        assertThat(many).isEqualTo(few);
+        assertThat(few).allSatisfy((read, statements) -> assertThat(statements).as(read).isEqualTo(1L))
+                .doesNotContainKey("orderDetail");
+        assertThat(orderStatements()).isEqualTo(2L);
+
+        OrderService.OrderDetail detail = orderService.getOrderDetail(orders.get(0).getId());
+        assertThat(detail.order().customerName()).startsWith("Customer");
+        assertThat(detail.order().pharmacistName()).isEqualTo("Reader");
+        assertThat(detail.lines()).hasSize(2).allSatisfy(line -> assertThat(line.medicineName()).isNotNull());
+        assertThat(medicineService.getMedicineView(medicines.get(0).getId()).supplierName()).isEqualTo("Acme");
+    }
+
+    private Map<String, Long> measureReads() {
+        Map<String, Long> statements = new LinkedHashMap<>();
+        statements.put("medicines", count(() -> medicineService.findMedicines(null, null, null, 100).map(MedicineView::from)));
+        statements.put("medicine", count(() -> medicineService.getMedicineView(medicines.get(0).getId())));
+        statements.put("medicineSearch", count(() -> medicineService.searchMedicineViews("readmodel")));
+        statements.put("batches", count(() -> stockBatchService.findBatches(null, null, null, 100).map(BatchView::from)));
+        statements.put("batch", count(() -> stockBatchService.getBatchView(batches.get(0).getId())));
+        statements.put("expiringBatches", count(() -> stockBatchService.getExpiringBatchViews(30)));
+        statements.put("expiredBatches", count(stockBatchService::getExpiredBatchViews));
+        statements.put("inventory", count(() -> inventoryService.findInventory(null, null, 100).map(InventoryView::from)));
+        statements.put("lowStock", count(inventoryService::getLowStockViews));
+        statements.put("outOfStock", count(inventoryService::getOutOfStockViews));
+        statements.put("orders", count(() -> orderService.findOrders(
+                new OrderService.OrderFilter(null, null, null, null), null, 100).map(OrderView::from)));
+        return statements;
+    }
+
+    private long orderStatements() {
+        return count(() -> orderService.getOrderDetail(orders.get(orders.size() - 1).getId()));
+    }
+
+    private long count(Supplier<?> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        read.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seed(int rows, Pharmacist pharmacist) {
+        com.pharmaease.model.Supplier supplier = new com.pharmaease.model.Supplier();
+        supplier.setName("Acme");
+        supplier = supplierRepository.save(supplier);
+
+        for (int i = 0; i < rows; i++) {
+            Medicine m = new Medicine();
+            m.setName("Readmodel " + System.nanoTime());
+            m.setUnitPrice(BigDecimal.TEN);
+            m.setSupplier(supplier);
+            Medicine medicine = medicineService.createMedicine(m);
+            medicines.add(medicine);
+
+            batches.add(stockBatchService.createBatch(batch(medicine, LocalDate.now().plusDays(10 + i))));
+            batches.add(stockBatchService.createBatch(batch(medicine, LocalDate.now().minusDays(1 + i))));
+
+            Customer c = new Customer();
+            c.setName("Customer " + i);
+            Customer customer = customerRepository.save(c);
+
+            Orders order = new Orders();
+            order.setPharmacist(pharmacist);
+            order.setCustomer(customer);
+            order.setStatus(Orders.OrderStatus.COMPLETED);
+            List<OrderItem> items = new ArrayList<>();
+            for (int line = 0; line < 2; line++) {
+                OrderItem item = new OrderItem();
+                item.setMedicine(medicine);
+                item.setQuantity(1);
+                item.setUnitPrice(BigDecimal.TEN);
+                items.add(item);
+            }
+            order.setOrderItems(items);
+            orders.add(orderService.createOrder(order));
+        }
+    }
+
+    private StockBatch batch(Medicine medicine, LocalDate expiryDate) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("RM-" + System.nanoTime());
+        batch.setQuantity(20);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusYears(1));
+        batch.setExpiryDate(expiryDate);
+        return batch;
+    }
+
+    private Pharmacist pharmacist() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Reader");
+        p.setEmail("reader-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("x");
+        return pharmacistRepository.save(p);
+    }
+}
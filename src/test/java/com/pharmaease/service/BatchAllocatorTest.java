@@ -0,0 +1,117 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchAllocatorTest {
+
+    private final StockBatchRepository batchRepository = mock(StockBatchRepository.class);
+    private final BatchAllocator allocator = new BatchAllocator(batchRepository);
+
+    @Test
+    void picksEarliestExpiryFirstAndSplitsAcrossBatches() {
+        LocalDate today = LocalDate.now();
+        when(batchRepository.findAvailableBatchesByMedicine(1L)).thenReturn(List.of(
+                batch(10L, today.plusMonths(6), 5),
+                batch(11L, today.plusMonths(1), 3),
+                batch(12L, today.plusMonths(3), 4)));
+
+        assertThat(allocator.allocate(1L, 6)).containsExactly(
+                new BatchAllocator.Allocation(11L, 3, true),
+                new BatchAllocator.Allocation(12L, 3));
+        assertThat(allocator.allocate(1L, 2)).containsExactly(
+                new BatchAllocator.Allocation(12L, 1, true),
+                new BatchAllocator.Allocation(10L, 1));
+
+        // Served from memory after the first load
+        verify(batchRepository, times(1)).findAvailableBatchesByMedicine(1L);
+    }
+
+    @Test
+    void reportsTheUncoveredRestWithoutABatch() {
+        when(batchRepository.findAvailableBatchesByMedicine(2L)).thenReturn(List.of(
+                batch(20L, LocalDate.now().plusDays(30), 2)));
+
+        assertThat(allocator.allocate(2L, 5)).containsExactly(
+                new BatchAllocator.Allocation(20L, 2, true),
+                new BatchAllocator.Allocation(null, 3));
+    }
+
+    @Test
+    void skipsBatchesThatExpiredWhileCached() {
+        LocalDate today = LocalDate.now();
+        when(batchRepository.findAvailableBatchesByMedicine(6L)).thenReturn(List.of(
+                batch(60L, today, 4),
+                batch(61L, today.plusMonths(2), 4)));
+        allocator.allocate(6L, 1, today);
+
+        // Past midnight the cached batch 60 has expired; the sale goes to the next one
+        assertThat(allocator.allocate(6L, 2, today.plusDays(1))).containsExactly(new BatchAllocator.Allocation(61L, 2));
+        verify(batchRepository, times(1)).findAvailableBatchesByMedicine(6L);
+    }
+
+    @Test
+    void evictionReloadsFromTheDatabase() {
+        when(batchRepository.findAvailableBatchesByMedicine(3L)).thenReturn(List.of(
+                batch(30L, LocalDate.now().plusDays(30), 2)));
+
+        allocator.allocate(3L, 2);
+        allocator.evict(3L);
+
+        assertThat(allocator.allocate(3L, 1)).containsExactly(new BatchAllocator.Allocation(30L, 1));
+        verify(batchRepository, times(2)).findAvailableBatchesByMedicine(3L);
+    }
+
+    @Test
+    void aLoadOvertakenByAnEvictionIsNotCached() {
+        // The batch is written while its medicine is being loaded
+        when(batchRepository.findAvailableBatchesByMedicine(5L)).thenAnswer(invocation -> {
+            allocator.evict(5L);
+            return List.of(batch(50L, LocalDate.now().plusDays(30), 2));
+        });
+
+        assertThat(allocator.allocate(5L, 1)).containsExactly(new BatchAllocator.Allocation(50L, 1));
+        allocator.allocate(5L, 1);
+        verify(batchRepository, times(2)).findAvailableBatchesByMedicine(5L);
+    }
+
+    @Test
+    void allocationStaysCheapWithThousandsOfBatches() {
+        LocalDate today = LocalDate.now();
+        List<StockBatch> batches = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            batches.add(batch(id, today.plusDays(id % 720), 20));
+        }
+        when(batchRepository.findAvailableBatchesByMedicine(4L)).thenReturn(batches);
+        allocator.allocate(4L, 1);
+
+        int sales = 4_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < sales; i++) {
+            allocator.allocate(4L, 7);
+        }
+        long perSale = (System.nanoTime() - start) / sales;
+
+        System.out.println("📊 FEFO allocation over 5000 batches: " + perSale + " ns per line");
+        assertThat(allocator.allocate(4L, 1)).hasSize(1);
+    }
+
+    private StockBatch batch(Long id, LocalDate expiry, int remaining) {
+        StockBatch batch = new StockBatch();
+        batch.setId(id);
+        batch.setExpiryDate(expiry);
+        batch.setRemainingQuantity(remaining);
+        return batch;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Customer;
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.repository.CustomerRepository;
+import com.pharmaease.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Customers are paged by name or phone prefix, and a picked medicine's snapshot carries its price and
+ * available stock, cached for the TTL.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.billing.stock-ttl-ms=60000"
+})
+@Import({BillingLookupService.class, MedicineService.class, MedicineSearchIndex.class, ReferenceDataCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillingLookupServiceTest {
+
+    @Autowired
+    private BillingLookupService billingLookupService;
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void customersArePagedByPrefix() {
+        String tag = "Zq" + System.nanoTime();
+        for (int i = 0; i < 12; i++) {
+            Customer customer = new Customer();
+            customer.setName(tag + " " + (char) ('a' + i));
+            customer.setPhone("98" + System.nanoTime() % 100_000_000);
+            customer.setActive(i != 11);
+            customerRepository.save(customer);
+        }
+
+        Slice<CustomerRepository.CustomerSummary> first = billingLookupService.findCustomers(tag.toLowerCase(), 0, 5);
+        Slice<CustomerRepository.CustomerSummary> last = billingLookupService.findCustomers(tag, 2, 5);
+        assertThat(first.getContent()).extracting(CustomerRepository.CustomerSummary::getName).first().isEqualTo(tag + " a");
+        assertThat(first.hasNext()).isTrue();
+        // 11 active customers: the inactive one is never offered
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+        // Only prefixes match, and LIKE wildcards in the query are ignored
+        assertThat(billingLookupService.findCustomers(tag.substring(1), 0, 5).getContent()).isEmpty();
+        assertThat(billingLookupService.findCustomers("%" + tag, 0, 50).getContent()).hasSize(11);
+    }
+
+    @Test
+    void snapshotCarriesPriceAndCachedStock() {
+        Medicine m = new Medicine();
+        m.setName("Ranitidine " + System.nanoTime());
+        m.setStrength("150 mg");
+        m.setUnitPrice(new BigDecimal("2.00"));
+        m.setSellingPrice(new BigDecimal("2.50"));
+        Medicine medicine = medicineService.createMedicine(m);
+        setAvailable(medicine, 40);
+
+        assertThat(billingLookupService.findMedicines(medicine.getName(), 10))
+                .extracting(MedicineSearchIndex.Suggestion::id).containsExactly(medicine.getId());
+
+        BillingLookupService.SkuSnapshot snapshot = billingLookupService.getSnapshot(medicine.getId());
+        assertThat(snapshot.sellingPrice()).isEqualByComparingTo("2.50");
+        assertThat(snapshot.availableQuantity()).isEqualTo(40);
+
+        // Within the TTL the cached figure is served without another query
+        setAvailable(medicine, 7);
+        assertThat(billingLookupService.getSnapshot(medicine.getId()).availableQuantity()).isEqualTo(40);
+        assertThat(billingLookupService.getSnapshot(-1L)).isNull();
+    }
+
+    private void setAvailable(Medicine medicine, int quantity) {
+        Inventory inventory = inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0);
+        inventory.setAvailableQuantity(quantity);
+        inventory.setTotalQuantity(quantity);
+        inventoryRepository.save(inventory);
+    }
+}
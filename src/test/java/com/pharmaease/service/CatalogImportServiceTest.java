@@ -0,0 +1,119 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.model.Supplier;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import com.pharmaease.repository.SupplierRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An import creates and then updates medicines, batches and stock in chunks, and reports the rows it
+ * could not take by line number while importing the rest.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.import.batch-size=3"
+})
+@Import({CatalogImportService.class, MedicineSearchIndex.class, BatchExpiryIndex.class, BatchAllocator.class,
+        ReferenceDataCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogImportServiceTest {
+
+    private static final String CSV = """
+            name,strength,Unit Price,supplier,category,batch_number,quantity,cost_price,manufacturing_date,expiry_date
+            Importmox,500mg,12.50,Import Acme,Antibiotic,IMP-AMX-1,100,8.00,2026-01-01,2028-01-01
+            Importmox,500mg,,,,IMP-AMX-2,50,8.00,2026-02-01,2028-02-01
+            "Importamol, ""extra""\",500mg,3.00,import acme,Analgesic,,,,,
+            Importofen,200mg,4.00,Nobody,,,,,,
+            Importizine,10mg,,,,,,,,
+            Importrin,75mg,2.00,,,IMP-ASP-1,abc,1.00,2026-01-01,2028-01-01
+            Importrin,75mg,2.00,,,IMP-ASP-2,10,1.00,2026-01-01,2028-01-01
+            Importflow,1mg,123456789012.00,,,,,,,
+            """;
+
+    private static final String JSONL = """
+            {"name": "importmox", "strength": "500MG", "batchNumber": "IMP-AMX-1", "quantity": 80, "costPrice": 8, "manufacturingDate": "2026-01-01", "expiryDate": "2028-01-01"}
+            {"name": "Importamol, \\"extra\\"", "strength": "500mg", "sellingPrice": 3.5}
+            {"name": "Importrin", "strength": "75mg", "batchNumber": "IMP-AMX-2", "quantity": 5, "costPrice": 1, "manufacturingDate": "2026-01-01", "expiryDate": "2028-01-01"}
+            not json
+            """;
+
+    @Autowired
+    private CatalogImportService importService;
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+    @Autowired
+    private SupplierRepository supplierRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+
+    @Test
+    void importsInChunksAndReportsBadRows() throws Exception {
+        Supplier s = new Supplier();
+        s.setName("Import Acme");
+        Supplier supplier = supplierRepository.save(s);
+
+        CatalogImportService.ImportReport created = importService.importCatalog(stream(CSV), CatalogImportService.Format.CSV);
+        assertThat(created.rows()).isEqualTo(8);
+        assertThat(created.imported()).isEqualTo(4);
+        assertThat(created.medicinesCreated()).isEqualTo(3);
+        assertThat(created.batchesCreated()).isEqualTo(3);
+        // The overflowing price fails in the database, and only its own row is lost
+        assertThat(created.errors()).extracting(CatalogImportService.RowError::line).containsExactly(5L, 6L, 7L, 9L);
+        assertThat(created.errors().get(0).message()).isEqualTo("Unknown supplier: Nobody");
+
+        Medicine amoxicillin = medicine("Importmox");
+        assertThat(amoxicillin.getSupplier().getId()).isEqualTo(supplier.getId());
+        assertThat(amoxicillin.getReorderLevel()).isEqualTo(10);
+        assertThat(inventoryRepository.findByMedicine(amoxicillin).orElseThrow().getAvailableQuantity()).isEqualTo(150);
+        assertThat(inventoryRepository.findByMedicine(medicine("Importrin")).orElseThrow().getTotalQuantity()).isEqualTo(10);
+        Medicine paracetamol = medicine("Importamol, \"extra\"");
+        assertThat(inventoryRepository.findByMedicine(paracetamol).orElseThrow().getLowStock()).isTrue();
+        assertThat(searchIndex.search("importamol")).containsExactly(paracetamol.getId());
+
+        CatalogImportService.ImportReport updated = importService.importCatalog(stream(JSONL), CatalogImportService.Format.of("catalog.jsonl"));
+        assertThat(updated.imported()).isEqualTo(2);
+        assertThat(updated.medicinesCreated()).isZero();
+        assertThat(updated.medicinesUpdated()).isEqualTo(1);
+        assertThat(updated.batchesUpdated()).isEqualTo(1);
+        assertThat(updated.errors()).extracting(CatalogImportService.RowError::line).containsExactly(3L, 4L);
+        assertThat(updated.errors().get(0).message()).isEqualTo("Batch IMP-AMX-2 belongs to another medicine");
+        assertThat(updated.errors().get(1).message()).startsWith("Not valid JSON");
+
+        // Twenty fewer received on the first batch, none of them sold yet
+        StockBatch corrected = batchRepository.findByBatchNumber("IMP-AMX-1").orElseThrow();
+        assertThat(corrected.getRemainingQuantity()).isEqualTo(80);
+        assertThat(inventoryRepository.findByMedicine(amoxicillin).orElseThrow().getAvailableQuantity()).isEqualTo(130);
+        Medicine repriced = medicineRepository.findById(paracetamol.getId()).orElseThrow();
+        assertThat(repriced.getSellingPrice()).isEqualByComparingTo("3.50");
+        assertThat(repriced.getUnitPrice()).isEqualByComparingTo(new BigDecimal("3.00"));
+        assertThat(repriced.getCategory()).isEqualTo("Analgesic");
+    }
+
+    private Medicine medicine(String name) {
+        return medicineRepository.findByNameContainingIgnoreCaseOrGenericNameContainingIgnoreCase(name, name).get(0);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
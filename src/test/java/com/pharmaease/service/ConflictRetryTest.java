@@ -0,0 +1,134 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * An inventory edit that loses the race to a concurrent stock change is rerun against the new row
+ * instead of overwriting it, and the conflict is counted against the medicine.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.retry.max-attempts=3",
+        "pharmaease.retry.backoff-ms=1"
+})
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({InventoryService.class, ConflictRetryAspect.class, StockConflictMetrics.class, ConflictRetryTest.Interference.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConflictRetryTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private StockConflictMetrics metrics;
+    @Autowired
+    private Interference interference;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void conflictingEditIsRetriedAndCounted() {
+        Medicine medicine = stockedMedicine("Losartan");
+        StockConflictMetrics.Stats before = metrics.stats();
+
+        // A sale lands between the edit's read and its write, on the first attempt only
+        interference.sell(medicine, 1);
+        inventoryService.updateInventoryQuantity(medicine, 10);
+
+        // Both survive: 20 + 10 restocked - 1 sold
+        assertThat(stock(medicine).getAvailableQuantity()).isEqualTo(29);
+        StockConflictMetrics.Stats stats = metrics.stats();
+        assertThat(stats.conflicts()).isEqualTo(before.conflicts() + 1);
+        assertThat(stats.exhausted()).isEqualTo(before.exhausted());
+        assertThat(stats.hottestMedicines()).filteredOn(hot -> hot.medicineId().equals(medicine.getId()))
+                .singleElement().satisfies(hot -> assertThat(hot.conflicts()).isEqualTo(1));
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        Medicine medicine = stockedMedicine("Valsartan");
+        long exhaustedBefore = metrics.stats().exhausted();
+
+        interference.sell(medicine, Integer.MAX_VALUE);
+        try {
+            assertThatThrownBy(() -> inventoryService.updateInventoryQuantity(medicine, 10))
+                    .isInstanceOf(OptimisticLockingFailureException.class);
+        } finally {
+            interference.sell(medicine, 0);
+        }
+
+        // Three sales went through, the edit never did
+        assertThat(stock(medicine).getAvailableQuantity()).isEqualTo(17);
+        assertThat(metrics.stats().exhausted()).isEqualTo(exhaustedBefore + 1);
+    }
+
+    private Inventory stock(Medicine medicine) {
+        return inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0);
+    }
+
+    private Medicine stockedMedicine(String name) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(20);
+        inventory.setAvailableQuantity(20);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    /**
+     * Sells one unit of the medicine from another connection while the edit is still open, the given
+     * number of times.
+     */
+    @TestConfiguration
+    static class Interference {
+
+        private final AtomicInteger sales = new AtomicInteger();
+        private volatile Long medicineId;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        void sell(Medicine medicine, int times) {
+            medicineId = medicine.getId();
+            sales.set(times);
+        }
+
+        @EventListener
+        void onStockChanged(DashboardEvent event) {
+            if (sales.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+                CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                        "UPDATE inventory SET available_quantity = available_quantity - 1, version = version + 1 " +
+                        "WHERE medicine_id = ?", medicineId)).join();
+            }
+        }
+    }
+}
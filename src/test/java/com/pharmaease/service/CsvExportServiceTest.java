@@ -0,0 +1,141 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.CustomerRepository;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order lines, invoices and stock valuation are exported as CSV, archived history included, with
+ * cells quoted and defused for spreadsheets.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({CsvExportService.class, OrderArchiver.class, OrderService.class, NumberAllocator.class, BatchAllocator.class,
+        StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CsvExportServiceTest {
+
+    @Autowired
+    private CsvExportService exportService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderArchiver archiver;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportsHotAndArchivedRowsAsCsv() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Export");
+        p.setEmail("export@pharmaease.test");
+        p.setPassword("x");
+        Pharmacist pharmacist = pharmacistRepository.save(p);
+
+        Customer c = new Customer();
+        c.setName("Smith, \"Jo\"");
+        Customer customer = customerRepository.save(c);
+
+        Medicine m = new Medicine();
+        m.setName("=Amoxicillin");
+        m.setStrength("500mg");
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+        StockBatch b = new StockBatch();
+        b.setMedicine(medicine);
+        b.setBatchNumber("EXP-1");
+        b.setQuantity(100);
+        b.setRemainingQuantity(100);
+        b.setCostPrice(new BigDecimal("2.50"));
+        b.setManufacturingDate(LocalDate.now().minusMonths(1));
+        b.setExpiryDate(LocalDate.now().plusYears(1));
+        StockBatch batch = batchRepository.save(b);
+
+        Orders old = orderService.createOrder(sale(pharmacist, customer, medicine, 2));
+        Orders recent = orderService.createOrder(sale(pharmacist, customer, medicine, 3));
+        Timestamp longAgo = Timestamp.valueOf(LocalDateTime.now().minusYears(2));
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", longAgo, old.getId());
+        jdbcTemplate.update("UPDATE order_items SET created_at = ? WHERE order_id = ?", longAgo, old.getId());
+        assertThat(archiver.archive(LocalDateTime.now().minusYears(1))).isEqualTo(1);
+
+        List<String> lines = export(out -> exportService.exportOrderLines(LocalDate.now().minusYears(3), LocalDate.now(), out), 3);
+        assertThat(lines.get(0)).isEqualTo("order_number,created_at,status,payment_method,customer,pharmacist," +
+                "medicine,strength,batch_number,quantity,unit_price,total_price");
+        // Archived history first, then the hot tables
+        assertThat(lines.get(1)).startsWith(old.getOrderNumber() + ",").endsWith(",\"Smith, \"\"Jo\"\"\",Export,'=Amoxicillin,500mg,EXP-1,2,10.00,20.00");
+        assertThat(lines.get(2)).startsWith(recent.getOrderNumber() + ",").endsWith(",'=Amoxicillin,500mg,EXP-1,3,10.00,30.00");
+        export(out -> exportService.exportOrderLines(LocalDate.now(), LocalDate.now(), out), 2);
+
+        List<String> invoices = export(out -> exportService.exportInvoices(LocalDate.now(), LocalDate.now(), out), 3);
+        assertThat(invoices.get(1)).startsWith(old.getInvoice().getInvoiceNumber() + ",");
+        assertThat(invoices.get(2)).startsWith(recent.getInvoice().getInvoiceNumber() + ",");
+
+        int remaining = batchRepository.findById(batch.getId()).orElseThrow().getRemainingQuantity();
+        List<String> valuation = export(exportService::exportStockValuation, 2);
+        assertThat(valuation.get(1)).isEqualTo("'=Amoxicillin,500mg,EXP-1," + batch.getExpiryDate() + "," + remaining + ",2.50," +
+                new BigDecimal("2.50").multiply(BigDecimal.valueOf(remaining)) + ",10.00," +
+                BigDecimal.TEN.setScale(2).multiply(BigDecimal.valueOf(remaining)));
+    }
+
+    private List<String> export(Export export, int expectedLines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = export.to(out);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(expectedLines);
+        assertThat(rows).isEqualTo(expectedLines - 1);
+        return lines;
+    }
+
+    private Orders sale(Pharmacist pharmacist, Customer customer, Medicine medicine, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.TEN);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setCustomer(customer);
+        order.setStatus(Orders.OrderStatus.COMPLETED);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+
+    private interface Export {
+        long to(ByteArrayOutputStream out);
+    }
+}
@@ -0,0 +1,90 @@
+package com.pharmaease.service;
+
+import com.pharmaease.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardStreamServiceTest {
+
+    private final ReportService reportService = mock(ReportService.class);
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final DashboardStreamService stream = new DashboardStreamService(reportService, inventoryRepository, mock(BatchExpiryIndex.class), 60_000);
+
+    @Test
+    void manyDashboardsShareOneSnapshotAndOneLowStockCount() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("todaySales", 100.0);
+        stats.put("todayOrders", 2L);
+        stats.put("weekSales", 300.0);
+        stats.put("monthSales", 500.0);
+        stats.put("totalSales", 1000.0);
+        stats.put("lowStockCount", 4L);
+        stats.put("expiringBatchesCount", 0L);
+        when(reportService.getDashboardStatistics()).thenReturn(stats);
+        when(inventoryRepository.countLowStockItems()).thenReturn(5L);
+
+        for (int i = 0; i < 100; i++) {
+            stream.subscribe();
+        }
+        for (int i = 0; i < 50; i++) {
+            stream.onDashboardEvent(DashboardEvent.saleCompleted(LocalDate.now(), BigDecimal.TEN));
+        }
+        stream.onDashboardEvent(DashboardEvent.saleCompleted(LocalDate.now().minusYears(1), BigDecimal.ONE));
+        stream.refresh();
+        stream.refresh();
+
+        Map<String, Object> snapshot = stream.currentSnapshot();
+        assertThat(snapshot.get("todayOrders")).isEqualTo(52L);
+        assertThat(snapshot.get("todaySales")).isEqualTo(600.0);
+        assertThat(snapshot.get("totalSales")).isEqualTo(1501.0);
+        assertThat(snapshot.get("lowStockCount")).isEqualTo(5L);
+
+        // One load and one re-count, however many dashboards are open and sales came in
+        assertThat(stream.getClientCount()).isEqualTo(100);
+        verify(reportService, times(1)).getDashboardStatistics();
+        verify(inventoryRepository, times(1)).countLowStockItems();
+    }
+
+    @Test
+    void salesAreNotHeldUpByAResyncAndAreNotLostToIt() throws Exception {
+        DashboardStreamService resyncing = new DashboardStreamService(reportService, inventoryRepository, mock(BatchExpiryIndex.class), 0);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("todaySales", 100.0);
+        stats.put("todayOrders", 2L);
+        when(reportService.getDashboardStatistics()).thenReturn(stats);
+        resyncing.subscribe();
+
+        // The next resync takes until released
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(reportService.getDashboardStatistics()).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return stats;
+        });
+        Thread refresh = Thread.ofVirtual().start(resyncing::refresh);
+        loading.await();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> resyncing.onDashboardEvent(DashboardEvent.saleCompleted(LocalDate.now(), BigDecimal.TEN)));
+        release.countDown();
+        refresh.join();
+
+        // The stats loaded before the sale were dropped instead of overwriting it
+        assertThat(resyncing.currentSnapshot().get("todayOrders")).isEqualTo(3L);
+        assertThat(resyncing.currentSnapshot().get("todaySales")).isEqualTo(110.0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Expired batches are written off once: deactivated, their stock taken out of inventory, and no longer
+ * sellable or listed as expired stock still to deal with.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ExpiredBatchSweeper.class, BatchExpiryIndex.class, StockBatchService.class, BatchAllocator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpiredBatchSweeperTest {
+
+    @Autowired
+    private ExpiredBatchSweeper sweeper;
+    @Autowired
+    private BatchExpiryIndex expiryIndex;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+
+    @Test
+    void expiredBatchesAreWrittenOffOnce() {
+        LocalDate today = LocalDate.now();
+        expiryIndex.load();
+        sweeper.sweep(today);
+
+        Medicine medicine = stockedMedicine();
+        StockBatch lastWeek = stockBatchService.createBatch(batch(medicine, 3, today.minusDays(7)));
+        StockBatch yesterday = stockBatchService.createBatch(batch(medicine, 5, today.minusDays(1)));
+        StockBatch fresh = stockBatchService.createBatch(batch(medicine, 10, today.plusDays(20)));
+        assertStock(medicine, 18);
+        assertThat(stockBatchService.getExpiringBatches(30)).extracting(StockBatch::getId).contains(fresh.getId());
+        // Not swept yet, but already past its date: a sale cannot take from it
+        assertThat(batchRepository.decrementRemainingQuantities(Map.of(yesterday.getId(), 1), today)).containsExactly(yesterday.getId());
+
+        assertThat(sweeper.sweep(today)).isEqualTo(2);
+        assertStock(medicine, 10);
+        assertThat(batchRepository.findById(yesterday.getId()).orElseThrow().getActive()).isFalse();
+        assertThat(expiryIndex.idsExpiredBefore(today)).isEmpty();
+        // Dealt with: no longer listed or counted as expired, but what was left in them is kept
+        assertThat(batchRepository.findExpiredBatches(today)).extracting(StockBatch::getId)
+                .doesNotContain(lastWeek.getId(), yesterday.getId());
+        assertThat(batchRepository.countExpiredBatches(today)).isZero();
+        assertThat(batchRepository.findById(lastWeek.getId()).orElseThrow().getRemainingQuantity()).isEqualTo(3);
+
+        // Nothing left to sweep, and written-off stock can no longer be sold
+        assertThat(sweeper.sweep(today)).isZero();
+        assertStock(medicine, 10);
+        assertThat(batchRepository.decrementRemainingQuantities(Map.of(yesterday.getId(), 1), today)).containsExactly(yesterday.getId());
+
+        // Disposing of a written-off batch does not take its stock out a second time
+        stockBatchService.deleteBatch(lastWeek.getId());
+        assertStock(medicine, 10);
+    }
+
+    private void assertStock(Medicine medicine, int quantity) {
+        Inventory inventory = inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0);
+        assertThat(inventory.getTotalQuantity()).isEqualTo(quantity);
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(quantity);
+    }
+
+    private Medicine stockedMedicine() {
+        Medicine m = new Medicine();
+        m.setName("Paracetamol " + System.nanoTime());
+        m.setUnitPrice(BigDecimal.ONE);
+        Medicine medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(0);
+        inventory.setAvailableQuantity(0);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    private StockBatch batch(Medicine medicine, int quantity, LocalDate expiryDate) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("EXP-" + System.nanoTime());
+        batch.setQuantity(quantity);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusYears(2));
+        batch.setExpiryDate(expiryDate);
+        return batch;
+    }
+}
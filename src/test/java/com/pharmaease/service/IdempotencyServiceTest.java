@@ -0,0 +1,154 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.IdempotencyKeyRepository;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.OrderRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Retried and concurrently duplicated checkouts with the same key must create one sale and deduct stock
+ * once, and a key reused for another cart must not be answered with the first sale.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IdempotencyService.class, OrderService.class, NumberAllocator.class, BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Test
+    void duplicatesWithTheSameKeyCreateOneSale() throws Exception {
+        Pharmacist pharmacist = new Pharmacist();
+        pharmacist.setName("Till");
+        pharmacist.setEmail("till@pharmaease.test");
+        pharmacist.setPassword("x");
+        Pharmacist saved = pharmacistRepository.save(pharmacist);
+
+        Medicine medicine = new Medicine();
+        medicine.setName("Cetirizine");
+        medicine.setUnitPrice(BigDecimal.ONE);
+        Medicine stocked = medicineRepository.save(medicine);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(stocked);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+
+        long ordersBefore = orderRepository.count();
+        Set<Long> orderIds = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            attempts.add(clients.submit(() -> {
+                start.await();
+                orderIds.add(idempotencyService.createOrder(sale(saved, stocked, 3), "till-1-sale-42").getId());
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        clients.shutdown();
+
+        // A late retry after everything settled is served from the replay cache
+        orderIds.add(idempotencyService.createOrder(sale(saved, stocked, 3), "till-1-sale-42").getId());
+
+        assertThat(orderIds).hasSize(1);
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore + 1);
+        assertThat(inventoryRepository.findByMedicineIds(List.of(stocked.getId())).get(0).getAvailableQuantity())
+                .isEqualTo(97);
+
+        // A different key is a different sale
+        idempotencyService.createOrder(sale(saved, stocked, 3), "till-1-sale-43");
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore + 2);
+    }
+
+    @Test
+    void aKeyReusedForADifferentCartIsRefused() {
+        Pharmacist pharmacist = new Pharmacist();
+        pharmacist.setName("Till 2");
+        pharmacist.setEmail("till-2@pharmaease.test");
+        pharmacist.setPassword("x");
+        Pharmacist saved = pharmacistRepository.save(pharmacist);
+
+        Medicine medicine = new Medicine();
+        medicine.setName("Loratadine");
+        medicine.setUnitPrice(BigDecimal.ONE);
+        Medicine stocked = medicineRepository.save(medicine);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(stocked);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+
+        Orders first = idempotencyService.createOrder(sale(saved, stocked, 2), "till-2-sale-1");
+        long ordersAfter = orderRepository.count();
+
+        // From the replay cache, and from the table as another node would see it
+        IdempotencyService otherNode = new IdempotencyService(orderService, idempotencyKeyRepository, 100, 48);
+        for (IdempotencyService node : List.of(idempotencyService, otherNode)) {
+            assertThatThrownBy(() -> node.createOrder(sale(saved, stocked, 5), "till-2-sale-1"))
+                    .isInstanceOf(IdempotencyKeyMismatchException.class);
+            assertThat(node.createOrder(sale(saved, stocked, 2), "till-2-sale-1").getId()).isEqualTo(first.getId());
+        }
+
+        assertThat(orderRepository.count()).isEqualTo(ordersAfter);
+        assertThat(inventoryRepository.findByMedicineIds(List.of(stocked.getId())).get(0).getAvailableQuantity())
+                .isEqualTo(98);
+    }
+
+    private Orders sale(Pharmacist pharmacist, Medicine medicine, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.ONE);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(Orders.OrderStatus.COMPLETED);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
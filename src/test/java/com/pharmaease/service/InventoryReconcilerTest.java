@@ -0,0 +1,116 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.model.StockMovement;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.StockMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Inventory rows that no longer match their batches are reported page by page, and corrected through
+ * the ledger only when asked to.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.reconciliation.chunk-size=2",
+        "pharmaease.reconciliation.parallelism=2"
+})
+@Import({InventoryReconciler.class, StockBatchService.class, BatchExpiryIndex.class, BatchAllocator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReconcilerTest {
+
+    @Autowired
+    private InventoryReconciler reconciler;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockMovementRepository movementRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsDriftAndCorrectsItOnRequest() {
+        Medicine inStep = stocked("Amlodipine", 30);
+        Medicine overstated = stocked("Lisinopril", 20);
+        Medicine understated = stocked("Simvastatin", 10);
+        stocked("Omeprazole", 0);
+        stocked("Cetirizine", 5);
+
+        jdbcTemplate.update("UPDATE inventory SET available_quantity = 26, reserved_quantity = 4 WHERE medicine_id = ?", inStep.getId());
+        jdbcTemplate.update("UPDATE inventory SET available_quantity = 27 WHERE medicine_id = ?", overstated.getId());
+        jdbcTemplate.update("UPDATE inventory SET available_quantity = 4 WHERE medicine_id = ?", understated.getId());
+
+        InventoryReconciler.Report report = reconciler.reconcile(false);
+        assertThat(report.medicines()).isEqualTo(5);
+        assertThat(report.drifted()).isEqualTo(2);
+        assertThat(report.corrected()).isZero();
+        assertThat(report.unitsOff()).isEqualTo(13);
+        assertThat(report.drifts()).extracting(InventoryReconciler.Drift::medicineId, InventoryReconciler.Drift::difference)
+                .containsExactly(
+                        tuple(overstated.getId(), 7),
+                        tuple(understated.getId(), -6));
+        assertThat(available(overstated)).isEqualTo(27);
+
+        report = reconciler.reconcile(true);
+        assertThat(report.corrected()).isEqualTo(2);
+        assertThat(available(overstated)).isEqualTo(20);
+        assertThat(available(understated)).isEqualTo(10);
+        assertThat(available(inStep)).isEqualTo(26);
+        assertThat(movementRepository.findLatestViews(overstated.getId(), Limit.of(1)))
+                .singleElement()
+                .satisfies(movement -> {
+                    assertThat(movement.movementType()).isEqualTo(StockMovement.Type.ADJUSTMENT);
+                    assertThat(movement.availableChange()).isEqualTo(-7);
+                });
+
+        assertThat(reconciler.reconcile(false).drifted()).isZero();
+    }
+
+    private int available(Medicine medicine) {
+        return inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0).getAvailableQuantity();
+    }
+
+    private Medicine stocked(String name, int quantity) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setUnitPrice(BigDecimal.ONE);
+        Medicine medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventoryRepository.save(inventory);
+
+        if (quantity > 0) {
+            StockBatch batch = new StockBatch();
+            batch.setMedicine(medicine);
+            batch.setBatchNumber("REC-" + System.nanoTime());
+            batch.setQuantity(quantity);
+            batch.setCostPrice(BigDecimal.ONE);
+            batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+            batch.setExpiryDate(LocalDate.now().plusYears(1));
+            stockBatchService.createBatch(batch);
+        }
+        return medicine;
+    }
+}
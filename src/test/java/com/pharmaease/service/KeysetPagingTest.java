@@ -0,0 +1,103 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.StockBatch;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Walking a list page by page must visit every matching row exactly once, newest first, even when
+ * rows share a timestamp.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({StockBatchService.class, InventoryService.class, BatchExpiryIndex.class, BatchAllocator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KeysetPagingTest {
+
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void pagesVisitEveryRowOnceNewestFirst() {
+        Medicine medicine = stockedMedicine();
+        Medicine other = stockedMedicine();
+        List<StockBatch> created = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            created.add(stockBatchService.createBatch(batch(medicine)));
+            stockBatchService.createBatch(batch(other));
+        }
+
+        List<StockBatch> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<StockBatch> page = stockBatchService.findBatches(medicine.getId(), null, cursor, 3);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(3);
+            walked.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(walked).extracting(StockBatch::getId)
+                .containsExactlyElementsOf(created.stream()
+                        .sorted(Comparator.comparing(StockBatch::getCreatedAt).thenComparing(StockBatch::getId).reversed())
+                        .map(StockBatch::getId)
+                        .toList());
+
+        // Tables without a creation time page by id alone
+        CursorPage<Inventory> first = inventoryService.findInventory(null, null, 1);
+        assertThat(first.hasNext()).isTrue();
+        CursorPage<Inventory> second = inventoryService.findInventory(null, first.nextCursor(), 1);
+        assertThat(second.items().get(0).getId()).isLessThan(first.items().get(0).getId());
+
+        assertThatThrownBy(() -> stockBatchService.findBatches(null, null, "not-a-cursor", 3))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    private Medicine stockedMedicine() {
+        Medicine m = new Medicine();
+        m.setName("Cetirizine " + System.nanoTime());
+        m.setUnitPrice(BigDecimal.ONE);
+        Medicine medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    private StockBatch batch(Medicine medicine) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("PG-" + System.nanoTime());
+        batch.setQuantity(5);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(LocalDate.now().plusYears(1));
+        return batch;
+    }
+}
@@ -0,0 +1,115 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.repository.MedicineRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The trigram index must find everything the old {@code LIKE '%kw%'} search found, rank the closest
+ * matches first and follow catalogue edits.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({MedicineService.class, MedicineSearchIndex.class, ReferenceDataCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MedicineSearchIndexTest {
+
+    private static final String[] STEMS = {"Amoxi", "Parace", "Ibupro", "Cetiri", "Metfor", "Omepra", "Azithro", "Losar"};
+    private static final String[] ENDINGS = {"cillin", "tamol", "fen", "zine", "min", "zole", "mycin", "tan"};
+
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Test
+    void findsWhatLikeFoundAndRanksNameHitsFirst() {
+        searchIndex.load();
+        for (int i = 0; i < 120; i++) {
+            String name = STEMS[i % STEMS.length] + ENDINGS[(i / STEMS.length) % ENDINGS.length] + " " + i;
+            medicineService.createMedicine(medicine(name, ENDINGS[i % ENDINGS.length] + " base", (i % 5 + 1) * 100 + " mg"));
+        }
+        Medicine amoxicillin = medicineService.createMedicine(medicine("Amoxicillin", "Amoxicillin", "500 mg"));
+        Medicine coAmoxiclav = medicineService.createMedicine(medicine("Co-amoxiclav", "Amoxicillin + Clavulanate", "625 mg"));
+
+        for (String keyword : List.of("amox", "TAMOL", "zin", "ycin 1", "cillin", "fen", "xyz", "mycin base")) {
+            Set<Long> viaLike = medicineRepository.findByNameContainingIgnoreCaseOrGenericNameContainingIgnoreCase(keyword, keyword)
+                    .stream().map(Medicine::getId).collect(Collectors.toSet());
+            Set<Long> viaIndex = new HashSet<>(searchIndex.search(keyword));
+            assertThat(viaIndex).as(keyword).containsAll(viaLike);
+            // Anything extra must really contain every word somewhere in the indexed columns
+            for (Medicine extra : medicineRepository.findAllById(viaIndex)) {
+                for (String word : MedicineSearchIndex.words(keyword)) {
+                    assertThat(text(extra)).as(keyword).contains(word);
+                }
+            }
+        }
+
+        List<MedicineSearchIndex.Suggestion> suggestions = medicineService.suggestMedicines("amox", 5);
+        assertThat(suggestions).hasSize(5);
+        assertThat(suggestions.get(0).id()).isEqualTo(amoxicillin.getId());
+        assertThat(medicineService.searchMedicines("amox 625")).extracting(Medicine::getId).containsExactly(coAmoxiclav.getId());
+        // Short queries only match the start of a word
+        assertThat(medicineService.suggestMedicines("cl", 10)).extracting(MedicineSearchIndex.Suggestion::id)
+                .containsExactly(coAmoxiclav.getId());
+
+        // Edits, deactivation and deletes are followed
+        Medicine renamed = medicine("Amlodipine", "Amlodipine besylate", "5 mg");
+        renamed.setActive(false);
+        medicineService.updateMedicine(amoxicillin.getId(), renamed);
+        assertThat(medicineService.searchMedicines("amlodip")).extracting(Medicine::getId).containsExactly(amoxicillin.getId());
+        assertThat(medicineService.suggestMedicines("amlodip", 10)).isEmpty();
+        assertThat(searchIndex.search("amoxicillin")).doesNotContain(amoxicillin.getId()).contains(coAmoxiclav.getId());
+
+        medicineService.deleteMedicine(coAmoxiclav.getId());
+        assertThat(searchIndex.search("clav")).isEmpty();
+    }
+
+    @Test
+    void broadSearchesFetchOnlyTheBestMatches() {
+        List<Medicine> many = new ArrayList<>();
+        for (int i = 0; i < MedicineService.SEARCH_LIMIT + 50; i++) {
+            many.add(medicine("Broadmol " + i, "Broadmol", "10 mg"));
+        }
+        medicineRepository.saveAll(many);
+        Medicine exact = medicineRepository.save(medicine("Broadmol", "Broadmol", "10 mg"));
+        searchIndex.load();
+
+        assertThat(searchIndex.search("broadmol")).hasSize(MedicineService.SEARCH_LIMIT + 51);
+        List<Medicine> found = medicineService.searchMedicines("broadmol");
+        assertThat(found).hasSize(MedicineService.SEARCH_LIMIT);
+        assertThat(found.get(0).getId()).isEqualTo(exact.getId());
+        assertThat(medicineService.searchMedicineViews("broadmol")).hasSize(MedicineService.SEARCH_LIMIT);
+    }
+
+    private String text(Medicine m) {
+        return String.join(" ", m.getName(), String.valueOf(m.getGenericName()), String.valueOf(m.getManufacturer()),
+                String.valueOf(m.getStrength())).toLowerCase(Locale.ROOT);
+    }
+
+    private Medicine medicine(String name, String genericName, String strength) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setGenericName(genericName);
+        m.setStrength(strength);
+        m.setManufacturer("Acme Pharma");
+        m.setUnitPrice(BigDecimal.ONE);
+        return m;
+    }
+}
@@ -0,0 +1,171 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-memory notification counts must match what the count queries would return after batches
+ * are added, edited, deleted and sold out, and stock events must only have their own medicines re-read.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({NotificationCountService.class, BatchExpiryIndex.class, StockBatchService.class, OrderService.class, NumberAllocator.class,
+        BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationCountServiceTest {
+
+    @Autowired
+    private NotificationCountService notificationCountService;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+    @Autowired
+    private BatchExpiryIndex expiryIndex;
+
+    @Test
+    void countsFollowBatchChangesAndSales() {
+        LocalDate today = LocalDate.now();
+        expiryIndex.load();
+        notificationCountService.load();
+
+        Medicine medicine = stockedMedicine();
+        StockBatch soon = stockBatchService.createBatch(batch(medicine, "SOON", 4, today.plusDays(3)));
+        stockBatchService.createBatch(batch(medicine, "LATER", 50, today.plusDays(90)));
+        StockBatch edited = stockBatchService.createBatch(batch(medicine, "EDIT", 5, today.plusDays(120)));
+        StockBatch deleted = stockBatchService.createBatch(batch(medicine, "GONE", 5, today.plusDays(29)));
+        stockBatchService.createBatch(batch(medicine, "EDGE", 5, today.plusDays(30)));
+        assertMatchesDatabase(today);
+
+        // Selling out the earliest batch deactivates it and drops it from the expiring count
+        orderService.createOrder(sale(medicine, 4));
+        assertThat(batchRepository.findById(soon.getId()).orElseThrow().getActive()).isFalse();
+        assertMatchesDatabase(today);
+
+        // Moved back past its expiry date, then one expiring batch removed
+        stockBatchService.updateBatch(edited.getId(), batch(medicine, "EDIT", 5, today.minusDays(1)));
+        stockBatchService.deleteBatch(deleted.getId());
+        assertMatchesDatabase(today);
+
+        // Deactivated by hand
+        stockBatchService.updateBatch(edited.getId(), inactive(batch(medicine, "EDIT", 5, today.minusDays(1))));
+        assertMatchesDatabase(today);
+
+        // The expiring window moves with the date without touching the database
+        LocalDate tomorrow = today.plusDays(1);
+        assertThat(notificationCountService.counts(tomorrow).expiring())
+                .isEqualTo(batchRepository.countExpiringBatches(tomorrow, tomorrow.plusDays(30)));
+    }
+
+    @Test
+    void stockEventsReReadOnlyTheMedicinesTheyName() {
+        InventoryRepository inventory = mock(InventoryRepository.class);
+        when(inventory.findLowStockMedicineIds()).thenReturn(List.of(1L, 2L));
+        when(inventory.findLowStockMedicineIdsIn(any())).thenReturn(List.of(3L));
+        NotificationCountService counts = new NotificationCountService(inventory, mock(BatchExpiryIndex.class));
+        assertThat(counts.getCounts().lowStock()).isEqualTo(2);
+
+        // 1 is restocked, 3 runs low
+        counts.onStockChanged(DashboardEvent.stockChanged(Set.of(1L, 3L)));
+        counts.refresh();
+        assertThat(counts.getCounts().lowStock()).isEqualTo(2);
+        verify(inventory).findLowStockMedicineIdsIn(argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 3L))));
+        verify(inventory, times(1)).findLowStockMedicineIds();
+
+        // Nothing touched, nothing read
+        counts.refresh();
+        verify(inventory, times(1)).findLowStockMedicineIdsIn(any());
+
+        // A write that cannot name its medicines has them all re-read
+        counts.onStockChanged(DashboardEvent.stockChanged());
+        counts.refresh();
+        verify(inventory, times(2)).findLowStockMedicineIds();
+    }
+
+    private void assertMatchesDatabase(LocalDate today) {
+        notificationCountService.refresh();
+        NotificationCountService.Counts counts = notificationCountService.getCounts();
+        assertThat(counts.lowStock()).isEqualTo(inventoryRepository.countLowStockItems());
+        assertThat(counts.expiring()).isEqualTo(batchRepository.countExpiringBatches(today, today.plusDays(30)));
+        assertThat(counts.expired()).isEqualTo(batchRepository.countExpiredBatches(today));
+    }
+
+    private Medicine stockedMedicine() {
+        Medicine m = new Medicine();
+        m.setName("Loratadine " + System.nanoTime());
+        m.setUnitPrice(BigDecimal.ONE);
+        Medicine medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(0);
+        inventory.setAvailableQuantity(0);
+        inventory.setLowStock(true);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    private StockBatch batch(Medicine medicine, String number, int quantity, LocalDate expiryDate) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber(number + "-" + System.nanoTime());
+        batch.setQuantity(quantity);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusYears(1));
+        batch.setExpiryDate(expiryDate);
+        return batch;
+    }
+
+    private StockBatch inactive(StockBatch batch) {
+        batch.setActive(false);
+        return batch;
+    }
+
+    private Orders sale(Medicine medicine, int quantity) {
+        Pharmacist p = new Pharmacist();
+        p.setName("Badge");
+        p.setEmail("badge-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("x");
+
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.ONE);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacistRepository.save(p));
+        order.setStatus(Orders.OrderStatus.COMPLETED);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
@@ -0,0 +1,84 @@
+package com.pharmaease.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:number-allocator;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NumberAllocatorTest {
+
+    private static final int THREADS = 32;
+    private static final int NUMBERS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void hundredThousandNumbersAcrossTwoNodesNeverCollide() throws Exception {
+        // Two allocators over the same sequences behave like two app nodes
+        NumberAllocator nodeA = allocator(100);
+        NumberAllocator nodeB = allocator(100);
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        AtomicInteger issued = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            NumberAllocator node = t % 2 == 0 ? nodeA : nodeB;
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < NUMBERS / THREADS; i++) {
+                    numbers.add(node.nextOrderNumber());
+                    issued.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(issued.get()).isEqualTo(NUMBERS / THREADS * THREADS);
+        assertThat(numbers).hasSize(issued.get());
+        assertThat(numbers).allMatch(n -> n.matches("ORD-\\d{8}-\\d{6,}"));
+    }
+
+    @Test
+    void ordersAndInvoicesUseIndependentCounters() {
+        NumberAllocator allocator = allocator(10);
+
+        String order = allocator.nextOrderNumber();
+        String invoice = allocator.nextInvoiceNumber();
+
+        assertThat(order).startsWith("ORD-");
+        assertThat(invoice).startsWith("INV-");
+    }
+
+    private NumberAllocator allocator(long blockSize) {
+        return new NumberAllocator(jdbcTemplate, entityManagerFactory, blockSize);
+    }
+}
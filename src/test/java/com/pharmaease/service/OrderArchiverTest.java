@@ -0,0 +1,141 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.OrderArchiveRepository;
+import com.pharmaease.repository.OrderRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.SalesDailyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Old settled orders leave the hot tables in chunks, and lookups by id or number, the rollup rebuild
+ * and the settled-order rules still see them.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.archive.batch-size=2"
+})
+@Import({OrderArchiver.class, OrderService.class, NumberAllocator.class, BatchAllocator.class,
+        StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderArchiverTest {
+
+    @Autowired
+    private OrderArchiver archiver;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderArchiveRepository archiveRepository;
+    @Autowired
+    private SalesDailyRollupRepository rollupRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesOldSettledOrdersAndStillFindsThem() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Archive");
+        p.setEmail("archive@pharmaease.test");
+        p.setPassword("x");
+        Pharmacist pharmacist = pharmacistRepository.save(p);
+
+        Medicine m = new Medicine();
+        m.setName("Atenolol");
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+
+        List<Orders> old = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            old.add(orderService.createOrder(sale(pharmacist, medicine, i, Orders.OrderStatus.COMPLETED)));
+        }
+        Orders cancelled = orderService.createOrder(sale(pharmacist, medicine, 1, Orders.OrderStatus.PENDING));
+        orderService.cancelOrder(cancelled.getId());
+        old.add(cancelled);
+        Orders pending = orderService.createOrder(sale(pharmacist, medicine, 1, Orders.OrderStatus.PENDING));
+        Orders recent = orderService.createOrder(sale(pharmacist, medicine, 1, Orders.OrderStatus.COMPLETED));
+
+        LocalDateTime longAgo = LocalDateTime.now().minusYears(2);
+        for (Orders order : old) {
+            age(order.getId(), longAgo);
+        }
+        age(pending.getId(), longAgo);
+        BigDecimal grossBefore = rollupRepository.sumAll().getGrossAmount();
+
+        // Four settled orders in chunks of two; the pending one keeps its stock hold and stays
+        assertThat(archiver.archive(LocalDateTime.now().minusYears(1))).isEqualTo(4);
+        assertThat(orderRepository.findAllById(List.of(pending.getId(), recent.getId()))).hasSize(2);
+        assertThat(archiveRepository.count()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoices", Long.class)).isEqualTo(1);
+        assertThat(archiver.archive(LocalDateTime.now().minusYears(1))).isZero();
+
+        Orders sold = old.get(2);
+        OrderService.OrderDetail detail = orderService.getOrderDetailByNumber(sold.getOrderNumber());
+        assertThat(detail.order().invoiceNumber()).isEqualTo(sold.getInvoice().getInvoiceNumber());
+        assertThat(detail.order().pharmacistName()).isEqualTo("Archive");
+        assertThat(detail.lines()).extracting(line -> line.quantity()).containsExactly(3);
+        assertThat(orderService.getOrderDetail(recent.getId()).lines()).hasSize(1);
+
+        Orders restored = orderService.getOrderById(sold.getId());
+        assertThat(restored.getTotalAmount()).isEqualByComparingTo(sold.getTotalAmount());
+        assertThat(restored.getOrderItems()).extracting(item -> item.getMedicine().getName()).containsExactly("Atenolol");
+        assertThat(restored.getInvoice().getAmountPaid()).isEqualByComparingTo(sold.getInvoice().getAmountPaid());
+        assertThatThrownBy(() -> orderService.cancelOrder(sold.getId())).hasMessage("Cannot cancel completed order");
+
+        // History is still counted when the rollup is rebuilt from scratch
+        salesRollupService.rebuild();
+        assertThat(rollupRepository.sumAll().getGrossAmount()).isEqualByComparingTo(grossBefore);
+        assertThat(rollupRepository.sumAll().getCompletedOrders()).isEqualTo(4L);
+    }
+
+    private void age(Long orderId, LocalDateTime createdAt) {
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", timestamp, orderId);
+        jdbcTemplate.update("UPDATE order_items SET created_at = ? WHERE order_id = ?", timestamp, orderId);
+    }
+
+    private Orders sale(Pharmacist pharmacist, Medicine medicine, int quantity, Orders.OrderStatus status) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.TEN);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(status);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
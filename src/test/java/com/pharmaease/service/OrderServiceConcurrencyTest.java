@@ -0,0 +1,169 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.OrderRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many tills selling the same two medicines at once must never drive stock below zero, every unit that
+ * left the inventory must belong to a persisted completed order, and batch stock must move in step.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout-stress;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, NumberAllocator.class, BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceConcurrencyTest {
+
+    private static final int STOCK = 150;
+    private static final int TILLS = 8;
+    private static final int SALES_PER_TILL = 40;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Pharmacist pharmacist = new Pharmacist();
+        pharmacist.setName("Stress");
+        pharmacist.setEmail("stress@pharmaease.test");
+        pharmacist.setPassword("x");
+        Pharmacist savedPharmacist = pharmacistRepository.save(pharmacist);
+
+        Medicine fast = stockedMedicine("Paracetamol", STOCK);
+        Medicine slow = stockedMedicine("Ibuprofen", STOCK * 2);
+        // The fast mover is fully covered by two batches, so every unit sold must be traced to one of them
+        batch(fast, "B-LATE", LocalDate.now().plusYears(2), STOCK - 60);
+        batch(fast, "B-EARLY", LocalDate.now().plusMonths(3), 60);
+
+        AtomicInteger sequence = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService tills = Executors.newFixedThreadPool(TILLS);
+        for (int t = 0; t < TILLS; t++) {
+            tills.submit(() -> {
+                start.await();
+                for (int i = 0; i < SALES_PER_TILL; i++) {
+                    int n = sequence.incrementAndGet();
+                    try {
+                        orderService.createOrder(sale(savedPharmacist, fast, 1 + n % 3, slow, 1));
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        tills.shutdown();
+        assertThat(tills.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        int fastLeft = available(fast);
+        int slowLeft = available(slow);
+        assertThat(fastLeft).isGreaterThanOrEqualTo(0);
+        assertThat(slowLeft).isGreaterThanOrEqualTo(0);
+        assertThat(rejected.get()).isPositive();
+
+        int fastSold = 0;
+        int slowSold = 0;
+        for (Orders order : orderRepository.findByStatus(Orders.OrderStatus.COMPLETED)) {
+            Orders loaded = orderService.getOrderById(order.getId());
+            for (OrderItem item : loaded.getOrderItems()) {
+                if (item.getMedicine().getId().equals(fast.getId())) {
+                    assertThat(item.getBatch()).isNotNull();
+                    fastSold += item.getQuantity();
+                } else {
+                    slowSold += item.getQuantity();
+                }
+            }
+        }
+        assertThat(fastSold).isEqualTo(STOCK - fastLeft);
+        assertThat(slowSold).isEqualTo(STOCK * 2 - slowLeft);
+        assertThat(batchRepository.findByMedicine(fast).stream().mapToInt(StockBatch::getRemainingQuantity).sum())
+                .isEqualTo(fastLeft);
+    }
+
+    private Medicine stockedMedicine(String name, int quantity) {
+        Medicine medicine = new Medicine();
+        medicine.setName(name);
+        medicine.setUnitPrice(BigDecimal.ONE);
+        medicine = medicineRepository.save(medicine);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(quantity);
+        inventory.setAvailableQuantity(quantity);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    private void batch(Medicine medicine, String number, LocalDate expiry, int quantity) {
+        StockBatch batch = new StockBatch();
+        batch.setBatchNumber(number);
+        batch.setMedicine(medicine);
+        batch.setQuantity(quantity);
+        batch.setRemainingQuantity(quantity);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(expiry);
+        batchRepository.save(batch);
+    }
+
+    private int available(Medicine medicine) {
+        return inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0).getAvailableQuantity();
+    }
+
+    private Orders sale(Pharmacist pharmacist, Medicine first, int firstQty, Medicine second, int secondQty) {
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(Orders.OrderStatus.COMPLETED);
+        List<OrderItem> items = new ArrayList<>();
+        items.add(line(first, firstQty));
+        items.add(line(second, secondQty));
+        order.setOrderItems(items);
+        return order;
+    }
+
+    private OrderItem line(Medicine medicine, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.ONE);
+        return item;
+    }
+}
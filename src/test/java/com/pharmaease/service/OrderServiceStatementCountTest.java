@@ -0,0 +1,107 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements per sale must not grow with the number of lines: inserts and updates go out as JDBC batches.
+ * Hibernate statistics only see the entity inserts; the guarded stock decrements add one JDBC batch each.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, NumberAllocator.class, BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceStatementCountTest {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Pharmacist pharmacist;
+    private final List<Medicine> medicines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Bench");
+        p.setEmail("bench-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("x");
+        pharmacist = pharmacistRepository.save(p);
+
+        for (int i = 0; i < 20; i++) {
+            Medicine m = new Medicine();
+            m.setName("Medicine " + i);
+            m.setUnitPrice(BigDecimal.TEN);
+            m = medicineRepository.save(m);
+
+            Inventory inventory = new Inventory();
+            inventory.setMedicine(m);
+            inventory.setTotalQuantity(10_000);
+            inventory.setAvailableQuantity(10_000);
+            inventoryRepository.save(inventory);
+            medicines.add(m);
+        }
+    }
+
+    @Test
+    void statementsPerSaleDoNotScaleWithLineCount() {
+        // Warm up so the pooled sequences, the invoice number block and the batch cache are populated
+        sell(20);
+        sell(1);
+
+        long oneLine = sell(1);
+        long fiveLines = sell(5);
+        long twentyLines = sell(20);
+
+        System.out.println("📊 Statements per sale - 1 line: " + oneLine + ", 5 lines: " + fiveLines + ", 20 lines: " + twentyLines);
+        assertThat(fiveLines).isEqualTo(oneLine);
+        assertThat(twentyLines).isEqualTo(oneLine);
+    }
+
+    private long sell(int lines) {
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(Orders.OrderStatus.COMPLETED);
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setMedicine(medicines.get(i));
+            item.setQuantity(1);
+            item.setUnitPrice(BigDecimal.TEN);
+            items.add(item);
+        }
+        order.setOrderItems(items);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderService.createOrder(order);
+        return statistics.getPrepareStatementCount();
+    }
+}
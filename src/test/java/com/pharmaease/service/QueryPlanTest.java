@@ -0,0 +1,135 @@
+package com.pharmaease.service;
+
+import com.pharmaease.config.SchemaMigrator;
+import com.pharmaease.model.Customer;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Orders;
+import com.pharmaease.repository.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The SQL the repositories actually send is explained, and each plan must still go through the index
+ * its query was given. A renamed column, a rewritten query or an index missing from the migrations
+ * shows up here as a sequential scan.
+ * <p>
+ * Runs on PostgreSQL with the schema built by {@link SchemaMigrator} from {@code db/migration}, which
+ * the entities are then validated against; the plans of the H2 test schema say nothing about
+ * production. Pass {@code -Dpharmaease.test.postgres-url=...} (plus {@code -Dpharmaease.test.username}
+ * and {@code -Dpharmaease.test.password}) of an empty database to run it.
+ */
+@EnabledIfSystemProperty(named = "pharmaease.test.postgres-url", matches = ".+")
+@DataJpaTest(properties = {
+        "spring.datasource.url=${pharmaease.test.postgres-url:}",
+        "spring.datasource.username=${pharmaease.test.username:postgres}",
+        "spring.datasource.password=${pharmaease.test.password:}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.pharmaease.service.QueryPlanTest$Capture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SchemaMigrator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private StockBatchRepository batchRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void repositoryQueriesKeepTheirIndexes() {
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        LocalDate today = LocalDate.now();
+        Customer customer = new Customer();
+        customer.setId(1L);
+        Medicine medicine = new Medicine();
+        medicine.setId(1L);
+
+        assertUses("idx_orders_status_created", plan(() -> orderRepository.findByStatus(Orders.OrderStatus.COMPLETED), "COMPLETED"));
+        assertUses("idx_orders_created", plan(() -> orderRepository.countOrdersBetween(from, to), from, to));
+        assertUses("idx_order_items_order", plan(() -> orderItemRepository.sumQuantitiesByMedicine(1L), 1L));
+        assertUses("idx_order_items_medicine", plan(() -> orderItemRepository.findByMedicine(medicine), 1L));
+        assertUses("idx_stock_batches_expiry", plan(() -> batchRepository.findExpiringBatches(today, today.plusDays(30)), today, today.plusDays(30)));
+        assertUses("idx_inventory_low_stock", plan(inventoryRepository::countLowStockItems));
+        assertUses("idx_invoices_generated", plan(() -> invoiceRepository.sumAmountPaidBetween(from, to), from, to));
+        assertUses("idx_idempotency_keys_created", plan(() -> new TransactionTemplate(transactionManager)
+                .execute(status -> idempotencyKeyRepository.deleteCreatedBefore(from)), from));
+        assertUses("idx_orders_customer_created", plan(() -> orderRepository.findByCustomer(customer), 1L));
+        assertUses("idx_stock_batches_medicine_expiry", plan(() -> batchRepository.findAvailableBatchesByMedicine(1L), 1L));
+        String customerPlan = plan(() -> customerRepository.findActiveByPrefix("ali%", PageRequest.of(0, 20)), "ali%", "ali%", 21);
+        assertUses("idx_customers_name_prefix", customerPlan);
+        assertUses("idx_customers_phone_prefix", customerPlan);
+    }
+
+    /**
+     * The plan must not scan a table and must go through the index, or through that index on one of
+     * the partitions when it is declared on a partitioned table.
+     */
+    private void assertUses(String index, String plan) {
+        assertThat(plan).as(plan).doesNotContain("Seq Scan");
+        List<String> names = jdbcTemplate.queryForList("WITH RECURSIVE parts(oid) AS (" +
+                "SELECT ?::regclass::oid UNION ALL SELECT i.inhrelid FROM pg_inherits i JOIN parts p ON i.inhparent = p.oid) " +
+                "SELECT c.relname FROM parts p JOIN pg_class c ON c.oid = p.oid", String.class, index);
+        assertThat(names).as(plan).anyMatch(name -> plan.contains(" " + name + " ") || plan.endsWith(" " + name));
+    }
+
+    /**
+     * Runs the query to capture its SQL, then explains that SQL with the same parameters. Sequential
+     * scans are priced out, as on a full table, so the empty test tables don't make them look cheapest.
+     */
+    private String plan(Runnable query, Object... parameters) {
+        Capture.STATEMENTS.clear();
+        query.run();
+        assertThat(Capture.STATEMENTS).isNotEmpty();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + Capture.STATEMENTS.get(0), String.class, parameters));
+        });
+    }
+
+    public static class Capture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Pharmacist;
+import com.pharmaease.model.Supplier;
+import com.pharmaease.repository.PharmacistRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repeated reads of reference rows are served from memory, and every service write is visible to the
+ * next read.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ReferenceDataCache.class, MedicineService.class, MedicineSearchIndex.class, SupplierService.class,
+        PharmacistService.class, BCryptPasswordEncoder.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private ReferenceDataCache referenceCache;
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private SupplierService supplierService;
+    @Autowired
+    private PharmacistService pharmacistService;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void readsHitTheCacheAndWritesInvalidateIt() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Acme");
+        supplier = supplierService.createSupplier(supplier);
+        Medicine medicine = medicineService.createMedicine(medicine("Loratadine", "Antihistamine", supplier));
+
+        medicineService.getMedicineById(medicine.getId());
+        medicineService.getAllCategories();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            medicineService.getMedicineById(medicine.getId());
+            supplierService.getSupplierById(supplier.getId());
+            medicineService.getAllCategories();
+        }
+        // One miss for the supplier, everything else from memory
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(referenceCache.medicines().stats().hits()).isGreaterThanOrEqualTo(10);
+
+        // Medicine edits, including the pick lists they feed
+        medicineService.updateMedicine(medicine.getId(), medicine("Loratadine 10", "Allergy", supplier));
+        assertThat(medicineService.getMedicineById(medicine.getId()).getName()).isEqualTo("Loratadine 10");
+        assertThat(medicineService.getAllCategories()).contains("Allergy").doesNotContain("Antihistamine");
+
+        // A supplier edit reaches the medicines that carry it
+        Supplier renamed = new Supplier();
+        renamed.setName("Acme Health");
+        supplierService.updateSupplier(supplier.getId(), renamed);
+        assertThat(supplierService.getSupplierById(supplier.getId()).getName()).isEqualTo("Acme Health");
+        assertThat(medicineService.getMedicineById(medicine.getId()).getSupplier().getName()).isEqualTo("Acme Health");
+
+        // The signed-in pharmacist is resolved once, and reloaded after an edit
+        Pharmacist p = new Pharmacist();
+        p.setName("Cached");
+        p.setEmail("cached-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("secret");
+        Pharmacist pharmacist = pharmacistService.createPharmacist(p);
+        assertThat(pharmacistService.getPharmacistByEmail(pharmacist.getEmail())).isPresent();
+        statistics.clear();
+        assertThat(pharmacistService.getPharmacistByEmail(pharmacist.getEmail())).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        Pharmacist edited = new Pharmacist();
+        edited.setName("Cached Again");
+        edited.setRole("ADMIN");
+        pharmacistService.updatePharmacist(pharmacist.getId(), edited);
+        assertThat(pharmacistService.getPharmacistByEmail(pharmacist.getEmail()).orElseThrow().getName()).isEqualTo("Cached Again");
+
+        pharmacistService.deletePharmacist(pharmacist.getId());
+        assertThat(pharmacistRepository.findById(pharmacist.getId())).isEmpty();
+        assertThat(pharmacistService.getPharmacistByEmail(pharmacist.getEmail())).isEmpty();
+    }
+
+    @Test
+    void staysBoundedAndDropsLoadsThatRacedAnInvalidation() {
+        ReferenceCache<Integer, String> cache = new ReferenceCache<>("test", 3);
+        for (int i = 0; i < 5; i++) {
+            cache.get(i, String::valueOf);
+        }
+        assertThat(cache.stats().size()).isEqualTo(3);
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+
+        // The row changes while it is being read: the old value is returned but not kept
+        assertThat(cache.get(9, key -> {
+            cache.invalidate(key);
+            return "old";
+        })).isEqualTo("old");
+        assertThat(cache.get(9, key -> "new")).isEqualTo("new");
+        assertThat(cache.stats().hitRate()).isZero();
+        assertThat(cache.get(9, key -> "newer")).isEqualTo("new");
+    }
+
+    private Medicine medicine(String name, String category, Supplier supplier) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setCategory(category);
+        m.setUnitPrice(BigDecimal.ONE);
+        m.setSupplier(supplier);
+        return m;
+    }
+}
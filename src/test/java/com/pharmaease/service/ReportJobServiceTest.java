@@ -0,0 +1,147 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.Inventory;
+import com.pharmaease.model.Medicine;
+import com.pharmaease.model.Orders;
+import com.pharmaease.model.Report;
+import com.pharmaease.model.SalesDailyRollup;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.ReportRepository;
+import com.pharmaease.repository.SalesDailyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reports are generated in the background: identical requests share one job, a job left running by
+ * a node that went down is picked up again, and the result ends up on the report row.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ReportJobService.class, ReportService.class, BatchExpiryIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReportJobServiceTest {
+
+    @Autowired
+    private ReportJobService jobService;
+    @Autowired
+    private ReportRepository reportRepository;
+    @Autowired
+    private SalesDailyRollupRepository rollupRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void identicalRequestsJoinTheActiveJobWhichSurvivesItsNode() throws Exception {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        LocalDate end = LocalDate.of(2026, 3, 31);
+        for (int month = 1; month <= 3; month++) {
+            SalesDailyRollup day = new SalesDailyRollup();
+            day.setSalesDate(LocalDate.of(2026, month, 15));
+            day.setPaymentMethod(Orders.PaymentMethod.CASH);
+            day.setCompletedOrders((long) month);
+            day.setGrossAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf(month)));
+            rollupRepository.save(day);
+        }
+
+        // Another node is running the same quarter
+        Report running = new Report();
+        running.setReportType(Report.ReportType.MONTHLY_SALES);
+        running.setStartDate(start);
+        running.setEndDate(end);
+        running.setStatus(Report.Status.RUNNING);
+        running.setProgress(30);
+        running.setRequestKey("MONTHLY_SALES:" + start + ":" + end);
+        running.setUpdatedAt(LocalDateTime.now());
+        Long jobId = reportRepository.save(running).getId();
+
+        List<Long> ids = new ArrayList<>();
+        try (ExecutorService requests = Executors.newFixedThreadPool(8)) {
+            List<Future<Report>> submitted = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                submitted.add(requests.submit(() -> jobService.submit(Report.ReportType.MONTHLY_SALES, start, end, null)));
+            }
+            for (Future<Report> report : submitted) {
+                ids.add(report.get().getId());
+            }
+        }
+        assertThat(ids).containsOnly(jobId);
+        jobService.recover();
+        assertThat(jobService.getStatus(jobId).status()).isEqualTo(Report.Status.RUNNING);
+
+        // The node went down: its job stops making progress and is run here instead
+        jdbcTemplate.update("UPDATE reports SET updated_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), jobId);
+        jobService.recover();
+
+        ReportJobService.JobStatus done = awaitFinished(jobId);
+        assertThat(done.status()).isEqualTo(Report.Status.COMPLETED);
+        assertThat(done.progress()).isEqualTo(100);
+        Report report = reportRepository.findById(jobId).orElseThrow();
+        assertThat(report.getTotalSales()).isEqualByComparingTo("60");
+        assertThat(report.getTotalOrders()).isEqualTo(6);
+        assertThat(report.getCompletedAt()).isNotNull();
+
+        // A finished job is not joined; asking again computes a fresh report
+        Long again = jobService.submit(Report.ReportType.MONTHLY_SALES, start, end, null).getId();
+        assertThat(again).isNotEqualTo(jobId);
+        assertThat(awaitFinished(again).summary()).isEqualTo(done.summary());
+    }
+
+    @Test
+    void stockReportsCountInventoryInChunks() throws Exception {
+        stock("Cetirizine", 50);
+        stock("Loratadine", 4);
+        stock("Fexofenadine", 0);
+
+        Long inventoryJob = jobService.submit(Report.ReportType.INVENTORY, null, null, null).getId();
+        Long lowStockJob = jobService.submit(Report.ReportType.LOW_STOCK, null, null, null).getId();
+
+        assertThat(awaitFinished(inventoryJob).summary())
+                .isEqualTo("Inventory report. Total items: 3, Low stock: 0, Out of stock: 1");
+        assertThat(awaitFinished(lowStockJob).summary()).isEqualTo("Low stock report. 2 items need reordering");
+        assertThat(reportRepository.findById(lowStockJob).orElseThrow().getStartDate()).isEqualTo(LocalDate.now());
+    }
+
+    private void stock(String name, int quantity) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(quantity);
+        inventory.setAvailableQuantity(quantity);
+        inventoryRepository.save(inventory);
+    }
+
+    private ReportJobService.JobStatus awaitFinished(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ReportJobService.JobStatus status = jobService.getStatus(id);
+        while (!status.finished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = jobService.getStatus(id);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.SalesDailyRollupRepository;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rollup kept up to date by completions and cancellations must match a rebuild from the orders
+ * table, and the dashboard must read its figures from it.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({OrderService.class, NumberAllocator.class, BatchAllocator.class, StockReservationService.class,
+        SalesRollupService.class, ReportService.class, BatchExpiryIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SalesRollupServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private SalesDailyRollupRepository rollupRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+
+    @Test
+    void incrementalRollupMatchesRebuildAndFeedsTheDashboard() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Rollup");
+        p.setEmail("rollup@pharmaease.test");
+        p.setPassword("x");
+        Pharmacist pharmacist = pharmacistRepository.save(p);
+
+        Medicine m = new Medicine();
+        m.setName("Metformin");
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+
+        orderService.createOrder(sale(pharmacist, medicine, 2, Orders.OrderStatus.COMPLETED, Orders.PaymentMethod.CASH));
+        orderService.createOrder(sale(pharmacist, medicine, 3, Orders.OrderStatus.COMPLETED, Orders.PaymentMethod.CARD));
+        Orders later = orderService.createOrder(sale(pharmacist, medicine, 1, Orders.OrderStatus.PENDING, Orders.PaymentMethod.CASH));
+        orderService.completeOrder(later.getId(), BigDecimal.valueOf(20));
+        Orders dropped = orderService.createOrder(sale(pharmacist, medicine, 4, Orders.OrderStatus.PENDING, Orders.PaymentMethod.CARD));
+        orderService.cancelOrder(dropped.getId());
+
+        LocalDate today = LocalDate.now();
+        List<SalesDailyRollup> incremental = rollupRepository.findBetween(today, today);
+        assertThat(rollupRepository.sumBetween(today, today).getCompletedOrders()).isEqualTo(3L);
+        // 6 units at 10 plus 5% tax
+        assertThat(rollupRepository.sumBetween(today, today).getGrossAmount()).isEqualByComparingTo("63.00");
+
+        salesRollupService.rebuild();
+        List<SalesDailyRollup> rebuilt = rollupRepository.findBetween(today, today);
+        assertThat(rebuilt).usingRecursiveFieldByFieldElementComparator(
+                        RecursiveComparisonConfiguration.builder()
+                                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class).build())
+                .containsExactlyElementsOf(incremental);
+        assertThat(rebuilt.stream().mapToLong(SalesDailyRollup::getCancelledOrders).sum()).isEqualTo(1L);
+
+        Map<String, Object> stats = reportService.getDashboardStatistics();
+        assertThat(stats.get("todayOrders")).isEqualTo(3L);
+        assertThat((Double) stats.get("todaySales")).isEqualTo(63.0);
+        assertThat(stats.get("totalSales")).isEqualTo(stats.get("monthSales"));
+    }
+
+    private Orders sale(Pharmacist pharmacist, Medicine medicine, int quantity, Orders.OrderStatus status, Orders.PaymentMethod method) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.TEN);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(status);
+        order.setPaymentMethod(method);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
@@ -0,0 +1,147 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.StockLevel;
+import com.pharmaease.repository.StockMovementView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Every stock change lands in the ledger, stock at a past time comes from a snapshot plus the
+ * movements after it, and a rebuild puts a drifted inventory row back to what the ledger says.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.ledger.snapshot-settle-ms=0",
+        "pharmaease.ledger.rebuild-threads=2",
+        "pharmaease.ledger.rebuild-chunk-size=1"
+})
+@Import({StockLedgerService.class, StockBatchService.class, BatchExpiryIndex.class, OrderService.class, NumberAllocator.class,
+        BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockLedgerServiceTest {
+
+    @Autowired
+    private StockLedgerService ledgerService;
+    @Autowired
+    private StockBatchService stockBatchService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void ledgerExplainsAndRestoresInventory() throws InterruptedException {
+        Pharmacist pharmacist = pharmacist();
+        Medicine medicine = medicine("Metformin");
+        Medicine untouched = medicine("Glipizide");
+
+        stockBatchService.createBatch(batch(medicine, 50));
+        orderService.createOrder(sale(pharmacist, medicine, 5, Orders.OrderStatus.COMPLETED));
+        Orders pending = orderService.createOrder(sale(pharmacist, medicine, 3, Orders.OrderStatus.PENDING));
+        orderService.cancelOrder(pending.getId());
+
+        assertThat(ledgerService.getMovements(medicine.getId(), 10))
+                .extracting(StockMovementView::movementType, StockMovementView::availableChange, StockMovementView::reservedChange)
+                .containsExactly(
+                        tuple(StockMovement.Type.CANCEL, 3, -3),
+                        tuple(StockMovement.Type.RESERVE, -3, 3),
+                        tuple(StockMovement.Type.SALE, -5, 0),
+                        tuple(StockMovement.Type.RECEIPT, 50, 0));
+        assertThat(ledgerService.getMovements(medicine.getId(), 10).get(0).reference()).isEqualTo(pending.getOrderNumber());
+
+        // A snapshot, then one more sale on top of it
+        Thread.sleep(5);
+        assertThat(ledgerService.takeSnapshots()).isEqualTo(1);
+        assertThat(ledgerService.takeSnapshots()).isZero();
+        Thread.sleep(5);
+        LocalDateTime beforeSecondSale = LocalDateTime.now();
+        Thread.sleep(5);
+        orderService.createOrder(sale(pharmacist, medicine, 2, Orders.OrderStatus.COMPLETED));
+
+        assertThat(ledgerService.getStockAt(medicine.getId(), beforeSecondSale)).isEqualTo(new StockLevel(medicine.getId(), 50, 45, 0));
+        assertThat(ledgerService.getStockAt(medicine.getId(), LocalDateTime.now())).isEqualTo(new StockLevel(medicine.getId(), 50, 43, 0));
+        assertThat(ledgerService.getStockAt(medicine.getId(), LocalDateTime.now().minusYears(1))).isEqualTo(new StockLevel(medicine.getId(), 0, 0, 0));
+        assertThat(ledgerService.rebuild().corrected()).isZero();
+
+        // Someone edits the row behind the ledger's back
+        jdbcTemplate.update("UPDATE inventory SET available_quantity = 999 WHERE medicine_id = ?", medicine.getId());
+        StockLedgerService.Rebuild rebuild = ledgerService.rebuild();
+        assertThat(rebuild.medicines()).isEqualTo(2);
+        assertThat(rebuild.corrected()).isEqualTo(1);
+        assertThat(rebuild.failedChunks()).isZero();
+
+        Inventory restored = inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0);
+        assertThat(restored.getTotalQuantity()).isEqualTo(50);
+        assertThat(restored.getAvailableQuantity()).isEqualTo(43);
+        assertThat(inventoryRepository.findByMedicineIds(List.of(untouched.getId())).get(0).getAvailableQuantity()).isZero();
+    }
+
+    private Medicine medicine(String name) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setUnitPrice(BigDecimal.TEN);
+        Medicine medicine = medicineRepository.save(m);
+
+        // An empty row, as MedicineService creates it: nothing in the ledger yet
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventoryRepository.save(inventory);
+        return medicine;
+    }
+
+    private Pharmacist pharmacist() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Ledger");
+        p.setEmail("ledger@pharmaease.test");
+        p.setPassword("x");
+        return pharmacistRepository.save(p);
+    }
+
+    private StockBatch batch(Medicine medicine, int quantity) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber("LED-" + System.nanoTime());
+        batch.setQuantity(quantity);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(LocalDate.now().plusYears(1));
+        return batch;
+    }
+
+    private Orders sale(Pharmacist pharmacist, Medicine medicine, int quantity, Orders.OrderStatus status) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.TEN);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(status);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
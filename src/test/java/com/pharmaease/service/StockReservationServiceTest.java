@@ -0,0 +1,159 @@
+package com.pharmaease.service;
+
+import com.pharmaease.model.*;
+import com.pharmaease.repository.InventoryRepository;
+import com.pharmaease.repository.MedicineRepository;
+import com.pharmaease.repository.OrderRepository;
+import com.pharmaease.repository.PharmacistRepository;
+import com.pharmaease.repository.StockBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A pending order holds its stock until it is completed, cancelled or the hold expires, and the
+ * stock moves exactly once whichever of those happens first. Holds expire immediately here (TTL 0)
+ * and the sweeper is driven by hand.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pharmaease.reservations.ttl-minutes=0",
+        "pharmaease.reservations.tick-ms=20"
+})
+@Import({OrderService.class, NumberAllocator.class, BatchAllocator.class, StockReservationService.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacistRepository pharmacistRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private StockBatchRepository stockBatchRepository;
+
+    private Pharmacist pharmacist;
+    private Medicine medicine;
+
+    @BeforeEach
+    void setUp() {
+        Pharmacist p = new Pharmacist();
+        p.setName("Hold");
+        p.setEmail("hold-" + System.nanoTime() + "@pharmaease.test");
+        p.setPassword("x");
+        pharmacist = pharmacistRepository.save(p);
+
+        Medicine m = new Medicine();
+        m.setName("Amoxicillin " + System.nanoTime());
+        m.setUnitPrice(BigDecimal.ONE);
+        medicine = medicineRepository.save(m);
+
+        Inventory inventory = new Inventory();
+        inventory.setMedicine(medicine);
+        inventory.setTotalQuantity(100);
+        inventory.setAvailableQuantity(100);
+        inventoryRepository.save(inventory);
+    }
+
+    @Test
+    void completingConsumesTheHold() {
+        Orders pending = orderService.createOrder(pendingSale(5));
+        assertStock(95, 5);
+
+        int open = stockReservationService.getOpenReservationCount();
+        orderService.completeOrder(pending.getId(), BigDecimal.TEN);
+        assertStock(95, 0);
+        assertThat(orderRepository.findById(pending.getId()).orElseThrow().getReservedUntil()).isNull();
+        assertThat(stockReservationService.getOpenReservationCount()).isEqualTo(open - 1);
+    }
+
+    @Test
+    void cancellingReleasesTheHold() {
+        Orders pending = orderService.createOrder(pendingSale(5));
+        int open = stockReservationService.getOpenReservationCount();
+        orderService.cancelOrder(pending.getId());
+        assertStock(100, 0);
+        assertThat(stockReservationService.getOpenReservationCount()).isEqualTo(open - 1);
+    }
+
+    @Test
+    void expiredHoldsAreReleasedOnceAndCompletionFallsBackToAvailableStock() throws Exception {
+        Orders pending = orderService.createOrder(pendingSale(5));
+        assertStock(95, 5);
+
+        Thread.sleep(100);
+        stockReservationService.sweepExpired();
+        assertStock(100, 0);
+
+        // Nothing left to release; completing now deducts from available stock instead
+        orderService.cancelOrder(orderService.createOrder(pendingSale(1)).getId());
+        orderService.completeOrder(pending.getId(), BigDecimal.TEN);
+        assertStock(95, 0);
+    }
+
+    @Test
+    void linesSplitAtCompletionKeepTheirOrdersCreationTime() throws Exception {
+        batch("HOLD-A", 3, 6);
+        batch("HOLD-B", 3, 12);
+        Orders pending = orderService.createOrder(pendingSale(5));
+        Orders created = orderService.getOrderById(pending.getId());
+        assertThat(created.getOrderItems()).extracting(OrderItem::getCreatedAt).containsExactly(created.getCreatedAt());
+
+        Thread.sleep(20);
+        orderService.completeOrder(pending.getId(), BigDecimal.TEN);
+
+        // created_at is the partition key of order_items and must put every line in its order's month
+        Orders completed = orderService.getOrderById(pending.getId());
+        assertThat(completed.getOrderItems()).extracting(OrderItem::getCreatedAt)
+                .containsExactly(completed.getCreatedAt(), completed.getCreatedAt());
+    }
+
+    private void batch(String number, int quantity, int monthsToExpiry) {
+        StockBatch batch = new StockBatch();
+        batch.setMedicine(medicine);
+        batch.setBatchNumber(number + "-" + System.nanoTime());
+        batch.setQuantity(quantity);
+        batch.setRemainingQuantity(quantity);
+        batch.setCostPrice(BigDecimal.ONE);
+        batch.setManufacturingDate(LocalDate.now().minusMonths(1));
+        batch.setExpiryDate(LocalDate.now().plusMonths(monthsToExpiry));
+        stockBatchRepository.save(batch);
+    }
+
+    private void assertStock(int available, int reserved) {
+        Inventory inventory = inventoryRepository.findByMedicineIds(List.of(medicine.getId())).get(0);
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(available);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(reserved);
+    }
+
+    private Orders pendingSale(int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMedicine(medicine);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.ONE);
+
+        Orders order = new Orders();
+        order.setPharmacist(pharmacist);
+        order.setStatus(Orders.OrderStatus.PENDING);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
@@ -0,0 +1,58 @@
+package com.pharmaease.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEachDeadlineOnceAndNeverEarly() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 60, 0);
+        wheel.schedule(1, 1500);
+        wheel.schedule(2, 2000);
+        wheel.schedule(3, 90_000); // more than one revolution ahead
+
+        // Deadlines round up to the next tick, so a hold fires at most one tick late
+        assertThat(wheel.advance(1999)).isEmpty();
+        assertThat(wheel.advance(2000)).containsExactlyInAnyOrder(1, 2);
+        assertThat(wheel.advance(89_999)).isEmpty();
+        assertThat(wheel.advance(500_000)).containsExactly(3);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledAndRescheduledValuesFireOnlyAsLastScheduled() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 60, 0);
+        wheel.schedule(1, 1000);
+        wheel.schedule(2, 1000);
+        wheel.schedule(2, 5000);
+        assertThat(wheel.cancel(1)).isTrue();
+        assertThat(wheel.cancel(1)).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(wheel.advance(1000)).isEmpty();
+        assertThat(wheel.advance(5000)).containsExactly(2);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void sweepCostFollowsDueHoldsNotOpenHolds() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(5000, 720, 0);
+        int open = 50_000;
+        for (int i = 0; i < open; i++) {
+            // Spread over a 30 minute TTL window
+            wheel.schedule(i, (i % 1800) * 1000L + 1000);
+        }
+
+        long start = System.nanoTime();
+        List<Integer> due = wheel.advance(5000);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        System.out.println("⏱️ Swept " + due.size() + " due of " + open + " open holds in " + micros + "µs");
+        assertThat(due).hasSize(open / 1800 * 5 + 5);
+        assertThat(wheel.size()).isEqualTo(open - due.size());
+    }
+}
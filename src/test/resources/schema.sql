@@ -0,0 +1,3 @@
+-- The test slices build their schema from the entities; these are the sequences of V11 that no entity maps
+CREATE SEQUENCE IF NOT EXISTS order_number_hi_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS invoice_number_hi_seq START WITH 1 INCREMENT BY 1;